@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rules that tell the {@link JreqsAgent} which {@code Reqs} call sites to strip and which checks to inject.
+ * <p/>
+ * A rules file has one rule per line; blank lines and lines starting with {@code #} are ignored:
+ * <pre>
+ * # action  what             scope
+ * strip     postCondition    com.example.book.**
+ * keep      condition        com.example.book.Audit
+ * strip     condition        com.example.book.**
+ * inject    notNull          com.example.api.*#place
+ * </pre>
+ * {@code strip} and {@code keep} take a category, which is the name of a {@code Reqs} method ({@code parameterCondition},
+ * {@code condition}, {@code preCondition} or {@code postCondition}) or {@code *} for all of them.  For a call site,
+ * the first {@code strip} or {@code keep} rule that matches its category and class decides, and call sites matched
+ * by none are kept.
+ * <p/>
+ * {@code inject} takes the name of a no-argument factory method of {@code Predicates}: all the parameters of the
+ * matching methods whose type fits the predicate are checked with {@code Reqs.parameterCondition} on method entry.
+ * <p/>
+ * A scope is a class name, {@code package.*} for the classes of a package, {@code package.**} for the classes of a
+ * package and its subpackages, or {@code *} for all classes.  An {@code inject} scope may end with {@code #method}
+ * to only match methods with that name.  Classes of jreqs itself are never matched.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class AgentRules {
+    private static final Set<String> CATEGORIES = new HashSet<String>(Arrays.asList("parameterCondition", "condition", "preCondition", "postCondition"));
+    private final List<Rule> callSiteRules;
+    private final List<Rule> injectRules;
+
+    private AgentRules(final List<Rule> callSiteRulesParam, final List<Rule> injectRulesParam) {
+        callSiteRules = callSiteRulesParam;
+        injectRules = injectRulesParam;
+    }
+
+    /**
+     * Loads the rules of the specified file, in UTF-8.
+     *
+     * @param fileParam The rules file.  Must not be {@code null}.
+     * @return The rules.
+     * @throws IOException if the file can't be read.
+     */
+    public static AgentRules load(final Path fileParam) throws IOException {
+        if (fileParam == null) {
+            throw new IllegalArgumentException("Rules file parameter must not be null.");
+        }
+        final BufferedReader reader = Files.newBufferedReader(fileParam, StandardCharsets.UTF_8);
+        try {
+            return parse(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses rules.
+     *
+     * @param readerParam The reader of the rules.  Must not be {@code null}.
+     * @return The rules.
+     * @throws IOException              if the rules can't be read.
+     * @throws IllegalArgumentException if a rule is malformed.
+     */
+    public static AgentRules parse(final BufferedReader readerParam) throws IOException {
+        if (readerParam == null) {
+            throw new IllegalArgumentException("Reader parameter must not be null.");
+        }
+        final List<Rule> callSiteRules = new ArrayList<Rule>();
+        final List<Rule> injectRules = new ArrayList<Rule>();
+        int lineNumber = 0;
+        for (String line = readerParam.readLine(); line != null; line = readerParam.readLine()) {
+            lineNumber++;
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            final String[] tokens = trimmed.split("\\s+");
+            if (tokens.length != 3) {
+                throw new IllegalArgumentException("Rule at line " + lineNumber + " must have an action, a category or predicate, and a scope: " + trimmed);
+            }
+            final String action = tokens[0];
+            if (action.equals("strip") || action.equals("keep")) {
+                if (!tokens[1].equals("*") && !CATEGORIES.contains(tokens[1])) {
+                    throw new IllegalArgumentException("Unknown category at line " + lineNumber + ": " + tokens[1]);
+                }
+                if (tokens[2].contains("#")) {
+                    throw new IllegalArgumentException("Scope at line " + lineNumber + " can't name a method for a " + action + " rule: " + tokens[2]);
+                }
+                callSiteRules.add(new Rule(action.equals("strip"), tokens[1], tokens[2], null));
+            } else if (action.equals("inject")) {
+                final int hash = tokens[2].indexOf('#');
+                final String scope = hash < 0 ? tokens[2] : tokens[2].substring(0, hash);
+                final String method = hash < 0 ? null : tokens[2].substring(hash + 1);
+                injectRules.add(new Rule(true, tokens[1], scope, method));
+            } else {
+                throw new IllegalArgumentException("Unknown action at line " + lineNumber + ": " + action);
+            }
+        }
+        return new AgentRules(Collections.unmodifiableList(callSiteRules), Collections.unmodifiableList(injectRules));
+    }
+
+    /**
+     * Returns {@code true} if some rule may apply to the specified class.
+     *
+     * @param classNameParam The binary name of the class, such as {@code com.example.Foo$Bar}.
+     * @return {@code true} if the class must be examined.
+     */
+    public boolean concerns(final String classNameParam) {
+        if (isJreqsClass(classNameParam)) {
+            return false;
+        }
+        for (final Rule rule : callSiteRules) {
+            if (rule.strip && rule.matchesClass(classNameParam)) {
+                return true;
+            }
+        }
+        for (final Rule rule : injectRules) {
+            if (rule.matchesClass(classNameParam)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the call sites of the specified category in the specified class must be stripped.
+     *
+     * @param categoryParam  The name of the {@code Reqs} method.
+     * @param classNameParam The binary name of the calling class.
+     * @return {@code true} if the call sites must be stripped.
+     */
+    public boolean strips(final String categoryParam, final String classNameParam) {
+        if (isJreqsClass(classNameParam)) {
+            return false;
+        }
+        for (final Rule rule : callSiteRules) {
+            if ((rule.what.equals("*") || rule.what.equals(categoryParam)) && rule.matchesClass(classNameParam)) {
+                return rule.strip;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the predicate factories whose checks must be injected in the specified method.
+     *
+     * @param classNameParam  The binary name of the class.
+     * @param methodNameParam The name of the method.
+     * @return The names of the {@code Predicates} factory methods, in rule order.
+     */
+    public List<String> injectedChecks(final String classNameParam, final String methodNameParam) {
+        if (isJreqsClass(classNameParam)) {
+            return Collections.emptyList();
+        }
+        List<String> checks = Collections.emptyList();
+        for (final Rule rule : injectRules) {
+            if (rule.matchesClass(classNameParam) && (rule.method == null || rule.method.equals(methodNameParam))) {
+                if (checks.isEmpty()) {
+                    checks = new ArrayList<String>();
+                }
+                checks.add(rule.what);
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * Returns the names of all the predicate factories of the {@code inject} rules.
+     *
+     * @return The names of the {@code Predicates} factory methods.
+     */
+    public Set<String> getInjectedPredicates() {
+        final Set<String> predicates = new HashSet<String>();
+        for (final Rule rule : injectRules) {
+            predicates.add(rule.what);
+        }
+        return predicates;
+    }
+
+    private static boolean isJreqsClass(final String classNameParam) {
+        return classNameParam.startsWith("biz.littlej.jreqs.");
+    }
+
+    /**
+     * One rule of the file.
+     */
+    private static final class Rule {
+        private final boolean strip;
+        private final String what;
+        private final String scope;
+        private final String method;
+
+        private Rule(final boolean stripParam, final String whatParam, final String scopeParam, final String methodParam) {
+            strip = stripParam;
+            what = whatParam;
+            scope = scopeParam;
+            method = methodParam;
+        }
+
+        private boolean matchesClass(final String classNameParam) {
+            if (scope.equals("*") || scope.equals("**")) {
+                return true;
+            }
+            final int dot = classNameParam.lastIndexOf('.');
+            final String packageName = dot < 0 ? "" : classNameParam.substring(0, dot);
+            if (scope.endsWith(".**")) {
+                final String prefix = scope.substring(0, scope.length() - 3);
+                return packageName.equals(prefix) || packageName.startsWith(prefix + ".");
+            }
+            if (scope.endsWith(".*")) {
+                return packageName.equals(scope.substring(0, scope.length() - 2));
+            }
+            return classNameParam.equals(scope);
+        }
+    }
+}
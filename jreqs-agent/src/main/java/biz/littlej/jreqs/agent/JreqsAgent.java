@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Paths;
+
+/**
+ * Java agent that strips or injects {@code Reqs} checks when classes are loaded, according to a rules file (see
+ * {@link AgentRules}).  Checks can thus be kept in the source code and stripped from hot packages in production,
+ * without rebuilding, or added to code that has none:
+ * <pre>
+ * java -javaagent:jreqs-agent.jar=rules=/etc/app/jreqs.rules -jar app.jar
+ * </pre>
+ * Options are separated by commas: {@code rules=<path>} is mandatory and {@code report=true} prints a one-line
+ * report on the standard error stream when the JVM shuts down.  Nothing is printed by default.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class JreqsAgent {
+    /**
+     * Entry point of the agent when it is started with {@code -javaagent}.
+     *
+     * @param argumentsParam       The options of the agent.
+     * @param instrumentationParam The instrumentation.
+     * @throws IOException if the rules file can't be read.
+     */
+    public static void premain(final String argumentsParam, final Instrumentation instrumentationParam) throws IOException {
+        String rulesFile = null;
+        boolean report = false;
+        if (argumentsParam != null) {
+            for (final String option : argumentsParam.split(",")) {
+                if (option.startsWith("rules=")) {
+                    rulesFile = option.substring("rules=".length());
+                } else if (option.equals("report=true")) {
+                    report = true;
+                } else if (!option.equals("report=false")) {
+                    throw new IllegalArgumentException("Unknown jreqs-agent option: " + option);
+                }
+            }
+        }
+        if (rulesFile == null) {
+            throw new IllegalArgumentException("jreqs-agent needs a rules file: -javaagent:jreqs-agent.jar=rules=<path>");
+        }
+        final ReqsCallSiteTransformer transformer = new ReqsCallSiteTransformer(AgentRules.load(Paths.get(rulesFile)));
+        instrumentationParam.addTransformer(transformer);
+        if (report) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(report(transformer)), "jreqs-agent-report"));
+        }
+    }
+
+    /**
+     * Returns the one-line report of what the specified transformer did.
+     *
+     * @param transformerParam The transformer.
+     * @return The report.
+     */
+    static String report(final ReqsCallSiteTransformer transformerParam) {
+        return "jreqs-agent: stripped " + transformerParam.getStrippedCallSites() + " Reqs call sites ("
+                + transformerParam.getStrippedWithArguments() + " with their arguments), injected "
+                + transformerParam.getInjectedChecks() + " checks in " + transformerParam.getTransformedClasses() + " classes.";
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private JreqsAgent() {
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.nio.charset.StandardCharsets;
+import java.security.ProtectionDomain;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rewrites the {@code Reqs} call sites of loaded classes according to {@link AgentRules}.
+ * <p/>
+ * A stripped call site is removed together with the bytecode that computes its arguments (the predicate, the input
+ * and the message), like assertions disabled with {@code -da}: side effects of these expressions do not happen
+ * anymore.  This requires the arguments to be computed by straight-line code made of loads, constants, field reads,
+ * method calls, string concatenations and simple arithmetic; otherwise, for example when the message contains a
+ * conditional expression, only the call itself is removed and the arguments are evaluated then discarded.
+ * <p/>
+ * Injected checks call {@code Reqs.parameterCondition} on method entry for each parameter whose type fits the
+ * predicate: a reference parameter for a predicate on any object, or a parameter of a JDK type or a primitive type
+ * that is assignable to the input type of the predicate, primitives being boxed.
+ * <p/>
+ * Instances are thread-safe.  The counters report what has been rewritten since the creation of the transformer.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ReqsCallSiteTransformer implements ClassFileTransformer {
+    private static final String REQS = "biz/littlej/jreqs/Reqs";
+    private static final String PREDICATES = "biz/littlej/jreqs/predicates/Predicates";
+    private static final String PREDICATE_DESCRIPTOR = "()Lbiz/littlej/jreqs/predicates/Predicate;";
+    private static final String CONDITION_DESCRIPTOR = "(Lbiz/littlej/jreqs/predicates/Predicate;Ljava/lang/Object;Ljava/lang/String;)V";
+    private static final byte[] REQS_BYTES = REQS.getBytes(StandardCharsets.UTF_8);
+    private final AgentRules rules;
+    private final Map<String, Class<?>> predicateInputTypes = new HashMap<String, Class<?>>();
+    private final AtomicLong transformedClasses = new AtomicLong();
+    private final AtomicLong strippedCallSites = new AtomicLong();
+    private final AtomicLong strippedWithArguments = new AtomicLong();
+    private final AtomicLong injectedChecks = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param rulesParam The rules.  Must not be {@code null}.
+     * @throws IllegalArgumentException if an {@code inject} rule names no no-argument factory of {@code Predicates}.
+     * @throws IllegalStateException    if the rules inject checks but jreqs-core is not on the class path.
+     */
+    public ReqsCallSiteTransformer(final AgentRules rulesParam) {
+        if (rulesParam == null) {
+            throw new IllegalArgumentException("Rules parameter must not be null.");
+        }
+        rules = rulesParam;
+        for (final String predicate : rulesParam.getInjectedPredicates()) {
+            predicateInputTypes.put(predicate, predicateInputType(predicate));
+        }
+    }
+
+    /**
+     * Returns the erasure of the input type of the predicates returned by the specified factory of {@code Predicates}.
+     */
+    private static Class<?> predicateInputType(final String factoryParam) {
+        final Method factory;
+        try {
+            factory = Class.forName(PREDICATES.replace('/', '.')).getMethod(factoryParam);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("jreqs-core must be on the class path to inject checks.", e);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Unknown predicate factory: " + factoryParam, e);
+        }
+        if (!Modifier.isStatic(factory.getModifiers())) {
+            throw new IllegalArgumentException("Unknown predicate factory: " + factoryParam);
+        }
+        if (factory.getGenericReturnType() instanceof ParameterizedType) {
+            final java.lang.reflect.Type input = ((ParameterizedType) factory.getGenericReturnType()).getActualTypeArguments()[0];
+            if (input instanceof Class) {
+                return (Class<?>) input;
+            }
+            if (input instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) input).getRawType();
+            }
+        }
+        return Object.class;
+    }
+
+    public byte[] transform(final ClassLoader loaderParam, final String classNameParam, final Class<?> classBeingRedefinedParam,
+                            final ProtectionDomain protectionDomainParam, final byte[] classfileBufferParam) {
+        if (classNameParam == null || !rules.concerns(classNameParam.replace('/', '.'))) {
+            return null;
+        }
+        try {
+            return rewrite(classfileBufferParam);
+        } catch (RuntimeException e) {
+            // Never prevent a class from loading: keep it as it is.
+            return null;
+        }
+    }
+
+    /**
+     * Rewrites the specified class.
+     *
+     * @param classfileParam The class file.
+     * @return The rewritten class file, or {@code null} if nothing was changed.
+     */
+    byte[] rewrite(final byte[] classfileParam) {
+        final ClassNode classNode = new ClassNode();
+        new ClassReader(classfileParam).accept(classNode, 0);
+        final String className = classNode.name.replace('/', '.');
+        final boolean referencesReqs = contains(classfileParam, REQS_BYTES);
+        int stripped = 0;
+        int withArguments = 0;
+        int injected = 0;
+        for (final MethodNode method : classNode.methods) {
+            if (referencesReqs) {
+                for (final AbstractInsnNode insn : method.instructions.toArray()) {
+                    if (isCondition(insn) && rules.strips(((MethodInsnNode) insn).name, className)) {
+                        withArguments += strip(method, insn) ? 1 : 0;
+                        stripped++;
+                    }
+                }
+            }
+            injected += inject(classNode, method, className);
+        }
+        if (stripped == 0 && injected == 0) {
+            return null;
+        }
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classNode.accept(writer);
+        transformedClasses.incrementAndGet();
+        strippedCallSites.addAndGet(stripped);
+        strippedWithArguments.addAndGet(withArguments);
+        injectedChecks.addAndGet(injected);
+        return writer.toByteArray();
+    }
+
+    private static boolean isCondition(final AbstractInsnNode insnParam) {
+        if (insnParam.getOpcode() != Opcodes.INVOKESTATIC) {
+            return false;
+        }
+        final MethodInsnNode call = (MethodInsnNode) insnParam;
+        return call.owner.equals(REQS) && call.desc.equals(CONDITION_DESCRIPTOR);
+    }
+
+    /**
+     * Removes the specified call, with the computation of its arguments if possible.
+     *
+     * @return {@code true} if the arguments were removed too.
+     */
+    private static boolean strip(final MethodNode methodParam, final AbstractInsnNode callParam) {
+        final AbstractInsnNode start = argumentsStart(methodParam, callParam);
+        final InsnList instructions = methodParam.instructions;
+        if (start == null) {
+            instructions.insertBefore(callParam, new InsnNode(Opcodes.POP));
+            instructions.insertBefore(callParam, new InsnNode(Opcodes.POP));
+            instructions.set(callParam, new InsnNode(Opcodes.POP));
+            return false;
+        }
+        AbstractInsnNode insn = start;
+        while (insn != callParam) {
+            final AbstractInsnNode next = insn.getNext();
+            if (insn.getOpcode() >= 0) {
+                // Labels and line numbers stay, as local variable tables may refer to them.
+                instructions.remove(insn);
+            }
+            insn = next;
+        }
+        instructions.remove(callParam);
+        return true;
+    }
+
+    /**
+     * Returns the first instruction of the straight-line code that computes the three arguments of the specified
+     * call and nothing else, or {@code null} if there is no such code.
+     */
+    private static AbstractInsnNode argumentsStart(final MethodNode methodParam, final AbstractInsnNode callParam) {
+        final Set<LabelNode> targets = branchTargets(methodParam);
+        int needed = 3;
+        for (AbstractInsnNode insn = callParam.getPrevious(); insn != null; insn = insn.getPrevious()) {
+            if (insn.getType() == AbstractInsnNode.LINE) {
+                continue;
+            }
+            if (insn.getType() == AbstractInsnNode.LABEL) {
+                if (targets.contains(insn)) {
+                    return null;
+                }
+                continue;
+            }
+            if (insn.getType() == AbstractInsnNode.FRAME) {
+                return null;
+            }
+            final int[] effect = stackEffect(insn);
+            if (effect == null || effect[1] > needed) {
+                return null;
+            }
+            needed += effect[0] - effect[1];
+            if (needed == 0) {
+                return insn;
+            }
+        }
+        return null;
+    }
+
+    private static Set<LabelNode> branchTargets(final MethodNode methodParam) {
+        final Set<LabelNode> targets = new HashSet<LabelNode>();
+        for (final TryCatchBlockNode block : methodParam.tryCatchBlocks) {
+            targets.add(block.start);
+            targets.add(block.end);
+            targets.add(block.handler);
+        }
+        for (final AbstractInsnNode insn : methodParam.instructions) {
+            if (insn instanceof JumpInsnNode) {
+                targets.add(((JumpInsnNode) insn).label);
+            } else if (insn instanceof TableSwitchInsnNode) {
+                targets.add(((TableSwitchInsnNode) insn).dflt);
+                targets.addAll(((TableSwitchInsnNode) insn).labels);
+            } else if (insn instanceof LookupSwitchInsnNode) {
+                targets.add(((LookupSwitchInsnNode) insn).dflt);
+                targets.addAll(((LookupSwitchInsnNode) insn).labels);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Returns the numbers of values popped and pushed by the specified instruction, or {@code null} if it is not one
+     * of the side-effect-free or call instructions that argument expressions are made of.  Category 2 values count
+     * as one value, so that {@code DUP2} and the like are not supported.
+     */
+    private static int[] stackEffect(final AbstractInsnNode insnParam) {
+        final int opcode = insnParam.getOpcode();
+        switch (insnParam.getType()) {
+            case AbstractInsnNode.METHOD_INSN:
+                final Type method = Type.getMethodType(((MethodInsnNode) insnParam).desc);
+                final int receiver = opcode == Opcodes.INVOKESTATIC ? 0 : 1;
+                return new int[]{method.getArgumentTypes().length + receiver, method.getReturnType() == Type.VOID_TYPE ? 0 : 1};
+            case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+                final Type dynamic = Type.getMethodType(((org.objectweb.asm.tree.InvokeDynamicInsnNode) insnParam).desc);
+                return new int[]{dynamic.getArgumentTypes().length, dynamic.getReturnType() == Type.VOID_TYPE ? 0 : 1};
+            case AbstractInsnNode.LDC_INSN:
+                return new int[]{0, 1};
+            case AbstractInsnNode.VAR_INSN:
+                return opcode >= Opcodes.ILOAD && opcode <= Opcodes.ALOAD ? new int[]{0, 1} : null;
+            case AbstractInsnNode.FIELD_INSN:
+                if (opcode == Opcodes.GETSTATIC) {
+                    return new int[]{0, 1};
+                }
+                return opcode == Opcodes.GETFIELD ? new int[]{1, 1} : null;
+            case AbstractInsnNode.TYPE_INSN:
+                if (opcode == Opcodes.NEW) {
+                    return new int[]{0, 1};
+                }
+                return opcode == Opcodes.CHECKCAST || opcode == Opcodes.ANEWARRAY ? new int[]{1, 1} : null;
+            case AbstractInsnNode.INT_INSN:
+                return opcode == Opcodes.NEWARRAY ? new int[]{1, 1} : new int[]{0, 1};
+            case AbstractInsnNode.INSN:
+                if (opcode >= Opcodes.ACONST_NULL && opcode <= Opcodes.DCONST_1) {
+                    return new int[]{0, 1};
+                }
+                if (opcode == Opcodes.DUP) {
+                    return new int[]{1, 2};
+                }
+                if (opcode >= Opcodes.IASTORE && opcode <= Opcodes.SASTORE) {
+                    return new int[]{3, 0};
+                }
+                if (opcode >= Opcodes.IADD && opcode <= Opcodes.DREM) {
+                    return new int[]{2, 1};
+                }
+                if ((opcode >= Opcodes.INEG && opcode <= Opcodes.DNEG) || (opcode >= Opcodes.I2L && opcode <= Opcodes.I2S)) {
+                    return new int[]{1, 1};
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Injects the checks of the rules on method entry.
+     *
+     * @return The number of injected checks.
+     */
+    private int inject(final ClassNode classParam, final MethodNode methodParam, final String classNameParam) {
+        if ((methodParam.access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0
+                || methodParam.name.startsWith("<")) {
+            return 0;
+        }
+        final List<String> predicates = rules.injectedChecks(classNameParam, methodParam.name);
+        if (predicates.isEmpty()) {
+            return 0;
+        }
+        final Type[] parameters = Type.getArgumentTypes(methodParam.desc);
+        final InsnList checks = new InsnList();
+        int injected = 0;
+        for (final String predicate : predicates) {
+            int slot = (methodParam.access & Opcodes.ACC_STATIC) != 0 ? 0 : 1;
+            for (int i = 0; i < parameters.length; i++) {
+                final Type parameter = parameters[i];
+                if (fits(parameter, predicateInputTypes.get(predicate))) {
+                    checks.add(new MethodInsnNode(Opcodes.INVOKESTATIC, PREDICATES, predicate, PREDICATE_DESCRIPTOR, false));
+                    checks.add(new VarInsnNode(parameter.getOpcode(Opcodes.ILOAD), slot));
+                    box(checks, parameter);
+                    checks.add(new LdcInsnNode(parameterName(methodParam, slot, i) + " of " + classParam.name.replace('/', '.') + "."
+                            + methodParam.name + " must verify " + predicate + "."));
+                    checks.add(new MethodInsnNode(Opcodes.INVOKESTATIC, REQS, "parameterCondition", CONDITION_DESCRIPTOR, false));
+                    injected++;
+                }
+                slot += parameter.getSize();
+            }
+        }
+        methodParam.instructions.insert(checks);
+        return injected;
+    }
+
+    private static boolean fits(final Type parameterParam, final Class<?> inputTypeParam) {
+        if (parameterParam.getSort() == Type.OBJECT || parameterParam.getSort() == Type.ARRAY) {
+            if (inputTypeParam == Object.class) {
+                return true;
+            }
+            final String name = parameterParam.getSort() == Type.ARRAY ? parameterParam.getDescriptor().replace('/', '.') : parameterParam.getClassName();
+            if (!name.startsWith("java.") && !name.startsWith("[")) {
+                // Loading application classes from a transformer could recursively load the class being transformed.
+                return false;
+            }
+            try {
+                return inputTypeParam.isAssignableFrom(Class.forName(name, false, null));
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+        // A boxed primitive is never null: predicates on any object, such as notNull, do not apply.
+        final Class<?> boxed = boxedType(parameterParam);
+        return boxed != null && inputTypeParam != Object.class && inputTypeParam.isAssignableFrom(boxed);
+    }
+
+    private static Class<?> boxedType(final Type primitiveParam) {
+        switch (primitiveParam.getSort()) {
+            case Type.BOOLEAN:
+                return Boolean.class;
+            case Type.CHAR:
+                return Character.class;
+            case Type.BYTE:
+                return Byte.class;
+            case Type.SHORT:
+                return Short.class;
+            case Type.INT:
+                return Integer.class;
+            case Type.FLOAT:
+                return Float.class;
+            case Type.LONG:
+                return Long.class;
+            case Type.DOUBLE:
+                return Double.class;
+            default:
+                return null;
+        }
+    }
+
+    private static void box(final InsnList checksParam, final Type parameterParam) {
+        final Class<?> boxed = boxedType(parameterParam);
+        if (boxed != null) {
+            final String owner = Type.getInternalName(boxed);
+            checksParam.add(new MethodInsnNode(Opcodes.INVOKESTATIC, owner, "valueOf",
+                    Type.getMethodDescriptor(Type.getType(boxed), parameterParam), false));
+        }
+    }
+
+    private static String parameterName(final MethodNode methodParam, final int slotParam, final int indexParam) {
+        if (methodParam.localVariables != null) {
+            for (final LocalVariableNode variable : methodParam.localVariables) {
+                if (variable.index == slotParam && variable.start.getPrevious() == null) {
+                    return variable.name;
+                }
+            }
+            for (final LocalVariableNode variable : methodParam.localVariables) {
+                if (variable.index == slotParam) {
+                    return variable.name;
+                }
+            }
+        }
+        return "Parameter " + indexParam;
+    }
+
+    private static boolean contains(final byte[] bytesParam, final byte[] searchedParam) {
+        outer:
+        for (int i = 0; i <= bytesParam.length - searchedParam.length; i++) {
+            for (int j = 0; j < searchedParam.length; j++) {
+                if (bytesParam[i + j] != searchedParam[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of classes rewritten.
+     */
+    public long getTransformedClasses() {
+        return transformedClasses.get();
+    }
+
+    /**
+     * @return The number of {@code Reqs} call sites stripped.
+     */
+    public long getStrippedCallSites() {
+        return strippedCallSites.get();
+    }
+
+    /**
+     * @return The number of stripped {@code Reqs} call sites whose arguments were stripped too.
+     */
+    public long getStrippedWithArguments() {
+        return strippedWithArguments.get();
+    }
+
+    /**
+     * @return The number of checks injected.
+     */
+    public long getInjectedChecks() {
+        return injectedChecks.get();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import biz.littlej.jreqs.PostConditionException;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ReqsCallSiteTransformer} and {@link AgentRules}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ReqsCallSiteTransformerTest {
+    private static final String BOOK = "example.agent.Book";
+
+    static AgentRules rules(final String... linesParam) throws IOException {
+        return AgentRules.parse(new BufferedReader(new StringReader(String.join("\n", linesParam))));
+    }
+
+    private static Object invoke(final Class<?> classParam, final String methodParam, final Object... argumentsParam) throws Throwable {
+        for (final Method method : classParam.getMethods()) {
+            if (method.getName().equals(methodParam)) {
+                try {
+                    return method.invoke(null, argumentsParam);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(methodParam);
+    }
+
+    private static int messages(final Class<?> bookParam) throws ReflectiveOperationException {
+        return bookParam.getField("messages").getInt(null);
+    }
+
+    @Test
+    public void testStripAndKeep() throws Throwable {
+        final ReqsCallSiteTransformer transformer = new ReqsCallSiteTransformer(rules(
+                "keep parameterCondition " + BOOK,
+                "strip * example.agent.**"));
+        final Class<?> book = new RewritingClassLoader("example.agent.", transformer).loadClass(BOOK);
+        try {
+            invoke(book, "pages", 0);
+            fail("Kept parameter condition should still throw.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        assertEquals("Stripped post-condition should not throw.", -2, invoke(book, "chapters", -1));
+        assertEquals("Arguments of a fully stripped call site should not be evaluated.", 0, messages(book));
+        assertNull("Stripped condition should not throw.", invoke(book, "title", (Object) null));
+        assertEquals("Arguments with a conditional expression should still be evaluated.", 1, messages(book));
+        assertEquals("Two call sites should be stripped.", 2, transformer.getStrippedCallSites());
+        assertEquals("One call site should be stripped with its arguments.", 1, transformer.getStrippedWithArguments());
+        assertEquals("One class should be transformed.", 1, transformer.getTransformedClasses());
+        assertEquals("Report should give the counts.",
+                "jreqs-agent: stripped 2 Reqs call sites (1 with their arguments), injected 0 checks in 1 classes.",
+                JreqsAgent.report(transformer));
+    }
+
+    @Test
+    public void testOriginalClassIsUnchanged() throws Throwable {
+        final ReqsCallSiteTransformer transformer = new ReqsCallSiteTransformer(rules("strip * other.**"));
+        assertNull("Class outside of the rules should not be rewritten.",
+                transformer.transform(null, BOOK.replace('.', '/'), null, null, RewritingClassLoader.classfile(BOOK)));
+        final Class<?> book = new RewritingClassLoader("example.agent.", transformer).loadClass(BOOK);
+        try {
+            invoke(book, "chapters", -1);
+            fail("Post-condition should throw.");
+        } catch (PostConditionException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testInject() throws Throwable {
+        final ReqsCallSiteTransformer transformer = new ReqsCallSiteTransformer(rules(
+                "inject notNull " + BOOK + "#place",
+                "inject strictlyPositive " + BOOK + "#place"));
+        final Class<?> book = new RewritingClassLoader("example.agent.", transformer).loadClass(BOOK);
+        assertEquals("Valid parameters should pass the injected checks.", "A1", invoke(book, "place", "A", 1));
+        try {
+            invoke(book, "place", null, 1);
+            fail("Injected not null check should throw.");
+        } catch (IllegalArgumentException e) {
+            assertTrue("Message should name the parameter: " + e.getMessage(),
+                    e.getMessage().contains("shelfParam of example.agent.Book.place must verify notNull."));
+        }
+        try {
+            invoke(book, "place", "A", 0);
+            fail("Injected strictly positive check should throw.");
+        } catch (IllegalArgumentException e) {
+            assertTrue("Message should name the parameter: " + e.getMessage(),
+                    e.getMessage().contains("rowParam of example.agent.Book.place must verify strictlyPositive."));
+        }
+        assertEquals("One check per fitting parameter should be injected.", 2, transformer.getInjectedChecks());
+    }
+
+    @Test
+    public void testMalformedRules() throws IOException {
+        for (final String rule : new String[]{"strip condition", "strip unknown *", "remove * *", "keep * example.Foo#bar"}) {
+            try {
+                rules("# comment", "", rule);
+                fail("Malformed rule should be rejected: " + rule);
+            } catch (IllegalArgumentException e) {
+                assertTrue("Message should give the line number: " + e.getMessage(), e.getMessage().contains("line 3"));
+            }
+        }
+        try {
+            new ReqsCallSiteTransformer(rules("inject noSuchPredicate *"));
+            fail("Unknown predicate factory should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        final AgentRules rules = rules("strip postCondition example.*", "keep * example.Kept", "strip * example.**");
+        assertTrue("Package rule should match.", rules.strips("postCondition", "example.Foo"));
+        assertTrue("Subpackage rule should match.", rules.strips("condition", "example.sub.Foo"));
+        assertFalse("First matching rule should decide.", rules.strips("condition", "example.Kept"));
+        assertFalse("Jreqs classes should never be matched.", rules("strip * *").concerns("biz.littlej.jreqs.Reqs"));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Class loader that defines the classes of a package from the rewritten class files of the test class path, and
+ * delegates to its parent for the other classes.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class RewritingClassLoader extends ClassLoader {
+    private final String packagePrefix;
+    private final ReqsCallSiteTransformer transformer;
+
+    RewritingClassLoader(final String packagePrefixParam, final ReqsCallSiteTransformer transformerParam) {
+        super(RewritingClassLoader.class.getClassLoader());
+        packagePrefix = packagePrefixParam;
+        transformer = transformerParam;
+    }
+
+    static byte[] classfile(final String classNameParam) throws IOException {
+        final InputStream in = RewritingClassLoader.class.getClassLoader().getResourceAsStream(classNameParam.replace('.', '/') + ".class");
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(final String nameParam, final boolean resolveParam) throws ClassNotFoundException {
+        if (!nameParam.startsWith(packagePrefix)) {
+            return super.loadClass(nameParam, resolveParam);
+        }
+        synchronized (getClassLoadingLock(nameParam)) {
+            Class<?> loaded = findLoadedClass(nameParam);
+            if (loaded == null) {
+                try {
+                    final byte[] original = classfile(nameParam);
+                    final byte[] rewritten = transformer.transform(this, nameParam.replace('.', '/'), null, null, original);
+                    final byte[] bytes = rewritten == null ? original : rewritten;
+                    loaded = defineClass(nameParam, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(nameParam, e);
+                }
+            }
+            if (resolveParam) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+}
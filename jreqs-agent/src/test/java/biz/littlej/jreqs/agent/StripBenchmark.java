@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.agent;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures the cost of the {@code Reqs} call sites of a sample class, as loaded and as stripped by the agent.  Run it
+ * from the test class path:
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;jreqs-core and asm jars&gt; biz.littlej.jreqs.agent.StripBenchmark
+ * </pre>
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class StripBenchmark {
+    private static final int CALLS = 5000000;
+    private static final int ROUNDS = 5;
+
+    public static void main(final String[] argumentsParam) throws Exception {
+        final Method original = new RewritingClassLoader("example.agent.",
+                new ReqsCallSiteTransformer(ReqsCallSiteTransformerTest.rules())).loadClass("example.agent.Book").getMethod("chapters", int.class);
+        final Method stripped = new RewritingClassLoader("example.agent.",
+                new ReqsCallSiteTransformer(ReqsCallSiteTransformerTest.rules("strip * example.agent.*"))).loadClass("example.agent.Book").getMethod("chapters", int.class);
+        for (int round = 0; round < ROUNDS; round++) {
+            System.out.println("Round " + round + ": checked " + measure(original) + " ns/call, stripped " + measure(stripped) + " ns/call");
+        }
+    }
+
+    private static double measure(final Method chaptersParam) throws Exception {
+        final Object book = null;
+        long sum = 0;
+        final long start = System.nanoTime();
+        for (int i = 1; i <= CALLS; i++) {
+            sum += (Integer) chaptersParam.invoke(book, i);
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (sum == 42) {
+            System.out.println(sum);
+        }
+        return (double) elapsed / CALLS;
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private StripBenchmark() {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package example.agent;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicates;
+
+/**
+ * Sample class rewritten by the agent tests.  It lives outside of the jreqs packages, which the agent never rewrites.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class Book {
+    /**
+     * Number of messages built, to observe whether the arguments of stripped call sites are still evaluated.
+     */
+    public static int messages;
+
+    private static String describe(final Object valueParam) {
+        messages++;
+        return "Value " + valueParam;
+    }
+
+    public static int pages(final int pagesParam) {
+        Reqs.parameterCondition(Predicates.strictlyPositive(), pagesParam, "Pages parameter must be strictly positive.");
+        return pagesParam;
+    }
+
+    public static String title(final String titleParam) {
+        Reqs.condition(Predicates.notNull(), titleParam, titleParam == null ? describe("no title") : describe(titleParam));
+        return titleParam;
+    }
+
+    public static int chapters(final int chaptersParam) {
+        final int chapters = chaptersParam * 2;
+        Reqs.postCondition(Predicates.strictlyPositive(), chapters, describe(chapters) + " must be strictly positive.");
+        return chapters;
+    }
+
+    public static String place(final String shelfParam, final int rowParam) {
+        return shelfParam + rowParam;
+    }
+
+    private Book() {
+    }
+}
@@ -20,9 +20,13 @@ import biz.littlej.jreqs.predicates.Predicate;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
+import javax.validation.ValidationException;
 import javax.validation.Validator;
+import javax.validation.ValidatorContext;
 import javax.validation.ValidatorFactory;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 import static biz.littlej.jreqs.Reqs.parameterCondition;
@@ -32,28 +36,29 @@ import static biz.littlej.jreqs.predicates.Predicates.notNull;
 /**
  * A predicate that applies bean validation to its input beans and evaluates to {@code true} if the input bean is valid.
  * Validation is done using JSR303 bean validation framework.
+ * <p/>
+ * Instances are stateless and thread-safe: the {@link Validator}, which is itself thread-safe, is obtained once at
+ * construction and shared by all evaluations.  Use {@link #validate(Object)} to get the constraint violations of a bean.
+ * The constraint metadata of the bean types given to {@link #getInstance(ValidatorFactory, Class[])} or
+ * {@link #warmUp(Class[])} is built eagerly, so that the first validation of these types does not pay for it.
+ * <p/>
+ * A {@link #getFailFastInstance(ValidatorFactory, Class[]) fail-fast} instance stops validating a bean at its first
+ * violation, which is enough to evaluate the predicate.  To revalidate only the properties of a bean that changed,
+ * use {@link #validateProperties(Object, Iterable)}, {@link #forProperties(String...)} or, for beans that track their
+ * own changes, {@link #incremental()}.  Property validation checks the constraints of the properties only: it does not
+ * cascade to {@code @Valid} properties and does not check class-level constraints.
  *
  * @param <T> The type parameter.
  */
 public final class BeanValidationPredicate<T> implements Predicate<T> {
     /**
-     * The validator factory that is used by this predicate instance.
+     * The validator that is used by this predicate instance.
      */
-    private final ValidatorFactory validatorFactory;
+    private final Validator validator;
     /**
-     * Will contain the constraint violations if some are found while applying the predicate to an object.  As the
-     * {@code apply} method only returns a boolean, this allows the user to retrieve the constraints that are violated.
+     * {@code true} if validations stop at the first violation.
      */
-    private Set<ConstraintViolation<T>> violations = Collections.emptySet();
-
-    /**
-     * Default constructor.
-     * The default validator factory will be used to validate beans.
-     */
-    private BeanValidationPredicate() {
-        validatorFactory = Validation.buildDefaultValidatorFactory();
-        postCondition(notNull(), validatorFactory, "Validator factory must not be null after predicate construction.");
-    }
+    private final boolean failFast;
 
     /**
      * Constructor.
@@ -61,10 +66,13 @@ public final class BeanValidationPredicate<T> implements Predicate<T> {
      * @param validatorFactoryParam The validator factory that must be used.
      *                              If {@code null}, {@code Validation.buildDefaultValidatorFactory()} is used to get
      *                              the default validator factory.
+     * @param failFastParam         {@code true} if validations must stop at the first violation.
      */
-    private BeanValidationPredicate(final ValidatorFactory validatorFactoryParam) {
-        validatorFactory = validatorFactoryParam;
-        postCondition(notNull(), validatorFactory, "Validator factory must not be null after predicate construction.");
+    private BeanValidationPredicate(final ValidatorFactory validatorFactoryParam, final boolean failFastParam) {
+        final ValidatorFactory validatorFactory = validatorFactoryParam == null ? DefaultValidatorFactory.INSTANCE : validatorFactoryParam;
+        validator = failFastParam ? failFastValidator(validatorFactory) : validatorFactory.getValidator();
+        failFast = failFastParam;
+        postCondition(notNull(), validator, "Validator must not be null after predicate construction.");
     }
 
     /**
@@ -74,7 +82,7 @@ public final class BeanValidationPredicate<T> implements Predicate<T> {
      * @return A new instance with the default validator factory.
      */
     public static <V> BeanValidationPredicate<V> getInstance() {
-        return new BeanValidationPredicate<V>();
+        return new BeanValidationPredicate<V>(null, false);
     }
 
     /**
@@ -86,36 +94,181 @@ public final class BeanValidationPredicate<T> implements Predicate<T> {
      * @return A new instance with the specified validator factory.
      */
     public static <V> BeanValidationPredicate<V> getInstance(final ValidatorFactory validatorFactoryParam) {
-        return new BeanValidationPredicate<V>(validatorFactoryParam);
+        return new BeanValidationPredicate<V>(validatorFactoryParam, false);
+    }
+
+    /**
+     * Static factory method that also warms the validator up for the specified bean types.
+     *
+     * @param <V>                   The type parameter.
+     * @param validatorFactoryParam The validator factory.  If the specified validator factory is {@code null},
+     *                              the default validator factory is used.
+     * @param beanTypesParam        The bean types that will be validated.  Must not be {@code null}.
+     * @return A new instance with the specified validator factory.
+     */
+    public static <V> BeanValidationPredicate<V> getInstance(final ValidatorFactory validatorFactoryParam, final Class<?>... beanTypesParam) {
+        final BeanValidationPredicate<V> predicate = new BeanValidationPredicate<V>(validatorFactoryParam, false);
+        predicate.warmUp(beanTypesParam);
+        return predicate;
+    }
+
+    /**
+     * Static factory method for a predicate whose validations stop at the first violation, and that also warms the
+     * validator up for the specified bean types.
+     * <p/>
+     * Whole beans are validated in fail-fast mode if the validator factory is provided by Hibernate Validator, while
+     * {@link #validateProperties(Object, Iterable) property validation} always stops at the first violating property.
+     *
+     * @param <V>                   The type parameter.
+     * @param validatorFactoryParam The validator factory.  If the specified validator factory is {@code null},
+     *                              the default validator factory is used.
+     * @param beanTypesParam        The bean types that will be validated.  Must not be {@code null}.
+     * @return A new fail-fast instance with the specified validator factory.
+     */
+    public static <V> BeanValidationPredicate<V> getFailFastInstance(final ValidatorFactory validatorFactoryParam, final Class<?>... beanTypesParam) {
+        final BeanValidationPredicate<V> predicate = new BeanValidationPredicate<V>(validatorFactoryParam, true);
+        predicate.warmUp(beanTypesParam);
+        return predicate;
+    }
+
+    /**
+     * Returns a fail-fast validator from a Hibernate Validator factory, which is only a runtime dependency, or else a
+     * regular validator.
+     */
+    private static Validator failFastValidator(final ValidatorFactory validatorFactoryParam) {
+        try {
+            final Class<?> factoryType = Class.forName("org.hibernate.validator.HibernateValidatorFactory");
+            final Class<?> contextType = Class.forName("org.hibernate.validator.HibernateValidatorContext");
+            final Object context = factoryType.getMethod("usingContext").invoke(validatorFactoryParam.unwrap(factoryType));
+            return ((ValidatorContext) contextType.getMethod("failFast", boolean.class).invoke(context, true)).getValidator();
+        } catch (ReflectiveOperationException e) {
+            return validatorFactoryParam.getValidator();
+        } catch (ValidationException e) {
+            // Another provider: whole beans are fully validated.
+            return validatorFactoryParam.getValidator();
+        }
+    }
+
+    /**
+     * Builds the constraint metadata of the specified bean types, which the validator otherwise builds on the first
+     * validation of each type.
+     *
+     * @param beanTypesParam The bean types.  Must not be {@code null} nor contain {@code null}.
+     */
+    public void warmUp(final Class<?>... beanTypesParam) {
+        parameterCondition(notNull(), beanTypesParam, "Bean types parameter must not be null.");
+        for (final Class<?> beanType : beanTypesParam) {
+            parameterCondition(notNull(), beanType, "Bean type must not be null.");
+            validator.getConstraintsForClass(beanType);
+        }
     }
 
     public boolean apply(final T inputParam) {
-        boolean predicateApplied = false;
-        Set<ConstraintViolation<T>> constraintViolations;
-        {
-            final Validator validator = validatorFactory.getValidator();
-            constraintViolations = validator.validate(inputParam);
+        return validator.validate(inputParam).isEmpty();
+    }
+
+    /**
+     * Validates the specified bean.
+     *
+     * @param beanParam The bean.  Must not be {@code null}.
+     * @return The constraint violations of the bean, which is empty if the bean is valid.
+     */
+    public Set<ConstraintViolation<T>> validate(final T beanParam) {
+        parameterCondition(notNull(), beanParam, "Bean parameter must not be null to validate it.");
+        return Collections.unmodifiableSet(validator.validate(beanParam));
+    }
+
+    /**
+     * Validates the specified properties of the specified bean.
+     *
+     * @param beanParam          The bean.  Must not be {@code null}.
+     * @param propertyNamesParam The names of the properties to validate, typically the ones that changed.
+     *                           Must not be {@code null} nor contain {@code null}.
+     * @return The constraint violations of these properties, which is empty if they are valid.  For a fail-fast
+     *         instance, it only contains the violations of the first violating property.
+     */
+    public Set<ConstraintViolation<T>> validateProperties(final T beanParam, final Iterable<String> propertyNamesParam) {
+        parameterCondition(notNull(), beanParam, "Bean parameter must not be null to validate it.");
+        parameterCondition(notNull(), propertyNamesParam, "Property names parameter must not be null.");
+        Set<ConstraintViolation<T>> violations = null;
+        for (final String propertyName : propertyNamesParam) {
+            parameterCondition(notNull(), propertyName, "Property name must not be null.");
+            final Set<ConstraintViolation<T>> propertyViolations = validator.validateProperty(beanParam, propertyName);
+            if (!propertyViolations.isEmpty()) {
+                if (failFast) {
+                    return Collections.unmodifiableSet(propertyViolations);
+                }
+                if (violations == null) {
+                    violations = new HashSet<ConstraintViolation<T>>();
+                }
+                violations.addAll(propertyViolations);
+            }
         }
-        if (constraintViolations.isEmpty()) {
-            if (!violations.isEmpty()) {
-                violations = Collections.emptySet();
+        return violations == null ? Collections.<ConstraintViolation<T>>emptySet() : Collections.unmodifiableSet(violations);
+    }
+
+    /**
+     * Returns a predicate that evaluates to {@code true} if the specified properties of its input bean are valid.
+     * The evaluation stops at the first violating property.
+     *
+     * @param propertyNamesParam The names of the properties to validate.  Must not be {@code null} nor contain {@code null}.
+     * @return The predicate on the specified properties.
+     */
+    public Predicate<T> forProperties(final String... propertyNamesParam) {
+        parameterCondition(notNull(), propertyNamesParam, "Property names parameter must not be null.");
+        final String[] propertyNames = propertyNamesParam.clone();
+        for (final String propertyName : propertyNames) {
+            parameterCondition(notNull(), propertyName, "Property name must not be null.");
+        }
+        return inputParam -> {
+            parameterCondition(notNull(), inputParam, "Bean input parameter must not be null.");
+            return propertiesValid(inputParam, Arrays.asList(propertyNames));
+        };
+    }
+
+    /**
+     * Returns a predicate that only validates the {@link DirtyPropertiesAware#getDirtyProperties() dirty properties}
+     * of the input beans that track them, and fully validates the other input beans.
+     *
+     * @return The incremental predicate.
+     */
+    public Predicate<T> incremental() {
+        return inputParam -> {
+            if (inputParam instanceof DirtyPropertiesAware) {
+                final Set<String> dirtyProperties = ((DirtyPropertiesAware) inputParam).getDirtyProperties();
+                postCondition(notNull(), dirtyProperties, "Dirty properties of a bean must not be null.");
+                return propertiesValid(inputParam, dirtyProperties);
+            }
+            return apply(inputParam);
+        };
+    }
+
+    private boolean propertiesValid(final T beanParam, final Iterable<String> propertyNamesParam) {
+        for (final String propertyName : propertyNamesParam) {
+            if (!validator.validateProperty(beanParam, propertyName).isEmpty()) {
+                return false;
             }
-            predicateApplied = true;
-        } else {
-            violations = constraintViolations;
         }
-        return predicateApplied;
+        return true;
     }
 
     /**
      * Returns the constraint violations set for the specified bean.
      *
      * @param beanParam The bean.  Must not be {@code null}.
-     * @return The {@code Set<ConstraintViolation<T>>} for the specified bean.  Returns {@code null} if no constraint
-     *         violations exist for the specified bean.
+     * @return The {@code Set<ConstraintViolation<T>>} for the specified bean, which is empty if the bean is valid.
+     * @deprecated The violations are not kept between evaluations anymore: this method validates the bean again.
+     *             Use {@link #validate(Object)}.
      */
+    @Deprecated
     public Set<ConstraintViolation<T>> getConstraintViolationsForBean(final T beanParam) {
-        parameterCondition(notNull(), beanParam, "Bean parameter must not be null to get the constraint violations set.");
-        return Collections.unmodifiableSet(violations);
+        return validate(beanParam);
+    }
+
+    /**
+     * Lazily builds the default validator factory once, as building it is expensive.
+     */
+    private static final class DefaultValidatorFactory {
+        private static final ValidatorFactory INSTANCE = Validation.buildDefaultValidatorFactory();
     }
 }
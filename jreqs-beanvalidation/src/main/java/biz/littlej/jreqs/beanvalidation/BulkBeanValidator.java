@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static biz.littlej.jreqs.Reqs.parameterCondition;
+import static biz.littlej.jreqs.predicates.Predicates.notNull;
+import static biz.littlej.jreqs.predicates.Predicates.strictlyPositive;
+
+/**
+ * Validates large numbers of beans concurrently, with the shared thread-safe validator of a
+ * {@link BeanValidationPredicate}.
+ * <p/>
+ * The beans are read from their source on the calling thread and grouped in chunks of {@code chunkSize} consecutive
+ * beans.  Each chunk is validated by a task submitted to the configured executor, for example a {@code ForkJoinPool}
+ * or, on recent JDKs, a virtual-thread-per-task executor.  At most {@code maxConcurrentChunks} chunks are in flight at
+ * any time: reading the source blocks until a slot is released, so that a stream of beans is never entirely held in
+ * memory.
+ * <p/>
+ * The violations are returned by index in a {@link BulkValidationResult}, which only holds the violating beans.
+ * With a cutoff, validation stops once that many violating beans are found.
+ *
+ * @param <T> The type of the beans.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class BulkBeanValidator<T> {
+    private final BeanValidationPredicate<T> predicate;
+    private final Executor executor;
+    private final int maxConcurrentChunks;
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param predicateParam           The predicate whose validator is used.  A
+     *                                 {@link BeanValidationPredicate#getFailFastInstance(javax.validation.ValidatorFactory, Class[]) fail-fast}
+     *                                 predicate reports at most one violation per bean, faster.  Must not be {@code null}.
+     * @param executorParam            The executor on which chunks are validated.  Must not be {@code null}.
+     * @param maxConcurrentChunksParam The maximum number of chunks in flight.  Must be strictly positive.
+     * @param chunkSizeParam           The number of consecutive beans validated by one task.  Must be strictly positive.
+     */
+    public BulkBeanValidator(final BeanValidationPredicate<T> predicateParam, final Executor executorParam,
+                             final int maxConcurrentChunksParam, final int chunkSizeParam) {
+        parameterCondition(notNull(), predicateParam, "Predicate parameter must not be null.");
+        parameterCondition(notNull(), executorParam, "Executor parameter must not be null.");
+        parameterCondition(strictlyPositive(), maxConcurrentChunksParam, "Maximum concurrent chunks parameter must be strictly positive.");
+        parameterCondition(strictlyPositive(), chunkSizeParam, "Chunk size parameter must be strictly positive.");
+        predicate = predicateParam;
+        executor = executorParam;
+        maxConcurrentChunks = maxConcurrentChunksParam;
+        chunkSize = chunkSizeParam;
+    }
+
+    /**
+     * Validates all the specified beans and blocks until done.
+     *
+     * @param beansParam The beans, in index order.  Must not be {@code null} nor contain {@code null}.
+     * @return The violations of the beans.
+     */
+    public BulkValidationResult<T> validate(final Iterable<? extends T> beansParam) {
+        return validate(beansParam, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Validates the specified beans until the specified number of violating beans is found, and blocks until done.
+     * Beans being validated when the cutoff is reached are still reported, so that the result may hold a few more
+     * violating beans than the cutoff, and not necessarily the ones with the lowest indices.
+     *
+     * @param beansParam        The beans, in index order.  Must not be {@code null} nor contain {@code null}.
+     * @param maxViolatingParam The number of violating beans after which validation stops.  Must be strictly positive.
+     * @return The violations of the beans.
+     */
+    public BulkValidationResult<T> validate(final Iterable<? extends T> beansParam, final int maxViolatingParam) {
+        parameterCondition(notNull(), beansParam, "Beans parameter must not be null.");
+        parameterCondition(strictlyPositive(), maxViolatingParam, "Maximum violating beans parameter must be strictly positive.");
+        return new Run(maxViolatingParam).execute(beansParam.iterator());
+    }
+
+    /**
+     * Validates all the beans of the specified stream, which is consumed, and blocks until done.
+     *
+     * @param beansParam The beans, in index order.  Must not be {@code null} nor contain {@code null}.
+     * @return The violations of the beans.
+     */
+    public BulkValidationResult<T> validate(final Stream<? extends T> beansParam) {
+        return validate(beansParam, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Validates the beans of the specified stream until the specified number of violating beans is found, and blocks
+     * until done.  See {@link #validate(Iterable, int)}.
+     *
+     * @param beansParam        The beans, in index order.  Must not be {@code null} nor contain {@code null}.
+     * @param maxViolatingParam The number of violating beans after which validation stops.  Must be strictly positive.
+     * @return The violations of the beans.
+     */
+    public BulkValidationResult<T> validate(final Stream<? extends T> beansParam, final int maxViolatingParam) {
+        parameterCondition(notNull(), beansParam, "Beans parameter must not be null.");
+        parameterCondition(strictlyPositive(), maxViolatingParam, "Maximum violating beans parameter must be strictly positive.");
+        return new Run(maxViolatingParam).execute(beansParam.iterator());
+    }
+
+    /**
+     * One validation of a sequence of beans.
+     */
+    private final class Run {
+        private final int maxViolating;
+        private final Semaphore slots = new Semaphore(maxConcurrentChunks);
+        private final AtomicInteger violating = new AtomicInteger();
+        private final AtomicInteger validated = new AtomicInteger();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        private final ConcurrentLinkedQueue<ChunkResult<T>> results = new ConcurrentLinkedQueue<ChunkResult<T>>();
+
+        private Run(final int maxViolatingParam) {
+            maxViolating = maxViolatingParam;
+        }
+
+        private BulkValidationResult<T> execute(final Iterator<? extends T> beansParam) {
+            int count = 0;
+            boolean exhausted = false;
+            try {
+                while (!stopped()) {
+                    final List<T> chunk = new ArrayList<T>(chunkSize);
+                    while (chunk.size() < chunkSize && beansParam.hasNext()) {
+                        chunk.add(beansParam.next());
+                    }
+                    if (chunk.isEmpty()) {
+                        exhausted = true;
+                        break;
+                    }
+                    submit(chunk, count);
+                    count += chunk.size();
+                }
+            } finally {
+                slots.acquireUninterruptibly(maxConcurrentChunks);
+                slots.release(maxConcurrentChunks);
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return merge(count, exhausted && validated.get() == count);
+        }
+
+        private boolean stopped() {
+            return violating.get() >= maxViolating || failure.get() != null;
+        }
+
+        private void submit(final List<T> chunkParam, final int firstIndexParam) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while validating beans.", e);
+            }
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            validateChunk(chunkParam, firstIndexParam);
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            slots.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+        }
+
+        private void validateChunk(final List<T> chunkParam, final int firstIndexParam) {
+            ChunkResult<T> result = null;
+            int done = 0;
+            while (done < chunkParam.size() && !stopped()) {
+                final Set<ConstraintViolation<T>> violations = predicate.validate(chunkParam.get(done));
+                if (!violations.isEmpty()) {
+                    if (result == null) {
+                        result = new ChunkResult<T>(firstIndexParam);
+                        results.add(result);
+                    }
+                    result.indices.add(firstIndexParam + done);
+                    result.violations.add(violations);
+                    violating.incrementAndGet();
+                }
+                done++;
+            }
+            validated.addAndGet(done);
+        }
+
+        @SuppressWarnings("unchecked")
+        private BulkValidationResult<T> merge(final int countParam, final boolean completeParam) {
+            final List<ChunkResult<T>> chunks = new ArrayList<ChunkResult<T>>(results);
+            Collections.sort(chunks, new Comparator<ChunkResult<T>>() {
+                public int compare(final ChunkResult<T> firstParam, final ChunkResult<T> secondParam) {
+                    return Integer.compare(firstParam.firstIndex, secondParam.firstIndex);
+                }
+            });
+            int total = 0;
+            for (final ChunkResult<T> chunk : chunks) {
+                total += chunk.indices.size();
+            }
+            final int[] indices = new int[total];
+            final Set<ConstraintViolation<T>>[] violations = new Set[total];
+            int position = 0;
+            for (final ChunkResult<T> chunk : chunks) {
+                for (int i = 0; i < chunk.indices.size(); i++) {
+                    indices[position] = chunk.indices.get(i);
+                    violations[position] = chunk.violations.get(i);
+                    position++;
+                }
+            }
+            return new BulkValidationResult<T>(countParam, completeParam, indices, violations);
+        }
+    }
+
+    /**
+     * The violating beans of one chunk, in index order.
+     */
+    private static final class ChunkResult<T> {
+        private final int firstIndex;
+        private final List<Integer> indices = new ArrayList<Integer>();
+        private final List<Set<ConstraintViolation<T>>> violations = new ArrayList<Set<ConstraintViolation<T>>>();
+
+        private ChunkResult(final int firstIndexParam) {
+            firstIndex = firstIndexParam;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import javax.validation.ConstraintViolation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static biz.littlej.jreqs.Reqs.parameterCondition;
+import static biz.littlej.jreqs.predicates.Predicates.positive;
+
+/**
+ * The result of a {@link BulkBeanValidator bulk validation}: the violations of the violating beans, by index.
+ * <p/>
+ * Only violating beans are stored, in two parallel arrays sorted by index, so that the result of a mostly valid batch
+ * is small whatever its size.  Instances are immutable.
+ *
+ * @param <T> The type of the beans.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class BulkValidationResult<T> {
+    private final int readCount;
+    private final boolean complete;
+    private final int[] indices;
+    private final Set<ConstraintViolation<T>>[] violations;
+
+    BulkValidationResult(final int readCountParam, final boolean completeParam, final int[] indicesParam,
+                         final Set<ConstraintViolation<T>>[] violationsParam) {
+        readCount = readCountParam;
+        complete = completeParam;
+        indices = indicesParam;
+        violations = violationsParam;
+    }
+
+    /**
+     * Returns the number of beans that were read from the source.  If validation stopped early, some of them may not
+     * have been validated.
+     *
+     * @return The number of beans read.
+     */
+    public int getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Returns {@code true} if all the beans of the source were validated, {@code false} if validation stopped at the
+     * cutoff.
+     *
+     * @return {@code true} if validation was complete.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns {@code true} if no violating bean was found.
+     *
+     * @return {@code true} if no violating bean was found.
+     */
+    public boolean isValid() {
+        return indices.length == 0;
+    }
+
+    /**
+     * Returns the number of violating beans found.
+     *
+     * @return The number of violating beans.
+     */
+    public int getViolatingCount() {
+        return indices.length;
+    }
+
+    /**
+     * Returns the indices of the violating beans, in increasing order.
+     *
+     * @return A copy of the indices of the violating beans.
+     */
+    public int[] getViolatingIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * Returns the violations of the bean at the specified index.
+     *
+     * @param indexParam The index of the bean in the source.  Must be positive.
+     * @return The violations of the bean, which is empty if it is valid or was not validated.
+     */
+    public Set<ConstraintViolation<T>> getViolations(final int indexParam) {
+        parameterCondition(positive(), indexParam, "Index parameter must be positive.");
+        final int position = Arrays.binarySearch(indices, indexParam);
+        return position < 0 ? Collections.<ConstraintViolation<T>>emptySet() : violations[position];
+    }
+}
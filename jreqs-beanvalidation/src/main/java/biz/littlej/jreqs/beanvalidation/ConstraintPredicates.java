@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import javax.validation.constraints.Future;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Null;
+import javax.validation.constraints.Past;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import javax.validation.metadata.ConstraintDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Translates single built-in constraints into predicates on the constrained value, with the exact semantics of the
+ * Hibernate Validator implementations: in particular, {@code null} values are valid for every constraint but
+ * {@code @NotNull}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class ConstraintPredicates {
+    /**
+     * Returns the predicate equivalent to the specified constraint on a value of the specified declared type, or
+     * {@code null} if the constraint is not a supported built-in one, so that the validator must check it.
+     *
+     * @param descriptorParam   The constraint descriptor.
+     * @param declaredTypeParam The declared type of the constrained field or getter.
+     * @return The equivalent predicate, or {@code null}.
+     */
+    static Predicate<Object> forConstraint(final ConstraintDescriptor<?> descriptorParam, final Class<?> declaredTypeParam) {
+        final Class<? extends Annotation> type = descriptorParam.getAnnotation().annotationType();
+        final Map<String, Object> attributes = descriptorParam.getAttributes();
+        final Class<?> valueType = box(declaredTypeParam);
+        if (!descriptorParam.getComposingConstraints().isEmpty()) {
+            return descriptorParam.getConstraintValidatorClasses().isEmpty() ? forComposition(descriptorParam, declaredTypeParam) : null;
+        }
+        if (type == NotNull.class) {
+            return Predicates.notNull();
+        }
+        if (type == Null.class) {
+            return Predicates.isNull();
+        }
+        if (type == Size.class) {
+            final int min = (Integer) attributes.get("min");
+            final int max = (Integer) attributes.get("max");
+            final boolean sized = valueType == String.class || Collection.class.isAssignableFrom(valueType)
+                    || Map.class.isAssignableFrom(valueType) || valueType.isArray();
+            return sized && min >= 0 && max >= min ? new SizePredicate(min, max) : null;
+        }
+        if (type == Min.class || type == Max.class) {
+            return Number.class.isAssignableFrom(valueType) ? new BoundPredicate((Long) attributes.get("value"), type == Min.class) : null;
+        }
+        if (type == Pattern.class) {
+            return valueType == String.class ? forPattern(attributes) : null;
+        }
+        if (type == Past.class || type == Future.class) {
+            final boolean temporal = Date.class.isAssignableFrom(valueType) || Calendar.class.isAssignableFrom(valueType);
+            return temporal ? new TemporalPredicate(type == Past.class) : null;
+        }
+        return null;
+    }
+
+    /**
+     * Translates a constraint that is only composed of other constraints, such as {@code @NotEmpty}.
+     */
+    private static Predicate<Object> forComposition(final ConstraintDescriptor<?> descriptorParam, final Class<?> declaredTypeParam) {
+        final List<Predicate<Object>> members = new ArrayList<Predicate<Object>>();
+        for (final ConstraintDescriptor<?> composing : descriptorParam.getComposingConstraints()) {
+            final Predicate<Object> member = forConstraint(composing, declaredTypeParam);
+            if (member == null) {
+                return null;
+            }
+            members.add(member);
+        }
+        return new AllPredicate<Object>(members);
+    }
+
+    private static Predicate<Object> forPattern(final Map<String, Object> attributesParam) {
+        int flags = 0;
+        for (final Pattern.Flag flag : (Pattern.Flag[]) attributesParam.get("flags")) {
+            flags |= flag.getValue();
+        }
+        try {
+            return new PatternPredicate(java.util.regex.Pattern.compile((String) attributesParam.get("regexp"), flags));
+        } catch (PatternSyntaxException e) {
+            // Let the validator report the invalid constraint declaration.
+            return null;
+        }
+    }
+
+    private static Class<?> box(final Class<?> typeParam) {
+        if (!typeParam.isPrimitive()) {
+            return typeParam;
+        }
+        if (typeParam == boolean.class) {
+            return Boolean.class;
+        }
+        if (typeParam == char.class) {
+            return Character.class;
+        }
+        // All other primitive wrappers are numbers.
+        return Number.class;
+    }
+
+    /**
+     * Evaluates to {@code true} if all its members do, evaluating them in order.
+     */
+    static final class AllPredicate<T> implements Predicate<T> {
+        private final Predicate<T>[] members;
+
+        @SuppressWarnings("unchecked")
+        AllPredicate(final List<? extends Predicate<T>> membersParam) {
+            members = membersParam.toArray(new Predicate[membersParam.size()]);
+        }
+
+        public boolean apply(final T inputParam) {
+            for (final Predicate<T> member : members) {
+                if (!member.apply(inputParam)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@code @Size} on strings, collections, maps and arrays.
+     */
+    private static final class SizePredicate implements Predicate<Object> {
+        private final int min;
+        private final int max;
+
+        private SizePredicate(final int minParam, final int maxParam) {
+            min = minParam;
+            max = maxParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            if (inputParam == null) {
+                return true;
+            }
+            final int size;
+            if (inputParam instanceof String) {
+                size = ((String) inputParam).length();
+            } else if (inputParam instanceof Collection) {
+                size = ((Collection<?>) inputParam).size();
+            } else if (inputParam instanceof Map) {
+                size = ((Map<?, ?>) inputParam).size();
+            } else {
+                size = Array.getLength(inputParam);
+            }
+            return size >= min && size <= max;
+        }
+    }
+
+    /**
+     * {@code @Min} and {@code @Max} on numbers.  Like Hibernate Validator, numbers other than {@code BigDecimal} and
+     * {@code BigInteger} are compared through their {@code long} value.
+     */
+    private static final class BoundPredicate implements Predicate<Object> {
+        private final long bound;
+        private final BigDecimal decimalBound;
+        private final BigInteger integerBound;
+        private final int sign;
+
+        private BoundPredicate(final long boundParam, final boolean minParam) {
+            bound = boundParam;
+            decimalBound = BigDecimal.valueOf(boundParam);
+            integerBound = BigInteger.valueOf(boundParam);
+            sign = minParam ? 1 : -1;
+        }
+
+        public boolean apply(final Object inputParam) {
+            if (inputParam == null) {
+                return true;
+            }
+            final int comparison;
+            if (inputParam instanceof BigDecimal) {
+                comparison = ((BigDecimal) inputParam).compareTo(decimalBound);
+            } else if (inputParam instanceof BigInteger) {
+                comparison = ((BigInteger) inputParam).compareTo(integerBound);
+            } else {
+                comparison = Long.compare(((Number) inputParam).longValue(), bound);
+            }
+            return comparison == 0 || Integer.signum(comparison) == sign;
+        }
+    }
+
+    /**
+     * {@code @Pattern} on strings, with the regular expression compiled once.
+     */
+    private static final class PatternPredicate implements Predicate<Object> {
+        private final java.util.regex.Pattern pattern;
+
+        private PatternPredicate(final java.util.regex.Pattern patternParam) {
+            pattern = patternParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            return inputParam == null || pattern.matcher((String) inputParam).matches();
+        }
+    }
+
+    /**
+     * {@code @Past} and {@code @Future} on dates and calendars.
+     */
+    private static final class TemporalPredicate implements Predicate<Object> {
+        private final boolean past;
+
+        private TemporalPredicate(final boolean pastParam) {
+            past = pastParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            if (inputParam == null) {
+                return true;
+            }
+            if (inputParam instanceof Date) {
+                final Date now = new Date();
+                return past ? ((Date) inputParam).before(now) : ((Date) inputParam).after(now);
+            }
+            final Calendar now = Calendar.getInstance();
+            return past ? ((Calendar) inputParam).before(now) : ((Calendar) inputParam).after(now);
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private ConstraintPredicates() {
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+import javax.validation.GroupSequence;
+import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static biz.littlej.jreqs.Reqs.parameterCondition;
+import static biz.littlej.jreqs.predicates.Predicates.notNull;
+
+/**
+ * Translates the constraint metadata of bean classes into native jreqs predicates, that evaluate to {@code true} for
+ * exactly the beans that the validator of the {@link #getInstance(ValidatorFactory) factory} considers valid in the
+ * default group.
+ * <p/>
+ * The built-in {@code @NotNull}, {@code @Null}, {@code @Size}, {@code @Min}, {@code @Max}, {@code @Pattern},
+ * {@code @Past} and {@code @Future} constraints, constraints only composed of these (such as {@code @NotEmpty}) and
+ * {@code @Valid} cascades are evaluated without the validator: fields and getters are read through method handles and
+ * the regular expressions are compiled once.  A property with any other constraint is checked by the validator with
+ * {@link Validator#validateProperty(Object, String, Class[])}, and a bean class with class-level constraints or a
+ * redefined default group sequence is entirely checked by {@link BeanValidationPredicate}.
+ * <p/>
+ * Translations are computed once per bean class and cached; instances are thread-safe.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ConstraintTranslator {
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, Object.class);
+    /**
+     * The beans already validated by the current top-level evaluation, so that cascades terminate on cyclic graphs.
+     */
+    private static final ThreadLocal<Set<Object>> VISITED = new ThreadLocal<Set<Object>>();
+    private final ValidatorFactory validatorFactory;
+    private final Validator validator;
+    private final ConcurrentMap<Class<?>, Predicate<Object>> translations = new ConcurrentHashMap<Class<?>, Predicate<Object>>();
+
+    private ConstraintTranslator(final ValidatorFactory validatorFactoryParam) {
+        validatorFactory = validatorFactoryParam;
+        validator = validatorFactoryParam.getValidator();
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @return A new instance with the default validator factory.
+     */
+    public static ConstraintTranslator getInstance() {
+        return new ConstraintTranslator(Validation.buildDefaultValidatorFactory());
+    }
+
+    /**
+     * Static factory method.
+     *
+     * @param validatorFactoryParam The validator factory, which provides the constraint metadata and checks the
+     *                              constraints that can't be translated.  Must not be {@code null}.
+     * @return A new instance with the specified validator factory.
+     */
+    public static ConstraintTranslator getInstance(final ValidatorFactory validatorFactoryParam) {
+        parameterCondition(notNull(), validatorFactoryParam, "Validator factory parameter must not be null.");
+        return new ConstraintTranslator(validatorFactoryParam);
+    }
+
+    /**
+     * Returns the predicate that is equivalent to validating beans of the specified class.  The predicate also
+     * accepts instances of subclasses, which are checked against their own constraints.
+     *
+     * @param beanTypeParam The bean class.  Must not be {@code null}.
+     * @param <T>           The type of the beans.
+     * @return The translated predicate.  Its input must not be {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Predicate<T> translate(final Class<T> beanTypeParam) {
+        parameterCondition(notNull(), beanTypeParam, "Bean type parameter must not be null.");
+        return (Predicate<T>) predicateFor(beanTypeParam);
+    }
+
+    private Predicate<Object> predicateFor(final Class<?> beanTypeParam) {
+        final Predicate<Object> predicate = translations.get(beanTypeParam);
+        if (predicate != null) {
+            return predicate;
+        }
+        final Predicate<Object> translated = translateBean(beanTypeParam);
+        final Predicate<Object> previous = translations.putIfAbsent(beanTypeParam, translated);
+        return previous == null ? translated : previous;
+    }
+
+    private Predicate<Object> translateBean(final Class<?> beanTypeParam) {
+        final BeanDescriptor descriptor = validator.getConstraintsForClass(beanTypeParam);
+        if (descriptor.findConstraints().unorderedAndMatchingGroups(Default.class).hasConstraints() || hasGroupSequence(beanTypeParam)) {
+            return new BeanPredicate(beanTypeParam, Collections.<Predicate<Object>>singletonList(BeanValidationPredicate.getInstance(validatorFactory)), false);
+        }
+        final List<Predicate<Object>> members = new ArrayList<Predicate<Object>>();
+        boolean cascading = false;
+        for (final PropertyDescriptor property : descriptor.getConstrainedProperties()) {
+            members.addAll(translateProperty(beanTypeParam, property));
+            if (property.isCascaded()) {
+                final List<Predicate<Object>> cascades = translateCascades(beanTypeParam, property.getPropertyName());
+                members.addAll(cascades);
+                cascading |= !cascades.isEmpty();
+            }
+        }
+        return new BeanPredicate(beanTypeParam, members, cascading);
+    }
+
+    private List<Predicate<Object>> translateProperty(final Class<?> beanTypeParam, final PropertyDescriptor propertyParam) {
+        final String name = propertyParam.getPropertyName();
+        final List<Predicate<Object>> members = new ArrayList<Predicate<Object>>(2);
+        final ElementType[] elementTypes = new ElementType[]{ElementType.FIELD, ElementType.METHOD};
+        for (final ElementType elementType : elementTypes) {
+            final Set<ConstraintDescriptor<?>> constraints = propertyParam.findConstraints()
+                    .unorderedAndMatchingGroups(Default.class).declaredOn(elementType).getConstraintDescriptors();
+            if (constraints.isEmpty()) {
+                continue;
+            }
+            final AccessibleObject member = elementType == ElementType.FIELD ? findField(beanTypeParam, name) : findGetter(beanTypeParam, name);
+            final MethodHandle reader = member == null ? null : reader(member);
+            if (reader == null) {
+                return Collections.<Predicate<Object>>singletonList(new ValidatorPropertyPredicate(validator, name));
+            }
+            final Class<?> declaredType = member instanceof Field ? ((Field) member).getType() : ((Method) member).getReturnType();
+            final List<Predicate<Object>> valuePredicates = new ArrayList<Predicate<Object>>(constraints.size());
+            for (final ConstraintDescriptor<?> constraint : constraints) {
+                final Predicate<Object> valuePredicate = ConstraintPredicates.forConstraint(constraint, declaredType);
+                if (valuePredicate == null) {
+                    return Collections.<Predicate<Object>>singletonList(new ValidatorPropertyPredicate(validator, name));
+                }
+                valuePredicates.add(valuePredicate);
+            }
+            members.add(new PropertyPredicate(reader, name, new ConstraintPredicates.AllPredicate<Object>(valuePredicates)));
+        }
+        return members;
+    }
+
+    private List<Predicate<Object>> translateCascades(final Class<?> beanTypeParam, final String nameParam) {
+        final List<Predicate<Object>> cascades = new ArrayList<Predicate<Object>>(1);
+        for (final AccessibleObject member : new AccessibleObject[]{findField(beanTypeParam, nameParam), findGetter(beanTypeParam, nameParam)}) {
+            if (member == null || !member.isAnnotationPresent(Valid.class)) {
+                continue;
+            }
+            final MethodHandle reader = reader(member);
+            if (reader == null) {
+                throw new ValidationException("Can't read cascaded property " + nameParam + " of " + beanTypeParam.getName() + ".");
+            }
+            cascades.add(new PropertyPredicate(reader, nameParam, new CascadePredicate()));
+        }
+        return cascades;
+    }
+
+    private static boolean hasGroupSequence(final Class<?> beanTypeParam) {
+        for (final Annotation annotation : beanTypeParam.getAnnotations()) {
+            final Class<? extends Annotation> type = annotation.annotationType();
+            if (type == GroupSequence.class || type.getSimpleName().equals("GroupSequenceProvider")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the only field with the specified name in the class hierarchy, or {@code null} if there is none or if
+     * it is shadowed, in which case the validator must resolve it.
+     */
+    private static Field findField(final Class<?> beanTypeParam, final String nameParam) {
+        Field found = null;
+        for (Class<?> type = beanTypeParam; type != null; type = type.getSuperclass()) {
+            for (final Field field : type.getDeclaredFields()) {
+                if (field.getName().equals(nameParam)) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = field;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the most derived getter of the specified property, or {@code null} if there is none or if several
+     * getter names match the property.
+     */
+    private static Method findGetter(final Class<?> beanTypeParam, final String nameParam) {
+        final String capitalized = Character.toUpperCase(nameParam.charAt(0)) + nameParam.substring(1);
+        for (Class<?> type = beanTypeParam; type != null; type = type.getSuperclass()) {
+            Method found = null;
+            for (final Method method : type.getDeclaredMethods()) {
+                if (method.getParameterTypes().length == 0 && !method.isBridge() && method.getReturnType() != void.class
+                        && (method.getName().equals("get" + capitalized) || method.getName().equals("is" + capitalized)
+                        || method.getName().equals("has" + capitalized))) {
+                    if (found != null) {
+                        return null;
+                    }
+                    found = method;
+                }
+            }
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a method handle of type {@code (Object)Object} that reads the specified field or calls the specified
+     * getter, or {@code null} if it is not accessible.
+     */
+    private static MethodHandle reader(final AccessibleObject memberParam) {
+        try {
+            memberParam.setAccessible(true);
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodHandle handle = memberParam instanceof Field ? lookup.unreflectGetter((Field) memberParam) : lookup.unreflect((Method) memberParam);
+            return handle.asType(READER_TYPE);
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // Members of classes in modules that are not open to this one.
+            return null;
+        }
+    }
+
+    /**
+     * The root of the translation of a bean class, which dispatches instances of subclasses to their own
+     * translation and tracks the beans validated through cascades.
+     */
+    private final class BeanPredicate implements Predicate<Object> {
+        private final Class<?> beanType;
+        private final Predicate<Object>[] members;
+        private final boolean cascading;
+
+        @SuppressWarnings("unchecked")
+        private BeanPredicate(final Class<?> beanTypeParam, final List<Predicate<Object>> membersParam, final boolean cascadingParam) {
+            beanType = beanTypeParam;
+            members = membersParam.toArray(new Predicate[membersParam.size()]);
+            cascading = cascadingParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            parameterCondition(notNull(), inputParam, "Bean input parameter must not be null.");
+            if (inputParam.getClass() != beanType) {
+                return predicateFor(inputParam.getClass()).apply(inputParam);
+            }
+            if (!cascading) {
+                return applyMembers(inputParam);
+            }
+            final Set<Object> visited = VISITED.get();
+            if (visited != null) {
+                // A bean already seen in this graph has been or is being checked: it adds no violation.
+                return !visited.add(inputParam) || applyMembers(inputParam);
+            }
+            final Set<Object> rootVisited = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            rootVisited.add(inputParam);
+            VISITED.set(rootVisited);
+            try {
+                return applyMembers(inputParam);
+            } finally {
+                VISITED.remove();
+            }
+        }
+
+        private boolean applyMembers(final Object inputParam) {
+            for (final Predicate<Object> member : members) {
+                if (!member.apply(inputParam)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads a property once and applies a predicate on its value.
+     */
+    private static final class PropertyPredicate implements Predicate<Object> {
+        private final MethodHandle reader;
+        private final String name;
+        private final Predicate<Object> valuePredicate;
+
+        private PropertyPredicate(final MethodHandle readerParam, final String nameParam, final Predicate<Object> valuePredicateParam) {
+            reader = readerParam;
+            name = nameParam;
+            valuePredicate = valuePredicateParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            final Object value;
+            try {
+                value = (Object) reader.invokeExact(inputParam);
+            } catch (Throwable t) {
+                throw new ValidationException("Can't read property " + name + " of " + inputParam.getClass().getName() + ".", t);
+            }
+            return valuePredicate.apply(value);
+        }
+    }
+
+    /**
+     * Validates a {@code @Valid} property value: a bean, or the elements of an iterable, the values of a map or the
+     * elements of an array of beans.
+     */
+    private final class CascadePredicate implements Predicate<Object> {
+        public boolean apply(final Object inputParam) {
+            if (inputParam == null) {
+                return true;
+            }
+            if (inputParam instanceof Iterable) {
+                return allValid((Iterable<?>) inputParam);
+            }
+            if (inputParam instanceof Map) {
+                return allValid(((Map<?, ?>) inputParam).values());
+            }
+            if (inputParam instanceof Object[]) {
+                for (final Object element : (Object[]) inputParam) {
+                    if (element != null && !predicateFor(element.getClass()).apply(element)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return predicateFor(inputParam.getClass()).apply(inputParam);
+        }
+
+        private boolean allValid(final Iterable<?> elementsParam) {
+            for (final Object element : elementsParam) {
+                if (element != null && !predicateFor(element.getClass()).apply(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Checks all the constraints of a property with the validator.
+     */
+    private static final class ValidatorPropertyPredicate implements Predicate<Object> {
+        private final Validator validator;
+        private final String name;
+
+        private ValidatorPropertyPredicate(final Validator validatorParam, final String nameParam) {
+            validator = validatorParam;
+            name = nameParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            return validator.validateProperty(inputParam, name).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import java.util.Set;
+
+/**
+ * A bean that tracks which of its properties changed, so that only these are revalidated by
+ * {@link BeanValidationPredicate#incremental()}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public interface DirtyPropertiesAware {
+    /**
+     * Returns the names of the properties that changed since the bean was last validated.
+     *
+     * @return The names of the dirty properties.  Must not be {@code null}.
+     */
+    Set<String> getDirtyProperties();
+}
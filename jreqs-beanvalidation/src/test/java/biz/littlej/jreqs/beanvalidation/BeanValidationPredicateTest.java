@@ -4,7 +4,16 @@ import biz.littlej.jreqs.predicates.Predicate;
 import org.junit.Test;
 
 import javax.validation.ConstraintViolation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -53,4 +62,78 @@ public class BeanValidationPredicateTest {
                 ((BeanValidationPredicate<DomainBean>) beanValidationPredicate).getConstraintViolationsForBean(domainBean);
         assertEquals("There should be 2 violations.", 1, violations.size());
     }
+
+    @Test
+    public void shouldValidateWarmedUpTypesConcurrently() throws Exception {
+        final BeanValidationPredicate<DomainBean> beanValidationPredicate = BeanValidationPredicate.getInstance(null, DomainBean.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 200; i++) {
+                final int someInt = i % 20;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() {
+                        final DomainBean domainBean = new DomainBean();
+                        domainBean.setSomeString("lalalala");
+                        domainBean.setSomeInt(someInt);
+                        return beanValidationPredicate.validate(domainBean).size();
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("Bean " + i + " should have the violations of its own state.", i % 20 < 10 ? 1 : 0, results.get(i).get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldStopAtFirstViolationInFailFastMode() {
+        final DomainBean domainBean = new DomainBean();
+        domainBean.setSomeString("  ");
+        domainBean.setSomeInt(0);
+        assertEquals("There should be 2 violations.", 2, BeanValidationPredicate.<DomainBean>getInstance().validate(domainBean).size());
+        final BeanValidationPredicate<DomainBean> failFast = BeanValidationPredicate.getFailFastInstance(null, DomainBean.class);
+        assertFalse("DomainBean should be invalid", failFast.apply(domainBean));
+        assertEquals("Fail-fast validation should report 1 violation.", 1, failFast.validate(domainBean).size());
+        assertEquals("Fail-fast property validation should report 1 violation.", 1,
+                failFast.validateProperties(domainBean, Arrays.asList("someString", "someInt")).size());
+    }
+
+    @Test
+    public void shouldOnlyValidateChangedProperties() {
+        final DomainBean domainBean = new DomainBean();
+        domainBean.setSomeString("lalalala");
+        domainBean.setSomeInt(0);
+        final BeanValidationPredicate<DomainBean> beanValidationPredicate = BeanValidationPredicate.getInstance();
+        assertTrue("Valid property should evaluate to true.", beanValidationPredicate.forProperties("someString").apply(domainBean));
+        assertFalse("Invalid property should evaluate to false.", beanValidationPredicate.forProperties("someString", "someInt").apply(domainBean));
+        assertEquals("There should be 1 violation.", 1,
+                beanValidationPredicate.validateProperties(domainBean, Arrays.asList("someString", "someInt")).size());
+        assertTrue("There should be no violation.", beanValidationPredicate.validateProperties(domainBean, Collections.singleton("someString")).isEmpty());
+    }
+
+    @Test
+    public void shouldOnlyValidateDirtyProperties() {
+        final DirtyDomainBean domainBean = new DirtyDomainBean();
+        domainBean.setSomeString("lalalala");
+        domainBean.setSomeInt(0);
+        domainBean.dirtyProperties.add("someString");
+        final Predicate<DomainBean> incremental = BeanValidationPredicate.<DomainBean>getInstance().incremental();
+        assertTrue("Valid dirty property should evaluate to true.", incremental.apply(domainBean));
+        domainBean.dirtyProperties.add("someInt");
+        assertFalse("Invalid dirty property should evaluate to false.", incremental.apply(domainBean));
+        final DomainBean untracked = new DomainBean();
+        untracked.setSomeString("lalalala");
+        assertFalse("Bean without dirty tracking should be fully validated.", incremental.apply(untracked));
+    }
+
+    public static class DirtyDomainBean extends DomainBean implements DirtyPropertiesAware {
+        private final Set<String> dirtyProperties = new HashSet<String>();
+
+        public Set<String> getDirtyProperties() {
+            return dirtyProperties;
+        }
+    }
 }
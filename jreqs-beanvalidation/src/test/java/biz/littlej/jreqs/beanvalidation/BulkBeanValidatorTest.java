@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BulkBeanValidator}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class BulkBeanValidatorTest {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    private static List<DomainBean> beans(final int countParam) {
+        final List<DomainBean> beans = new ArrayList<DomainBean>(countParam);
+        for (int i = 0; i < countParam; i++) {
+            final DomainBean domainBean = new DomainBean();
+            domainBean.setSomeString(i % 11 == 0 ? " " : "lalalala");
+            domainBean.setSomeInt(i % 7 == 0 ? 0 : 10);
+            beans.add(domainBean);
+        }
+        return beans;
+    }
+
+    @Test
+    public void shouldReportViolationsByIndex() {
+        final List<DomainBean> beans = beans(5000);
+        final BeanValidationPredicate<DomainBean> predicate = BeanValidationPredicate.getInstance(null, DomainBean.class);
+        final BulkValidationResult<DomainBean> result = new BulkBeanValidator<DomainBean>(predicate, EXECUTOR, 8, 64).validate(beans);
+        assertTrue("Validation should be complete.", result.isComplete());
+        assertEquals("All beans should have been read.", 5000, result.getReadCount());
+        final List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < beans.size(); i++) {
+            assertEquals("Violations of bean " + i + " should be the sequential ones.",
+                    predicate.validate(beans.get(i)).size(), result.getViolations(i).size());
+            if (!predicate.apply(beans.get(i))) {
+                expected.add(i);
+            }
+        }
+        final int[] indices = result.getViolatingIndices();
+        assertEquals("Violating indices should be sorted and complete.", expected.toString(), Arrays.toString(indices));
+        assertEquals("Violating count should match.", expected.size(), result.getViolatingCount());
+    }
+
+    @Test
+    public void shouldStopAtCutoff() {
+        final BeanValidationPredicate<DomainBean> predicate = BeanValidationPredicate.getFailFastInstance(null, DomainBean.class);
+        final BulkValidationResult<DomainBean> result = new BulkBeanValidator<DomainBean>(predicate, EXECUTOR, 2, 16)
+                .validate(beans(100000).stream(), 1);
+        assertFalse("Validation should have stopped early.", result.isComplete());
+        assertFalse("Result should be invalid.", result.isValid());
+        assertTrue("Few beans should have been read.", result.getReadCount() < 100000);
+    }
+
+    @Test
+    public void shouldAcceptValidBeans() {
+        final List<DomainBean> beans = new ArrayList<DomainBean>();
+        for (final DomainBean domainBean : beans(1000)) {
+            if (BeanValidationPredicate.<DomainBean>getInstance().apply(domainBean)) {
+                beans.add(domainBean);
+            }
+        }
+        final BulkValidationResult<DomainBean> result = new BulkBeanValidator<DomainBean>(BeanValidationPredicate.<DomainBean>getInstance(), EXECUTOR, 4, 10)
+                .validate(beans, 1);
+        assertTrue("Result should be valid.", result.isValid());
+        assertTrue("Validation should be complete.", result.isComplete());
+        assertTrue("Valid bean should have no violations.", result.getViolations(3).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldPropagateFailures() {
+        final List<DomainBean> beans = beans(100);
+        beans.set(42, null);
+        new BulkBeanValidator<DomainBean>(BeanValidationPredicate.<DomainBean>getInstance(), EXECUTOR, 4, 10).validate(beans);
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.beanvalidation;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import org.hibernate.validator.constraints.NotBlank;
+import org.hibernate.validator.constraints.NotEmpty;
+import org.junit.Test;
+
+import javax.validation.Constraint;
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.Payload;
+import javax.validation.Valid;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.Future;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Past;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Conformance tests for {@link ConstraintTranslator}: translated predicates must give the verdicts of the validator.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ConstraintTranslatorTest {
+    private static final ValidatorFactory FACTORY = Validation.buildDefaultValidatorFactory();
+    private static final String[] STRINGS = new String[]{null, "", " ", "a", "ab", "AbC", "abcde", "abcdef", "a1", "  x  "};
+
+    @Test
+    public void shouldGiveTheVerdictsOfTheValidator() {
+        final Validator validator = FACTORY.getValidator();
+        final Predicate<Dto> translated = ConstraintTranslator.getInstance(FACTORY).translate(Dto.class);
+        final Random random = new Random(42);
+        int valid = 0;
+        for (int i = 0; i < 3000; i++) {
+            final Dto dto = randomDto(random, 2);
+            final boolean expected = validator.validate(dto).isEmpty();
+            assertEquals("Verdict for bean " + i + " should be the validator's.", expected, translated.apply(dto));
+            valid += expected ? 1 : 0;
+        }
+        assertTrue("Both verdicts should have been covered.", valid > 0 && valid < 3000);
+    }
+
+    @Test
+    public void shouldTerminateOnCyclicGraphs() {
+        final Predicate<Dto> translated = ConstraintTranslator.getInstance(FACTORY).translate(Dto.class);
+        final Dto dto = validDto();
+        dto.child = new Child();
+        dto.child.parent = dto;
+        assertTrue("Valid cyclic graph should evaluate to true.", translated.apply(dto));
+        dto.child.even = 3;
+        assertFalse("Invalid cyclic graph should evaluate to false.", translated.apply(dto));
+    }
+
+    @Test
+    public void shouldFallBackToTheValidatorForClassLevelConstraints() {
+        final Predicate<Range> translated = ConstraintTranslator.getInstance(FACTORY).translate(Range.class);
+        final Range range = new Range();
+        range.low = 1;
+        range.high = 2;
+        assertTrue("Ordered range should evaluate to true.", translated.apply(range));
+        range.low = 3;
+        assertFalse("Unordered range should evaluate to false.", translated.apply(range));
+    }
+
+    @Test
+    public void shouldCheckSubclassesAgainstTheirOwnConstraints() {
+        final Predicate<Dto> translated = ConstraintTranslator.getInstance(FACTORY).translate(Dto.class);
+        final SubDto dto = new SubDto();
+        copy(validDto(), dto);
+        dto.extra = "ok";
+        assertTrue("Valid subclass bean should evaluate to true.", translated.apply(dto));
+        dto.extra = null;
+        assertFalse("Subclass constraint violation should evaluate to false.", translated.apply(dto));
+    }
+
+    private static Dto validDto() {
+        final Dto dto = new Dto();
+        dto.name = "abc";
+        dto.code = "abc";
+        dto.tags = new ArrayList<String>();
+        dto.tags.add("t");
+        dto.comment = "c";
+        dto.count = 5;
+        return dto;
+    }
+
+    private static void copy(final Dto fromParam, final Dto toParam) {
+        toParam.name = fromParam.name;
+        toParam.code = fromParam.code;
+        toParam.tags = fromParam.tags;
+        toParam.comment = fromParam.comment;
+        toParam.count = fromParam.count;
+    }
+
+    private static Dto randomDto(final Random randomParam, final int depthParam) {
+        final Dto dto = new Dto();
+        dto.name = STRINGS[randomParam.nextInt(STRINGS.length)];
+        dto.code = STRINGS[randomParam.nextInt(STRINGS.length)];
+        dto.comment = STRINGS[randomParam.nextInt(STRINGS.length)];
+        dto.count = randomParam.nextInt(16);
+        dto.limit = randomParam.nextInt(8) == 0 ? null : Long.valueOf(randomParam.nextInt(14));
+        dto.amount = randomParam.nextInt(8) == 0 ? null : BigDecimal.valueOf(randomParam.nextInt(400) - 100, 2);
+        dto.ratio = randomParam.nextDouble() * 2;
+        final long now = System.currentTimeMillis();
+        dto.created = randomParam.nextInt(8) == 0 ? null : new Date(now + (randomParam.nextBoolean() ? -3600000L : 3600000L));
+        final Calendar expiry = Calendar.getInstance();
+        expiry.setTimeInMillis(now + (randomParam.nextBoolean() ? -3600000L : 3600000L));
+        dto.expiry = randomParam.nextInt(8) == 0 ? null : expiry;
+        if (randomParam.nextInt(8) != 0) {
+            dto.tags = new ArrayList<String>();
+            for (int i = randomParam.nextInt(5); i > 0; i--) {
+                dto.tags.add("t");
+            }
+        }
+        dto.digits = randomParam.nextInt(8) == 0 ? null : new int[randomParam.nextInt(4)];
+        if (depthParam > 0 && randomParam.nextBoolean()) {
+            dto.child = new Child();
+            dto.child.even = randomParam.nextInt(4);
+            dto.child.nested = randomParam.nextBoolean() ? randomDto(randomParam, depthParam - 1) : null;
+        }
+        if (depthParam > 0 && randomParam.nextBoolean()) {
+            dto.children = new ArrayList<Child>();
+            for (int i = randomParam.nextInt(3); i > 0; i--) {
+                final Child child = new Child();
+                child.even = randomParam.nextInt(8) == 0 ? 1 : 2;
+                dto.children.add(randomParam.nextInt(6) == 0 ? null : child);
+            }
+        }
+        return dto;
+    }
+
+    public static class Dto {
+        @NotNull
+        @Size(min = 2, max = 5)
+        private String name;
+        @Pattern(regexp = "[a-z]+", flags = Pattern.Flag.CASE_INSENSITIVE)
+        private String code;
+        @NotBlank
+        private String comment;
+        @Min(3)
+        @Max(12)
+        private int count;
+        @Max(10)
+        private Long limit;
+        @Min(0)
+        private BigDecimal amount;
+        @Max(1)
+        private double ratio;
+        @Past
+        private Date created;
+        @Future
+        private Calendar expiry;
+        @NotEmpty
+        private List<String> tags;
+        @Size(max = 2)
+        private int[] digits;
+        @Valid
+        private Child child;
+        private List<Child> children;
+
+        @Valid
+        @Size(max = 1)
+        public List<Child> getChildren() {
+            return children;
+        }
+    }
+
+    public static class SubDto extends Dto {
+        @NotNull
+        private String extra;
+    }
+
+    public static class Child {
+        @Even
+        private int even;
+        @Valid
+        private Dto nested;
+        @Valid
+        private Dto parent;
+    }
+
+    @Ordered
+    public static class Range {
+        private int low;
+        @Min(0)
+        private int high;
+    }
+
+    @Target({ElementType.FIELD, ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    @Constraint(validatedBy = EvenValidator.class)
+    public @interface Even {
+        String message() default "must be even";
+
+        Class<?>[] groups() default {};
+
+        Class<? extends Payload>[] payload() default {};
+    }
+
+    public static class EvenValidator implements ConstraintValidator<Even, Integer> {
+        public void initialize(final Even constraintAnnotationParam) {
+        }
+
+        public boolean isValid(final Integer valueParam, final ConstraintValidatorContext contextParam) {
+            return valueParam == null || valueParam % 2 == 0;
+        }
+    }
+
+    @Target(ElementType.TYPE)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Constraint(validatedBy = OrderedValidator.class)
+    public @interface Ordered {
+        String message() default "low must not be greater than high";
+
+        Class<?>[] groups() default {};
+
+        Class<? extends Payload>[] payload() default {};
+    }
+
+    public static class OrderedValidator implements ConstraintValidator<Ordered, Range> {
+        public void initialize(final Ordered constraintAnnotationParam) {
+        }
+
+        public boolean isValid(final Range valueParam, final ConstraintValidatorContext contextParam) {
+            return valueParam.low <= valueParam.high;
+        }
+    }
+}
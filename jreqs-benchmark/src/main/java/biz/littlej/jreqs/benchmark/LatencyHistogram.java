@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+/**
+ * A histogram of latencies in nanoseconds, with log-linear buckets: values below 128 are counted exactly, and each
+ * power-of-two range above is split in 64 buckets, so that a reported value is at most about 1.6% above the
+ * recorded one.  Recording does not allocate.  Instances are not thread-safe: each worker records into its own
+ * histogram, and the histograms are {@link #add(LatencyHistogram) added} once the workers are done.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class LatencyHistogram {
+    private static final int EXACT_VALUES = 128;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 7;
+    private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - 1 - FIRST_EXPONENT) * SUB_BUCKETS;
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long total;
+    private long max;
+
+    /**
+     * Records a latency.
+     *
+     * @param nanosParam The latency, in nanoseconds.  Negative values are recorded as zero.
+     */
+    void record(final long nanosParam) {
+        final long value = Math.max(0, nanosParam);
+        ++counts[indexOf(value)];
+        ++count;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values recorded by another histogram to this one.
+     *
+     * @param otherParam The other histogram.
+     */
+    void add(final LatencyHistogram otherParam) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += otherParam.counts[i];
+        }
+        count += otherParam.count;
+        total += otherParam.total;
+        max = Math.max(max, otherParam.max);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Returns the value at the specified percentile: the highest value of the bucket in which the percentile falls,
+     * which is never above the highest recorded value.
+     *
+     * @param percentileParam The percentile, between 0 and 100.
+     * @return The value, in nanoseconds, or 0 if nothing was recorded.
+     */
+    long getValueAtPercentile(final double percentileParam) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentileParam / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(final long valueParam) {
+        if (valueParam < EXACT_VALUES) {
+            return (int) valueParam;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(valueParam);
+        final int subBucket = (int) (valueParam >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return EXACT_VALUES + (exponent - FIRST_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestValueOf(final int indexParam) {
+        if (indexParam < EXACT_VALUES) {
+            return indexParam;
+        }
+        final int bucket = indexParam - EXACT_VALUES;
+        final int shift = bucket / SUB_BUCKETS + FIRST_EXPONENT - SUB_BUCKET_BITS;
+        final long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a {@link Workload mix of request validations} at a fixed rate on platform and virtual threads, and reports
+ * the latency percentiles, the allocation rate and the garbage collections of the measured period.  Unlike
+ * microbenchmarks, it shows the tail latency caused by garbage collections and by the exceptions of failed checks.
+ * <p/>
+ * The load is open: each worker starts its operations on a fixed schedule, whether or not the previous ones are done.
+ * The corrected latency of an operation is measured from its scheduled start, so that a stall delays the operations
+ * scheduled during it too, as it would delay the requests of real clients; measuring from the actual start instead
+ * hides stalls, which is known as coordinated omission.  The service time, from the actual start, is reported as well.
+ * The operations scheduled before the end of the measurement are all run and recorded, even those that a worker
+ * behind schedule only starts after the end, and the throughput is computed over the time actually taken.
+ * <pre>
+ * java -jar jreqs-benchmark/target/jreqs-benchmark-0.1.3-SNAPSHOT.jar --threads 4 --virtual-threads 100 --rate 20000
+ * </pre>
+ * The options, all optional, are:
+ * <ul>
+ * <li>{@code --threads n}: the number of platform threads, 4 by default;</li>
+ * <li>{@code --virtual-threads n}: the number of virtual threads, 0 by default; they require Java 21;</li>
+ * <li>{@code --rate n}: the number of operations started per second by all threads together, 10000 by default;</li>
+ * <li>{@code --warm-up s} and {@code --duration s}: the durations in seconds of the unrecorded warm-up and of the
+ * measurement, 10 and 30 by default;</li>
+ * <li>{@code --failure-rate r}: the share of invalid orders, 0.07 by default;</li>
+ * <li>{@code --mix dto=w,rules=w,regex=w,bean=w}: the weights of the scenarios, 40, 30, 20 and 10 by default;</li>
+ * <li>{@code --seed n}: the seed of the generated orders.</li>
+ * </ul>
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class LoadGenerator {
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long START_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Runs the load generator.
+     *
+     * @param argsParam The options, see the class documentation.
+     * @throws InterruptedException if interrupted while waiting for the workers.
+     */
+    public static void main(final String[] argsParam) throws InterruptedException {
+        final Options options;
+        try {
+            options = Options.parse(argsParam);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.out.println(options);
+        final Workload workload = new Workload(options.weights, options.failureRate, options.seed);
+        final int workers = options.threads + options.virtualThreads;
+        final long intervalNanos = Math.max(1, Math.round(1e9 * workers / options.rate));
+        final long start = System.nanoTime() + START_DELAY_NANOS;
+        final long measureStart = start + TimeUnit.SECONDS.toNanos(options.warmUpSeconds);
+        final long end = measureStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        final List<Worker> running = new ArrayList<Worker>(workers);
+        final List<Thread> threads = new ArrayList<Thread>(workers);
+        for (int i = 0; i < workers; i++) {
+            // Stagger the schedules, so that the workers do not all start an operation at the same time.
+            final Worker worker = new Worker(workload, i, intervalNanos, intervalNanos * i / workers, start, measureStart, end);
+            running.add(worker);
+            try {
+                threads.add(i < options.threads ? platformThread(worker, i) : virtualThread(worker));
+            } catch (IllegalStateException e) {
+                System.err.println(e.getMessage());
+                System.exit(2);
+                return;
+            }
+        }
+        final Set<Long> platformWorkers = new HashSet<Long>();
+        for (int i = 0; i < options.threads; i++) {
+            platformWorkers.add(threads.get(i).getId());
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        waitUntil(measureStart);
+        final Map<Long, Long> allocatedBefore = allocatedBytes(platformWorkers);
+        final long[] gcBefore = collections();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        final Map<Long, Long> allocatedAfter = allocatedBytes(platformWorkers);
+        final long[] gcAfter = collections();
+        long allocated = allocatedDelta(allocatedBefore, allocatedAfter);
+        // Virtual workers do not count their allocations: their carrier threads do.
+        for (final Worker worker : running) {
+            if (allocated >= 0 && worker.allocated > 0) {
+                allocated += worker.allocated;
+            }
+        }
+        long finished = end;
+        for (final Worker worker : running) {
+            finished = Math.max(finished, worker.finished);
+        }
+        report(options, running, (finished - measureStart) / 1e9, allocated, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+    }
+
+    private static void report(final Options optionsParam, final List<Worker> workersParam, final double secondsParam,
+                               final long allocatedParam, final long collectionsParam, final long collectionMillisParam) {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final long[] operations = new long[Workload.Scenario.values().length];
+        final long[] failures = new long[operations.length];
+        long late = 0;
+        for (final Worker worker : workersParam) {
+            corrected.add(worker.corrected);
+            service.add(worker.service);
+            for (int i = 0; i < operations.length; i++) {
+                operations[i] += worker.operations[i];
+                failures[i] += worker.failures[i];
+            }
+            late += worker.late;
+        }
+        long totalOperations = 0;
+        long totalFailures = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalOperations += operations[i];
+            totalFailures += failures[i];
+        }
+        final double seconds = secondsParam;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Throughput: %.1f ops/s (%d operations, %.2f%% failed)%n",
+                totalOperations / seconds, totalOperations, percentage(totalFailures, totalOperations));
+        for (final Workload.Scenario scenario : Workload.Scenario.values()) {
+            if (operations[scenario.ordinal()] > 0) {
+                System.out.printf(Locale.ROOT, "  %-16s %10d operations, %.2f%% failed%n", scenario,
+                        operations[scenario.ordinal()], percentage(failures[scenario.ordinal()], operations[scenario.ordinal()]));
+            }
+        }
+        if (late > 0) {
+            System.out.printf(Locale.ROOT, "Behind schedule: %d operations started after the end of the measurement, which took"
+                    + " %.1f s instead of %d s; lower the rate.%n", late, seconds, optionsParam.durationSeconds);
+        }
+        System.out.println();
+        final StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%-22s", "Latency (us)"));
+        for (final double percentile : PERCENTILES) {
+            header.append(String.format(Locale.ROOT, "%10s", "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile))));
+        }
+        header.append(String.format(Locale.ROOT, "%10s%10s", "max", "mean"));
+        System.out.println(header);
+        printLatencies("  corrected", corrected);
+        printLatencies("  service time", service);
+        System.out.println();
+        if (allocatedParam < 0) {
+            System.out.println("Allocation: not measurable on this JVM");
+        } else {
+            System.out.printf(Locale.ROOT, "Allocation: %.1f MB/s, %d bytes/op%n",
+                    allocatedParam / seconds / (1024 * 1024), totalOperations == 0 ? 0 : allocatedParam / totalOperations);
+        }
+        System.out.printf(Locale.ROOT, "Garbage collection: %d collections, %d ms%n", collectionsParam, collectionMillisParam);
+    }
+
+    private static void printLatencies(final String labelParam, final LatencyHistogram histogramParam) {
+        final StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-22s", labelParam));
+        for (final double percentile : PERCENTILES) {
+            line.append(String.format(Locale.ROOT, "%10.1f", histogramParam.getValueAtPercentile(percentile) / 1e3));
+        }
+        line.append(String.format(Locale.ROOT, "%10.1f%10.1f", histogramParam.getMax() / 1e3, histogramParam.getMean() / 1e3));
+        System.out.println(line);
+    }
+
+    private static double percentage(final long partParam, final long totalParam) {
+        return totalParam == 0 ? 0 : 100.0 * partParam / totalParam;
+    }
+
+    /**
+     * Returns the bytes allocated so far by each live thread but the excluded ones, or an empty map if the JVM does
+     * not count them.  The allocations of virtual threads are counted by their carrier threads.  Platform workers
+     * count their own allocations instead, since they may end before the last snapshot.
+     */
+    private static Map<Long, Long> allocatedBytes(final Set<Long> excludedParam) {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final Map<Long, Long> result = new HashMap<Long, Long>();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return result;
+        }
+        final long[] ids = threads.getAllThreadIds();
+        final long[] bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0 && !excludedParam.contains(ids[i])) {
+                result.put(ids[i], bytes[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums the bytes allocated between both snapshots by the threads alive at the end.  A thread started in between
+     * counts from zero.  The allocations of threads that ended in between are lost.
+     *
+     * @return The sum, or -1 if the JVM does not count allocations.
+     */
+    private static long allocatedDelta(final Map<Long, Long> beforeParam, final Map<Long, Long> afterParam) {
+        if (afterParam.isEmpty()) {
+            return -1;
+        }
+        long result = 0;
+        for (final Map.Entry<Long, Long> after : afterParam.entrySet()) {
+            final Long before = beforeParam.get(after.getKey());
+            result += after.getValue() - (before == null ? 0 : before);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of garbage collections so far and their accumulated time in milliseconds.
+     */
+    static long[] collections() {
+        final long[] result = new long[2];
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result[0] += Math.max(0, collector.getCollectionCount());
+            result[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the JVM does not count them for it, as for
+     * virtual threads.
+     */
+    static long currentThreadAllocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)
+                || !((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static Thread platformThread(final Runnable runnableParam, final int indexParam) {
+        final Thread thread = new Thread(runnableParam, "jreqs-load-" + indexParam);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Creates an unstarted virtual thread, reflectively so that the generator still compiles and runs on Java 11.
+     */
+    private static Thread virtualThread(final Runnable runnableParam) {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (Thread) Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class).invoke(builder, runnableParam);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later.", e);
+        }
+    }
+
+    /**
+     * Waits until the specified {@code System.nanoTime()}: parks while far from it, then spins for accuracy.
+     */
+    static void waitUntil(final long deadlineParam) {
+        long remaining;
+        while ((remaining = deadlineParam - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Runs operations on a fixed schedule: unrecorded during the warm-up, recorded during the measurement.
+     */
+    private static final class Worker implements Runnable {
+        private final Workload workload;
+        private final long intervalNanos;
+        private final long offsetNanos;
+        private final long start;
+        private final long measureStart;
+        private final long end;
+        private final LatencyHistogram corrected = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final long[] operations = new long[Workload.Scenario.values().length];
+        private final long[] failures = new long[operations.length];
+        private long sequence;
+        private long late;
+        private long finished;
+        private long allocated = -1;
+
+        private Worker(final Workload workloadParam, final int indexParam, final long intervalNanosParam,
+                       final long offsetNanosParam, final long startParam, final long measureStartParam, final long endParam) {
+            workload = workloadParam;
+            intervalNanos = intervalNanosParam;
+            offsetNanos = offsetNanosParam;
+            start = startParam;
+            measureStart = measureStartParam;
+            end = endParam;
+            // Workers start at different points of the scenario schedule.
+            sequence = indexParam * 7919L;
+        }
+
+        public void run() {
+            for (long scheduled = start + offsetNanos; scheduled < measureStart; scheduled += intervalNanos) {
+                waitUntil(scheduled);
+                if (System.nanoTime() >= measureStart) {
+                    break;
+                }
+                workload.execute(sequence++);
+            }
+            // Operations that the warm-up could not start in time are dropped: the measurement starts on schedule.
+            long scheduled = measureStart + offsetNanos;
+            final long allocatedAtStart = currentThreadAllocatedBytes();
+            // Operations scheduled before the end are run even if they start after it, so that the latency of a stall
+            // at the end of the measurement is recorded too.
+            while (scheduled < end) {
+                waitUntil(scheduled);
+                final long actualStart = System.nanoTime();
+                if (actualStart >= end) {
+                    ++late;
+                }
+                final Workload.Scenario scenario = workload.scenarioOf(sequence);
+                final boolean passed = workload.execute(sequence++);
+                final long done = System.nanoTime();
+                corrected.record(done - scheduled);
+                service.record(done - actualStart);
+                ++operations[scenario.ordinal()];
+                if (!passed) {
+                    ++failures[scenario.ordinal()];
+                }
+                scheduled += intervalNanos;
+            }
+            finished = System.nanoTime();
+            final long allocatedAtEnd = currentThreadAllocatedBytes();
+            if (allocatedAtStart >= 0 && allocatedAtEnd >= 0) {
+                allocated = allocatedAtEnd - allocatedAtStart;
+            }
+        }
+    }
+
+    /**
+     * The command-line options.
+     */
+    private static final class Options {
+        private int threads = 4;
+        private int virtualThreads;
+        private double rate = 10000;
+        private long warmUpSeconds = 10;
+        private long durationSeconds = 30;
+        private double failureRate = 0.07;
+        private long seed = 42;
+        private final Map<Workload.Scenario, Integer> weights = new EnumMap<Workload.Scenario, Integer>(Workload.Scenario.class);
+
+        private Options() {
+            weights.put(Workload.Scenario.DTO_VALIDATION, 40);
+            weights.put(Workload.Scenario.COMPOSITE_RULES, 30);
+            weights.put(Workload.Scenario.REGEX_AND_URL, 20);
+            weights.put(Workload.Scenario.BEAN_VALIDATION, 10);
+        }
+
+        static Options parse(final String[] argsParam) {
+            final Options result = new Options();
+            for (int i = 0; i < argsParam.length; i += 2) {
+                if (i + 1 >= argsParam.length) {
+                    throw new IllegalArgumentException("Missing value for option " + argsParam[i] + ".");
+                }
+                final String value = argsParam[i + 1];
+                try {
+                    switch (argsParam[i]) {
+                        case "--threads":
+                            result.threads = Integer.parseInt(value);
+                            break;
+                        case "--virtual-threads":
+                            result.virtualThreads = Integer.parseInt(value);
+                            break;
+                        case "--rate":
+                            result.rate = Double.parseDouble(value);
+                            break;
+                        case "--warm-up":
+                            result.warmUpSeconds = Long.parseLong(value);
+                            break;
+                        case "--duration":
+                            result.durationSeconds = Long.parseLong(value);
+                            break;
+                        case "--failure-rate":
+                            result.failureRate = Double.parseDouble(value);
+                            break;
+                        case "--seed":
+                            result.seed = Long.parseLong(value);
+                            break;
+                        case "--mix":
+                            result.weights.clear();
+                            for (final String entry : value.split(",")) {
+                                final String[] keyAndWeight = entry.split("=", 2);
+                                if (keyAndWeight.length != 2) {
+                                    throw new IllegalArgumentException("Invalid mix entry '" + entry + "', expected scenario=weight.");
+                                }
+                                result.weights.put(Workload.Scenario.forKey(keyAndWeight[0].trim()), Integer.parseInt(keyAndWeight[1].trim()));
+                            }
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown option " + argsParam[i] + ".");
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value '" + value + "' for option " + argsParam[i] + ".", e);
+                }
+            }
+            if (result.threads < 0 || result.virtualThreads < 0 || result.threads + result.virtualThreads == 0) {
+                throw new IllegalArgumentException("At least one thread or virtual thread is required.");
+            }
+            if (!(result.rate > 0) || result.warmUpSeconds < 0 || result.durationSeconds <= 0) {
+                throw new IllegalArgumentException("The rate and the duration must be strictly positive, the warm-up positive.");
+            }
+            if (!(result.failureRate >= 0 && result.failureRate <= 1)) {
+                throw new IllegalArgumentException("The failure rate must be between 0 and 1.");
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder mix = new StringBuilder();
+            for (final Map.Entry<Workload.Scenario, Integer> weight : weights.entrySet()) {
+                mix.append(mix.length() == 0 ? "" : ", ").append(weight.getKey().getKey()).append('=').append(weight.getValue());
+            }
+            return String.format(Locale.ROOT, "jreqs load generator: %d threads, %d virtual threads, %.0f ops/s, "
+                    + "%d s warm-up, %d s measured, %.1f%% invalid orders, mix %s", threads, virtualThreads, rate,
+                    warmUpSeconds, durationSeconds, failureRate * 100, mix);
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private LoadGenerator() {
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+import org.hibernate.validator.constraints.URL;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.util.List;
+
+/**
+ * The request body validated by the {@link Workload workloads}: an order as a web service would receive it.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class Order {
+    static final String CUSTOMER_ID_REGEX = "^[A-Z]{2}[0-9]{6}$";
+    static final String EMAIL_REGEX = "^[^@\\s]+@[^@\\s]+\\.[a-z]+$";
+    @NotNull
+    @Pattern(regexp = CUSTOMER_ID_REGEX)
+    private final String customerId;
+    @NotNull
+    @Pattern(regexp = EMAIL_REGEX)
+    private final String email;
+    @Min(1)
+    private final int quantity;
+    @NotNull
+    @URL
+    private final String callbackUrl;
+    @NotNull
+    private final List<String> tags;
+
+    Order(final String customerIdParam, final String emailParam, final int quantityParam, final String callbackUrlParam,
+          final List<String> tagsParam) {
+        customerId = customerIdParam;
+        email = emailParam;
+        quantity = quantityParam;
+        callbackUrl = callbackUrlParam;
+        tags = tagsParam;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Measures the time and the normalized allocation, in bytes per operation, of the fluent parameter checks started by
+ * {@link Reqs#checkParam(String, String)} against the equivalent sequences of {@link Reqs#parameterCondition} calls,
+ * as JMH reports them with its GC profiler ({@code -prof gc}, {@code gc.alloc.rate.norm}).  Unlike
+ * {@code AllocationBudgetTest}, which measures without escape analysis so that its budgets are deterministic, this
+ * benchmark runs with the JIT compiler as configured, and checks that it removes the allocation of the checkers:
+ * <pre>
+ * java -cp jreqs-benchmark/target/jreqs-benchmark-0.1.3-SNAPSHOT.jar biz.littlej.jreqs.benchmark.ParameterCheckBenchmark
+ * </pre>
+ * When escape analysis is enabled, as it is by default, the benchmark fails with an {@code IllegalStateException},
+ * after printing all its results, if a {@code checkParam} chain allocates: that is, if it measures
+ * {@value #MAX_ALLOCATION_FREE_BYTES} bytes per operation or more, a bound that only absorbs the measurement noise.
+ * Each benchmark runs {@value #ITERATIONS} warm-up iterations then {@value #ITERATIONS} measured iterations of one
+ * second, on the current thread.  Its inputs are read from an array and its results are accumulated, so that the
+ * compiler can neither fold the checks into constants nor remove them.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ParameterCheckBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final long ITERATION_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int BATCH = 1000;
+    private static final double MAX_ALLOCATION_FREE_BYTES = 0.5;
+    private static final String MESSAGE = "Parameter must be valid.";
+    private static final String[] LOGINS = {"jdoe42", "asmith", "bjones7", "cwhite", "dgreen19", "eblack", "fbrown3", "gking"};
+    private static final Integer[] COUNTS = {1, 2, 3, 5, 8, 13, 21, 34};
+    private static final Predicate<Object> NOT_NULL = Predicates.notNull();
+    private static final Predicate<String> NOT_BLANK = Predicates.notBlankString();
+    private static final Predicate<CharSequence> NOT_EMPTY = Predicates.notEmptyCharSequence();
+    private static final Predicate<Number> STRICTLY_POSITIVE = Predicates.strictlyPositive();
+    private static volatile int sink;
+
+    /**
+     * Runs the benchmarks and prints one line per benchmark.
+     *
+     * @param argsParam Ignored.
+     * @throws IllegalStateException if escape analysis is enabled and a {@code checkParam} chain allocates.
+     */
+    public static void main(final String[] argsParam) {
+        final boolean escapeAnalysis = escapeAnalysisEnabled();
+        final List<String> allocating = new ArrayList<String>();
+        System.out.println(String.format(Locale.ROOT, "%-30s %8s %10s %24s", "Benchmark", "ns/op", "B/op", "GCs"));
+        run("parameterCondition(String)", i -> {
+            final String login = LOGINS[i & 7];
+            Reqs.parameterCondition(NOT_NULL, login, MESSAGE);
+            Reqs.parameterCondition(NOT_EMPTY, login, MESSAGE);
+            Reqs.parameterCondition(NOT_BLANK, login, MESSAGE);
+            return login.length() <= 64;
+        });
+        if (run("checkParam(String)", i -> {
+            Reqs.checkParam(LOGINS[i & 7], "login").notNull().notEmpty().notBlank().maxLength(64);
+            return true;
+        }) >= MAX_ALLOCATION_FREE_BYTES) {
+            allocating.add("checkParam(String)");
+        }
+        run("parameterCondition(Object)", i -> {
+            final Integer count = COUNTS[i & 7];
+            Reqs.parameterCondition(NOT_NULL, count, MESSAGE);
+            Reqs.parameterCondition(STRICTLY_POSITIVE, count, MESSAGE);
+            return true;
+        });
+        if (run("checkParam(Object)", i -> {
+            Reqs.checkParam(COUNTS[i & 7], "count").notNull().satisfies(STRICTLY_POSITIVE, MESSAGE);
+            return true;
+        }) >= MAX_ALLOCATION_FREE_BYTES) {
+            allocating.add("checkParam(Object)");
+        }
+        if (!escapeAnalysis) {
+            System.out.println("Escape analysis is disabled: the allocation of the checkers is not checked.");
+        } else if (!allocating.isEmpty()) {
+            throw new IllegalStateException("The checkers of " + allocating + " are not scalar-replaced: "
+                    + "the checks should allocate nothing with escape analysis enabled.");
+        }
+    }
+
+    /**
+     * Runs one benchmark and prints its line.
+     *
+     * @return The bytes allocated per operation, or a negative value if the JVM does not count them.
+     */
+    private static double run(final String nameParam, final IntPredicate operationParam) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            iteration(operationParam);
+        }
+        final long allocatedBefore = LoadGenerator.currentThreadAllocatedBytes();
+        final long collectionsBefore = LoadGenerator.collections()[0];
+        final long start = System.nanoTime();
+        long operations = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            operations += iteration(operationParam);
+        }
+        final long elapsed = System.nanoTime() - start;
+        final long collections = LoadGenerator.collections()[0] - collectionsBefore;
+        final long allocatedAfter = LoadGenerator.currentThreadAllocatedBytes();
+        final double bytesPerOperation = allocatedBefore < 0 ? -1 : (double) (allocatedAfter - allocatedBefore) / operations;
+        final String bytes = bytesPerOperation < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", bytesPerOperation);
+        System.out.println(String.format(Locale.ROOT, "%-30s %8.2f %10s %24d", nameParam, (double) elapsed / operations,
+                bytes, collections));
+        return bytesPerOperation;
+    }
+
+    /**
+     * Runs the operation in batches for one iteration.
+     *
+     * @return The number of operations.
+     */
+    private static long iteration(final IntPredicate operationParam) {
+        final long end = System.nanoTime() + ITERATION_NANOS;
+        long operations = 0;
+        int passed = 0;
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < BATCH; i++) {
+                if (operationParam.test(i)) {
+                    passed++;
+                }
+            }
+            operations += BATCH;
+        }
+        sink += passed;
+        return operations;
+    }
+
+    /**
+     * Returns whether the JIT compiler may scalar-replace objects, which needs a HotSpot JVM with a server compiler.
+     */
+    private static boolean escapeAnalysisEnabled() {
+        final com.sun.management.HotSpotDiagnosticMXBean diagnostics =
+                ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+        if (diagnostics == null) {
+            return false;
+        }
+        try {
+            return Boolean.parseBoolean(diagnostics.getVMOption("DoEscapeAnalysis").getValue());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private ParameterCheckBenchmark() {
+    }
+}
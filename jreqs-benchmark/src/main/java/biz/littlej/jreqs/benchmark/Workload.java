@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.RequirementException;
+import biz.littlej.jreqs.beanvalidation.BeanValidationPredicate;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+import biz.littlej.jreqs.rules.RuleCompiler;
+import biz.littlej.jreqs.schema.Schema;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+
+/**
+ * A mix of request validations, run on a pool of pre-generated {@link Order orders} of which a configurable share is
+ * invalid.  An invalid order has exactly one invalid property, which every scenario detects, so that all scenarios
+ * fail at the same rate.  Instances are thread-safe.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class Workload {
+    private static final int ORDERS = 4096;
+    private static final int SCHEDULE_SLOTS = 100;
+    private static final String MESSAGE = "Order must be valid.";
+    private final Order[] orders;
+    private final Scenario[] schedule;
+    private final Schema<Order> schema;
+    private final Predicate<Object> customerIdRule;
+    private final Predicate<Object> emailRule;
+    private final Predicate<Object> quantityRule;
+    private final Predicate<Object> callbackUrlRule;
+    private final Predicate<Object> tagsRule;
+    private final Predicate<CharSequence> customerIdPattern;
+    private final Predicate<CharSequence> emailPattern;
+    private final Predicate<Order> beanValidation;
+
+    /**
+     * The validation scenarios.
+     */
+    enum Scenario {
+        /**
+         * A {@link Schema} checks all properties of the order in one {@code Reqs} call.
+         */
+        DTO_VALIDATION("dto"),
+        /**
+         * Rules compiled by the {@link RuleCompiler} check the properties one by one.
+         */
+        COMPOSITE_RULES("rules"),
+        /**
+         * Regular expressions, URL parsing and a number predicate check the properties one by one.
+         */
+        REGEX_AND_URL("regex"),
+        /**
+         * Bean validation checks the annotated order.
+         */
+        BEAN_VALIDATION("bean");
+
+        private final String key;
+
+        Scenario(final String keyParam) {
+            key = keyParam;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        static Scenario forKey(final String keyParam) {
+            for (final Scenario scenario : values()) {
+                if (scenario.key.equals(keyParam)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scenario '" + keyParam + "', expected one of dto, rules, regex, bean.");
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param weightsParam     The weight of each scenario in the mix.  Scenarios without weight are not run.
+     * @param failureRateParam The share of invalid orders, between 0 and 1.
+     * @param seedParam        The seed of the generated orders.
+     */
+    Workload(final Map<Scenario, Integer> weightsParam, final double failureRateParam, final long seedParam) {
+        orders = generateOrders(failureRateParam, new Random(seedParam));
+        schedule = schedule(weightsParam);
+        schema = Schema.forType(Order.class)
+                .field("customerId", and(Predicates.notNull(), Predicates.containsPattern(Order.CUSTOMER_ID_REGEX)))
+                .field("email", and(Predicates.notNull(), Predicates.containsPattern(Order.EMAIL_REGEX)))
+                .field("quantity", Predicates.strictlyPositive())
+                .field("callbackUrl", Predicates.isValidUrl())
+                .field("tags", Predicates.allIterableElements(not(Predicates.blankString())))
+                .build();
+        final RuleCompiler compiler = RuleCompiler.getInstance();
+        customerIdRule = compiler.compile("notNull & !blank & matches('" + escape(Order.CUSTOMER_ID_REGEX) + "')");
+        emailRule = compiler.compile("notNull & !blank & matches('" + escape(Order.EMAIL_REGEX) + "')");
+        quantityRule = compiler.compile("strictlyPositive");
+        callbackUrlRule = compiler.compile("notNull & url");
+        tagsRule = compiler.compile("notNull & allElements(!blank)");
+        customerIdPattern = Predicates.containsPattern(Order.CUSTOMER_ID_REGEX);
+        emailPattern = Predicates.containsPattern(Order.EMAIL_REGEX);
+        beanValidation = BeanValidationPredicate.getInstance(null, Order.class);
+    }
+
+    /**
+     * Returns the scenario run for the specified sequence number.
+     */
+    Scenario scenarioOf(final long sequenceParam) {
+        return schedule[(int) (sequenceParam % SCHEDULE_SLOTS)];
+    }
+
+    /**
+     * Runs the scenario of the specified sequence number on one of the orders.
+     *
+     * @param sequenceParam The sequence number of the operation, which selects the scenario and the order.
+     * @return {@code true} if the order is valid, {@code false} if a requirement exception was thrown.
+     */
+    boolean execute(final long sequenceParam) {
+        // Spread the orders over the sequence, so that the scenarios do not always see the same orders.
+        final Order order = orders[(int) ((sequenceParam * 0x9E3779B97F4A7C15L) >>> 52)];
+        try {
+            switch (scenarioOf(sequenceParam)) {
+                case DTO_VALIDATION:
+                    Reqs.parameterCondition(schema, order, MESSAGE);
+                    break;
+                case COMPOSITE_RULES:
+                    Reqs.condition(customerIdRule, order.getCustomerId(), "Customer id must be valid.");
+                    Reqs.condition(emailRule, order.getEmail(), "Email must be valid.");
+                    Reqs.condition(quantityRule, order.getQuantity(), "Quantity must be strictly positive.");
+                    Reqs.condition(callbackUrlRule, order.getCallbackUrl(), "Callback URL must be valid.");
+                    Reqs.condition(tagsRule, order.getTags(), "Tags must not be blank.");
+                    break;
+                case REGEX_AND_URL:
+                    Reqs.parameterCondition(customerIdPattern, order.getCustomerId(), "Customer id must be valid.");
+                    Reqs.parameterCondition(emailPattern, order.getEmail(), "Email must be valid.");
+                    Reqs.parameterCondition(Predicates.strictlyPositive(), order.getQuantity(), "Quantity must be strictly positive.");
+                    Reqs.parameterCondition(Predicates.isValidUrl(), order.getCallbackUrl(), "Callback URL must be valid.");
+                    break;
+                case BEAN_VALIDATION:
+                    Reqs.parameterCondition(beanValidation, order, MESSAGE);
+                    break;
+                default:
+                    throw new IllegalStateException("This should never happen, but it did: the scenario is unknown.");
+            }
+            return true;
+        } catch (RequirementException e) {
+            return false;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Order[] generateOrders(final double failureRateParam, final Random randomParam) {
+        final int invalid = (int) Math.round(failureRateParam * ORDERS);
+        final List<Order> generated = new ArrayList<Order>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            generated.add(order(i, randomParam, i < invalid ? 1 + randomParam.nextInt(4) : 0));
+        }
+        Collections.shuffle(generated, randomParam);
+        return generated.toArray(new Order[ORDERS]);
+    }
+
+    /**
+     * Generates an order.
+     *
+     * @param corruptionParam 0 for a valid order, or else the property to make invalid: 1 for the customer id, 2 for
+     *                        the email, 3 for the quantity and 4 for the callback URL.
+     */
+    private static Order order(final int indexParam, final Random randomParam, final int corruptionParam) {
+        final String customerId = corruptionParam == 1
+                ? "c-" + indexParam
+                : String.format("%c%c%06d", (char) ('A' + randomParam.nextInt(26)), (char) ('A' + randomParam.nextInt(26)), indexParam);
+        final String email = corruptionParam == 2 ? "customer" + indexParam + ".example.com" : "customer" + indexParam + "@example.com";
+        final int quantity = corruptionParam == 3 ? 0 : 1 + randomParam.nextInt(20);
+        final String callbackUrl = (corruptionParam == 4 ? "htp" : "https") + "://shop.example.com/orders/" + indexParam + "/callback";
+        final List<String> tags = randomParam.nextBoolean() ? Arrays.asList("priority", "gift") : Collections.<String>emptyList();
+        return new Order(customerId, email, quantity, callbackUrl, tags);
+    }
+
+    private static Scenario[] schedule(final Map<Scenario, Integer> weightsParam) {
+        final Map<Scenario, Integer> weights = new EnumMap<Scenario, Integer>(weightsParam);
+        int total = 0;
+        for (final int weight : weights.values()) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Scenario weights must be positive.");
+            }
+            total += weight;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("At least one scenario must have a strictly positive weight.");
+        }
+        // Interleave the scenarios, so that a worker does not run long streaks of the same one.
+        final Scenario[] result = new Scenario[SCHEDULE_SLOTS];
+        final double[] credit = new double[Scenario.values().length];
+        for (int slot = 0; slot < SCHEDULE_SLOTS; slot++) {
+            Scenario best = null;
+            for (final Map.Entry<Scenario, Integer> weight : weights.entrySet()) {
+                credit[weight.getKey().ordinal()] += (double) weight.getValue() / total;
+                if (best == null || credit[weight.getKey().ordinal()] > credit[best.ordinal()]) {
+                    best = weight.getKey();
+                }
+            }
+            credit[best.ordinal()] -= 1;
+            result[slot] = best;
+        }
+        return result;
+    }
+
+    private static String escape(final String regexParam) {
+        return regexParam.replace("\\", "\\\\").replace("'", "\\'");
+    }
+}
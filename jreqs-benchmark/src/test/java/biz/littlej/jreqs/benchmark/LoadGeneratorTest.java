@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.benchmark;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LatencyHistogram} and {@link Workload}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class LoadGeneratorTest {
+    @Test
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals("Count should be the number of recorded values.", 1000, histogram.getCount());
+        assertEquals("Max should be the highest recorded value.", 1000000, histogram.getMax());
+        assertEquals("Mean should be the mean of the recorded values.", 500500, histogram.getMean(), 1e-6);
+        for (final double percentile : new double[]{50, 99, 99.9}) {
+            final long expected = (long) (percentile * 10) * 1000;
+            final long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue("p" + percentile + " should not be below the recorded value.", actual >= expected);
+            assertTrue("p" + percentile + " should be within 1.6% of the recorded value.", actual <= expected * 1.016);
+        }
+        assertEquals("p100 should be the max.", 1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        long previous = -1;
+        for (long value = 0; value < 1 << 20; value += 1 + value / 1000) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue("Bucket should contain the value.", LatencyHistogram.highestValueOf(index) >= value);
+            assertTrue("Buckets should not overlap.", index == 0 || LatencyHistogram.highestValueOf(index - 1) < value);
+            assertTrue("Indices should grow with values.", index >= previous);
+            previous = index;
+        }
+        assertEquals("Highest value should fall in the last bucket.", Long.MAX_VALUE,
+                LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testHistogramAdd() {
+        final LatencyHistogram first = new LatencyHistogram();
+        final LatencyHistogram second = new LatencyHistogram();
+        first.record(100);
+        second.record(300);
+        second.record(-5);
+        first.add(second);
+        assertEquals("Count should include both histograms.", 3, first.getCount());
+        assertEquals("Max should be the max of both histograms.", 300, first.getMax());
+        assertEquals("Negative values should be recorded as zero.", 0, first.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void testWorkloadMixAndFailures() {
+        final Map<Workload.Scenario, Integer> weights = new EnumMap<Workload.Scenario, Integer>(Workload.Scenario.class);
+        weights.put(Workload.Scenario.DTO_VALIDATION, 3);
+        weights.put(Workload.Scenario.COMPOSITE_RULES, 1);
+        weights.put(Workload.Scenario.REGEX_AND_URL, 1);
+        weights.put(Workload.Scenario.BEAN_VALIDATION, 0);
+        final Workload workload = new Workload(weights, 0.1, 1);
+        final int[] runs = new int[Workload.Scenario.values().length];
+        final int[] failures = new int[runs.length];
+        for (long sequence = 0; sequence < 10000; sequence++) {
+            final Workload.Scenario scenario = workload.scenarioOf(sequence);
+            ++runs[scenario.ordinal()];
+            if (!workload.execute(sequence)) {
+                ++failures[scenario.ordinal()];
+            }
+        }
+        assertEquals("DTO validation should run 60% of the time.", 6000, runs[Workload.Scenario.DTO_VALIDATION.ordinal()]);
+        assertEquals("Composite rules should run 20% of the time.", 2000, runs[Workload.Scenario.COMPOSITE_RULES.ordinal()]);
+        assertEquals("Bean validation should not run.", 0, runs[Workload.Scenario.BEAN_VALIDATION.ordinal()]);
+        for (final Workload.Scenario scenario : new Workload.Scenario[]{Workload.Scenario.DTO_VALIDATION, Workload.Scenario.REGEX_AND_URL}) {
+            final double failureRate = (double) failures[scenario.ordinal()] / runs[scenario.ordinal()];
+            assertEquals(scenario + " should fail on invalid orders only.", 0.1, failureRate, 0.02);
+        }
+    }
+
+    @Test
+    public void testEveryScenarioDetectsInvalidOrders() {
+        for (final Workload.Scenario scenario : Workload.Scenario.values()) {
+            final Map<Workload.Scenario, Integer> weights = new EnumMap<Workload.Scenario, Integer>(Workload.Scenario.class);
+            weights.put(scenario, 1);
+            final Workload invalid = new Workload(weights, 1, 1);
+            final Workload valid = new Workload(weights, 0, 1);
+            for (long sequence = 0; sequence < 200; sequence++) {
+                assertFalse(scenario + " should fail on invalid orders.", invalid.execute(sequence));
+                assertTrue(scenario + " should pass on valid orders.", valid.execute(sequence));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.AsyncPredicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Asynchronous counterparts of the {@link Reqs} methods, using {@link AsyncPredicate asynchronous predicates}.
+ * <p/>
+ * Each method returns a future that completes normally if the condition is verified, and exceptionally with the
+ * exception that the corresponding {@link Reqs} method would throw otherwise.  As in {@link Reqs}, a
+ * {@link RequirementException} or an {@code IllegalArgumentException} raised by the predicate evaluation is wrapped in
+ * that same exception type; any other failure, including a {@code TimeoutException}, is passed through unchanged.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class AsyncReqs {
+    /**
+     * Checks asynchronously that a method parameter verifies a specific condition.
+     *
+     * @param predicateParam The predicate that is used to check if the parameter verifies the condition.
+     * @param inputParam     The parameter which must verify the condition.
+     * @param messageParam   The explanatory message that will be appended to the exception if the condition is not verified.
+     * @param <T>            The type of the parameter.
+     * @return A future that completes exceptionally with an {@code IllegalArgumentException} if the condition is not verified.
+     */
+    public static <T> CompletableFuture<Void> parameterCondition(final AsyncPredicate<T> predicateParam, final T inputParam, final String messageParam) {
+        return check(predicateParam, inputParam, messageParam, RequirementCategory.PARAMETER);
+    }
+
+    /**
+     * Checks asynchronously that an object verifies a specific condition.
+     *
+     * @param predicateParam The predicate that is used to check if the input object verifies the condition.
+     * @param inputParam     The input object which must verify the condition.
+     * @param messageParam   The explanatory message that will be appended to the exception if the condition is not verified.
+     * @param <T>            The type of the parameter.
+     * @return A future that completes exceptionally with a {@code RequirementException} if the condition is not verified.
+     */
+    public static <T> CompletableFuture<Void> condition(final AsyncPredicate<T> predicateParam, final T inputParam, final String messageParam) {
+        return check(predicateParam, inputParam, messageParam, RequirementCategory.CONDITION);
+    }
+
+    /**
+     * Checks asynchronously that an object verifies a specific pre-condition.
+     *
+     * @param predicateParam The predicate that is used to check if the input object verifies the condition.
+     * @param inputParam     The input object which must verify the condition.
+     * @param messageParam   The explanatory message that will be appended to the exception if the condition is not verified.
+     * @param <T>            The type of the parameter.
+     * @return A future that completes exceptionally with a {@code PreConditionException} if the condition is not verified.
+     */
+    public static <T> CompletableFuture<Void> preCondition(final AsyncPredicate<T> predicateParam, final T inputParam, final String messageParam) {
+        return check(predicateParam, inputParam, messageParam, RequirementCategory.PRE_CONDITION);
+    }
+
+    /**
+     * Checks asynchronously that an object verifies a specific post-condition.
+     *
+     * @param predicateParam The predicate that is used to check if the input object verifies the condition.
+     * @param inputParam     The input object which must verify the condition.
+     * @param messageParam   The explanatory message that will be appended to the exception if the condition is not verified.
+     * @param <T>            The type of the parameter.
+     * @return A future that completes exceptionally with a {@code PostConditionException} if the condition is not verified.
+     */
+    public static <T> CompletableFuture<Void> postCondition(final AsyncPredicate<T> predicateParam, final T inputParam, final String messageParam) {
+        return check(predicateParam, inputParam, messageParam, RequirementCategory.POST_CONDITION);
+    }
+
+    private static <T> CompletableFuture<Void> check(final AsyncPredicate<T> predicateParam, final T inputParam,
+                                                     final String messageParam, final RequirementCategory categoryParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Asynchronous predicate parameter must not be null.");
+        final CompletableFuture<Void> result = new CompletableFuture<Void>();
+        final CompletableFuture<Boolean> evaluation;
+        try {
+            evaluation = predicateParam.apply(inputParam);
+        } catch (RequirementException e) {
+            result.completeExceptionally(categoryParam.failure(null, inputParam, messageParam, e));
+            return result;
+        } catch (IllegalArgumentException e) {
+            result.completeExceptionally(categoryParam.failure(null, inputParam, messageParam, e));
+            return result;
+        }
+        evaluation.whenComplete((value, failure) -> {
+            if (failure != null) {
+                final Throwable cause = unwrap(failure);
+                if (cause instanceof RequirementException || cause instanceof IllegalArgumentException) {
+                    result.completeExceptionally(categoryParam.failure(null, inputParam, messageParam, cause));
+                } else {
+                    result.completeExceptionally(cause);
+                }
+            } else if (Boolean.TRUE.equals(value)) {
+                result.complete(null);
+            } else {
+                result.completeExceptionally(categoryParam.failure(null, inputParam, messageParam, null));
+            }
+        });
+        result.whenComplete((value, failure) -> evaluation.cancel(true));
+        return result;
+    }
+
+    private static Throwable unwrap(final Throwable failureParam) {
+        if (failureParam instanceof CompletionException && failureParam.getCause() != null) {
+            return failureParam.getCause();
+        }
+        return failureParam;
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private AsyncReqs() {
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+/**
+ * The outcome of {@link Reqs#check(Requirement, Object)}: either {@link #PASSED}, or the failure of one
+ * {@link Requirement}.  Outcomes are never allocated by a check: each requirement holds its failure, so that rejecting
+ * input is as cheap as accepting it.  Results can be compared by identity.
+ * <p/>
+ * Code that wants an exception after all can call {@link #orThrow(Object)}, which throws what the corresponding
+ * {@link Reqs} method would have thrown.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class CheckResult {
+    /**
+     * The outcome of a successful check.
+     */
+    public static final CheckResult PASSED = new CheckResult(null);
+    private final Requirement<?> requirement;
+
+    CheckResult(final Requirement<?> requirementParam) {
+        requirement = requirementParam;
+    }
+
+    /**
+     * @return {@code true} if the check succeeded.
+     */
+    public boolean isPassed() {
+        return requirement == null;
+    }
+
+    /**
+     * @return The requirement that failed, or {@code null} if the check succeeded.
+     */
+    public Requirement<?> getRequirement() {
+        return requirement;
+    }
+
+    /**
+     * @return The category of the requirement that failed, or {@code null} if the check succeeded.
+     */
+    public RequirementCategory getCategory() {
+        return requirement == null ? null : requirement.getCategory();
+    }
+
+    /**
+     * @return The error code of the requirement that failed, or {@code null} if the check succeeded.
+     */
+    public String getErrorCode() {
+        return requirement == null ? null : requirement.getCategory().getErrorCode();
+    }
+
+    /**
+     * Checks another requirement if this check succeeded, so that several checks can be chained without allocation.
+     * The first failure wins.
+     *
+     * @param requirementParam The requirement.  Must not be {@code null}.
+     * @param inputParam       The value which must verify the requirement.
+     * @param <T>              The type of the value.
+     * @return This result if it is a failure, or else the result of the other check.
+     */
+    public <T> CheckResult and(final Requirement<? super T> requirementParam, final T inputParam) {
+        return requirement == null ? Reqs.check(requirementParam, inputParam) : this;
+    }
+
+    /**
+     * Throws the exception of the failed requirement, if any, without the offending value.
+     *
+     * @throws IllegalArgumentException if a parameter requirement failed.  It is a {@link ParameterRequirementException}.
+     * @throws RequirementException     if another requirement failed.
+     */
+    public void orThrow() {
+        if (requirement != null) {
+            throw failure(FailureDetails.UNKNOWN_VALUE);
+        }
+    }
+
+    /**
+     * Throws the exception of the failed requirement, if any, with the offending value.
+     *
+     * @param inputParam The value that was checked.
+     * @throws IllegalArgumentException if a parameter requirement failed.  It is a {@link ParameterRequirementException}.
+     * @throws RequirementException     if another requirement failed.
+     */
+    public void orThrow(final Object inputParam) {
+        if (requirement != null) {
+            throw failure(inputParam);
+        }
+    }
+
+    private RuntimeException failure(final Object inputParam) {
+        return requirement.getCategory().failure(requirement.getPredicate(), inputParam, requirement.getKey(), null);
+    }
+
+    @Override
+    public String toString() {
+        return requirement == null ? "Passed" : requirement.toString();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * The fields of a {@link RequirementFailure}, shared by the exceptions of both hierarchies, with the lazily rendered
+ * message and value description.
+ * <p/>
+ * The message does not include the messages of the whole cause chain: a cause that is itself a requirement failure
+ * only contributes its own summary, so that nested checks render in linear time.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class FailureDetails implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_VALUE_LENGTH = 64;
+    /**
+     * Marks a failure whose offending value is not known.
+     */
+    static final Object UNKNOWN_VALUE = new Object();
+    private final RequirementCategory category;
+    private final String key;
+    private final transient Predicate<?> predicate;
+    private final transient Object value;
+    private volatile String valueDescription;
+    private volatile String message;
+
+    FailureDetails(final RequirementCategory categoryParam, final String keyParam, final Predicate<?> predicateParam,
+                   final Object valueParam) {
+        category = categoryParam;
+        key = keyParam;
+        predicate = predicateParam;
+        value = valueParam;
+    }
+
+    RequirementCategory getCategory() {
+        return category;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    Predicate<?> getPredicate() {
+        return predicate;
+    }
+
+    String getValueDescription() {
+        String description = valueDescription;
+        if (description == null && value != UNKNOWN_VALUE) {
+            description = describe(value);
+            valueDescription = description;
+        }
+        return description;
+    }
+
+    /**
+     * Returns the message of the exception that holds these details, rendering it on first call.
+     *
+     * @param causeParam The cause of the exception, or {@code null}.
+     * @return The message.
+     */
+    String getMessage(final Throwable causeParam) {
+        String rendered = message;
+        if (rendered == null) {
+            if (causeParam == null) {
+                rendered = summary();
+            } else {
+                final FailureDetails causeDetails = of(causeParam);
+                rendered = summary() + " - Triggered by: " + (causeDetails == null ? causeParam.getMessage() : causeDetails.summary());
+            }
+            message = rendered;
+        }
+        return rendered;
+    }
+
+    private String summary() {
+        return category.getPrefix() + key;
+    }
+
+    /**
+     * Returns the details of the specified exception if it is a structured requirement failure.
+     */
+    private static FailureDetails of(final Throwable throwableParam) {
+        if (throwableParam instanceof RequirementException) {
+            return ((RequirementException) throwableParam).getDetails();
+        }
+        if (throwableParam instanceof ParameterRequirementException) {
+            return ((ParameterRequirementException) throwableParam).getDetails();
+        }
+        return null;
+    }
+
+    private static String describe(final Object valueParam) {
+        if (valueParam == UNKNOWN_VALUE) {
+            return null;
+        }
+        if (valueParam == null) {
+            return "null";
+        }
+        String text;
+        try {
+            text = String.valueOf(valueParam);
+        } catch (RuntimeException e) {
+            text = "@" + Integer.toHexString(System.identityHashCode(valueParam));
+        }
+        if (text.length() > MAX_VALUE_LENGTH) {
+            text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+        }
+        return valueParam.getClass().getName() + ": " + text;
+    }
+
+    /**
+     * Renders the value description, as the value itself is not serialized.
+     */
+    private void writeObject(final ObjectOutputStream outParam) throws IOException {
+        getValueDescription();
+        outParam.defaultWriteObject();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+/**
+ * Fluent checks of one method parameter, started by {@link Reqs#checkParam(Object, String)}:
+ * <pre>
+ * Reqs.checkParam(order, "order").notNull().satisfies(validOrder, "order must be valid.");
+ * </pre>
+ * The parameter is compared with {@code null} once, when the checks start, and every check fails on a {@code null}
+ * parameter, so that the predicates of the chain never receive {@code null}.  The first check that fails throws a
+ * {@link ParameterRequirementException} whose message names the parameter, and the remaining checks are not
+ * evaluated.
+ * <p/>
+ * The checks that pass allocate nothing: the only allocation of a chain is this object, which the JIT compiler may
+ * remove once the chain is inlined.
+ *
+ * @param <T> The type of the parameter.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ParameterCheck<T> {
+    private final T value;
+    private final String name;
+    private final boolean present;
+
+    ParameterCheck(final T valueParam, final String nameParam) {
+        value = valueParam;
+        name = nameParam;
+        present = valueParam != null;
+    }
+
+    /**
+     * Checks that the parameter is not {@code null}.
+     *
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null}.  It is a {@link ParameterRequirementException}.
+     */
+    public ParameterCheck<T> notNull() {
+        if (!present) {
+            throw nullFailure(name);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter verifies the specified predicate, as {@link Reqs#parameterCondition} does.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param messageParam   The explanatory message that will be appended to the exception if the parameter does not
+     *                       verify the predicate.
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or does not verify the predicate.  It is a
+     *                                  {@link ParameterRequirementException}.
+     */
+    public ParameterCheck<T> satisfies(final Predicate<? super T> predicateParam, final String messageParam) {
+        if (!present) {
+            throw nullFailure(name);
+        }
+        check(name, value, predicateParam, messageParam);
+        return this;
+    }
+
+    /**
+     * Checks that the parameter, which is not {@code null}, verifies the predicate.  This method is static so that the
+     * checkers can share it without passing themselves.  All its failures go through a single call, so that it stays
+     * below the size up to which HotSpot inlines a method even at a call site that is not hot yet
+     * ({@code -XX:MaxInlineSize}, 35 bytes of bytecode).
+     */
+    static <T> void check(final String nameParam, final T valueParam, final Predicate<? super T> predicateParam,
+                          final String messageParam) {
+        Throwable cause = null;
+        try {
+            if (predicateParam.apply(valueParam)) {
+                return;
+            }
+        } catch (RequirementException | IllegalArgumentException e) {
+            cause = e;
+        }
+        throw failure(nameParam, valueParam, predicateParam, messageParam, cause);
+    }
+
+    /**
+     * Creates the failure of a {@code null} parameter, off the hot path.
+     */
+    static RuntimeException nullFailure(final String nameParam) {
+        return RequirementCategory.PARAMETER.failure(Predicates.notNull(), null, nameParam + " must not be null.", null);
+    }
+
+    /**
+     * Creates the failure of a predicate, off the hot path.
+     */
+    private static RuntimeException failure(final String nameParam, final Object valueParam,
+                                            final Predicate<?> predicateParam, final String messageParam,
+                                            final Throwable causeParam) {
+        return RequirementCategory.PARAMETER.failure(predicateParam, valueParam, nameParam + ": " + messageParam, causeParam);
+    }
+}
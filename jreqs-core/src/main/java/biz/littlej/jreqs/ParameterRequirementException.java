@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+/**
+ * Exception thrown by {@link Reqs#parameterCondition} if a method parameter does not verify its requirement.  It is
+ * an {@link IllegalArgumentException}, as the contract of that method says, with the
+ * {@link RequirementFailure structured fields} of the failure.  Its message is only rendered when {@link #getMessage()}
+ * is first called.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ParameterRequirementException extends IllegalArgumentException implements RequirementFailure {
+
+    /**
+     * serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final FailureDetails details;
+
+    /**
+     * Constructor of a structured failure.
+     *
+     * @param detailsParam The structured fields.
+     * @param causeParam   The cause throwable, or {@code null}.
+     */
+    ParameterRequirementException(final FailureDetails detailsParam, final Throwable causeParam) {
+        super(null, causeParam);
+        details = detailsParam;
+    }
+
+    FailureDetails getDetails() {
+        return details;
+    }
+
+    @Override
+    public String getMessage() {
+        return details.getMessage(getCause());
+    }
+
+    public RequirementCategory getCategory() {
+        return details.getCategory();
+    }
+
+    public String getCallSiteKey() {
+        return details.getKey();
+    }
+
+    public Predicate<?> getPredicate() {
+        return details.getPredicate();
+    }
+
+    public String getValueDescription() {
+        return details.getValueDescription();
+    }
+
+    public String getErrorCode() {
+        return details.getCategory().getErrorCode();
+    }
+}
@@ -65,4 +65,14 @@ public class PostConditionException extends RequirementException {
     public PostConditionException(final Throwable cause) {
         super(cause);
     }
+
+    /**
+     * Constructor of a structured failure.
+     *
+     * @param detailsParam The structured fields.
+     * @param causeParam   The cause throwable, or {@code null}.
+     */
+    PostConditionException(final FailureDetails detailsParam, final Throwable causeParam) {
+        super(detailsParam, causeParam);
+    }
 }
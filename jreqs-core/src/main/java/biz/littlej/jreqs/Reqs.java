@@ -16,10 +16,12 @@
 package biz.littlej.jreqs;
 
 import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
 
 /**
  * Provides utility methods to check if conditions are verified.
  * The methods in this class use {@link biz.littlej.jreqs.predicates.Predicate predicates} to check if conditions are verified.
+ * The exceptions they throw are {@link RequirementFailure structured}, and only render their message when it is read.
  *
  * @author Yannick LOTH
  * @since 0.1.0
@@ -32,18 +34,10 @@ public final class Reqs {
      * @param inputParam     The parameter which must verify the condition.
      * @param messageParam   The explanatory message that will be appended to the exception if the condition is not verified.
      * @param <T>            The type of the parameter.
-     * @throws IllegalArgumentException if the condition is not verified.
+     * @throws IllegalArgumentException if the condition is not verified.  It is a {@link ParameterRequirementException}.
      */
     public static <T> void parameterCondition(final Predicate<T> predicateParam, final T inputParam, final String messageParam) {
-        try {
-            if (!predicateParam.apply(inputParam)) {
-                throw new IllegalArgumentException("Parameter requirement not verified: " + messageParam);
-            }
-        } catch (RequirementException e) {
-            throw new IllegalArgumentException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        }
+        check(RequirementCategory.PARAMETER, predicateParam, inputParam, messageParam);
     }
 
     /**
@@ -56,15 +50,7 @@ public final class Reqs {
      * @throws RequirementException if the condition is not verified.
      */
     public static <T> void condition(final Predicate<T> predicateParam, final T inputParam, final String messageParam) {
-        try {
-            if (!predicateParam.apply(inputParam)) {
-                throw new RequirementException("Requirement not verified: " + messageParam);
-            }
-        } catch (RequirementException e) {
-            throw new RequirementException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        } catch (IllegalArgumentException e) {
-            throw new RequirementException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        }
+        check(RequirementCategory.CONDITION, predicateParam, inputParam, messageParam);
     }
 
     /**
@@ -77,15 +63,7 @@ public final class Reqs {
      * @throws PreConditionException if the condition is not verified.
      */
     public static <T> void preCondition(final Predicate<T> predicateParam, final T inputParam, final String messageParam) {
-        try {
-            if (!predicateParam.apply(inputParam)) {
-                throw new PreConditionException("Pre-condition not verified: " + messageParam);
-            }
-        } catch (RequirementException e) {
-            throw new PreConditionException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        } catch (IllegalArgumentException e) {
-            throw new PreConditionException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
-        }
+        check(RequirementCategory.PRE_CONDITION, predicateParam, inputParam, messageParam);
     }
 
     /**
@@ -98,14 +76,80 @@ public final class Reqs {
      * @throws PostConditionException if the condition is not verified.
      */
     public static <T> void postCondition(final Predicate<T> predicateParam, final T inputParam, final String messageParam) {
+        check(RequirementCategory.POST_CONDITION, predicateParam, inputParam, messageParam);
+    }
+
+    /**
+     * Starts fluent checks of a method parameter.  Unlike a sequence of {@link #parameterCondition} calls, the
+     * parameter is compared with {@code null} only once.  The checks that pass allocate nothing beyond the returned
+     * checker.
+     *
+     * @param valueParam The parameter.
+     * @param nameParam  The name of the parameter, used in the messages of the failures.
+     * @param <T>        The type of the parameter.
+     * @return The checks of the parameter.
+     */
+    public static <T> ParameterCheck<T> checkParam(final T valueParam, final String nameParam) {
+        return new ParameterCheck<T>(valueParam, nameParam);
+    }
+
+    /**
+     * Starts fluent checks of a {@code String} method parameter:
+     * <pre>
+     * Reqs.checkParam(login, "login").notBlank().maxLength(64).matches(LOGIN_PATTERN);
+     * </pre>
+     * Unlike a sequence of {@link #parameterCondition} calls, the parameter is compared with {@code null} only once.
+     * The checks that pass allocate nothing beyond the returned checker, except pattern matching.
+     *
+     * @param valueParam The parameter.
+     * @param nameParam  The name of the parameter, used in the messages of the failures.
+     * @return The checks of the parameter.
+     */
+    public static StringParameterCheck checkParam(final String valueParam, final String nameParam) {
+        return new StringParameterCheck(valueParam, nameParam);
+    }
+
+    /**
+     * Checks that a value verifies a requirement, without throwing if it does not.  Nothing is allocated, whatever
+     * the outcome.  A predicate that throws a {@code RequirementException} or an {@code IllegalArgumentException}
+     * makes the check fail, as it makes the other methods fail; its exception is then discarded.
+     *
+     * @param requirementParam The requirement.  Must not be {@code null}.
+     * @param inputParam       The value which must verify the requirement.
+     * @param <T>              The type of the value.
+     * @return {@link CheckResult#PASSED} if the requirement is verified, or else the failure of the requirement.
+     */
+    public static <T> CheckResult check(final Requirement<? super T> requirementParam, final T inputParam) {
+        parameterCondition(Predicates.notNull(), requirementParam, "Requirement parameter must not be null.");
+        return check(requirementParam.getPredicate(), inputParam) ? CheckResult.PASSED : requirementParam.getFailed();
+    }
+
+    private static <T> boolean check(final Predicate<T> predicateParam, final T inputParam) {
         try {
-            if (!predicateParam.apply(inputParam)) {
-                throw new PostConditionException("Post-condition not verified: " + messageParam);
-            }
+            return predicateParam.apply(inputParam);
         } catch (RequirementException e) {
-            throw new PostConditionException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
+            return false;
         } catch (IllegalArgumentException e) {
-            throw new PostConditionException("Parameter requirement not verified: " + messageParam + " - Triggered by: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates the predicate and throws the failure of the specified category if it is not verified.  Exceptions
+     * thrown by the predicate itself are wrapped once; the failure thrown here is never caught and wrapped again.
+     */
+    private static <T> void check(final RequirementCategory categoryParam, final Predicate<T> predicateParam,
+                                  final T inputParam, final String messageParam) {
+        final boolean verified;
+        try {
+            verified = predicateParam.apply(inputParam);
+        } catch (RequirementException e) {
+            throw categoryParam.failure(predicateParam, inputParam, messageParam, e);
+        } catch (IllegalArgumentException e) {
+            throw categoryParam.failure(predicateParam, inputParam, messageParam, e);
+        }
+        if (!verified) {
+            throw categoryParam.failure(predicateParam, inputParam, messageParam, null);
         }
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+import static biz.littlej.jreqs.predicates.Predicates.notNull;
+
+/**
+ * A requirement that is created once, typically as a constant, and checked many times with
+ * {@link Reqs#check(Requirement, Object)} without allocating anything.
+ * <pre>
+ * private static final Requirement&lt;String&gt; NAME = Requirement.parameter(notBlankString(), "Name must not be blank.");
+ * ...
+ * final CheckResult result = Reqs.check(NAME, nameParam);
+ * </pre>
+ *
+ * @param <T> The type of the checked values.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class Requirement<T> {
+    private final RequirementCategory category;
+    private final Predicate<T> predicate;
+    private final String key;
+    private final CheckResult failed;
+
+    private Requirement(final RequirementCategory categoryParam, final Predicate<T> predicateParam, final String keyParam) {
+        Reqs.parameterCondition(notNull(), categoryParam, "Category parameter must not be null.");
+        Reqs.parameterCondition(notNull(), predicateParam, "Predicate parameter must not be null.");
+        Reqs.parameterCondition(notNull(), keyParam, "Key parameter must not be null.");
+        category = categoryParam;
+        predicate = predicateParam;
+        key = keyParam;
+        failed = new CheckResult(this);
+    }
+
+    /**
+     * Creates a requirement.
+     *
+     * @param categoryParam  The category, which selects the exception thrown by {@link CheckResult#orThrow()}.
+     * @param predicateParam The predicate that the values must verify.
+     * @param keyParam       The explanatory message, which identifies the requirement.
+     * @param <T>            The type of the checked values.
+     * @return The requirement.
+     */
+    public static <T> Requirement<T> of(final RequirementCategory categoryParam, final Predicate<T> predicateParam, final String keyParam) {
+        return new Requirement<T>(categoryParam, predicateParam, keyParam);
+    }
+
+    /**
+     * Creates a requirement on a method parameter, the counterpart of {@link Reqs#parameterCondition}.
+     *
+     * @param predicateParam The predicate that the values must verify.
+     * @param keyParam       The explanatory message, which identifies the requirement.
+     * @param <T>            The type of the checked values.
+     * @return The requirement.
+     */
+    public static <T> Requirement<T> parameter(final Predicate<T> predicateParam, final String keyParam) {
+        return of(RequirementCategory.PARAMETER, predicateParam, keyParam);
+    }
+
+    /**
+     * Creates a condition, the counterpart of {@link Reqs#condition}.
+     *
+     * @param predicateParam The predicate that the values must verify.
+     * @param keyParam       The explanatory message, which identifies the requirement.
+     * @param <T>            The type of the checked values.
+     * @return The requirement.
+     */
+    public static <T> Requirement<T> condition(final Predicate<T> predicateParam, final String keyParam) {
+        return of(RequirementCategory.CONDITION, predicateParam, keyParam);
+    }
+
+    /**
+     * Creates a pre-condition, the counterpart of {@link Reqs#preCondition}.
+     *
+     * @param predicateParam The predicate that the values must verify.
+     * @param keyParam       The explanatory message, which identifies the requirement.
+     * @param <T>            The type of the checked values.
+     * @return The requirement.
+     */
+    public static <T> Requirement<T> preCondition(final Predicate<T> predicateParam, final String keyParam) {
+        return of(RequirementCategory.PRE_CONDITION, predicateParam, keyParam);
+    }
+
+    /**
+     * Creates a post-condition, the counterpart of {@link Reqs#postCondition}.
+     *
+     * @param predicateParam The predicate that the values must verify.
+     * @param keyParam       The explanatory message, which identifies the requirement.
+     * @param <T>            The type of the checked values.
+     * @return The requirement.
+     */
+    public static <T> Requirement<T> postCondition(final Predicate<T> predicateParam, final String keyParam) {
+        return of(RequirementCategory.POST_CONDITION, predicateParam, keyParam);
+    }
+
+    public RequirementCategory getCategory() {
+        return category;
+    }
+
+    public Predicate<T> getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return The explanatory message, which identifies the requirement.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The result of the checks that this requirement fails, which is always the same instance.
+     */
+    CheckResult getFailed() {
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        return category.getPrefix() + key;
+    }
+}
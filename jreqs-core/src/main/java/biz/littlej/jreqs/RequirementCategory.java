@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+/**
+ * The kind of requirement that was not verified, one per {@link Reqs} method.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public enum RequirementCategory {
+    /**
+     * A method parameter, checked by {@link Reqs#parameterCondition}.  Failures are {@link ParameterRequirementException}s.
+     */
+    PARAMETER("Parameter requirement not verified: ", "jreqs.parameter"),
+    /**
+     * A condition, checked by {@link Reqs#condition}.  Failures are {@link RequirementException}s.
+     */
+    CONDITION("Requirement not verified: ", "jreqs.condition"),
+    /**
+     * A pre-condition, checked by {@link Reqs#preCondition}.  Failures are {@link PreConditionException}s.
+     */
+    PRE_CONDITION("Pre-condition not verified: ", "jreqs.precondition"),
+    /**
+     * A post-condition, checked by {@link Reqs#postCondition}.  Failures are {@link PostConditionException}s.
+     */
+    POST_CONDITION("Post-condition not verified: ", "jreqs.postcondition");
+
+    private final String prefix;
+    private final String errorCode;
+
+    RequirementCategory(final String prefixParam, final String errorCodeParam) {
+        prefix = prefixParam;
+        errorCode = errorCodeParam;
+    }
+
+    /**
+     * Returns the stable error code of this category, meant to be mapped to error responses.
+     *
+     * @return The error code.
+     */
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    /**
+     * @return The beginning of the messages of the failures of this category.
+     */
+    String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Creates the exception that reports a failure of this category.  No string is built until its message is needed.
+     *
+     * @param predicateParam The predicate that was not verified.
+     * @param valueParam     The offending value.
+     * @param keyParam       The explanatory message of the call site.
+     * @param causeParam     The exception thrown by the predicate, or {@code null}.
+     * @return The exception.
+     */
+    RuntimeException failure(final Predicate<?> predicateParam, final Object valueParam, final String keyParam,
+                             final Throwable causeParam) {
+        final FailureDetails details = new FailureDetails(this, keyParam, predicateParam, valueParam);
+        switch (this) {
+            case PARAMETER:
+                return new ParameterRequirementException(details, causeParam);
+            case PRE_CONDITION:
+                return new PreConditionException(details, causeParam);
+            case POST_CONDITION:
+                return new PostConditionException(details, causeParam);
+            default:
+                return new RequirementException(details, causeParam);
+        }
+    }
+}
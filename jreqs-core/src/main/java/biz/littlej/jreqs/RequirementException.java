@@ -15,22 +15,35 @@
  */
 package biz.littlej.jreqs;
 
+import biz.littlej.jreqs.predicates.Predicate;
+
 /**
+ * Exception thrown if a requirement is not met.
+ * <p/>
+ * Instances thrown by {@link Reqs} are {@link RequirementFailure structured}: their message is only rendered when
+ * {@link #getMessage()} is first called.
+ *
  * @author Yannick LOTH
  * @since 0.1.0
  */
-public class RequirementException extends IllegalStateException {
+public class RequirementException extends IllegalStateException implements RequirementFailure {
 
     /**
      * serialVersionUID.
      */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The structured fields, or {@code null} if the exception was created with a message.
+     */
+    private final FailureDetails details;
+
     /**
      * Constructor.
      */
     public RequirementException() {
         super();
+        details = null;
     }
 
     /**
@@ -40,6 +53,7 @@ public class RequirementException extends IllegalStateException {
      */
     public RequirementException(final String messageParam) {
         super(messageParam);
+        details = null;
     }
 
     /**
@@ -51,6 +65,7 @@ public class RequirementException extends IllegalStateException {
     public RequirementException(final String messageParam,
                                 final Throwable causeParam) {
         super(messageParam, causeParam);
+        details = null;
     }
 
     /**
@@ -60,5 +75,52 @@ public class RequirementException extends IllegalStateException {
      */
     public RequirementException(final Throwable causeParam) {
         super(causeParam);
+        details = null;
+    }
+
+    /**
+     * Constructor of a structured failure.
+     *
+     * @param detailsParam The structured fields.
+     * @param causeParam   The cause throwable, or {@code null}.
+     */
+    RequirementException(final FailureDetails detailsParam, final Throwable causeParam) {
+        super(null, causeParam);
+        details = detailsParam;
+    }
+
+    FailureDetails getDetails() {
+        return details;
+    }
+
+    @Override
+    public String getMessage() {
+        return details == null ? super.getMessage() : details.getMessage(getCause());
+    }
+
+    public RequirementCategory getCategory() {
+        if (details != null) {
+            return details.getCategory();
+        }
+        if (this instanceof PreConditionException) {
+            return RequirementCategory.PRE_CONDITION;
+        }
+        return this instanceof PostConditionException ? RequirementCategory.POST_CONDITION : RequirementCategory.CONDITION;
+    }
+
+    public String getCallSiteKey() {
+        return details == null ? null : details.getKey();
+    }
+
+    public Predicate<?> getPredicate() {
+        return details == null ? null : details.getPredicate();
+    }
+
+    public String getValueDescription() {
+        return details == null ? null : details.getValueDescription();
+    }
+
+    public String getErrorCode() {
+        return getCategory().getErrorCode();
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+
+/**
+ * The structured description of a requirement that was not verified, implemented by the exceptions thrown by
+ * {@link Reqs}.  Reading these fields does not build any string, except {@link #getValueDescription()}, so that callers
+ * which only map failures to error responses do not pay for message rendering.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public interface RequirementFailure {
+    /**
+     * @return The category of the requirement.
+     */
+    RequirementCategory getCategory();
+
+    /**
+     * Returns the key of the call site: the explanatory message that was passed to {@link Reqs}, which is usually a
+     * constant that identifies the check.
+     *
+     * @return The call site key, or {@code null} if the exception was not thrown by {@link Reqs}.
+     */
+    String getCallSiteKey();
+
+    /**
+     * Returns the predicate that was not verified.  It is not kept when the exception is serialized.
+     *
+     * @return The predicate, or {@code null} if it is not known.
+     */
+    Predicate<?> getPredicate();
+
+    /**
+     * Returns a short description of the offending value, made of its class name and of its beginning.  It is
+     * rendered on first access.
+     *
+     * @return The description of the value, or {@code null} if it is not known.
+     */
+    String getValueDescription();
+
+    /**
+     * @return The error code, which is the one of the {@link #getCategory() category}.
+     */
+    String getErrorCode();
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.util.regex.Pattern;
+
+/**
+ * Fluent checks of one {@code String} method parameter, started by {@link Reqs#checkParam(String, String)}:
+ * <pre>
+ * Reqs.checkParam(login, "login").notNull().notBlank().maxLength(64).matches(LOGIN_PATTERN);
+ * </pre>
+ * The parameter is compared with {@code null} once, when the checks start, and every check fails on a {@code null}
+ * parameter.  The first check that fails throws a {@link ParameterRequirementException} whose message names the
+ * parameter, and the remaining checks are not evaluated.
+ * <p/>
+ * The checks that pass allocate nothing, except {@link #matches(Pattern)}, which needs a {@code Matcher}: the only
+ * other allocation of a chain is this object, which the JIT compiler may remove once the chain is inlined.  Each check
+ * only tests and branches, and leaves building its failure to a static method, so that it stays below the size up
+ * to which HotSpot inlines a method even at a call site that is not hot yet ({@code -XX:MaxInlineSize}, 35 bytes of
+ * bytecode).
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class StringParameterCheck {
+    private final String value;
+    private final String name;
+    private final boolean present;
+
+    StringParameterCheck(final String valueParam, final String nameParam) {
+        value = valueParam;
+        name = nameParam;
+        present = valueParam != null;
+    }
+
+    /**
+     * Checks that the parameter is not {@code null}.
+     *
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null}.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck notNull() {
+        if (!present) {
+            throw ParameterCheck.nullFailure(name);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter is not empty.
+     *
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or empty.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck notEmpty() {
+        if (!present || value.isEmpty()) {
+            throw notEmptyFailure(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter is not blank, that is, that it contains a character that {@code String.trim()} would
+     * keep.
+     *
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or blank.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck notBlank() {
+        if (!present || isBlank(value)) {
+            throw notBlankFailure(name, value);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter has at least the specified length.
+     *
+     * @param minLengthParam The minimum length, in {@code char}s.
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or shorter.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck minLength(final int minLengthParam) {
+        if (!present || value.length() < minLengthParam) {
+            throw minLengthFailure(name, value, minLengthParam);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter has at most the specified length.
+     *
+     * @param maxLengthParam The maximum length, in {@code char}s.
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or longer.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck maxLength(final int maxLengthParam) {
+        if (!present || value.length() > maxLengthParam) {
+            throw maxLengthFailure(name, value, maxLengthParam);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the whole parameter matches the specified pattern.
+     *
+     * @param patternParam The pattern.  Must not be {@code null}.
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or does not match.  It is a {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck matches(final Pattern patternParam) {
+        if (!present || !isMatch(patternParam, value)) {
+            throw matchFailure(name, value, patternParam);
+        }
+        return this;
+    }
+
+    /**
+     * Checks that the parameter verifies the specified predicate, as {@link Reqs#parameterCondition} does.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param messageParam   The explanatory message that will be appended to the exception if the parameter does not
+     *                       verify the predicate.
+     * @return This object, to chain further checks.
+     * @throws IllegalArgumentException if the parameter is {@code null} or does not verify the predicate.  It is a
+     *                                  {@link ParameterRequirementException}.
+     */
+    public StringParameterCheck satisfies(final Predicate<? super String> predicateParam, final String messageParam) {
+        if (!present) {
+            throw ParameterCheck.nullFailure(name);
+        }
+        ParameterCheck.check(name, value, predicateParam, messageParam);
+        return this;
+    }
+
+    private static boolean isBlank(final String valueParam) {
+        return Predicates.blankString().apply(valueParam);
+    }
+
+    private static boolean isMatch(final Pattern patternParam, final String valueParam) {
+        return patternParam.matcher(valueParam).matches();
+    }
+
+    /*
+     * The failures are created by static methods, off the hot path, so that the checks themselves stay small enough to
+     * be inlined and their checker can be scalar-replaced.
+     */
+
+    private static RuntimeException notEmptyFailure(final String nameParam, final String valueParam) {
+        return failure(nameParam, valueParam, Predicates.notEmptyCharSequence(), " must not be empty.");
+    }
+
+    private static RuntimeException notBlankFailure(final String nameParam, final String valueParam) {
+        return failure(nameParam, valueParam, Predicates.notBlankString(), " must not be blank.");
+    }
+
+    private static RuntimeException minLengthFailure(final String nameParam, final String valueParam, final int minLengthParam) {
+        return failure(nameParam, valueParam, inputParam -> inputParam.length() >= minLengthParam,
+                " must be at least " + minLengthParam + " characters long.");
+    }
+
+    private static RuntimeException maxLengthFailure(final String nameParam, final String valueParam, final int maxLengthParam) {
+        return failure(nameParam, valueParam, inputParam -> inputParam.length() <= maxLengthParam,
+                " must be at most " + maxLengthParam + " characters long.");
+    }
+
+    private static RuntimeException matchFailure(final String nameParam, final String valueParam, final Pattern patternParam) {
+        return failure(nameParam, valueParam, inputParam -> isMatch(patternParam, inputParam),
+                " must match " + patternParam.pattern() + ".");
+    }
+
+    /**
+     * A {@code null} parameter fails as if {@link #notNull()} had been called.
+     */
+    private static RuntimeException failure(final String nameParam, final String valueParam,
+                                            final Predicate<? super String> predicateParam, final String requirementParam) {
+        if (valueParam == null) {
+            return ParameterCheck.nullFailure(nameParam);
+        }
+        return RequirementCategory.PARAMETER.failure(predicateParam, valueParam, nameParam + requirementParam, null);
+    }
+}
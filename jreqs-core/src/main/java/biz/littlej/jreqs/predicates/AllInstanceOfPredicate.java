@@ -18,9 +18,16 @@ package biz.littlej.jreqs.predicates;
 import biz.littlej.jreqs.Reqs;
 
 import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Checks that all input objects are instances of the specified class.
+ * <p/>
+ * Arrays are checked with {@link #applyToArray(Object[])}, which decides from the component type alone when it
+ * guarantees the result.  What the component type guarantees is computed once per component type and memoized in a
+ * {@link ClassValue}.
  *
  * @author Yannick LOTH
  * @since 0.1.0
@@ -28,15 +35,34 @@ import java.io.Serializable;
 public final class AllInstanceOfPredicate implements Predicate<Iterable<?>>, Serializable {
     private static final long serialVersionUID = 0;
     private final Class<?> clazz;
+    private final transient ClassValue<ComponentVerdict> componentVerdicts = new ClassValue<ComponentVerdict>() {
+        @Override
+        protected ComponentVerdict computeValue(final Class<?> componentTypeParam) {
+            if (clazz.isAssignableFrom(componentTypeParam)) {
+                return ComponentVerdict.ALL_INSTANCES;
+            }
+            // Array classes are always reported final, yet an Object[][] may hold String[] elements.
+            if (componentTypeParam.isArray()) {
+                return ComponentVerdict.UNKNOWN;
+            }
+            // A final class has no subclass, and a class can't extend two unrelated classes.
+            if (Modifier.isFinal(componentTypeParam.getModifiers()) || !componentTypeParam.isInterface()
+                    && !clazz.isInterface() && !componentTypeParam.isAssignableFrom(clazz)) {
+                return ComponentVerdict.NO_INSTANCE;
+            }
+            return ComponentVerdict.UNKNOWN;
+        }
+    };
+
+    /**
+     * What the component type of an array tells about its non-{@code null} elements.
+     */
+    private enum ComponentVerdict {
+        ALL_INSTANCES, NO_INSTANCE, UNKNOWN
+    }
 
     public static AllInstanceOfPredicate getInstance(final Class<?> classParam) {
-        final AllInstanceOfPredicate p = PredicateCache.getPredicate(classParam, AllInstanceOfPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final AllInstanceOfPredicate predicate = new AllInstanceOfPredicate(classParam);
-        PredicateCache.registerNewPredicate(predicate.clazz, predicate);
-        return predicate;
+        return PredicateCache.intern(new AllInstanceOfPredicate(classParam));
     }
 
     private AllInstanceOfPredicate(final Class<?> classParam) {
@@ -44,8 +70,22 @@ public final class AllInstanceOfPredicate implements Predicate<Iterable<?>>, Ser
         clazz = classParam;
     }
 
+    Class<?> getCheckedClass() {
+        return clazz;
+    }
+
     public boolean apply(final Iterable<?> inputParam) {
         Reqs.parameterCondition(Predicates.notNull(), inputParam, "Iterable input parameter must not be null.");
+        if (inputParam instanceof List && inputParam instanceof RandomAccess) {
+            // Indexing avoids the iterator, which escape analysis does not reliably remove.
+            final List<?> list = (List<?>) inputParam;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                if (!clazz.isInstance(list.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
         for (final Object current : inputParam) {
             if (!clazz.isInstance(current)) {
                 return false;
@@ -53,4 +93,51 @@ public final class AllInstanceOfPredicate implements Predicate<Iterable<?>>, Ser
         }
         return true;
     }
+
+    /**
+     * Checks that all elements of the specified array are instances of the checked class.  If the component type of
+     * the array is a subtype of the checked class, the elements are only checked for {@code null}; if no instance of
+     * the component type can be an instance of the checked class, only empty arrays evaluate to {@code true}.
+     *
+     * @param arrayParam The array.  Must not be {@code null}.
+     * @return {@code true} if all elements are instances of the checked class.
+     */
+    public boolean applyToArray(final Object[] arrayParam) {
+        Reqs.parameterCondition(Predicates.notNull(), arrayParam, "Array input parameter must not be null.");
+        switch (componentVerdicts.get(arrayParam.getClass().getComponentType())) {
+            case ALL_INSTANCES:
+                for (final Object current : arrayParam) {
+                    if (current == null) {
+                        return false;
+                    }
+                }
+                return true;
+            case NO_INSTANCE:
+                return arrayParam.length == 0;
+            default:
+                for (final Object current : arrayParam) {
+                    if (!clazz.isInstance(current)) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        return this == objectParam || objectParam instanceof AllInstanceOfPredicate && clazz == ((AllInstanceOfPredicate) objectParam).clazz;
+    }
+
+    @Override
+    public int hashCode() {
+        return clazz.hashCode();
+    }
+
+    /**
+     * Replaces the deserialized instance, whose memoized verdicts are not restored.
+     */
+    private Object readResolve() {
+        return getInstance(clazz);
+    }
 }
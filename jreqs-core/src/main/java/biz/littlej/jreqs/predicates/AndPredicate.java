@@ -18,7 +18,6 @@ package biz.littlej.jreqs.predicates;
 import biz.littlej.jreqs.Reqs;
 
 import java.io.Serializable;
-import java.util.Arrays;
 
 import static biz.littlej.jreqs.predicates.Predicates.notNull;
 
@@ -32,16 +31,10 @@ public final class AndPredicate<T> implements Predicate<T>, Serializable {
     private static final long serialVersionUID = 0;
     private final Predicate<T> firstMemberPredicate;
     private final Predicate<T> secondeMemberPredicate;
+    private transient int hash;
 
     public static <T> AndPredicate getInstance(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
-        final int h = Arrays.deepHashCode(new Predicate[]{firstMemberPredicateParam, secondMemberPredicateParam});
-        final AndPredicate<T> p = PredicateCache.getPredicate(h, AndPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final AndPredicate<T> predicate = new AndPredicate<T>(firstMemberPredicateParam, secondMemberPredicateParam);
-        PredicateCache.registerNewPredicate(h, predicate);
-        return predicate;
+        return PredicateCache.intern(new AndPredicate<T>(firstMemberPredicateParam, secondMemberPredicateParam));
     }
 
     private AndPredicate(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
@@ -51,7 +44,43 @@ public final class AndPredicate<T> implements Predicate<T>, Serializable {
         secondeMemberPredicate = secondMemberPredicateParam;
     }
 
+    Predicate<T> getFirstMemberPredicate() {
+        return firstMemberPredicate;
+    }
+
+    Predicate<T> getSecondMemberPredicate() {
+        return secondeMemberPredicate;
+    }
+
     public boolean apply(final T inputParam) {
         return firstMemberPredicate.apply(inputParam) && secondeMemberPredicate.apply(inputParam);
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof AndPredicate)) {
+            return false;
+        }
+        final AndPredicate<?> other = (AndPredicate<?>) objectParam;
+        return hashCode() == other.hashCode() && firstMemberPredicate.equals(other.firstMemberPredicate)
+                && secondeMemberPredicate.equals(other.secondeMemberPredicate);
+    }
+
+    /**
+     * Computed once, as composites are compared often while they are interned.
+     */
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            hash = (31 * firstMemberPredicate.hashCode() + secondeMemberPredicate.hashCode()) * 31 + 1;
+        }
+        return hash;
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
+}
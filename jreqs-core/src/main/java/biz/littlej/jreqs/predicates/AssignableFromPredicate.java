@@ -30,13 +30,7 @@ public final class AssignableFromPredicate implements Predicate<Class<?>>, Seria
     private final Class<?> clazz;
 
     public static AssignableFromPredicate getInstance(final Class<?> classParam) {
-        final AssignableFromPredicate p = PredicateCache.getPredicate(classParam, AssignableFromPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final AssignableFromPredicate predicate = new AssignableFromPredicate(classParam);
-        PredicateCache.registerNewPredicate(predicate.clazz, predicate);
-        return predicate;
+        return PredicateCache.intern(new AssignableFromPredicate(classParam));
     }
 
     private AssignableFromPredicate(final Class<?> classParam) {
@@ -44,8 +38,26 @@ public final class AssignableFromPredicate implements Predicate<Class<?>>, Seria
         clazz = classParam;
     }
 
+    Class<?> getCheckedClass() {
+        return clazz;
+    }
+
     public boolean apply(final Class<?> inputParam) {
         Reqs.parameterCondition(Predicates.notNull(), inputParam, "Class input parameter must not be null.");
         return clazz.isAssignableFrom(inputParam);
     }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        return this == objectParam || objectParam instanceof AssignableFromPredicate && clazz == ((AssignableFromPredicate) objectParam).clazz;
+    }
+
+    @Override
+    public int hashCode() {
+        return clazz.hashCode();
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
 }
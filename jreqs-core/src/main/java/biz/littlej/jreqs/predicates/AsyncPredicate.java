@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Determines a boolean value for a given input, asynchronously.  This is the counterpart of {@link Predicate} for
+ * checks that block on I/O, such as file system lookups on network mounts or queries to an embedded store.
+ * <p/>
+ * Use {@link AsyncPredicates} to adapt existing predicates and to combine asynchronous ones.
+ *
+ * @param <T> The type of the input.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public interface AsyncPredicate<T> {
+    /**
+     * Starts evaluating this predicate on the {@code inputParam}.  Implementations must not block the calling thread.
+     * <p/>
+     * Cancelling the returned future should stop the evaluation if it is still running.
+     *
+     * @param inputParam The input parameter on which this predicate is applied.
+     * @return A future that completes with the boolean value to which this predicate evaluates, or exceptionally if
+     *         the evaluation fails.
+     */
+    CompletableFuture<Boolean> apply(T inputParam);
+}
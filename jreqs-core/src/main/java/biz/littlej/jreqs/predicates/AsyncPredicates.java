@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Static utility methods that adapt {@link Predicate predicates} to {@link AsyncPredicate asynchronous predicates}
+ * and combine asynchronous predicates.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class AsyncPredicates {
+    /**
+     * Returns an asynchronous predicate that evaluates the specified predicate on the specified executor.
+     * Cancelling a pending evaluation interrupts the thread running it.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param executorParam  The executor.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The asynchronous predicate.
+     */
+    public static <T> AsyncPredicate<T> fromPredicate(final Predicate<T> predicateParam, final Executor executorParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), executorParam, "Executor parameter must not be null.");
+        return inputParam -> {
+            final Evaluation<T> evaluation = new Evaluation<T>(predicateParam, inputParam);
+            try {
+                executorParam.execute(evaluation);
+            } catch (RejectedExecutionException e) {
+                evaluation.completeExceptionally(e);
+            }
+            return evaluation;
+        };
+    }
+
+    /**
+     * Returns an asynchronous predicate that evaluates the specified predicate on a virtual thread when the JDK
+     * provides them (Java 21 and later), or else on a shared cached pool of daemon threads.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The asynchronous predicate.
+     */
+    public static <T> AsyncPredicate<T> fromPredicate(final Predicate<T> predicateParam) {
+        return fromPredicate(predicateParam, DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Returns an asynchronous predicate that evaluates both specified predicates concurrently, like the logical AND.
+     * The result is {@code false} as soon as either member evaluates to {@code false}, and the other member's
+     * evaluation is then cancelled.  If a member fails before the result is known, the combination fails too.
+     *
+     * @param firstMemberPredicateParam  The first member.  Must not be {@code null}.
+     * @param secondMemberPredicateParam The second member.  Must not be {@code null}.
+     * @param <T>                        The type of the input.
+     * @return The combined asynchronous predicate.
+     */
+    public static <T> AsyncPredicate<T> and(final AsyncPredicate<T> firstMemberPredicateParam,
+                                            final AsyncPredicate<T> secondMemberPredicateParam) {
+        return combine(firstMemberPredicateParam, secondMemberPredicateParam, false);
+    }
+
+    /**
+     * Returns an asynchronous predicate that evaluates both specified predicates concurrently, like the logical OR.
+     * The result is {@code true} as soon as either member evaluates to {@code true}, and the other member's
+     * evaluation is then cancelled.  If a member fails before the result is known, the combination fails too.
+     *
+     * @param firstMemberPredicateParam  The first member.  Must not be {@code null}.
+     * @param secondMemberPredicateParam The second member.  Must not be {@code null}.
+     * @param <T>                        The type of the input.
+     * @return The combined asynchronous predicate.
+     */
+    public static <T> AsyncPredicate<T> or(final AsyncPredicate<T> firstMemberPredicateParam,
+                                           final AsyncPredicate<T> secondMemberPredicateParam) {
+        return combine(firstMemberPredicateParam, secondMemberPredicateParam, true);
+    }
+
+    /**
+     * Returns an asynchronous predicate that evaluates to the opposite value of the specified one.
+     *
+     * @param originalPredicateParam The predicate that must be negated.  Must not be {@code null}.
+     * @param <T>                    The type of the input.
+     * @return The negated asynchronous predicate.
+     */
+    public static <T> AsyncPredicate<T> not(final AsyncPredicate<T> originalPredicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), originalPredicateParam, "Original predicate parameter must not be null.");
+        return inputParam -> {
+            final CompletableFuture<Boolean> source = originalPredicateParam.apply(inputParam);
+            final CompletableFuture<Boolean> result = source.thenApply(value -> !value);
+            propagateCancellation(result, source);
+            return result;
+        };
+    }
+
+    /**
+     * Returns an asynchronous predicate whose evaluations fail with a {@link java.util.concurrent.TimeoutException}
+     * if the specified predicate does not complete in time.  The late evaluation is then cancelled.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param timeoutParam   The maximum duration of one evaluation.  Must be strictly positive.
+     * @param unitParam      The unit of {@code timeoutParam}.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The asynchronous predicate with a timeout.
+     */
+    public static <T> AsyncPredicate<T> withTimeout(final AsyncPredicate<T> predicateParam, final long timeoutParam,
+                                                    final TimeUnit unitParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        Reqs.parameterCondition(Predicates.strictlyPositive(), timeoutParam, "Timeout parameter must be strictly positive.");
+        Reqs.parameterCondition(Predicates.notNull(), unitParam, "Time unit parameter must not be null.");
+        return inputParam -> {
+            final CompletableFuture<Boolean> source = predicateParam.apply(inputParam);
+            final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+            source.whenComplete(relay(result));
+            result.orTimeout(timeoutParam, unitParam);
+            propagateCancellation(result, source);
+            return result;
+        };
+    }
+
+    private static <T> AsyncPredicate<T> combine(final AsyncPredicate<T> firstMemberPredicateParam,
+                                                 final AsyncPredicate<T> secondMemberPredicateParam,
+                                                 final boolean decisiveParam) {
+        Reqs.parameterCondition(Predicates.notNull(), firstMemberPredicateParam, "First member predicate object parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), secondMemberPredicateParam, "Second member predicate object parameter must not be null.");
+        return inputParam -> {
+            final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+            final AtomicInteger pending = new AtomicInteger(2);
+            final BiConsumer<Boolean, Throwable> member = (value, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(unwrap(failure));
+                } else if (value == decisiveParam) {
+                    result.complete(decisiveParam);
+                } else if (pending.decrementAndGet() == 0) {
+                    result.complete(!decisiveParam);
+                }
+            };
+            final CompletableFuture<Boolean> first = firstMemberPredicateParam.apply(inputParam);
+            final CompletableFuture<Boolean> second = secondMemberPredicateParam.apply(inputParam);
+            first.whenComplete(member);
+            second.whenComplete(member);
+            propagateCancellation(result, first);
+            propagateCancellation(result, second);
+            return result;
+        };
+    }
+
+    /**
+     * Cancels the source once the result is complete, whatever the outcome.  This has no effect on a source that is
+     * already complete, and stops evaluations that are no longer needed.
+     */
+    private static void propagateCancellation(final CompletableFuture<?> resultParam, final CompletableFuture<?> sourceParam) {
+        resultParam.whenComplete((value, failure) -> sourceParam.cancel(true));
+    }
+
+    private static BiConsumer<Boolean, Throwable> relay(final CompletableFuture<Boolean> targetParam) {
+        return (value, failure) -> {
+            if (failure != null) {
+                targetParam.completeExceptionally(unwrap(failure));
+            } else {
+                targetParam.complete(value);
+            }
+        };
+    }
+
+    static Throwable unwrap(final Throwable failureParam) {
+        if (failureParam instanceof CompletionException && failureParam.getCause() != null) {
+            return failureParam.getCause();
+        }
+        return failureParam;
+    }
+
+    /**
+     * A single evaluation of a blocking predicate, run by an executor.  Cancelling it interrupts the running thread.
+     */
+    private static final class Evaluation<T> extends CompletableFuture<Boolean> implements Runnable {
+        private final Predicate<T> predicate;
+        private final T input;
+        private final Object lock = new Object();
+        private Thread runner;
+        private boolean interrupted;
+
+        private Evaluation(final Predicate<T> predicateParam, final T inputParam) {
+            predicate = predicateParam;
+            input = inputParam;
+        }
+
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            synchronized (lock) {
+                runner = Thread.currentThread();
+            }
+            try {
+                complete(predicate.apply(input));
+            } catch (Throwable t) {
+                completeExceptionally(t);
+            } finally {
+                synchronized (lock) {
+                    runner = null;
+                    if (interrupted) {
+                        // Do not leak our interrupt to the next task run by this thread.
+                        Thread.interrupted();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunningParam) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunningParam);
+            if (cancelled && mayInterruptIfRunningParam) {
+                synchronized (lock) {
+                    if (runner != null) {
+                        interrupted = true;
+                        runner.interrupt();
+                    }
+                }
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * Lazily creates the executor used by {@link #fromPredicate(Predicate)}.
+     */
+    private static final class DefaultExecutor {
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                final AtomicInteger count = new AtomicInteger();
+                return Executors.newCachedThreadPool(runnableParam -> {
+                    final Thread thread = new Thread(runnableParam, "jreqs-async-predicate-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private AsyncPredicates() {
+    }
+}
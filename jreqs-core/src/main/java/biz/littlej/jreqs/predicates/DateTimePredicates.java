@@ -33,7 +33,7 @@ public enum DateTimePredicates implements Predicate<Calendar>, Serializable {
     PAST {
         public boolean apply(final Calendar inputParam) {
             Reqs.parameterCondition(Predicates.notNull(), inputParam, "Calendar input parameter must not be null.");
-            return inputParam.before(Calendar.getInstance());
+            return inputParam.getTimeInMillis() < System.currentTimeMillis();
         }
     },
     /**
@@ -42,7 +42,7 @@ public enum DateTimePredicates implements Predicate<Calendar>, Serializable {
     FUTURE {
         public boolean apply(final Calendar inputParam) {
             Reqs.parameterCondition(Predicates.notNull(), inputParam, "Calendar input parameter must not be null.");
-            return inputParam.after(Calendar.getInstance());
+            return inputParam.getTimeInMillis() > System.currentTimeMillis();
         }
     }
 }
\ No newline at end of file
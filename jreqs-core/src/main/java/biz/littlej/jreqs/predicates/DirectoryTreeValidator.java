@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validates every entry of a directory tree against path predicates, evaluating them concurrently.
+ * <p/>
+ * The tree is walked with {@link Files#walkFileTree} on the calling thread, without following symbolic links.
+ * Each visited file and directory (except the root) is checked by a task submitted to the configured executor,
+ * for example a {@code ForkJoinPool} or, on recent JDKs, a virtual-thread-per-task executor.  At most
+ * {@code maxConcurrentChecks} checks are in flight at any time: the walk blocks until a slot is released, which bounds
+ * both the concurrent I/O and the number of queued tasks.
+ * <p/>
+ * Violations are streamed to a {@link ViolationListener} as soon as they are found, never collected.  When
+ * {@code stopOnFirstViolation} is set, the walk terminates, pending checks are skipped and only the first violation
+ * is reported.
+ * <p/>
+ * When the file predicate is a {@link PathAttributesPredicate} that needs no POSIX details nor cache, it is evaluated
+ * against the attributes read by the walk, without reading them again.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class DirectoryTreeValidator {
+    private final Predicate<Path> filePredicate;
+    private final Predicate<Path> directoryPredicate;
+    private final Executor executor;
+    private final int maxConcurrentChecks;
+    private final boolean stopOnFirstViolation;
+
+    /**
+     * Receives the violations found while validating a tree.  Called from the executor threads, so
+     * implementations must be thread-safe.
+     */
+    public interface ViolationListener {
+        /**
+         * Called for each path that does not verify its predicate.
+         *
+         * @param pathParam  The offending path.
+         * @param causeParam The exception raised while reading or checking the path, or {@code null} if the predicate
+         *                   simply evaluated to {@code false}.
+         */
+        void violation(Path pathParam, Exception causeParam);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param filePredicateParam        The predicate that all non-directory entries must verify.  Must not be {@code null}.
+     * @param directoryPredicateParam   The predicate that all directories below the root must verify.  Must not be {@code null}.
+     * @param executorParam             The executor on which checks are evaluated.  Must not be {@code null}.
+     * @param maxConcurrentChecksParam  The maximum number of checks in flight.  Must be strictly positive.
+     * @param stopOnFirstViolationParam {@code true} to stop at the first violation.
+     */
+    public DirectoryTreeValidator(final Predicate<Path> filePredicateParam,
+                                  final Predicate<Path> directoryPredicateParam,
+                                  final Executor executorParam,
+                                  final int maxConcurrentChecksParam,
+                                  final boolean stopOnFirstViolationParam) {
+        Reqs.parameterCondition(Predicates.notNull(), filePredicateParam, "File predicate parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), directoryPredicateParam, "Directory predicate parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), executorParam, "Executor parameter must not be null.");
+        Reqs.parameterCondition(Predicates.strictlyPositive(), maxConcurrentChecksParam, "Maximum concurrent checks parameter must be strictly positive.");
+        filePredicate = filePredicateParam;
+        directoryPredicate = directoryPredicateParam;
+        executor = executorParam;
+        maxConcurrentChecks = maxConcurrentChecksParam;
+        stopOnFirstViolation = stopOnFirstViolationParam;
+    }
+
+    /**
+     * Validates the tree rooted at the specified directory and blocks until all checks are done.
+     *
+     * @param rootParam     The root directory.  Must not be {@code null}.
+     * @param listenerParam The listener notified of each violation.  Must not be {@code null}.
+     * @return The number of violations reported to the listener.
+     * @throws InterruptedIOException if the calling thread is interrupted while waiting to submit a check: the tree
+     *                                is then only partly validated.  The interrupt status of the thread is kept.
+     * @throws IOException            if the walk fails.
+     */
+    public long validate(final Path rootParam, final ViolationListener listenerParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), rootParam, "Root directory parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), listenerParam, "Listener parameter must not be null.");
+        final Walk walk = new Walk(rootParam, listenerParam);
+        try {
+            Files.walkFileTree(rootParam, walk);
+        } finally {
+            walk.slots.acquireUninterruptibly(maxConcurrentChecks);
+            walk.slots.release(maxConcurrentChecks);
+        }
+        if (walk.interrupted) {
+            throw new InterruptedIOException("Interrupted while validating " + rootParam + ": the tree is only partly validated.");
+        }
+        return walk.violations.get();
+    }
+
+    private final class Walk extends SimpleFileVisitor<Path> {
+        private final Path root;
+        private final ViolationListener listener;
+        private final Semaphore slots = new Semaphore(maxConcurrentChecks);
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final AtomicLong violations = new AtomicLong();
+        private boolean interrupted;
+
+        private Walk(final Path rootParam, final ViolationListener listenerParam) {
+            root = rootParam;
+            listener = listenerParam;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dirParam, final BasicFileAttributes attrsParam) {
+            if (dirParam.equals(root)) {
+                return FileVisitResult.CONTINUE;
+            }
+            return submit(dirParam, attrsParam, directoryPredicate);
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path fileParam, final BasicFileAttributes attrsParam) {
+            return submit(fileParam, attrsParam, filePredicate);
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path fileParam, final IOException excParam) {
+            report(fileParam, excParam);
+            return next();
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(final Path dirParam, final IOException excParam) {
+            if (excParam != null) {
+                report(dirParam, excParam);
+            }
+            return next();
+        }
+
+        private FileVisitResult submit(final Path pathParam, final BasicFileAttributes attrsParam,
+                                       final Predicate<Path> predicateParam) {
+            if (stopped.get()) {
+                return FileVisitResult.TERMINATE;
+            }
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                stopped.set(true);
+                return FileVisitResult.TERMINATE;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            if (!stopped.get() && !evaluate(predicateParam, pathParam, attrsParam)) {
+                                report(pathParam, null);
+                            }
+                        } catch (RuntimeException e) {
+                            report(pathParam, e);
+                        } finally {
+                            slots.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        private FileVisitResult next() {
+            return stopped.get() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+
+        private void report(final Path pathParam, final Exception causeParam) {
+            if (stopOnFirstViolation && !stopped.compareAndSet(false, true)) {
+                return;
+            }
+            violations.incrementAndGet();
+            listener.violation(pathParam, causeParam);
+        }
+    }
+
+    private static boolean evaluate(final Predicate<Path> predicateParam, final Path pathParam,
+                                    final BasicFileAttributes attrsParam) {
+        if (predicateParam instanceof PathAttributesPredicate && !attrsParam.isSymbolicLink()) {
+            final PathAttributesPredicate attributesPredicate = (PathAttributesPredicate) predicateParam;
+            if (attributesPredicate.acceptsBasicAttributes()) {
+                return attributesPredicate.apply(pathParam, attrsParam);
+            }
+        }
+        return predicateParam.apply(pathParam);
+    }
+}
@@ -31,13 +31,7 @@ public final class EqualToPredicate<T> implements Predicate<T>, Serializable {
     private final Object o;
 
     public static <T> EqualToPredicate<T> getInstance(final Object objectParam) {
-        final EqualToPredicate p = PredicateCache.getPredicate(objectParam, EqualToPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final EqualToPredicate<T> predicate = new EqualToPredicate<T>(objectParam);
-        PredicateCache.registerNewPredicate(predicate.o, predicate);
-        return predicate;
+        return PredicateCache.intern(new EqualToPredicate<T>(objectParam));
     }
 
     private EqualToPredicate(final Object objectParam) {
@@ -45,7 +39,25 @@ public final class EqualToPredicate<T> implements Predicate<T>, Serializable {
         o = objectParam;
     }
 
+    Object getObject() {
+        return o;
+    }
+
     public boolean apply(final T inputParam) {
         return Objects.equals(o, inputParam);
     }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        return this == objectParam || objectParam instanceof EqualToPredicate && o.equals(((EqualToPredicate<?>) objectParam).o);
+    }
+
+    @Override
+    public int hashCode() {
+        return o.hashCode();
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
 }
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A time-to-live cache of file attributes, shared by {@link PathAttributesPredicate} instances through
+ * {@link PathAttributesPredicate#withCache(FileAttributesCache)}.
+ * <p/>
+ * Entries expire after the configured time-to-live.  Directories registered with {@link #watch(Path)} are observed
+ * through a {@link WatchService}: any change to one of their entries evicts the cached attributes of that entry and
+ * of the directory itself before the time-to-live elapses.  Missing paths are cached too, so repeated checks of a path
+ * that does not exist do not hit the file system either.
+ * <p/>
+ * The number of cached paths is bounded.  When a read would exceed the bound, the expired entries are purged, and if
+ * that is not enough, arbitrary entries are evicted too.
+ * <p/>
+ * Instances are thread-safe.  Close the cache to stop watching directories.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class FileAttributesCache implements Closeable {
+    /**
+     * The default maximum number of cached paths, for each way of reading attributes.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final LinkOption[] FOLLOW_LINKS = new LinkOption[0];
+    private static final LinkOption[] NOFOLLOW_LINKS = new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
+    private final long ttlNanos;
+    private final int maxEntries;
+    /**
+     * Incremented before each invalidation, so that attributes read before an invalidation are not cached after it.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+    /**
+     * One map per way of reading attributes, indexed by {@link #mapIndex(boolean, boolean)}.
+     */
+    private final ConcurrentMap<Path, Entry>[] entries;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Constructor.
+     *
+     * @param ttlParam     The time during which cached attributes are considered up to date.  Must be strictly positive.
+     * @param ttlUnitParam The unit of {@code ttlParam}.  Must not be {@code null}.
+     */
+    public FileAttributesCache(final long ttlParam, final TimeUnit ttlUnitParam) {
+        this(ttlParam, ttlUnitParam, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ttlParam        The time during which cached attributes are considered up to date.  Must be strictly positive.
+     * @param ttlUnitParam    The unit of {@code ttlParam}.  Must not be {@code null}.
+     * @param maxEntriesParam The maximum number of cached paths, for each way of reading attributes.  Must be strictly
+     *                        positive.
+     */
+    @SuppressWarnings("unchecked")
+    public FileAttributesCache(final long ttlParam, final TimeUnit ttlUnitParam, final int maxEntriesParam) {
+        Reqs.parameterCondition(Predicates.strictlyPositive(), ttlParam, "Time-to-live parameter must be strictly positive.");
+        Reqs.parameterCondition(Predicates.notNull(), ttlUnitParam, "Time-to-live unit parameter must not be null.");
+        Reqs.parameterCondition(Predicates.strictlyPositive(), maxEntriesParam, "Maximum entries parameter must be strictly positive.");
+        ttlNanos = ttlUnitParam.toNanos(ttlParam);
+        maxEntries = maxEntriesParam;
+        entries = new ConcurrentMap[4];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = new ConcurrentHashMap<Path, Entry>();
+        }
+    }
+
+    /**
+     * Watches the specified directory so that changes to its entries invalidate the cached attributes immediately.
+     * All watched directories must belong to the same file system.
+     *
+     * @param directoryParam The directory to watch.  Must not be {@code null}.
+     * @throws IOException if the directory cannot be registered.
+     */
+    public synchronized void watch(final Path directoryParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), directoryParam, "Directory parameter must not be null.");
+        final Path directory = directoryParam.toAbsolutePath().normalize();
+        if (watchService == null) {
+            watchService = directory.getFileSystem().newWatchService();
+            watcher = new Thread(new Runnable() {
+                public void run() {
+                    processEvents();
+                }
+            }, "jreqs-file-attributes-cache-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Evicts the cached attributes of the specified path.
+     *
+     * @param pathParam The path.  Must not be {@code null}.
+     */
+    public void invalidate(final Path pathParam) {
+        Reqs.parameterCondition(Predicates.notNull(), pathParam, "Path parameter must not be null.");
+        evict(pathParam.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Evicts all cached attributes.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        for (final ConcurrentMap<Path, Entry> map : entries) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Stops watching directories and evicts all cached attributes.
+     *
+     * @throws IOException if the underlying watch service cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        invalidateAll();
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+            watcher = null;
+        }
+    }
+
+    /**
+     * Returns the attributes of the specified path, from the cache if they are still fresh.
+     *
+     * @param pathParam        The path.
+     * @param posixParam       {@code true} if POSIX attributes are needed.
+     * @param followLinksParam {@code true} if symbolic links must be followed.
+     * @return The attributes, or {@code null} if the path does not exist.
+     */
+    BasicFileAttributes getAttributes(final Path pathParam, final boolean posixParam, final boolean followLinksParam) {
+        final Path path = pathParam.toAbsolutePath().normalize();
+        final ConcurrentMap<Path, Entry> map = entries[mapIndex(posixParam, followLinksParam)];
+        final long now = System.nanoTime();
+        final Entry cached = map.get(path);
+        if (cached != null && now - cached.expiresAt < 0) {
+            return cached.attributes;
+        }
+        final long invalidation = invalidations.get();
+        final BasicFileAttributes attributes = readAttributes(path, posixParam, followLinksParam);
+        final Entry entry = new Entry(attributes, now + ttlNanos);
+        map.put(path, entry);
+        if (invalidations.get() != invalidation) {
+            // An invalidation may have happened after the read: the attributes are returned, but not cached.
+            map.remove(path, entry);
+        } else if (map.size() > maxEntries) {
+            purge(map, now);
+        }
+        return attributes;
+    }
+
+    /**
+     * Returns the number of cached paths, for all ways of reading attributes.
+     */
+    int size() {
+        int result = 0;
+        for (final ConcurrentMap<Path, Entry> map : entries) {
+            result += map.size();
+        }
+        return result;
+    }
+
+    /**
+     * Removes the expired entries of the map, then arbitrary entries until it holds at most three quarters of the
+     * maximum, so that the next purges are not triggered by every read.
+     */
+    private void purge(final ConcurrentMap<Path, Entry> mapParam, final long nowParam) {
+        final Iterator<Entry> expired = mapParam.values().iterator();
+        while (expired.hasNext()) {
+            if (nowParam - expired.next().expiresAt >= 0) {
+                expired.remove();
+            }
+        }
+        final int target = maxEntries - maxEntries / 4;
+        final Iterator<Path> paths = mapParam.keySet().iterator();
+        while (mapParam.size() > target && paths.hasNext()) {
+            paths.next();
+            paths.remove();
+        }
+    }
+
+    /**
+     * Reads the attributes of the specified path with a single file system call.
+     *
+     * @param pathParam        The path.
+     * @param posixParam       {@code true} if POSIX attributes are needed.
+     * @param followLinksParam {@code true} if symbolic links must be followed.
+     * @return The attributes, or {@code null} if the path does not exist or its attributes cannot be read.
+     * @throws UnsupportedOperationException if POSIX attributes are requested and the file system does not support them.
+     */
+    static BasicFileAttributes readAttributes(final Path pathParam, final boolean posixParam, final boolean followLinksParam) {
+        final LinkOption[] options = followLinksParam ? FOLLOW_LINKS : NOFOLLOW_LINKS;
+        try {
+            if (posixParam) {
+                return Files.readAttributes(pathParam, PosixFileAttributes.class, options);
+            }
+            return Files.readAttributes(pathParam, BasicFileAttributes.class, options);
+        } catch (IOException e) {
+            // Missing paths raise NoSuchFileException; unreadable ones are treated alike.
+            return null;
+        }
+    }
+
+    private static int mapIndex(final boolean posixParam, final boolean followLinksParam) {
+        return (posixParam ? 2 : 0) | (followLinksParam ? 1 : 0);
+    }
+
+    private void evict(final Path absolutePathParam) {
+        invalidations.incrementAndGet();
+        for (final ConcurrentMap<Path, Entry> map : entries) {
+            map.remove(absolutePathParam);
+        }
+    }
+
+    private void processEvents() {
+        final WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        if (service == null) {
+            return;
+        }
+        try {
+            while (true) {
+                final WatchKey key = service.take();
+                final Path directory = (Path) key.watchable();
+                for (final WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        invalidateAll();
+                    } else {
+                        evict(directory.resolve((Path) event.context()));
+                    }
+                }
+                evict(directory);
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // The cache was closed: stop watching.
+        }
+    }
+
+    /**
+     * A cached read.  {@code attributes} is {@code null} for a missing path.
+     */
+    private static final class Entry {
+        private final BasicFileAttributes attributes;
+        private final long expiresAt;
+
+        private Entry(final BasicFileAttributes attributesParam, final long expiresAtParam) {
+            attributes = attributesParam;
+            expiresAt = expiresAtParam;
+        }
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32C;
+
+/**
+ * Checks the content of the input file: leading magic bytes, maximum size, trailing newline, CRC32C checksum and
+ * absence of NUL bytes.
+ * <p/>
+ * The file is never loaded onto the heap.  Files smaller than {@link #MAPPING_THRESHOLD} are read through a direct
+ * buffer taken from a small shared pool; larger files are memory-mapped window by window, and each window is unmapped
+ * as soon as it is scanned, where the JDK allows it.  The size, the magic bytes
+ * and the trailing newline only need the first and last bytes of the file, so the content is scanned only if the
+ * checksum or the NUL bytes must be checked.  Checks combined with {@link #and(FileContentPredicate)} share a single
+ * pass over the bytes, and the scan stops as soon as a NUL byte is found.
+ * <p/>
+ * A file that does not exist or cannot be read never satisfies this predicate.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class FileContentPredicate implements Predicate<Path>, Serializable {
+    private static final long serialVersionUID = 0;
+    /**
+     * Files at least this large are memory-mapped instead of being read through a direct buffer.
+     */
+    public static final long MAPPING_THRESHOLD = 1L << 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAPPING_WINDOW = 64L << 20;
+    private static final long NO_LIMIT = -1L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    /**
+     * The idle buffers.  Buffers taken while the pool is empty are allocated, and those returned while it is full are
+     * left to the garbage collector, so the pool never retains more than its capacity.
+     */
+    static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<ByteBuffer>(
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+    private static final FileContentPredicate NEVER = new FileContentPredicate(null, NO_LIMIT, false, NO_LIMIT, false, true);
+    private final byte[] magic;
+    private final long maxSize;
+    private final boolean trailingNewline;
+    private final long crc32c;
+    private final boolean noNulBytes;
+    private final boolean unsatisfiable;
+
+    /**
+     * Returns a predicate that checks that the file starts with the specified bytes.
+     *
+     * @param magicParam The expected leading bytes.  Must not be {@code null}.
+     * @return The predicate.
+     */
+    public static FileContentPredicate startingWith(final byte[] magicParam) {
+        Reqs.parameterCondition(Predicates.notNull(), magicParam, "Magic bytes parameter must not be null.");
+        return new FileContentPredicate(magicParam.clone(), NO_LIMIT, false, NO_LIMIT, false, false);
+    }
+
+    /**
+     * Returns a predicate that checks that the file is not larger than the specified size.
+     *
+     * @param maxSizeParam The maximum size in bytes.  Must be positive.
+     * @return The predicate.
+     */
+    public static FileContentPredicate notLargerThan(final long maxSizeParam) {
+        Reqs.parameterCondition(Predicates.positive(), maxSizeParam, "Maximum size parameter must be positive.");
+        return new FileContentPredicate(null, maxSizeParam, false, NO_LIMIT, false, false);
+    }
+
+    /**
+     * Returns a predicate that checks that the file ends with a newline ({@code '\n'}).
+     *
+     * @return The predicate.
+     */
+    public static FileContentPredicate endingWithNewline() {
+        return new FileContentPredicate(null, NO_LIMIT, true, NO_LIMIT, false, false);
+    }
+
+    /**
+     * Returns a predicate that checks that the CRC32C checksum of the file is the specified value.
+     *
+     * @param crc32cParam The expected checksum, as returned by {@link CRC32C#getValue()}.
+     * @return The predicate.
+     */
+    public static FileContentPredicate withCrc32c(final long crc32cParam) {
+        if (crc32cParam < 0 || crc32cParam > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("CRC32C parameter must be an unsigned 32 bits value.");
+        }
+        return new FileContentPredicate(null, NO_LIMIT, false, crc32cParam, false, false);
+    }
+
+    /**
+     * Returns a predicate that checks that the file contains no NUL ({@code 0x00}) byte.
+     *
+     * @return The predicate.
+     */
+    public static FileContentPredicate withoutNulBytes() {
+        return new FileContentPredicate(null, NO_LIMIT, false, NO_LIMIT, true, false);
+    }
+
+    private FileContentPredicate(final byte[] magicParam, final long maxSizeParam, final boolean trailingNewlineParam,
+                                 final long crc32cParam, final boolean noNulBytesParam, final boolean unsatisfiableParam) {
+        magic = magicParam;
+        maxSize = maxSizeParam;
+        trailingNewline = trailingNewlineParam;
+        crc32c = crc32cParam;
+        noNulBytes = noNulBytesParam;
+        unsatisfiable = unsatisfiableParam;
+    }
+
+    /**
+     * Returns a predicate that verifies both this predicate's checks and the specified predicate's, in a single
+     * pass over the file.
+     *
+     * @param otherParam The other predicate.  Must not be {@code null}.
+     * @return The combined predicate.
+     */
+    public FileContentPredicate and(final FileContentPredicate otherParam) {
+        Reqs.parameterCondition(Predicates.notNull(), otherParam, "Other predicate parameter must not be null.");
+        if (unsatisfiable || otherParam.unsatisfiable) {
+            return NEVER;
+        }
+        final byte[] combinedMagic;
+        if (magic == null || otherParam.magic == null) {
+            combinedMagic = magic == null ? otherParam.magic : magic;
+        } else {
+            final byte[] longer = magic.length >= otherParam.magic.length ? magic : otherParam.magic;
+            final byte[] shorter = longer == magic ? otherParam.magic : magic;
+            if (!Arrays.equals(shorter, Arrays.copyOf(longer, shorter.length))) {
+                return NEVER;
+            }
+            combinedMagic = longer;
+        }
+        if (crc32c != NO_LIMIT && otherParam.crc32c != NO_LIMIT && crc32c != otherParam.crc32c) {
+            return NEVER;
+        }
+        final long combinedMaxSize = maxSize == NO_LIMIT ? otherParam.maxSize
+                : otherParam.maxSize == NO_LIMIT ? maxSize : Math.min(maxSize, otherParam.maxSize);
+        return new FileContentPredicate(combinedMagic, combinedMaxSize, trailingNewline || otherParam.trailingNewline,
+                crc32c == NO_LIMIT ? otherParam.crc32c : crc32c, noNulBytes || otherParam.noNulBytes, false);
+    }
+
+    /**
+     * Returns a predicate with the specified checks, as returned by the getters of another one.
+     */
+    static FileContentPredicate of(final byte[] magicParam, final long maxSizeParam, final boolean trailingNewlineParam,
+                                   final long crc32cParam, final boolean noNulBytesParam, final boolean unsatisfiableParam) {
+        if (unsatisfiableParam) {
+            return NEVER;
+        }
+        return new FileContentPredicate(magicParam == null ? null : magicParam.clone(), maxSizeParam, trailingNewlineParam,
+                crc32cParam, noNulBytesParam, false);
+    }
+
+    byte[] getMagic() {
+        return magic == null ? null : magic.clone();
+    }
+
+    long getMaxSize() {
+        return maxSize;
+    }
+
+    boolean isTrailingNewline() {
+        return trailingNewline;
+    }
+
+    long getCrc32c() {
+        return crc32c;
+    }
+
+    boolean isNoNulBytes() {
+        return noNulBytes;
+    }
+
+    boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof FileContentPredicate)) {
+            return false;
+        }
+        final FileContentPredicate other = (FileContentPredicate) objectParam;
+        return maxSize == other.maxSize && trailingNewline == other.trailingNewline && crc32c == other.crc32c
+                && noNulBytes == other.noNulBytes && unsatisfiable == other.unsatisfiable && Arrays.equals(magic, other.magic);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Arrays.hashCode(magic);
+        hash = hash * 31 + (int) (maxSize ^ (maxSize >>> 32));
+        hash = hash * 31 + (int) (crc32c ^ (crc32c >>> 32));
+        return ((hash * 31 + (trailingNewline ? 1 : 0)) * 31 + (noNulBytes ? 1 : 0)) * 31 + (unsatisfiable ? 1 : 0);
+    }
+
+    public boolean apply(final Path inputParam) {
+        Reqs.parameterCondition(Predicates.notNull(), inputParam, "Path input parameter must not be null.");
+        if (unsatisfiable) {
+            return false;
+        }
+        try (final FileChannel channel = FileChannel.open(inputParam, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (maxSize != NO_LIMIT && size > maxSize) {
+                return false;
+            }
+            if (magic != null && size < magic.length) {
+                return false;
+            }
+            if (trailingNewline && size == 0) {
+                return false;
+            }
+            if (crc32c == NO_LIMIT && !noNulBytes && (magic == null || magic.length <= BUFFER_SIZE)) {
+                return checkEnds(channel, size);
+            }
+            return size < MAPPING_THRESHOLD ? scanBuffered(channel, size) : scanMapped(channel, size);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks the magic bytes and the trailing newline with positional reads, without scanning the content.
+     */
+    private boolean checkEnds(final FileChannel channelParam, final long sizeParam) throws IOException {
+        final ByteBuffer buffer = takeBuffer();
+        try {
+            if (magic != null && magic.length > 0) {
+                buffer.clear().limit(magic.length);
+                if (!readFully(channelParam, buffer, 0) || !startsWithMagic(buffer, magic.length)) {
+                    return false;
+                }
+            }
+            if (trailingNewline) {
+                buffer.clear().limit(1);
+                if (!readFully(channelParam, buffer, sizeParam - 1) || buffer.get(0) != '\n') {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    private boolean scanBuffered(final FileChannel channelParam, final long sizeParam) throws IOException {
+        final ByteBuffer buffer = takeBuffer();
+        try {
+            final Scan scan = new Scan();
+            long position = 0;
+            while (position < sizeParam) {
+                buffer.clear();
+                final int read = channelParam.read(buffer, position);
+                if (read < 0) {
+                    return false;
+                }
+                buffer.flip();
+                if (!scan.update(buffer, position)) {
+                    return false;
+                }
+                position += read;
+            }
+            return scan.complete(position);
+        } finally {
+            BUFFERS.offer(buffer);
+        }
+    }
+
+    private static ByteBuffer takeBuffer() {
+        final ByteBuffer buffer = BUFFERS.poll();
+        return buffer == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : buffer;
+    }
+
+    private boolean scanMapped(final FileChannel channelParam, final long sizeParam) throws IOException {
+        final Scan scan = new Scan();
+        long position = 0;
+        while (position < sizeParam) {
+            final long length = Math.min(MAPPING_WINDOW, sizeParam - position);
+            final ByteBuffer window = channelParam.map(FileChannel.MapMode.READ_ONLY, position, length);
+            try {
+                if (!scan.update(window, position)) {
+                    return false;
+                }
+            } finally {
+                unmap(window);
+            }
+            position += length;
+        }
+        return scan.complete(position);
+    }
+
+    /**
+     * Releases the mapping of a window that is no longer referenced.  If the JDK does not expose
+     * {@code sun.misc.Unsafe.invokeCleaner}, the mapping is released when the window is garbage collected.
+     */
+    private static void unmap(final ByteBuffer windowParam) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact(windowParam);
+        } catch (RuntimeException e) {
+            // The mapping is released by the garbage collector instead.
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // invokeCleaner declares no checked exception.
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean readFully(final FileChannel channelParam, final ByteBuffer bufferParam,
+                                     final long positionParam) throws IOException {
+        long position = positionParam;
+        while (bufferParam.hasRemaining()) {
+            final int read = channelParam.read(bufferParam, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        bufferParam.flip();
+        return true;
+    }
+
+    private boolean startsWithMagic(final ByteBuffer bufferParam, final int lengthParam) {
+        for (int i = 0; i < lengthParam; i++) {
+            if (bufferParam.get(i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the readable bytes of the buffer contain a NUL byte, testing eight bytes at a time.
+     */
+    private static boolean containsNul(final ByteBuffer bufferParam) {
+        final int limit = bufferParam.limit();
+        int i = bufferParam.position();
+        for (; i + 8 <= limit; i += 8) {
+            final long word = bufferParam.getLong(i);
+            if (((word - ONES) & ~word & HIGHS) != 0) {
+                return true;
+            }
+        }
+        for (; i < limit; i++) {
+            if (bufferParam.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The state of one pass over the content.
+     */
+    private final class Scan {
+        private final CRC32C checksum = crc32c == NO_LIMIT ? null : new CRC32C();
+        private int magicMatched;
+        private byte last;
+
+        /**
+         * Feeds the next chunk, which starts at the specified offset in the file.
+         *
+         * @return {@code false} as soon as a check is known to fail.
+         */
+        private boolean update(final ByteBuffer chunkParam, final long offsetParam) {
+            final int length = chunkParam.remaining();
+            if (length == 0) {
+                return true;
+            }
+            if (magic != null && magicMatched < magic.length) {
+                final int end = (int) Math.min(magic.length, offsetParam + length);
+                for (int i = magicMatched; i < end; i++) {
+                    if (chunkParam.get((int) (i - offsetParam)) != magic[i]) {
+                        return false;
+                    }
+                }
+                magicMatched = end;
+            }
+            if (noNulBytes && containsNul(chunkParam)) {
+                return false;
+            }
+            last = chunkParam.get(chunkParam.limit() - 1);
+            if (checksum != null) {
+                checksum.update(chunkParam);
+            }
+            return true;
+        }
+
+        private boolean complete(final long sizeParam) {
+            if (magic != null && magicMatched < magic.length) {
+                return false;
+            }
+            if (trailingNewline && (sizeParam == 0 || last != '\n')) {
+                return false;
+            }
+            return checksum == null || checksum.getValue() == crc32c;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FileContentPredicate{magic=" + Arrays.toString(magic) + ", maxSize=" + maxSize
+                + ", trailingNewline=" + trailingNewline + ", crc32c=" + crc32c + ", noNulBytes=" + noNulBytes + '}';
+    }
+}
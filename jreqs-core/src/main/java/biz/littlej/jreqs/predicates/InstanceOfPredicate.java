@@ -30,13 +30,7 @@ public final class InstanceOfPredicate implements Predicate<Object>, Serializabl
     private final Class<?> clazz;
 
     public static InstanceOfPredicate getInstance(final Class<?> classParam) {
-        final InstanceOfPredicate p = PredicateCache.getPredicate(classParam, InstanceOfPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final InstanceOfPredicate predicate = new InstanceOfPredicate(classParam);
-        PredicateCache.registerNewPredicate(predicate.clazz, predicate);
-        return predicate;
+        return PredicateCache.intern(new InstanceOfPredicate(classParam));
     }
 
     private InstanceOfPredicate(final Class<?> classParam) {
@@ -44,8 +38,26 @@ public final class InstanceOfPredicate implements Predicate<Object>, Serializabl
         clazz = classParam;
     }
 
+    Class<?> getCheckedClass() {
+        return clazz;
+    }
+
     public boolean apply(final Object inputParam) {
         Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input object parameter must not be null.");
         return clazz.isInstance(inputParam);
     }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        return this == objectParam || objectParam instanceof InstanceOfPredicate && clazz == ((InstanceOfPredicate) objectParam).clazz;
+    }
+
+    @Override
+    public int hashCode() {
+        return clazz.hashCode();
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
 }
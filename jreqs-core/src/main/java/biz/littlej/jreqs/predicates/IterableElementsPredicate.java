@@ -18,6 +18,8 @@ package biz.littlej.jreqs.predicates;
 import biz.littlej.jreqs.Reqs;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Applies a predicate to all elements of the specified {@code Collection}.
@@ -58,8 +60,19 @@ public final class IterableElementsPredicate implements Predicate<Iterable<?>>,
         matching = matchingParam;
     }
 
+    Predicate getPredicate() {
+        return predicate;
+    }
+
+    Matching getMatching() {
+        return matching;
+    }
+
     public boolean apply(final Iterable<?> inputParam) {
         Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input collection parameter must not be null.");
+        if (inputParam instanceof List && inputParam instanceof RandomAccess) {
+            return applyToList((List<?>) inputParam);
+        }
         switch (matching) {
             case ALL:
                 for (final Object o : inputParam) {
@@ -87,4 +100,55 @@ public final class IterableElementsPredicate implements Predicate<Iterable<?>>,
                 throw new IllegalStateException("This should never happen, but it did: the matching parameter is unknown.");
         }
     }
+
+    /**
+     * Same as {@link #apply(Iterable)}, indexing the list instead of allocating an iterator, which escape analysis
+     * does not reliably remove.
+     */
+    private boolean applyToList(final List<?> inputParam) {
+        final int size = inputParam.size();
+        switch (matching) {
+            case ALL:
+                for (int i = 0; i < size; i++) {
+                    if (!predicate.apply(inputParam.get(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case NONE:
+                for (int i = 0; i < size; i++) {
+                    if (predicate.apply(inputParam.get(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            case ONE:
+                int matching = 0;
+                for (int i = 0; i < size; i++) {
+                    if (predicate.apply(inputParam.get(i))) {
+                        ++matching;
+                    }
+                }
+                return 1 == matching;
+            default:
+                throw new IllegalStateException("This should never happen, but it did: the matching parameter is unknown.");
+        }
+    }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof IterableElementsPredicate)) {
+            return false;
+        }
+        final IterableElementsPredicate other = (IterableElementsPredicate) objectParam;
+        return matching == other.matching && predicate.equals(other.predicate);
+    }
+
+    @Override
+    public int hashCode() {
+        return predicate.hashCode() * 31 + matching.ordinal();
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.Serializable;
+
+/**
+ * The {@link StringPredicates} returned by the {@link Predicates} factories, which reject {@code null} inputs.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+enum NotNullStringPredicates implements Predicate<String>, Serializable {
+    VALID_URI {
+        public boolean apply(final String inputParam) {
+            Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
+            return StringPredicates.VALID_URI.apply(inputParam);
+        }
+    },
+    VALID_URL {
+        public boolean apply(final String inputParam) {
+            Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
+            return StringPredicates.VALID_URL.apply(inputParam);
+        }
+    }
+}
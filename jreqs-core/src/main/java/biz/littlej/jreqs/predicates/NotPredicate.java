@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import java.io.Serializable;
+
+/**
+ * Returns a predicate that evaluates to the opposite value of the specified predicate, like the logical NOT.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class NotPredicate<T> implements Predicate<T>, Serializable {
+    private static final long serialVersionUID = 0;
+    private final Predicate<T> originalPredicate;
+
+    /**
+     * Constructor.  The original predicate is checked by {@link PredicateOperations#not}, as {@link Predicates#notNull()}
+     * is itself a negation.
+     */
+    NotPredicate(final Predicate<T> originalPredicateParam) {
+        originalPredicate = originalPredicateParam;
+    }
+
+    Predicate<T> getOriginalPredicate() {
+        return originalPredicate;
+    }
+
+    public boolean apply(final T inputParam) {
+        return !originalPredicate.apply(inputParam);
+    }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        return this == objectParam || objectParam instanceof NotPredicate
+                && originalPredicate.equals(((NotPredicate<?>) objectParam).originalPredicate);
+    }
+
+    @Override
+    public int hashCode() {
+        return ~originalPredicate.hashCode();
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
+}
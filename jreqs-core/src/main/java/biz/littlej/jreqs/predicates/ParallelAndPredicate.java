@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Returns a predicate that evaluates to {@code true} if all of the specified predicates also do for the same input, like the logical AND, evaluating expensive members concurrently.
+ * <p/>
+ * Members whose {@link PredicateCosts#estimateNanos estimated cost} reaches the offload threshold are evaluated in
+ * parallel on the specified executor; cheaper members are evaluated first on the calling thread.  The evaluation
+ * returns as soon as a member evaluates to {@code false} and cancels the members still running.  Use it instead of
+ * {@link AndPredicate}/{@link OrPredicate} when several members are slow and independent, such as bean validation and
+ * file content checks.
+ *
+ * @param <T> The type of the input.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ParallelAndPredicate<T> implements Predicate<T>, CostEstimating {
+    private final List<Predicate<T>> members;
+    private final ParallelEvaluation<T> evaluation;
+
+    /**
+     * Returns a new predicate.
+     *
+     * @param executorParam              The executor on which expensive members are evaluated.  Must not be {@code null}.
+     * @param offloadThresholdNanosParam The estimated cost from which a member is evaluated on the executor.  Must be positive.
+     * @param membersParam               The member predicates.  Must not be {@code null} nor contain {@code null}.
+     * @param <T>                        The type of the input.
+     * @return The predicate.
+     */
+    @SafeVarargs
+    public static <T> ParallelAndPredicate<T> getInstance(final ExecutorService executorParam,
+                                                          final long offloadThresholdNanosParam,
+                                                          final Predicate<T>... membersParam) {
+        Reqs.parameterCondition(Predicates.notNull(), membersParam, "Member predicates parameter must not be null.");
+        return new ParallelAndPredicate<T>(executorParam, offloadThresholdNanosParam, Arrays.asList(membersParam.clone()));
+    }
+
+    private ParallelAndPredicate(final ExecutorService executorParam, final long offloadThresholdNanosParam,
+                                 final List<Predicate<T>> membersParam) {
+        evaluation = new ParallelEvaluation<T>(executorParam, offloadThresholdNanosParam, membersParam, false);
+        members = membersParam;
+    }
+
+    public boolean apply(final T inputParam) {
+        return evaluation.evaluate(inputParam);
+    }
+
+    /**
+     * The cost of the slowest expensive member plus the cost of the cheap members.
+     */
+    public long estimatedCostNanos() {
+        return evaluation.estimateNanos();
+    }
+
+    List<Predicate<T>> getMembers() {
+        return members;
+    }
+}
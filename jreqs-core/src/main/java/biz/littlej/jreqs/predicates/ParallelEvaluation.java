@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrent evaluation of the members of {@link ParallelAndPredicate} and {@link ParallelOrPredicate}.
+ * <p/>
+ * Members are split once, at construction, by {@link PredicateCosts#estimateNanos estimated cost}.  Cheap members
+ * are evaluated first on the calling thread, so that a decisive cheap member avoids any hand-off.  Expensive members
+ * are then all submitted to the executor while the calling thread waits, unless there is only one, which the calling
+ * thread evaluates itself.  As soon as a decisive value is known, the calling thread returns and the members still
+ * running are cancelled and interrupted.
+ *
+ * @param <T> The type of the input.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+final class ParallelEvaluation<T> {
+    private final List<Predicate<T>> cheapMembers;
+    private final List<Predicate<T>> expensiveMembers;
+    private final ExecutorService executor;
+    private final boolean decisive;
+
+    ParallelEvaluation(final ExecutorService executorParam, final long offloadThresholdNanosParam,
+                       final List<Predicate<T>> membersParam, final boolean decisiveParam) {
+        Reqs.parameterCondition(Predicates.notNull(), executorParam, "Executor parameter must not be null.");
+        Reqs.parameterCondition(Predicates.positive(), offloadThresholdNanosParam, "Offload threshold parameter must be positive.");
+        Reqs.parameterCondition(Predicates.notNull(), membersParam, "Member predicates parameter must not be null.");
+        final List<Predicate<T>> cheap = new ArrayList<Predicate<T>>();
+        final List<Predicate<T>> expensive = new ArrayList<Predicate<T>>();
+        for (final Predicate<T> member : membersParam) {
+            Reqs.parameterCondition(Predicates.notNull(), member, "Member predicate object parameter must not be null.");
+            if (PredicateCosts.estimateNanos(member) >= offloadThresholdNanosParam) {
+                expensive.add(member);
+            } else {
+                cheap.add(member);
+            }
+        }
+        cheapMembers = Collections.unmodifiableList(cheap);
+        expensiveMembers = Collections.unmodifiableList(expensive);
+        executor = executorParam;
+        decisive = decisiveParam;
+    }
+
+    /**
+     * The cost of the slowest expensive member plus the cost of the cheap members.
+     */
+    long estimateNanos() {
+        long cost = 0;
+        for (int i = 0, cheap = cheapMembers.size(); i < cheap; i++) {
+            cost += PredicateCosts.estimateNanos(cheapMembers.get(i));
+        }
+        long slowest = 0;
+        for (int i = 0, expensive = expensiveMembers.size(); i < expensive; i++) {
+            slowest = Math.max(slowest, PredicateCosts.estimateNanos(expensiveMembers.get(i)));
+        }
+        return cost + slowest;
+    }
+
+    /**
+     * Evaluates the members.
+     *
+     * @param inputParam The input.
+     * @return {@code decisive} if any member evaluates to it, {@code !decisive} otherwise.
+     */
+    boolean evaluate(final T inputParam) {
+        for (int i = 0, cheap = cheapMembers.size(); i < cheap; i++) {
+            if (cheapMembers.get(i).apply(inputParam) == decisive) {
+                return decisive;
+            }
+        }
+        final int size = expensiveMembers.size();
+        if (size == 0) {
+            return !decisive;
+        }
+        if (size == 1) {
+            return expensiveMembers.get(0).apply(inputParam) == decisive ? decisive : !decisive;
+        }
+        final Race race = new Race(size);
+        final Future<?>[] futures = new Future<?>[size];
+        try {
+            for (int i = 0; i < size; i++) {
+                final Predicate<T> member = expensiveMembers.get(i);
+                futures[i] = executor.submit(() -> race.run(member, inputParam));
+            }
+            return race.await() ? decisive : !decisive;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating member predicates.", e);
+        } finally {
+            for (final Future<?> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * The outcomes of the expensive members of one evaluation.  The first decisive value or the first failure ends
+     * the race; the outcomes reported after that are ignored.
+     */
+    private final class Race {
+        private int pending;
+        private boolean decided;
+        private Throwable failure;
+
+        private Race(final int pendingParam) {
+            pending = pendingParam;
+        }
+
+        private void run(final Predicate<T> memberParam, final T inputParam) {
+            final boolean value;
+            try {
+                value = memberParam.apply(inputParam);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            complete(value == decisive);
+        }
+
+        private synchronized void complete(final boolean decisiveParam) {
+            pending--;
+            decided |= decisiveParam;
+            notifyAll();
+        }
+
+        private synchronized void fail(final Throwable failureParam) {
+            pending--;
+            if (failure == null) {
+                failure = failureParam;
+            }
+            notifyAll();
+        }
+
+        /**
+         * Waits until a member evaluates to the decisive value, a member fails, or all members are evaluated.
+         *
+         * @return {@code true} if a member evaluated to the decisive value.
+         */
+        private synchronized boolean await() throws InterruptedException {
+            while (!decided && failure == null && pending > 0) {
+                wait();
+            }
+            if (decided) {
+                return true;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Member predicate evaluation failed.", failure);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+/**
+ * The checks that a {@link PathAttributesPredicate} may combine.
+ * <p/>
+ * All checks imply that the path exists.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public enum PathAttribute {
+    /**
+     * The path exists.
+     */
+    EXISTS,
+    /**
+     * The path is a regular file.
+     */
+    REGULAR_FILE,
+    /**
+     * The path is a directory.
+     */
+    DIRECTORY,
+    /**
+     * The path is a symbolic link.  Links are not followed when this check is requested.
+     */
+    SYMBOLIC_LINK,
+    /**
+     * The path is hidden.
+     */
+    HIDDEN,
+    /**
+     * The path is not hidden.
+     */
+    NOT_HIDDEN,
+    /**
+     * The current process may read the path.
+     */
+    READABLE,
+    /**
+     * The current process may write the path.
+     */
+    WRITABLE,
+    /**
+     * The current process may execute the path.
+     */
+    EXECUTABLE
+}
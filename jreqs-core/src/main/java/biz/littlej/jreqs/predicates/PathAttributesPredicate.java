@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Checks a combination of {@link PathAttribute attributes}, POSIX permissions and a maximum size on the input
+ * {@link Path}, reading the file attributes once per evaluation.
+ * <p/>
+ * Unlike chaining {@link FilePredicates}, which costs one file system call per check, every type, visibility,
+ * permission and size check is answered from a single {@code BasicFileAttributes} (or {@code PosixFileAttributes}
+ * if permissions are required) read.  {@link PathAttribute#READABLE}, {@link PathAttribute#WRITABLE} and
+ * {@link PathAttribute#EXECUTABLE} depend on the credentials of the current process and cost one more access check
+ * each, only when requested.
+ * <p/>
+ * A missing path never satisfies this predicate.  An optional {@link FileAttributesCache} may be attached with
+ * {@link #withCache(FileAttributesCache)} to avoid the read entirely for hot paths.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class PathAttributesPredicate implements Predicate<Path>, Serializable {
+    private static final long serialVersionUID = 0;
+    /**
+     * Value of the maximum size parameter meaning that the size is not checked.
+     */
+    public static final long NO_SIZE_LIMIT = -1L;
+    private final EnumSet<PathAttribute> attributes;
+    private final EnumSet<PosixFilePermission> permissions;
+    private final long maxSize;
+    /**
+     * The optional cache.  Not serialized: a deserialized predicate reads the file system directly.
+     */
+    private final transient FileAttributesCache cache;
+
+    /**
+     * Returns a predicate that checks all the specified attributes.
+     *
+     * @param attributesParam The attributes.  Must not be {@code null}.
+     * @return The predicate.
+     */
+    public static PathAttributesPredicate getInstance(final PathAttribute... attributesParam) {
+        Reqs.parameterCondition(Predicates.notNull(), attributesParam, "Attributes parameter must not be null.");
+        return getInstance(Arrays.asList(attributesParam), Collections.<PosixFilePermission>emptySet(), NO_SIZE_LIMIT);
+    }
+
+    /**
+     * Returns a predicate that checks all the specified attributes, the specified POSIX permissions and the size.
+     *
+     * @param attributesParam  The attributes.  Must not be {@code null}.
+     * @param permissionsParam The POSIX permissions that must all be granted.  Must not be {@code null}.  If not empty,
+     *                         the predicate throws {@code UnsupportedOperationException} on file systems without POSIX support.
+     * @param maxSizeParam     The maximum size in bytes, or {@link #NO_SIZE_LIMIT}.
+     * @return The predicate.
+     */
+    public static PathAttributesPredicate getInstance(final Iterable<PathAttribute> attributesParam,
+                                                      final Set<PosixFilePermission> permissionsParam,
+                                                      final long maxSizeParam) {
+        Reqs.parameterCondition(Predicates.notNull(), attributesParam, "Attributes parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), permissionsParam, "Permissions parameter must not be null.");
+        final EnumSet<PathAttribute> attributeSet = EnumSet.noneOf(PathAttribute.class);
+        for (final PathAttribute attribute : attributesParam) {
+            attributeSet.add(attribute);
+        }
+        if (attributeSet.contains(PathAttribute.HIDDEN) && attributeSet.contains(PathAttribute.NOT_HIDDEN)) {
+            throw new IllegalArgumentException("Attributes parameter must not contain both HIDDEN and NOT_HIDDEN.");
+        }
+        if (maxSizeParam < 0 && maxSizeParam != NO_SIZE_LIMIT) {
+            throw new IllegalArgumentException("Maximum size parameter must be positive or NO_SIZE_LIMIT.");
+        }
+        final EnumSet<PosixFilePermission> permissionSet = EnumSet.noneOf(PosixFilePermission.class);
+        permissionSet.addAll(permissionsParam);
+        return PredicateCache.intern(new PathAttributesPredicate(attributeSet, permissionSet, maxSizeParam, null));
+    }
+
+    private PathAttributesPredicate(final EnumSet<PathAttribute> attributesParam,
+                                    final EnumSet<PosixFilePermission> permissionsParam,
+                                    final long maxSizeParam,
+                                    final FileAttributesCache cacheParam) {
+        attributes = attributesParam;
+        permissions = permissionsParam;
+        maxSize = maxSizeParam;
+        cache = cacheParam;
+    }
+
+    /**
+     * Returns a predicate that checks the same attributes as this one but reads them through the specified cache.
+     *
+     * @param cacheParam The cache.  Must not be {@code null}.
+     * @return A new predicate.
+     */
+    public PathAttributesPredicate withCache(final FileAttributesCache cacheParam) {
+        Reqs.parameterCondition(Predicates.notNull(), cacheParam, "Cache parameter must not be null.");
+        return new PathAttributesPredicate(attributes, permissions, maxSize, cacheParam);
+    }
+
+    EnumSet<PathAttribute> getAttributes() {
+        return attributes;
+    }
+
+    EnumSet<PosixFilePermission> getPermissions() {
+        return permissions;
+    }
+
+    long getMaxSize() {
+        return maxSize;
+    }
+
+    public boolean apply(final Path inputParam) {
+        Reqs.parameterCondition(Predicates.notNull(), inputParam, "Path input parameter must not be null.");
+        final boolean posix = !permissions.isEmpty();
+        final boolean followLinks = !attributes.contains(PathAttribute.SYMBOLIC_LINK);
+        final BasicFileAttributes fileAttributes = cache == null
+                ? FileAttributesCache.readAttributes(inputParam, posix, followLinks)
+                : cache.getAttributes(inputParam, posix, followLinks);
+        return apply(inputParam, fileAttributes);
+    }
+
+    /**
+     * Evaluates this predicate against attributes that the caller already read, for example while walking a tree.
+     *
+     * @param pathParam           The path.
+     * @param fileAttributesParam The attributes of the path, or {@code null} if it does not exist.
+     * @return The boolean value to which this predicate evaluates.
+     */
+    boolean apply(final Path pathParam, final BasicFileAttributes fileAttributesParam) {
+        if (fileAttributesParam == null) {
+            return false;
+        }
+        if (maxSize != NO_SIZE_LIMIT && fileAttributesParam.size() > maxSize) {
+            return false;
+        }
+        if (!permissions.isEmpty() && !((PosixFileAttributes) fileAttributesParam).permissions().containsAll(permissions)) {
+            return false;
+        }
+        for (final PathAttribute attribute : attributes) {
+            if (!check(attribute, pathParam, fileAttributesParam)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean check(final PathAttribute attributeParam, final Path pathParam,
+                                 final BasicFileAttributes fileAttributesParam) {
+        switch (attributeParam) {
+            case EXISTS:
+                return true;
+            case REGULAR_FILE:
+                return fileAttributesParam.isRegularFile();
+            case DIRECTORY:
+                return fileAttributesParam.isDirectory();
+            case SYMBOLIC_LINK:
+                return fileAttributesParam.isSymbolicLink();
+            case HIDDEN:
+                return isHidden(pathParam, fileAttributesParam);
+            case NOT_HIDDEN:
+                return !isHidden(pathParam, fileAttributesParam);
+            case READABLE:
+                return Files.isReadable(pathParam);
+            case WRITABLE:
+                return Files.isWritable(pathParam);
+            case EXECUTABLE:
+                return Files.isExecutable(pathParam);
+            default:
+                throw new IllegalStateException("This should never happen, but it did: the path attribute is unknown.");
+        }
+    }
+
+    /**
+     * On Windows, the attributes read by this predicate or by a directory walk implement {@code DosFileAttributes},
+     * which carry the hidden flag.  Otherwise {@code Files.isHidden} decides, which derives the flag from the file name
+     * on POSIX file systems, without I/O.
+     */
+    private static boolean isHidden(final Path pathParam, final BasicFileAttributes fileAttributesParam) {
+        if (fileAttributesParam instanceof DosFileAttributes) {
+            return ((DosFileAttributes) fileAttributesParam).isHidden();
+        }
+        try {
+            return Files.isHidden(pathParam);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if attributes read without following links, and without POSIX details, are enough to
+     * evaluate this predicate on a path that is not a symbolic link.
+     *
+     * @return {@code true} if basic attributes are enough.
+     */
+    boolean acceptsBasicAttributes() {
+        return permissions.isEmpty() && cache == null;
+    }
+
+    /**
+     * Predicates reading through different caches are not equal, as they may see different file states.
+     */
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof PathAttributesPredicate)) {
+            return false;
+        }
+        final PathAttributesPredicate other = (PathAttributesPredicate) objectParam;
+        return maxSize == other.maxSize && cache == other.cache && attributes.equals(other.attributes)
+                && permissions.equals(other.permissions);
+    }
+
+    @Override
+    public int hashCode() {
+        return (attributes.hashCode() * 31 + permissions.hashCode()) * 31 + (int) (maxSize ^ (maxSize >>> 32));
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
+
+    @Override
+    public String toString() {
+        return "PathAttributesPredicate{attributes=" + attributes + ", permissions=" + permissions
+                + ", maxSize=" + maxSize + ", cached=" + (cache != null) + '}';
+    }
+}
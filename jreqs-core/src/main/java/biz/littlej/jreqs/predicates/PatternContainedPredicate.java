@@ -31,13 +31,7 @@ public final class PatternContainedPredicate implements Predicate<CharSequence>,
     private final Pattern pattern;
 
     public static PatternContainedPredicate getInstance(final Pattern patternParam) {
-        final PatternContainedPredicate p = PredicateCache.getPredicate(patternParam, PatternContainedPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final PatternContainedPredicate predicate = new PatternContainedPredicate(patternParam);
-        PredicateCache.registerNewPredicate(predicate.pattern, predicate);
-        return predicate;
+        return PredicateCache.intern(new PatternContainedPredicate(patternParam));
     }
 
     public static PatternContainedPredicate getInstance(final String patternParam) {
@@ -56,8 +50,37 @@ public final class PatternContainedPredicate implements Predicate<CharSequence>,
         this(Pattern.compile(patternStringParam));
     }
 
+    Pattern getPattern() {
+        return pattern;
+    }
+
     public boolean apply(CharSequence charSequenceParam) {
         Reqs.parameterCondition(Predicates.notNull(), charSequenceParam, "CharSequence input parameter must not be null.");
         return pattern.matcher(charSequenceParam).find();
     }
+
+    /**
+     * Patterns are equal if they are compiled from the same regular expression with the same flags, as
+     * {@code Pattern} itself has no {@code equals}.
+     */
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof PatternContainedPredicate)) {
+            return false;
+        }
+        final Pattern other = ((PatternContainedPredicate) objectParam).pattern;
+        return pattern.flags() == other.flags() && pattern.pattern().equals(other.pattern());
+    }
+
+    @Override
+    public int hashCode() {
+        return pattern.pattern().hashCode() * 31 + pattern.flags();
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
 }
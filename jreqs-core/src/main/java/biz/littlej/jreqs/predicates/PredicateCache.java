@@ -15,27 +15,78 @@
  */
 package biz.littlej.jreqs.predicates;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This class implements a simple predicate cache that may be used by various
  * predicate implementations to avoid instantiating predicates more than needed.
+ * <p/>
+ * Built-in predicates are {@link #intern(Predicate) interned}: they implement
+ * structural {@code equals} and {@code hashCode}, so the cache returns the same
+ * instance for equal predicates, and holds them only weakly.  Interning does
+ * not lock: concurrent threads that intern equal predicates all get the same
+ * instance.
  */
 public final class PredicateCache {
 	private static final Map<Class, Map<Object, WeakReference<Predicate>>> instantiated = new HashMap<Class, Map<Object, WeakReference<Predicate>>>();
+	private static final ConcurrentMap<Interned, Interned> interned = new ConcurrentHashMap<Interned, Interned>();
+	private static final ReferenceQueue<Predicate> collected = new ReferenceQueue<Predicate>();
+
+	/**
+	 * Returns the cached predicate that is equal to the specified one, or
+	 * caches and returns the specified one if there is none. The predicate
+	 * must implement {@code equals} and {@code hashCode} on its structure.
+	 * 
+	 * @param predicateParam
+	 *            The predicate. Must not be {@code null}.
+	 * @param <P>
+	 *            The type of the predicate.
+	 * @return The canonical instance equal to the predicate.
+	 */
+	public static <P extends Predicate> P intern(final P predicateParam) {
+		expungeCollected();
+		final Interned key = new Interned(predicateParam, collected);
+		while (true) {
+			final Interned existing = interned.putIfAbsent(key, key);
+			if (existing == null) {
+				return predicateParam;
+			}
+			final Predicate canonical = existing.get();
+			if (canonical != null) {
+				return (P) canonical;
+			}
+			// The canonical instance was collected after the lookup: nobody
+			// holds it any more, so the key replaces it.
+			interned.remove(existing, existing);
+		}
+	}
+
+	private static void expungeCollected() {
+		for (Reference<? extends Predicate> ref = collected.poll(); ref != null; ref = collected.poll()) {
+			// Cleared keys are only equal to themselves, so they are removed
+			// by identity.
+			interned.remove(ref, ref);
+		}
+	}
 
 	public static <P extends Predicate> void registerNewPredicate(
 			final Object keyParam, final P predicateParam) {
 		final Class<? extends Predicate> predicateClass = predicateParam
 				.getClass();
-		if (!instantiated.containsKey(predicateClass)) {
-			instantiated.put(predicateClass,
-					new HashMap<Object, WeakReference<Predicate>>());
+		synchronized (instantiated) {
+			if (!instantiated.containsKey(predicateClass)) {
+				instantiated.put(predicateClass,
+						new HashMap<Object, WeakReference<Predicate>>());
+			}
+			instantiated.get(predicateClass).put(keyParam,
+					new WeakReference<Predicate>(predicateParam));
 		}
-		instantiated.get(predicateClass).put(keyParam,
-				new WeakReference<Predicate>(predicateParam));
 	}
 
 	/**
@@ -48,17 +99,50 @@ public final class PredicateCache {
 	 */
 	public static <P extends Predicate> P getPredicate(final Object keyParam,
 			final Class<P> predicateClassParam) {
-		final Map<Object, WeakReference<Predicate>> map = instantiated
-				.get(predicateClassParam);
-		if (map == null) {
-			return null;
+		synchronized (instantiated) {
+			final Map<Object, WeakReference<Predicate>> map = instantiated
+					.get(predicateClassParam);
+			if (map == null) {
+				return null;
+			}
+			final WeakReference<Predicate> ref = map.get(keyParam);
+			final Predicate predicate = ref == null ? null : ref.get();
+			if (predicate == null) {
+				map.remove(keyParam);
+			}
+			return (P) predicate;
 		}
-		final WeakReference<Predicate> ref = map.get(keyParam);
-		if (ref == null) {
-			map.remove(keyParam);
-			return null;
+	}
+
+	/**
+	 * A weak reference to an interned predicate, which is equal to the
+	 * references of equal predicates.
+	 */
+	private static final class Interned extends WeakReference<Predicate> {
+		private final int hash;
+
+		private Interned(final Predicate predicateParam,
+				final ReferenceQueue<Predicate> queueParam) {
+			super(predicateParam, queueParam);
+			hash = predicateParam.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object objectParam) {
+			if (this == objectParam) {
+				return true;
+			}
+			if (!(objectParam instanceof Interned)) {
+				return false;
+			}
+			final Predicate predicate = get();
+			return predicate != null && predicate.equals(((Interned) objectParam).get());
 		}
-		return (P) ref.get();
 	}
 
 	/**
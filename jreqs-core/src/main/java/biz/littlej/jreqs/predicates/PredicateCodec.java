@@ -0,0 +1,669 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compact binary format for named sets of predicate trees, so that rule sets can be compiled once and loaded quickly
+ * at startup, instead of being rebuilt from configuration or read with Java serialization.
+ * <p/>
+ * The format supports the enum predicates of this package, the {@link AndPredicate AND}, {@link OrPredicate OR},
+ * {@link XorPredicate XOR} and {@link PredicateOperations#not NOT} composites, and the parameterized built-ins:
+ * {@link InstanceOfPredicate}, {@link AllInstanceOfPredicate}, {@link AssignableFromPredicate},
+ * {@link PatternContainedPredicate}, {@link EqualToPredicate} on strings, numbers, booleans, characters, enums and
+ * classes, {@link IterableElementsPredicate}, {@link PathAttributesPredicate} and {@link FileContentPredicate}.
+ * Other predicates, such as user-defined ones or {@link ParallelAndPredicate}, can't be encoded.
+ * <p/>
+ * A rule set starts with the magic bytes {@code JRQS} and a major and a minor version byte.  Then come the table of
+ * the strings, the table of the nodes, in which members are written before the composites that refer to them by index,
+ * and the named roots.  Integers are written as variable-length quantities.  A node that is shared by several trees
+ * is written once.  Decoding rebuilds the predicates through their usual factories, so that the predicate caches
+ * apply.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class PredicateCodec {
+    /**
+     * The major version of the format written by this class.  Rule sets of another major version are rejected.
+     */
+    public static final int MAJOR_VERSION = 1;
+    /**
+     * The minor version of the format written by this class.
+     */
+    public static final int MINOR_VERSION = 0;
+    private static final byte[] MAGIC = {'J', 'R', 'Q', 'S'};
+    private static final String PACKAGE = PredicateCodec.class.getPackage().getName() + ".";
+    private static final int ENUM = 1;
+    private static final int AND = 2;
+    private static final int OR = 3;
+    private static final int XOR = 4;
+    private static final int NOT = 5;
+    private static final int INSTANCE_OF = 6;
+    private static final int ALL_INSTANCE_OF = 7;
+    private static final int ASSIGNABLE_FROM = 8;
+    private static final int PATTERN = 9;
+    private static final int EQUAL_TO = 10;
+    private static final int ITERABLE_ELEMENTS = 11;
+    private static final int PATH_ATTRIBUTES = 12;
+    private static final int FILE_CONTENT = 13;
+    private static final int STRING = 0;
+    private static final int INTEGER = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int FLOAT = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+    private static final int BOOLEAN = 7;
+    private static final int CHARACTER = 8;
+    private static final int BIG_INTEGER = 9;
+    private static final int BIG_DECIMAL = 10;
+    private static final int ENUM_CONSTANT = 11;
+    private static final int CLASS = 12;
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+
+    static {
+        for (final Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    /**
+     * Encodes the specified rule set.
+     *
+     * @param rulesParam The predicate trees by name.  Must not be {@code null} nor contain {@code null}.
+     * @return The encoded rule set.
+     * @throws IllegalArgumentException if a predicate can't be encoded.
+     */
+    public static byte[] encode(final Map<String, ? extends Predicate<?>> rulesParam) {
+        Reqs.parameterCondition(Predicates.notNull(), rulesParam, "Rules parameter must not be null.");
+        return new Encoder().encode(rulesParam);
+    }
+
+    /**
+     * Encodes the specified rule set to the specified file, which is replaced if it exists.
+     *
+     * @param rulesParam The predicate trees by name.  Must not be {@code null} nor contain {@code null}.
+     * @param fileParam  The file.  Must not be {@code null}.
+     * @throws IOException              if the file can't be written.
+     * @throws IllegalArgumentException if a predicate can't be encoded.
+     */
+    public static void write(final Map<String, ? extends Predicate<?>> rulesParam, final Path fileParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), fileParam, "File parameter must not be null.");
+        Files.write(fileParam, encode(rulesParam));
+    }
+
+    /**
+     * Reads the rule set of the specified file, which is loaded in a heap buffer and decoded in a single pass.
+     * Classes are loaded with the class loader of this class.
+     *
+     * @param fileParam The file.  Must not be {@code null}.
+     * @return The predicate trees by name, in the order in which they were encoded.
+     * @throws IOException if the file can't be read or is not a valid rule set.
+     */
+    public static Map<String, Predicate<?>> read(final Path fileParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), fileParam, "File parameter must not be null.");
+        return decode(ByteBuffer.wrap(Files.readAllBytes(fileParam)), PredicateCodec.class.getClassLoader());
+    }
+
+    /**
+     * Decodes a rule set from the remaining bytes of the specified buffer.
+     *
+     * @param bufferParam      The buffer.  Must not be {@code null}.  Its position is moved past the rule set.
+     * @param classLoaderParam The class loader of the classes named by the rule set.  Must not be {@code null}.
+     * @return The predicate trees by name, in the order in which they were encoded.
+     * @throws IOException if the buffer does not hold a valid rule set.
+     */
+    public static Map<String, Predicate<?>> decode(final ByteBuffer bufferParam, final ClassLoader classLoaderParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), bufferParam, "Buffer parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), classLoaderParam, "Class loader parameter must not be null.");
+        try {
+            return new Decoder(bufferParam, classLoaderParam).decode();
+        } catch (BufferUnderflowException e) {
+            throw corrupted("Truncated rule set.", e);
+        } catch (IllegalArgumentException e) {
+            throw corrupted("Invalid predicate parameters: " + e.getMessage(), e);
+        }
+    }
+
+    private static StreamCorruptedException corrupted(final String messageParam, final Throwable causeParam) {
+        final StreamCorruptedException exception = new StreamCorruptedException(messageParam);
+        exception.initCause(causeParam);
+        return exception;
+    }
+
+    /**
+     * Writes one rule set.  Strings and nodes are hash-consed: each distinct string and each predicate instance is
+     * written once.
+     */
+    private static final class Encoder {
+        private final Map<String, Integer> strings = new LinkedHashMap<String, Integer>();
+        private final Map<Predicate<?>, Integer> nodeIndexes = new IdentityHashMap<Predicate<?>, Integer>();
+        private final Output nodes = new Output();
+        private int nodeCount;
+
+        private byte[] encode(final Map<String, ? extends Predicate<?>> rulesParam) {
+            final Output roots = new Output();
+            roots.writeVarint(rulesParam.size());
+            for (final Map.Entry<String, ? extends Predicate<?>> rule : rulesParam.entrySet()) {
+                Reqs.parameterCondition(Predicates.notNull(), rule.getKey(), "Rule names must not be null.");
+                Reqs.parameterCondition(Predicates.notNull(), rule.getValue(), "Rule predicates must not be null.");
+                final int root = node(rule.getValue());
+                roots.writeVarint(string(rule.getKey()));
+                roots.writeVarint(root);
+            }
+            final Output out = new Output();
+            out.write(MAGIC, 0, MAGIC.length);
+            out.write(MAJOR_VERSION);
+            out.write(MINOR_VERSION);
+            out.writeVarint(strings.size());
+            for (final String string : strings.keySet()) {
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.writeVarint(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+            out.writeVarint(nodeCount);
+            nodes.writeTo(out);
+            roots.writeTo(out);
+            return out.toByteArray();
+        }
+
+        private int string(final String stringParam) {
+            Integer index = strings.get(stringParam);
+            if (index == null) {
+                index = strings.size();
+                strings.put(stringParam, index);
+            }
+            return index;
+        }
+
+        private int node(final Predicate<?> predicateParam) {
+            final Integer known = nodeIndexes.get(predicateParam);
+            if (known != null) {
+                return known;
+            }
+            // Members first, so that a node only refers to nodes that precede it.
+            final int[] members = members(predicateParam);
+            final Object[] operands = operands(predicateParam);
+            nodes.write((Integer) operands[0]);
+            for (int i = 1; i < operands.length; i++) {
+                writeOperand(operands[i]);
+            }
+            for (final int member : members) {
+                nodes.writeVarint(member);
+            }
+            nodeIndexes.put(predicateParam, nodeCount);
+            return nodeCount++;
+        }
+
+        private int[] members(final Predicate<?> predicateParam) {
+            if (predicateParam instanceof AndPredicate) {
+                final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+                return new int[]{node(and.getFirstMemberPredicate()), node(and.getSecondMemberPredicate())};
+            }
+            if (predicateParam instanceof OrPredicate) {
+                final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+                return new int[]{node(or.getFirstMemberPredicate()), node(or.getSecondMemberPredicate())};
+            }
+            if (predicateParam instanceof XorPredicate) {
+                final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+                return new int[]{node(xor.getFirstMemberPredicate()), node(xor.getSecondMemberPredicate())};
+            }
+            if (predicateParam instanceof NotPredicate) {
+                return new int[]{node(((NotPredicate<?>) predicateParam).getOriginalPredicate())};
+            }
+            if (predicateParam instanceof IterableElementsPredicate) {
+                return new int[]{node(((IterableElementsPredicate) predicateParam).getPredicate())};
+            }
+            return new int[0];
+        }
+
+        /**
+         * Returns the tag of the specified predicate followed by its operands, the member indexes excepted.
+         */
+        private Object[] operands(final Predicate<?> predicateParam) {
+            if (predicateParam instanceof Enum && predicateParam.getClass().getName().startsWith(PACKAGE)) {
+                final Enum<?> constant = (Enum<?>) predicateParam;
+                return new Object[]{ENUM, new Text(constant.getDeclaringClass().getName()), new Text(constant.name())};
+            }
+            if (predicateParam instanceof AndPredicate) {
+                return new Object[]{AND};
+            }
+            if (predicateParam instanceof OrPredicate) {
+                return new Object[]{OR};
+            }
+            if (predicateParam instanceof XorPredicate) {
+                return new Object[]{XOR};
+            }
+            if (predicateParam instanceof NotPredicate) {
+                return new Object[]{NOT};
+            }
+            if (predicateParam instanceof InstanceOfPredicate) {
+                return new Object[]{INSTANCE_OF, new Text(((InstanceOfPredicate) predicateParam).getCheckedClass().getName())};
+            }
+            if (predicateParam instanceof AllInstanceOfPredicate) {
+                return new Object[]{ALL_INSTANCE_OF, new Text(((AllInstanceOfPredicate) predicateParam).getCheckedClass().getName())};
+            }
+            if (predicateParam instanceof AssignableFromPredicate) {
+                return new Object[]{ASSIGNABLE_FROM, new Text(((AssignableFromPredicate) predicateParam).getCheckedClass().getName())};
+            }
+            if (predicateParam instanceof PatternContainedPredicate) {
+                final Pattern pattern = ((PatternContainedPredicate) predicateParam).getPattern();
+                return new Object[]{PATTERN, new Text(pattern.pattern()), (long) pattern.flags()};
+            }
+            if (predicateParam instanceof EqualToPredicate) {
+                return new Object[]{EQUAL_TO, new Constant(((EqualToPredicate<?>) predicateParam).getObject())};
+            }
+            if (predicateParam instanceof IterableElementsPredicate) {
+                return new Object[]{ITERABLE_ELEMENTS, (long) ((IterableElementsPredicate) predicateParam).getMatching().ordinal()};
+            }
+            if (predicateParam instanceof PathAttributesPredicate) {
+                final PathAttributesPredicate path = (PathAttributesPredicate) predicateParam;
+                return new Object[]{PATH_ATTRIBUTES, bits(path.getAttributes()), bits(path.getPermissions()), path.getMaxSize()};
+            }
+            if (predicateParam instanceof FileContentPredicate) {
+                final FileContentPredicate content = (FileContentPredicate) predicateParam;
+                final long flags = (content.isTrailingNewline() ? 1 : 0) | (content.isNoNulBytes() ? 2 : 0)
+                        | (content.isUnsatisfiable() ? 4 : 0) | (content.getMagic() != null ? 8 : 0);
+                return new Object[]{FILE_CONTENT, flags, content.getMagic() == null ? new byte[0] : content.getMagic(),
+                        content.getMaxSize(), content.getCrc32c()};
+            }
+            throw new IllegalArgumentException("Predicate can't be encoded: " + predicateParam.getClass().getName());
+        }
+
+        private static long bits(final EnumSet<? extends Enum<?>> setParam) {
+            long bits = 0;
+            for (final Enum<?> constant : setParam) {
+                bits |= 1L << constant.ordinal();
+            }
+            return bits;
+        }
+
+        private void writeOperand(final Object operandParam) {
+            if (operandParam instanceof Text) {
+                nodes.writeVarint(string(((Text) operandParam).value));
+            } else if (operandParam instanceof Long) {
+                nodes.writeVarlong(zigZag((Long) operandParam));
+            } else if (operandParam instanceof byte[]) {
+                final byte[] bytes = (byte[]) operandParam;
+                nodes.writeVarint(bytes.length);
+                nodes.write(bytes, 0, bytes.length);
+            } else {
+                writeConstant(((Constant) operandParam).value);
+            }
+        }
+
+        private void writeConstant(final Object valueParam) {
+            if (valueParam instanceof String) {
+                nodes.write(STRING);
+                nodes.writeVarint(string((String) valueParam));
+            } else if (valueParam instanceof Integer) {
+                nodes.write(INTEGER);
+                nodes.writeVarlong(zigZag((Integer) valueParam));
+            } else if (valueParam instanceof Long) {
+                nodes.write(LONG);
+                nodes.writeVarlong(zigZag((Long) valueParam));
+            } else if (valueParam instanceof Double) {
+                nodes.write(DOUBLE);
+                nodes.writeVarlong(Double.doubleToRawLongBits((Double) valueParam));
+            } else if (valueParam instanceof Float) {
+                nodes.write(FLOAT);
+                nodes.writeVarint(Float.floatToRawIntBits((Float) valueParam));
+            } else if (valueParam instanceof Short) {
+                nodes.write(SHORT);
+                nodes.writeVarlong(zigZag((Short) valueParam));
+            } else if (valueParam instanceof Byte) {
+                nodes.write(BYTE);
+                nodes.write((Byte) valueParam & 0xFF);
+            } else if (valueParam instanceof Boolean) {
+                nodes.write(BOOLEAN);
+                nodes.write((Boolean) valueParam ? 1 : 0);
+            } else if (valueParam instanceof Character) {
+                nodes.write(CHARACTER);
+                nodes.writeVarint((Character) valueParam);
+            } else if (valueParam instanceof BigInteger) {
+                nodes.write(BIG_INTEGER);
+                nodes.writeVarint(string(valueParam.toString()));
+            } else if (valueParam instanceof BigDecimal) {
+                nodes.write(BIG_DECIMAL);
+                nodes.writeVarint(string(valueParam.toString()));
+            } else if (valueParam instanceof Enum) {
+                nodes.write(ENUM_CONSTANT);
+                nodes.writeVarint(string(((Enum<?>) valueParam).getDeclaringClass().getName()));
+                nodes.writeVarint(string(((Enum<?>) valueParam).name()));
+            } else if (valueParam instanceof Class) {
+                nodes.write(CLASS);
+                nodes.writeVarint(string(((Class<?>) valueParam).getName()));
+            } else {
+                throw new IllegalArgumentException("Constant can't be encoded: " + valueParam.getClass().getName());
+            }
+        }
+
+        private static long zigZag(final long valueParam) {
+            return (valueParam << 1) ^ (valueParam >> 63);
+        }
+    }
+
+    /**
+     * Marks an operand that is written as an index in the string table.
+     */
+    private static final class Text {
+        private final String value;
+
+        private Text(final String valueParam) {
+            value = valueParam;
+        }
+    }
+
+    /**
+     * Marks an operand that is written as a tagged constant.
+     */
+    private static final class Constant {
+        private final Object value;
+
+        private Constant(final Object valueParam) {
+            value = valueParam;
+        }
+    }
+
+    /**
+     * Growable byte array whose content can be appended to another one without copy to an intermediate array.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        private void writeVarint(final int valueParam) {
+            writeVarlong(valueParam & 0xFFFFFFFFL);
+        }
+
+        private void writeVarlong(final long valueParam) {
+            long value = valueParam;
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeTo(final Output outParam) {
+            outParam.write(buf, 0, count);
+        }
+    }
+
+    /**
+     * Reads one rule set.
+     */
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private final ClassLoader classLoader;
+        private final Map<String, Pattern> patterns = new HashMap<String, Pattern>();
+        private String[] strings;
+        private Predicate<?>[] nodes;
+
+        private Decoder(final ByteBuffer bufferParam, final ClassLoader classLoaderParam) {
+            buffer = bufferParam;
+            classLoader = classLoaderParam;
+        }
+
+        private Map<String, Predicate<?>> decode() throws IOException {
+            for (final byte magic : MAGIC) {
+                if (buffer.get() != magic) {
+                    throw new StreamCorruptedException("Not a jreqs rule set.");
+                }
+            }
+            final int major = buffer.get() & 0xFF;
+            buffer.get();
+            if (major != MAJOR_VERSION) {
+                throw new StreamCorruptedException("Unsupported rule set version " + major + ", expected " + MAJOR_VERSION + ".");
+            }
+            strings = new String[length()];
+            for (int i = 0; i < strings.length; i++) {
+                final byte[] bytes = new byte[length()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            nodes = new Predicate<?>[length()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = node(i);
+            }
+            final int ruleCount = length();
+            final Map<String, Predicate<?>> rules = new LinkedHashMap<String, Predicate<?>>(ruleCount * 2);
+            for (int i = 0; i < ruleCount; i++) {
+                final String name = string();
+                rules.put(name, member(nodes.length));
+            }
+            return Collections.unmodifiableMap(rules);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Predicate<?> node(final int indexParam) throws IOException {
+            final int tag = buffer.get() & 0xFF;
+            switch (tag) {
+                case ENUM:
+                    final Class<?> type = type(string());
+                    if (!type.isEnum() || !Predicate.class.isAssignableFrom(type) || !type.getName().startsWith(PACKAGE)) {
+                        throw new StreamCorruptedException("Not an enum predicate of jreqs: " + type.getName());
+                    }
+                    return (Predicate<?>) Enum.valueOf((Class) type, string());
+                case AND:
+                    return AndPredicate.getInstance((Predicate) member(indexParam), (Predicate) member(indexParam));
+                case OR:
+                    return OrPredicate.getInstance((Predicate) member(indexParam), (Predicate) member(indexParam));
+                case XOR:
+                    return XorPredicate.getInstance((Predicate) member(indexParam), (Predicate) member(indexParam));
+                case NOT:
+                    return PredicateOperations.not(member(indexParam));
+                case INSTANCE_OF:
+                    return InstanceOfPredicate.getInstance(type(string()));
+                case ALL_INSTANCE_OF:
+                    return AllInstanceOfPredicate.getInstance(type(string()));
+                case ASSIGNABLE_FROM:
+                    return AssignableFromPredicate.getInstance(type(string()));
+                case PATTERN:
+                    return PatternContainedPredicate.getInstance(pattern(string(), (int) signed()));
+                case EQUAL_TO:
+                    return EqualToPredicate.getInstance(constant());
+                case ITERABLE_ELEMENTS:
+                    final IterableElementsPredicate.Matching[] matchings = IterableElementsPredicate.Matching.values();
+                    final int matching = (int) signed();
+                    if (matching < 0 || matching >= matchings.length) {
+                        throw new StreamCorruptedException("Unknown matching: " + matching);
+                    }
+                    return new IterableElementsPredicate(member(indexParam), matchings[matching]);
+                case PATH_ATTRIBUTES:
+                    final List<PathAttribute> attributes = constants(PathAttribute.class, signed());
+                    final EnumSet<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+                    permissions.addAll(constants(PosixFilePermission.class, signed()));
+                    return PathAttributesPredicate.getInstance(attributes, permissions, signed());
+                case FILE_CONTENT:
+                    final long flags = signed();
+                    final byte[] magic = new byte[length()];
+                    buffer.get(magic);
+                    return FileContentPredicate.of((flags & 8) == 0 ? null : magic, signed(), (flags & 1) != 0, signed(),
+                            (flags & 2) != 0, (flags & 4) != 0);
+                default:
+                    throw new StreamCorruptedException("Unknown node tag " + tag + " at node " + indexParam + ".");
+            }
+        }
+
+        /**
+         * Returns the compiled pattern, compiling each distinct pattern once per rule set: patterns are immutable.
+         */
+        private Pattern pattern(final String regexParam, final int flagsParam) {
+            final String key = flagsParam + ":" + regexParam;
+            Pattern pattern = patterns.get(key);
+            if (pattern == null) {
+                pattern = Pattern.compile(regexParam, flagsParam);
+                patterns.put(key, pattern);
+            }
+            return pattern;
+        }
+
+        private Object constant() throws IOException {
+            final int tag = buffer.get() & 0xFF;
+            switch (tag) {
+                case STRING:
+                    return string();
+                case INTEGER:
+                    return (int) signed();
+                case LONG:
+                    return signed();
+                case DOUBLE:
+                    return Double.longBitsToDouble(varlong());
+                case FLOAT:
+                    return Float.intBitsToFloat((int) varlong());
+                case SHORT:
+                    return (short) signed();
+                case BYTE:
+                    return buffer.get();
+                case BOOLEAN:
+                    return buffer.get() != 0;
+                case CHARACTER:
+                    return (char) varlong();
+                case BIG_INTEGER:
+                    return new BigInteger(string());
+                case BIG_DECIMAL:
+                    return new BigDecimal(string());
+                case ENUM_CONSTANT:
+                    return enumConstant(type(string()), string());
+                case CLASS:
+                    return type(string());
+                default:
+                    throw new StreamCorruptedException("Unknown constant tag " + tag + ".");
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumConstant(final Class<?> typeParam, final String nameParam) throws StreamCorruptedException {
+            if (!typeParam.isEnum()) {
+                throw new StreamCorruptedException("Not an enum: " + typeParam.getName());
+            }
+            return Enum.valueOf((Class) typeParam, nameParam);
+        }
+
+        private static <E extends Enum<E>> List<E> constants(final Class<E> typeParam, final long bitsParam) throws StreamCorruptedException {
+            final E[] all = typeParam.getEnumConstants();
+            final List<E> constants = new ArrayList<E>();
+            for (int i = 0; i < 64; i++) {
+                if ((bitsParam & (1L << i)) != 0) {
+                    if (i >= all.length) {
+                        throw new StreamCorruptedException("Unknown " + typeParam.getSimpleName() + " ordinal: " + i);
+                    }
+                    constants.add(all[i]);
+                }
+            }
+            return constants;
+        }
+
+        /**
+         * Reads a node index, which must precede the specified node.
+         */
+        private Predicate<?> member(final int beforeParam) throws StreamCorruptedException {
+            final int index = count();
+            if (index >= beforeParam) {
+                throw new StreamCorruptedException("Invalid node reference " + index + ".");
+            }
+            return nodes[index];
+        }
+
+        private Class<?> type(final String nameParam) throws StreamCorruptedException {
+            final Class<?> primitive = PRIMITIVES.get(nameParam);
+            if (primitive != null) {
+                return primitive;
+            }
+            try {
+                return Class.forName(nameParam, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw corrupted("Unknown class: " + nameParam, e);
+            }
+        }
+
+        private String string() throws StreamCorruptedException {
+            final int index = count();
+            if (index >= strings.length) {
+                throw new StreamCorruptedException("Invalid string reference " + index + ".");
+            }
+            return strings[index];
+        }
+
+        /**
+         * Reads the number of the items that follow, each of which takes at least one byte, so that a corrupted count
+         * can't make the decoder allocate more than the size of the input.
+         */
+        private int length() throws StreamCorruptedException {
+            final int value = count();
+            if (value > buffer.remaining()) {
+                throw new StreamCorruptedException("Invalid length " + value + ", only " + buffer.remaining() + " bytes remain.");
+            }
+            return value;
+        }
+
+        /**
+         * Reads a non-negative count or index.
+         */
+        private int count() throws StreamCorruptedException {
+            final long value = varlong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Invalid count " + value + ".");
+            }
+            return (int) value;
+        }
+
+        private long signed() {
+            final long value = varlong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private PredicateCodec() {
+    }
+}
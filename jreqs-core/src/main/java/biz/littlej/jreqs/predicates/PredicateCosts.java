@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+/**
+ * Rough cost estimates of predicate evaluations, used to decide whether evaluating a predicate on another thread is
+ * worth the hand-off.
+ * <p/>
+ * Predicates implementing {@link CostEstimating} report their own cost.  File system predicates are assumed to cost
+ * {@link #IO_COST_NANOS}, composites the sum of their members, and any other predicate {@link #DEFAULT_COST_NANOS}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class PredicateCosts {
+    /**
+     * Estimated cost of a predicate about which nothing is known: an in-memory check.
+     */
+    public static final long DEFAULT_COST_NANOS = 100L;
+    /**
+     * Estimated cost of a predicate that hits the file system.
+     */
+    public static final long IO_COST_NANOS = 100000L;
+
+    /**
+     * Returns the estimated cost of one evaluation of the specified predicate.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @return The estimated cost, in nanoseconds.
+     */
+    public static long estimateNanos(final Predicate<?> predicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        if (predicateParam instanceof CostEstimating) {
+            return ((CostEstimating) predicateParam).estimatedCostNanos();
+        }
+        if (predicateParam instanceof FilePredicates || predicateParam instanceof PathAttributesPredicate
+                || predicateParam instanceof FileContentPredicate) {
+            return IO_COST_NANOS;
+        }
+        if (predicateParam instanceof AndPredicate) {
+            final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+            return estimateNanos(and.getFirstMemberPredicate()) + estimateNanos(and.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof OrPredicate) {
+            final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+            return estimateNanos(or.getFirstMemberPredicate()) + estimateNanos(or.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof XorPredicate) {
+            final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+            return estimateNanos(xor.getFirstMemberPredicate()) + estimateNanos(xor.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof NotPredicate) {
+            return estimateNanos(((NotPredicate<?>) predicateParam).getOriginalPredicate());
+        }
+        return DEFAULT_COST_NANOS;
+    }
+
+    /**
+     * Returns a predicate that evaluates like the specified one and reports the specified cost.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param costNanosParam The estimated cost of one evaluation, in nanoseconds.  Must be positive.
+     * @param <T>            The type of the input.
+     * @return The predicate with a cost estimate.
+     */
+    public static <T> Predicate<T> withEstimatedCost(final Predicate<T> predicateParam, final long costNanosParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        Reqs.parameterCondition(Predicates.positive(), costNanosParam, "Cost parameter must be positive.");
+        return new CostedPredicate<T>(predicateParam, costNanosParam);
+    }
+
+    private static final class CostedPredicate<T> implements Predicate<T>, CostEstimating {
+        private final Predicate<T> predicate;
+        private final long costNanos;
+
+        private CostedPredicate(final Predicate<T> predicateParam, final long costNanosParam) {
+            predicate = predicateParam;
+            costNanos = costNanosParam;
+        }
+
+        public boolean apply(final T inputParam) {
+            return predicate.apply(inputParam);
+        }
+
+        public long estimatedCostNanos() {
+            return costNanos;
+        }
+
+        @Override
+        public boolean equals(final Object objectParam) {
+            if (this == objectParam) {
+                return true;
+            }
+            if (!(objectParam instanceof CostedPredicate)) {
+                return false;
+            }
+            final CostedPredicate<?> other = (CostedPredicate<?>) objectParam;
+            return costNanos == other.costNanos && predicate.equals(other.predicate);
+        }
+
+        @Override
+        public int hashCode() {
+            return predicate.hashCode() * 31 + (int) (costNanos ^ (costNanos >>> 32));
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private PredicateCosts() {
+    }
+}
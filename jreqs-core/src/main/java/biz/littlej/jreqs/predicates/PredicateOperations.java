@@ -15,6 +15,8 @@
  */
 package biz.littlej.jreqs.predicates;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * Some predicates that evaluate to a boolean logic operation on other predicates' evaluations.
  *
@@ -33,11 +35,7 @@ public final class PredicateOperations {
         if (originalPredicate == null) {
             throw new IllegalArgumentException("Original predicate object parameter must not be null.");
         }
-        return new Predicate<T>() {
-            public boolean apply(final T inputParam) {
-                return !originalPredicate.apply(inputParam);
-            }
-        };
+        return PredicateCache.intern(new NotPredicate<T>(originalPredicate));
     }
 
     public static <T> Predicate<T> and(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
@@ -57,6 +55,16 @@ public final class PredicateOperations {
     }
 
     public static <T> Predicate<T> xor(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
-        return OrPredicate.getInstance(firstMemberPredicateParam, secondMemberPredicateParam);
+        return XorPredicate.getInstance(firstMemberPredicateParam, secondMemberPredicateParam);
+    }
+
+    @SafeVarargs
+    public static <T> Predicate<T> parallelAnd(final ExecutorService executorParam, final long offloadThresholdNanosParam, final Predicate<T>... memberPredicatesParam) {
+        return ParallelAndPredicate.getInstance(executorParam, offloadThresholdNanosParam, memberPredicatesParam);
+    }
+
+    @SafeVarargs
+    public static <T> Predicate<T> parallelOr(final ExecutorService executorParam, final long offloadThresholdNanosParam, final Predicate<T>... memberPredicatesParam) {
+        return ParallelOrPredicate.getInstance(executorParam, offloadThresholdNanosParam, memberPredicatesParam);
     }
 }
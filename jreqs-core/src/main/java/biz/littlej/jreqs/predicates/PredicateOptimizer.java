@@ -0,0 +1,425 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites predicate trees into smaller equivalent trees.
+ * <p/>
+ * The trees of {@link AndPredicate}, {@link OrPredicate}, {@link XorPredicate}, {@link PredicateOperations#not NOT}
+ * and {@link ObjectPredicates#ALWAYS_TRUE} nodes are simplified with the {@link Rewrite rewrites} below; any other
+ * predicate is a leaf, compared with {@code equals}.  ANDs and ORs are flattened to n-ary junctions while they are
+ * simplified, and rebuilt as left-deep binary trees in their original member order, so that guards such as
+ * {@link Predicates#notNull()} keep protecting the members after them.
+ * <p/>
+ * A member is only removed when a member before it makes it redundant, so the optimized tree evaluates the same leaves
+ * as the original one in the same order, with one exception: a junction containing a constant that decides it
+ * folds to that constant, and the members before the constant are no longer evaluated.  As predicates must have no
+ * side effect, this only matters for a member that would have thrown.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class PredicateOptimizer {
+    /**
+     * The rewrites applied by the optimizer.
+     */
+    public enum Rewrite {
+        /**
+         * {@code and(x, alwaysTrue())} is {@code x}, {@code and(x, alwaysFalse())} is {@code alwaysFalse()}, and
+         * similarly for OR, XOR and NOT.
+         */
+        CONSTANT_FOLDING,
+        /**
+         * {@code not(not(x))} is {@code x}, and {@code xor(not(x), not(y))} is {@code xor(x, y)}.
+         */
+        DOUBLE_NEGATION,
+        /**
+         * {@code or(x, y, x)} is {@code or(x, y)}, and {@code xor(x, x)} is {@code alwaysFalse()}.
+         */
+        DUPLICATE_ELIMINATION,
+        /**
+         * {@code and(x, or(x, y))} is {@code x}, and {@code or(x, and(x, y))} is {@code x}.
+         */
+        ABSORPTION,
+        /**
+         * {@code and(not(x), not(y))} is {@code not(or(x, y))}, and {@code or(not(x), not(y))} is
+         * {@code not(and(x, y))}: one NOT instead of one per member.
+         */
+        DE_MORGAN,
+        /**
+         * {@code and(and(x, y), z)} is {@code and(x, y, z)}, which exposes the members of nested junctions to the
+         * other rewrites.
+         */
+        FLATTENING
+    }
+
+    /**
+     * Returns the optimized tree of the specified predicate.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The optimized predicate, which is the specified one if it can't be simplified.
+     */
+    public static <T> Predicate<T> optimize(final Predicate<T> predicateParam) {
+        return optimizeWithReport(predicateParam).getPredicate();
+    }
+
+    /**
+     * Optimizes the tree of the specified predicate and reports the reductions.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The optimization.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optimization<T> optimizeWithReport(final Predicate<T> predicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        final int[] counts = new int[Rewrite.values().length];
+        final Node optimized = new Simplifier(counts).simplify(Node.of(predicateParam));
+        for (final int count : counts) {
+            if (count > 0) {
+                return new Optimization<T>(predicateParam, (Predicate<T>) optimized.build(), counts);
+            }
+        }
+        return new Optimization<T>(predicateParam, predicateParam, counts);
+    }
+
+    /**
+     * Returns the number of nodes of the specified tree.  A node shared by several branches is counted once per branch.
+     *
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @return The number of nodes.
+     */
+    public static int countNodes(final Predicate<?> predicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        if (predicateParam instanceof AndPredicate) {
+            final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+            return 1 + countNodes(and.getFirstMemberPredicate()) + countNodes(and.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof OrPredicate) {
+            final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+            return 1 + countNodes(or.getFirstMemberPredicate()) + countNodes(or.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof XorPredicate) {
+            final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+            return 1 + countNodes(xor.getFirstMemberPredicate()) + countNodes(xor.getSecondMemberPredicate());
+        }
+        if (predicateParam instanceof NotPredicate) {
+            return 1 + countNodes(((NotPredicate<?>) predicateParam).getOriginalPredicate());
+        }
+        return 1;
+    }
+
+    /**
+     * The result of an optimization: the optimized predicate, the number of each rewrite applied, and the node counts
+     * and {@link PredicateCosts#estimateNanos(Predicate) estimated evaluation costs} before and after.
+     *
+     * @param <T> The type of the input.
+     */
+    public static final class Optimization<T> {
+        private final Predicate<T> originalPredicate;
+        private final Predicate<T> predicate;
+        private final Map<Rewrite, Integer> rewriteCounts = new EnumMap<Rewrite, Integer>(Rewrite.class);
+
+        private Optimization(final Predicate<T> originalPredicateParam, final Predicate<T> predicateParam, final int[] countsParam) {
+            originalPredicate = originalPredicateParam;
+            predicate = predicateParam;
+            for (final Rewrite rewrite : Rewrite.values()) {
+                rewriteCounts.put(rewrite, countsParam[rewrite.ordinal()]);
+            }
+        }
+
+        public Predicate<T> getOriginalPredicate() {
+            return originalPredicate;
+        }
+
+        public Predicate<T> getPredicate() {
+            return predicate;
+        }
+
+        /**
+         * @param rewriteParam The rewrite.
+         * @return The number of times the rewrite was applied.
+         */
+        public int getRewriteCount(final Rewrite rewriteParam) {
+            return rewriteCounts.get(rewriteParam);
+        }
+
+        public int getOriginalNodeCount() {
+            return countNodes(originalPredicate);
+        }
+
+        public int getNodeCount() {
+            return countNodes(predicate);
+        }
+
+        /**
+         * @return The estimated cost of one evaluation of the original predicate, in nanoseconds.
+         */
+        public long getOriginalCostNanos() {
+            return PredicateCosts.estimateNanos(originalPredicate);
+        }
+
+        /**
+         * @return The estimated cost of one evaluation of the optimized predicate, in nanoseconds.
+         */
+        public long getCostNanos() {
+            return PredicateCosts.estimateNanos(predicate);
+        }
+
+        @Override
+        public String toString() {
+            return "Optimization{nodes=" + getOriginalNodeCount() + "->" + getNodeCount() + ", estimatedNanos="
+                    + getOriginalCostNanos() + "->" + getCostNanos() + ", rewrites=" + rewriteCounts + '}';
+        }
+    }
+
+    private enum Kind {
+        LEAF, TRUE, FALSE, NOT, AND, OR, XOR
+    }
+
+    /**
+     * An immutable node of the simplified tree, compared structurally.
+     */
+    private static final class Node {
+        private static final Node TRUE = new Node(Kind.TRUE, null, Collections.<Node>emptyList());
+        private static final Node FALSE = new Node(Kind.FALSE, null, Collections.<Node>emptyList());
+        private final Kind kind;
+        private final Predicate<?> leaf;
+        private final List<Node> members;
+        private final int hash;
+
+        private Node(final Kind kindParam, final Predicate<?> leafParam, final List<Node> membersParam) {
+            kind = kindParam;
+            leaf = leafParam;
+            members = membersParam;
+            hash = (kindParam.hashCode() * 31 + (leafParam == null ? 0 : leafParam.hashCode())) * 31 + membersParam.hashCode();
+        }
+
+        private static Node junction(final Kind kindParam, final List<Node> membersParam) {
+            return new Node(kindParam, null, Collections.unmodifiableList(membersParam));
+        }
+
+        private static Node not(final Node memberParam) {
+            return new Node(Kind.NOT, null, Collections.singletonList(memberParam));
+        }
+
+        private static Node of(final Predicate<?> predicateParam) {
+            if (predicateParam == ObjectPredicates.ALWAYS_TRUE) {
+                return TRUE;
+            }
+            if (predicateParam instanceof AndPredicate) {
+                final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+                return junction(Kind.AND, Arrays.asList(of(and.getFirstMemberPredicate()), of(and.getSecondMemberPredicate())));
+            }
+            if (predicateParam instanceof OrPredicate) {
+                final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+                return junction(Kind.OR, Arrays.asList(of(or.getFirstMemberPredicate()), of(or.getSecondMemberPredicate())));
+            }
+            if (predicateParam instanceof XorPredicate) {
+                final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+                return junction(Kind.XOR, Arrays.asList(of(xor.getFirstMemberPredicate()), of(xor.getSecondMemberPredicate())));
+            }
+            if (predicateParam instanceof NotPredicate) {
+                final Node original = of(((NotPredicate<?>) predicateParam).getOriginalPredicate());
+                return original == TRUE ? FALSE : not(original);
+            }
+            return new Node(Kind.LEAF, predicateParam, Collections.<Node>emptyList());
+        }
+
+        private Node first() {
+            return members.get(0);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Predicate<Object> build() {
+            switch (kind) {
+                case TRUE:
+                    return Predicates.alwaysTrue();
+                case FALSE:
+                    return Predicates.alwaysFalse();
+                case NOT:
+                    return PredicateOperations.not(first().build());
+                case AND:
+                case OR:
+                case XOR:
+                    Predicate<Object> predicate = first().build();
+                    for (int i = 1; i < members.size(); i++) {
+                        final Predicate<Object> member = members.get(i).build();
+                        if (kind == Kind.AND) {
+                            predicate = PredicateOperations.and(predicate, member);
+                        } else if (kind == Kind.OR) {
+                            predicate = PredicateOperations.or(predicate, member);
+                        } else {
+                            predicate = PredicateOperations.xor(predicate, member);
+                        }
+                    }
+                    return predicate;
+                default:
+                    return (Predicate) leaf;
+            }
+        }
+
+        @Override
+        public boolean equals(final Object objectParam) {
+            if (this == objectParam) {
+                return true;
+            }
+            if (!(objectParam instanceof Node)) {
+                return false;
+            }
+            final Node other = (Node) objectParam;
+            return hash == other.hash && kind == other.kind && members.equals(other.members)
+                    && (leaf == null ? other.leaf == null : leaf.equals(other.leaf));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Simplifies nodes bottom-up, counting the rewrites.
+     */
+    private static final class Simplifier {
+        private final int[] counts;
+
+        private Simplifier(final int[] countsParam) {
+            counts = countsParam;
+        }
+
+        private void count(final Rewrite rewriteParam) {
+            counts[rewriteParam.ordinal()]++;
+        }
+
+        private Node simplify(final Node nodeParam) {
+            switch (nodeParam.kind) {
+                case NOT:
+                    return negate(simplify(nodeParam.first()));
+                case AND:
+                case OR:
+                    final List<Node> members = new ArrayList<Node>(nodeParam.members.size());
+                    for (final Node member : nodeParam.members) {
+                        members.add(simplify(member));
+                    }
+                    return junction(nodeParam.kind, members);
+                case XOR:
+                    return xor(simplify(nodeParam.first()), simplify(nodeParam.members.get(1)));
+                default:
+                    return nodeParam;
+            }
+        }
+
+        private Node negate(final Node memberParam) {
+            if (memberParam == Node.TRUE || memberParam == Node.FALSE) {
+                count(Rewrite.CONSTANT_FOLDING);
+                return memberParam == Node.TRUE ? Node.FALSE : Node.TRUE;
+            }
+            if (memberParam.kind == Kind.NOT) {
+                count(Rewrite.DOUBLE_NEGATION);
+                return memberParam.first();
+            }
+            return Node.not(memberParam);
+        }
+
+        /**
+         * Simplifies a junction whose members are already simplified.
+         */
+        private Node junction(final Kind kindParam, final List<Node> membersParam) {
+            final Node identity = kindParam == Kind.AND ? Node.TRUE : Node.FALSE;
+            final Node absorbing = kindParam == Kind.AND ? Node.FALSE : Node.TRUE;
+            final Kind dual = kindParam == Kind.AND ? Kind.OR : Kind.AND;
+            final List<Node> flat = new ArrayList<Node>(membersParam.size());
+            for (final Node member : membersParam) {
+                if (member.kind == kindParam) {
+                    count(Rewrite.FLATTENING);
+                    flat.addAll(member.members);
+                } else {
+                    flat.add(member);
+                }
+            }
+            final List<Node> kept = new ArrayList<Node>(flat.size());
+            for (final Node member : flat) {
+                if (member == absorbing) {
+                    count(Rewrite.CONSTANT_FOLDING);
+                    return absorbing;
+                }
+                if (member == identity) {
+                    count(Rewrite.CONSTANT_FOLDING);
+                } else if (kept.contains(member)) {
+                    count(Rewrite.DUPLICATE_ELIMINATION);
+                } else if (member.kind == dual && !Collections.disjoint(kept, member.members)) {
+                    // An earlier member decides the junction whenever this one would.
+                    count(Rewrite.ABSORPTION);
+                } else {
+                    kept.add(member);
+                }
+            }
+            if (kept.isEmpty()) {
+                return identity;
+            }
+            if (kept.size() == 1) {
+                return kept.get(0);
+            }
+            for (final Node member : kept) {
+                if (member.kind != Kind.NOT) {
+                    return Node.junction(kindParam, kept);
+                }
+            }
+            count(Rewrite.DE_MORGAN);
+            final List<Node> originals = new ArrayList<Node>(kept.size());
+            for (final Node member : kept) {
+                originals.add(member.first());
+            }
+            return negate(junction(dual, originals));
+        }
+
+        private Node xor(final Node firstParam, final Node secondParam) {
+            if (firstParam == Node.TRUE || firstParam == Node.FALSE || secondParam == Node.TRUE || secondParam == Node.FALSE) {
+                count(Rewrite.CONSTANT_FOLDING);
+                final boolean firstConstant = firstParam == Node.TRUE || firstParam == Node.FALSE;
+                final Node constant = firstConstant ? firstParam : secondParam;
+                final Node other = firstConstant ? secondParam : firstParam;
+                return constant == Node.TRUE ? negate(other) : other;
+            }
+            if (firstParam.equals(secondParam)) {
+                count(Rewrite.DUPLICATE_ELIMINATION);
+                return Node.FALSE;
+            }
+            if (firstParam.kind == Kind.NOT && secondParam.kind == Kind.NOT) {
+                count(Rewrite.DOUBLE_NEGATION);
+                return xor(firstParam.first(), secondParam.first());
+            }
+            return Node.junction(Kind.XOR, Arrays.asList(firstParam, secondParam));
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private PredicateOptimizer() {
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of named rules evaluated together, in which the sub-predicates shared by several rules are evaluated at most
+ * once per input.
+ * <p/>
+ * The rule trees are merged into one graph of distinct nodes: {@link AndPredicate AND}, {@link OrPredicate OR},
+ * {@link XorPredicate XOR} and {@link PredicateOperations#not NOT} composites are identical nodes if they have the
+ * same operator and the same member nodes, and any other predicate is a leaf node identified by its
+ * {@code equals} method.  During the evaluation of an input, the value of each node is recorded in a scratch array
+ * indexed by node id, so that a node referenced by many rules is computed once.  The members of the composites are
+ * still evaluated lazily and in order, so a rule such as {@code and(notNull(), notBlankString())} never applies its
+ * second member to {@code null}.
+ * <p/>
+ * Instances are immutable and thread-safe.  An {@link Evaluation} holds the scratch arrays; it is reused for any
+ * number of inputs, but must not be shared between threads.
+ *
+ * @param <T> The type of the input.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class PredicateSet<T> {
+    private static final byte LEAF = 0;
+    private static final byte AND = 1;
+    private static final byte OR = 2;
+    private static final byte XOR = 3;
+    private static final byte NOT = 4;
+    private final String[] names;
+    private final int[] roots;
+    private final byte[] kinds;
+    private final int[] firsts;
+    private final int[] seconds;
+    private final Predicate<Object>[] leaves;
+
+    private PredicateSet(final String[] namesParam, final int[] rootsParam, final Builder builderParam) {
+        names = namesParam;
+        roots = rootsParam;
+        final int size = builderParam.kinds.size();
+        kinds = new byte[size];
+        firsts = new int[size];
+        seconds = new int[size];
+        leaves = builderParam.leaves.toArray(new Predicate[size]);
+        for (int i = 0; i < size; i++) {
+            kinds[i] = builderParam.kinds.get(i);
+            firsts[i] = builderParam.firsts.get(i);
+            seconds[i] = builderParam.seconds.get(i);
+        }
+    }
+
+    /**
+     * Creates a set of the specified rules.
+     *
+     * @param rulesParam The rules by name.  Must not be {@code null} nor contain {@code null} predicates.  The rules
+     *                   keep the iteration order of the map.
+     * @param <T>        The type of the input.
+     * @return The set of rules.
+     */
+    public static <T> PredicateSet<T> of(final Map<String, ? extends Predicate<? super T>> rulesParam) {
+        Reqs.parameterCondition(Predicates.notNull(), rulesParam, "Rules parameter must not be null.");
+        final String[] names = new String[rulesParam.size()];
+        final int[] roots = new int[rulesParam.size()];
+        final Builder builder = new Builder();
+        int index = 0;
+        for (final Map.Entry<String, ? extends Predicate<? super T>> rule : rulesParam.entrySet()) {
+            Reqs.parameterCondition(Predicates.notNull(), rule.getValue(), "Rule predicates must not be null.");
+            names[index] = rule.getKey();
+            roots[index] = builder.add(rule.getValue());
+            index++;
+        }
+        return new PredicateSet<T>(names, roots, builder);
+    }
+
+    /**
+     * @return The number of rules.
+     */
+    public int getRuleCount() {
+        return names.length;
+    }
+
+    /**
+     * @param indexParam The index of a rule.
+     * @return The name of the rule.
+     */
+    public String getRuleName(final int indexParam) {
+        return names[indexParam];
+    }
+
+    /**
+     * @return The number of distinct nodes in all the rules, which is the most predicates evaluated per input.
+     */
+    public int getNodeCount() {
+        return kinds.length;
+    }
+
+    /**
+     * Creates an evaluation of this set, for use by the current thread.  Keep it to evaluate successive inputs
+     * without allocating.
+     *
+     * @return The evaluation.
+     */
+    public Evaluation<T> newEvaluation() {
+        return new Evaluation<T>(this);
+    }
+
+    /**
+     * The evaluation of a predicate set on successive inputs.  The values of the nodes are recorded in scratch arrays
+     * that are reused from one input to the next, so an evaluation does not allocate.
+     *
+     * @param <T> The type of the input.
+     */
+    public static final class Evaluation<T> {
+        private final PredicateSet<T> set;
+        private final boolean[] values;
+        private final int[] stamps;
+        private final boolean[] verified;
+        private int stamp;
+        private T input;
+
+        private Evaluation(final PredicateSet<T> setParam) {
+            set = setParam;
+            values = new boolean[setParam.kinds.length];
+            stamps = new int[setParam.kinds.length];
+            verified = new boolean[setParam.roots.length];
+        }
+
+        /**
+         * Evaluates all the rules of the set on the specified input.  The results are then read with
+         * {@link #isVerified(int)}.
+         *
+         * @param inputParam The input.
+         * @return {@code true} if all the rules evaluate to {@code true}.
+         */
+        public boolean evaluate(final T inputParam) {
+            if (++stamp == 0) {
+                // The stamps wrapped around: forget the values of 2^32 evaluations ago.
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            input = inputParam;
+            boolean all = true;
+            try {
+                for (int i = 0; i < verified.length; i++) {
+                    verified[i] = node(set.roots[i]);
+                    all &= verified[i];
+                }
+            } finally {
+                input = null;
+            }
+            return all;
+        }
+
+        /**
+         * Evaluates all the rules of the set on the specified input.
+         *
+         * @param inputParam The input.
+         * @return The names of the rules that evaluate to {@code false}, in rule order.
+         */
+        public List<String> getFailedRules(final T inputParam) {
+            if (evaluate(inputParam)) {
+                return Collections.emptyList();
+            }
+            final List<String> failed = new ArrayList<String>();
+            for (int i = 0; i < verified.length; i++) {
+                if (!verified[i]) {
+                    failed.add(set.names[i]);
+                }
+            }
+            return failed;
+        }
+
+        /**
+         * @param indexParam The index of a rule.
+         * @return The value of the rule for the last evaluated input.
+         */
+        public boolean isVerified(final int indexParam) {
+            return verified[indexParam];
+        }
+
+        private boolean node(final int idParam) {
+            if (stamps[idParam] == stamp) {
+                return values[idParam];
+            }
+            final boolean value;
+            switch (set.kinds[idParam]) {
+                case AND:
+                    value = node(set.firsts[idParam]) && node(set.seconds[idParam]);
+                    break;
+                case OR:
+                    value = node(set.firsts[idParam]) || node(set.seconds[idParam]);
+                    break;
+                case XOR:
+                    value = node(set.firsts[idParam]) != node(set.seconds[idParam]);
+                    break;
+                case NOT:
+                    value = !node(set.firsts[idParam]);
+                    break;
+                default:
+                    value = set.leaves[idParam].apply(input);
+                    break;
+            }
+            values[idParam] = value;
+            stamps[idParam] = stamp;
+            return value;
+        }
+    }
+
+    /**
+     * Hash-conses the nodes of the rule trees.  Members are added before their composite, so node ids are in
+     * post-order.
+     */
+    private static final class Builder {
+        private final List<Byte> kinds = new ArrayList<Byte>();
+        private final List<Integer> firsts = new ArrayList<Integer>();
+        private final List<Integer> seconds = new ArrayList<Integer>();
+        private final List<Predicate<?>> leaves = new ArrayList<Predicate<?>>();
+        private final Map<Object, Integer> ids = new HashMap<Object, Integer>();
+        private final Map<Predicate<?>, Integer> visited = new IdentityHashMap<Predicate<?>, Integer>();
+
+        private int add(final Predicate<?> predicateParam) {
+            final Integer known = visited.get(predicateParam);
+            if (known != null) {
+                return known;
+            }
+            final Object key;
+            if (predicateParam instanceof AndPredicate) {
+                final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+                key = new CompositeKey(AND, add(and.getFirstMemberPredicate()), add(and.getSecondMemberPredicate()));
+            } else if (predicateParam instanceof OrPredicate) {
+                final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+                key = new CompositeKey(OR, add(or.getFirstMemberPredicate()), add(or.getSecondMemberPredicate()));
+            } else if (predicateParam instanceof XorPredicate) {
+                final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+                key = new CompositeKey(XOR, add(xor.getFirstMemberPredicate()), add(xor.getSecondMemberPredicate()));
+            } else if (predicateParam instanceof NotPredicate) {
+                key = new CompositeKey(NOT, add(((NotPredicate<?>) predicateParam).getOriginalPredicate()), -1);
+            } else {
+                key = predicateParam;
+            }
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = kinds.size();
+                ids.put(key, id);
+                if (key instanceof CompositeKey) {
+                    final CompositeKey composite = (CompositeKey) key;
+                    kinds.add(composite.kind);
+                    firsts.add(composite.first);
+                    seconds.add(composite.second);
+                    leaves.add(null);
+                } else {
+                    kinds.add(LEAF);
+                    firsts.add(-1);
+                    seconds.add(-1);
+                    leaves.add(predicateParam);
+                }
+            }
+            visited.put(predicateParam, id);
+            return id;
+        }
+    }
+
+    private static final class CompositeKey {
+        private final byte kind;
+        private final int first;
+        private final int second;
+
+        private CompositeKey(final byte kindParam, final int firstParam, final int secondParam) {
+            kind = kindParam;
+            first = firstParam;
+            second = secondParam;
+        }
+
+        @Override
+        public boolean equals(final Object objectParam) {
+            if (!(objectParam instanceof CompositeKey)) {
+                return false;
+            }
+            final CompositeKey other = (CompositeKey) objectParam;
+            return kind == other.kind && first == other.first && second == other.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind * 31 + first) * 31 + second;
+        }
+    }
+}
@@ -15,9 +15,8 @@
  */
 package biz.littlej.jreqs.predicates;
 
-import biz.littlej.jreqs.Reqs;
-
 import java.io.File;
+import java.nio.file.Path;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.regex.Pattern;
@@ -34,6 +33,16 @@ import static biz.littlej.jreqs.predicates.PredicateOperations.not;
  * @since 0.1.0
  */
 public final class Predicates {
+    /**
+     * The negations returned on hot paths, such as the {@code notNull()} checks of the parameters, are built once
+     * rather than looked up in the {@link PredicateCache} on each call.
+     */
+    private static final Predicate<Object> NOT_NULL = not(ObjectPredicates.NULL);
+    private static final Predicate<Object> ALWAYS_FALSE = not(ObjectPredicates.ALWAYS_TRUE);
+    private static final Predicate<Collection> NOT_EMPTY_COLLECTION = not(CollectionPredicates.EMPTY);
+    private static final Predicate<CharSequence> NOT_EMPTY_CHAR_SEQUENCE = not(CharSequencePredicates.EMPTY);
+    private static final Predicate<String> NOT_BLANK_STRING = not(StringPredicates.BLANK);
+
     public static Predicate<Calendar> past() {
         return DateTimePredicates.PAST;
     }
@@ -47,11 +56,11 @@ public final class Predicates {
     }
 
     public static <T> Predicate<T> notNull() {
-        return not((Predicate<T>) ObjectPredicates.NULL);
+        return (Predicate<T>) NOT_NULL;
     }
 
     public static Predicate<Collection> notEmptyCollection() {
-        return not(CollectionPredicates.EMPTY);
+        return NOT_EMPTY_COLLECTION;
     }
 
     public static Predicate<Collection> emptyCollection() {
@@ -63,7 +72,7 @@ public final class Predicates {
     }
 
     public static <T> Predicate<T> alwaysFalse() {
-        return not((Predicate<T>) ObjectPredicates.ALWAYS_TRUE);
+        return (Predicate<T>) ALWAYS_FALSE;
     }
 
     public static <T> Predicate<T> equalTo(final Object objectParam) {
@@ -95,7 +104,7 @@ public final class Predicates {
     }
 
     public static Predicate<CharSequence> notEmptyCharSequence() {
-        return not(emptyCharSequence());
+        return NOT_EMPTY_CHAR_SEQUENCE;
     }
 
     public static Predicate<String> blankString() {
@@ -103,7 +112,7 @@ public final class Predicates {
     }
 
     public static Predicate<String> notBlankString() {
-        return not(blankString());
+        return NOT_BLANK_STRING;
     }
 
     public static Predicate<File> writeableFile() {
@@ -134,6 +143,30 @@ public final class Predicates {
         return FilePredicates.EXISTS;
     }
 
+    public static Predicate<Path> pathWithAttributes(final PathAttribute... attributesParam) {
+        return PathAttributesPredicate.getInstance(attributesParam);
+    }
+
+    public static Predicate<Path> fileStartingWith(final byte[] magicParam) {
+        return FileContentPredicate.startingWith(magicParam);
+    }
+
+    public static Predicate<Path> fileNotLargerThan(final long maxSizeParam) {
+        return FileContentPredicate.notLargerThan(maxSizeParam);
+    }
+
+    public static Predicate<Path> fileEndingWithNewline() {
+        return FileContentPredicate.endingWithNewline();
+    }
+
+    public static Predicate<Path> fileWithCrc32c(final long crc32cParam) {
+        return FileContentPredicate.withCrc32c(crc32cParam);
+    }
+
+    public static Predicate<Path> fileWithoutNulBytes() {
+        return FileContentPredicate.withoutNulBytes();
+    }
+
     public static Predicate<Number> negative() {
         return NumberPredicates.NEGATIVE;
     }
@@ -167,38 +200,18 @@ public final class Predicates {
     }
 
     public static Predicate<Boolean> isTrue() {
-        return new Predicate<Boolean>() {
-            public boolean apply(final Boolean inputParam) {
-                Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
-                return inputParam;
-            }
-        };
+        return BooleanPredicates.TRUE;
     }
 
     public static Predicate<Boolean> isFalse() {
-        return new Predicate<Boolean>() {
-            public boolean apply(final Boolean inputParam) {
-                Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
-                return !inputParam;
-            }
-        };
+        return BooleanPredicates.FALSE;
     }
 
     public static Predicate<String> isValidUrl() {
-        return new Predicate<String>() {
-            public boolean apply(final String inputParam) {
-                Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
-                return StringPredicates.VALID_URL.apply(inputParam);
-            }
-        };
+        return NotNullStringPredicates.VALID_URL;
     }
 
     public static Predicate<String> isValidUri() {
-        return new Predicate<String>() {
-            public boolean apply(final String inputParam) {
-                Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input parameter must not be null.");
-                return StringPredicates.VALID_URI.apply(inputParam);
-            }
-        };
+        return NotNullStringPredicates.VALID_URI;
     }
 }
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.Reqs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A predicate that evaluates like the specified one while recording, for each node of its tree, how many times it is
+ * evaluated, how many times it evaluates to {@code true} and {@code false}, and how long it takes.
+ * <p/>
+ * The tree of {@link AndPredicate}, {@link OrPredicate}, {@link XorPredicate} and {@link PredicateOperations#not NOT}
+ * nodes is mirrored once, at creation; any other predicate is a leaf.  The original tree is not modified: code that
+ * keeps evaluating it pays nothing, and profiling is stopped by dropping the profiling predicate.  Short-circuiting is
+ * preserved, so the counts of the second member of an AND tell how often the first one let the input through.
+ * <p/>
+ * {@link #explain()} renders the counts as an indented "explain plan", and {@link #export(Path)} writes them as CSV
+ * for offline analysis.  Instances are thread-safe.
+ *
+ * @param <T> The type of the input.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ProfilingPredicate<T> implements Predicate<T> {
+    private final Node root;
+
+    private ProfilingPredicate(final Predicate<T> predicateParam) {
+        root = mirror(predicateParam);
+    }
+
+    /**
+     * Returns a new profiling predicate for the specified predicate tree.
+     *
+     * @param predicateParam The predicate to profile.  Must not be {@code null}.
+     * @param <T>            The type of the input.
+     * @return The profiling predicate.
+     */
+    public static <T> ProfilingPredicate<T> getInstance(final Predicate<T> predicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        return new ProfilingPredicate<T>(predicateParam);
+    }
+
+    private static Node mirror(final Predicate<?> predicateParam) {
+        if (predicateParam instanceof AndPredicate) {
+            final AndPredicate<?> and = (AndPredicate<?>) predicateParam;
+            return new Node(Kind.AND, predicateParam, mirror(and.getFirstMemberPredicate()), mirror(and.getSecondMemberPredicate()));
+        }
+        if (predicateParam instanceof OrPredicate) {
+            final OrPredicate<?> or = (OrPredicate<?>) predicateParam;
+            return new Node(Kind.OR, predicateParam, mirror(or.getFirstMemberPredicate()), mirror(or.getSecondMemberPredicate()));
+        }
+        if (predicateParam instanceof XorPredicate) {
+            final XorPredicate<?> xor = (XorPredicate<?>) predicateParam;
+            return new Node(Kind.XOR, predicateParam, mirror(xor.getFirstMemberPredicate()), mirror(xor.getSecondMemberPredicate()));
+        }
+        if (predicateParam instanceof NotPredicate) {
+            return new Node(Kind.NOT, predicateParam, mirror(((NotPredicate<?>) predicateParam).getOriginalPredicate()));
+        }
+        return new Node(Kind.LEAF, predicateParam);
+    }
+
+    public boolean apply(final T inputParam) {
+        return root.apply(inputParam);
+    }
+
+    /**
+     * @return The profile of the root node of the tree.
+     */
+    public NodeProfile getProfile() {
+        return root;
+    }
+
+    /**
+     * Resets all the counters.
+     */
+    public void reset() {
+        root.reset();
+    }
+
+    /**
+     * Renders the counters as an indented plan, one line per node:
+     * <pre>
+     * AND  calls=1000 true=880 false=120 total=1.254ms self=0.061ms
+     *   notNull  calls=1000 true=1000 false=0 total=0.112ms self=0.112ms
+     *   ...
+     * </pre>
+     * {@code total} includes the members of the node, {@code self} does not.
+     *
+     * @return The report.
+     */
+    public String explain() {
+        final StringBuilder report = new StringBuilder();
+        explain(root, 0, report);
+        return report.toString();
+    }
+
+    private static void explain(final Node nodeParam, final int depthParam, final StringBuilder reportParam) {
+        for (int i = 0; i < depthParam; i++) {
+            reportParam.append("  ");
+        }
+        reportParam.append(nodeParam.getLabel())
+                .append("  calls=").append(nodeParam.getInvocations())
+                .append(" true=").append(nodeParam.getTrueCount())
+                .append(" false=").append(nodeParam.getFalseCount())
+                .append(" total=").append(millis(nodeParam.getTotalNanos()))
+                .append(" self=").append(millis(nodeParam.getSelfNanos()))
+                .append('\n');
+        for (final Node child : nodeParam.children) {
+            explain(child, depthParam + 1, reportParam);
+        }
+    }
+
+    private static String millis(final long nanosParam) {
+        return String.format(Locale.ROOT, "%.3fms", nanosParam / 1e6);
+    }
+
+    /**
+     * Writes the counters to the specified file as CSV, in UTF-8, one row per node in depth-first order.  The columns
+     * are {@code id,parent,depth,label,calls,true,false,totalNanos,selfNanos}; the parent of the root is {@code -1}.
+     *
+     * @param fileParam The file, which is replaced if it exists.  Must not be {@code null}.
+     * @throws IOException if the file can't be written.
+     */
+    public void export(final Path fileParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), fileParam, "File parameter must not be null.");
+        final BufferedWriter writer = Files.newBufferedWriter(fileParam, StandardCharsets.UTF_8);
+        try {
+            writer.write("id,parent,depth,label,calls,true,false,totalNanos,selfNanos");
+            writer.newLine();
+            export(root, -1, 0, new int[1], writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void export(final Node nodeParam, final int parentParam, final int depthParam, final int[] nextIdParam,
+                               final BufferedWriter writerParam) throws IOException {
+        final int id = nextIdParam[0]++;
+        writerParam.write(id + "," + parentParam + "," + depthParam + "," + csv(nodeParam.getLabel()) + "," + nodeParam.getInvocations()
+                + "," + nodeParam.getTrueCount() + "," + nodeParam.getFalseCount() + "," + nodeParam.getTotalNanos()
+                + "," + nodeParam.getSelfNanos());
+        writerParam.newLine();
+        for (final Node child : nodeParam.children) {
+            export(child, id, depthParam + 1, nextIdParam, writerParam);
+        }
+    }
+
+    private static String csv(final String valueParam) {
+        if (valueParam.indexOf(',') < 0 && valueParam.indexOf('"') < 0 && valueParam.indexOf('\n') < 0) {
+            return valueParam;
+        }
+        return '"' + valueParam.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The counters of one node of a profiled predicate tree.
+     */
+    public interface NodeProfile {
+        /**
+         * @return {@code AND}, {@code OR}, {@code XOR} or {@code NOT} for the operations, and a description of the
+         *         predicate for the leaves.
+         */
+        String getLabel();
+
+        /**
+         * @return The predicate of this node in the original tree.
+         */
+        Predicate<?> getPredicate();
+
+        /**
+         * @return The number of evaluations, including the ones that threw an exception.
+         */
+        long getInvocations();
+
+        long getTrueCount();
+
+        long getFalseCount();
+
+        /**
+         * @return The cumulated duration of the evaluations of this node, members included.
+         */
+        long getTotalNanos();
+
+        /**
+         * @return The cumulated duration of the evaluations of this node, members excluded.
+         */
+        long getSelfNanos();
+
+        /**
+         * @return The profiles of the members of this node, in evaluation order.
+         */
+        List<? extends NodeProfile> getChildren();
+    }
+
+    private enum Kind {
+        AND, OR, XOR, NOT, LEAF
+    }
+
+    /**
+     * One node of the mirrored tree.
+     */
+    private static final class Node implements NodeProfile {
+        private final Kind kind;
+        private final Predicate<Object> predicate;
+        private final Node[] children;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder trueCount = new LongAdder();
+        private final LongAdder falseCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        private Node(final Kind kindParam, final Predicate<?> predicateParam, final Node... childrenParam) {
+            kind = kindParam;
+            predicate = (Predicate<Object>) predicateParam;
+            children = childrenParam;
+        }
+
+        private boolean apply(final Object inputParam) {
+            final long start = System.nanoTime();
+            try {
+                final boolean result = evaluate(inputParam);
+                (result ? trueCount : falseCount).increment();
+                return result;
+            } finally {
+                totalNanos.add(System.nanoTime() - start);
+                invocations.increment();
+            }
+        }
+
+        private boolean evaluate(final Object inputParam) {
+            switch (kind) {
+                case AND:
+                    return children[0].apply(inputParam) && children[1].apply(inputParam);
+                case OR:
+                    return children[0].apply(inputParam) || children[1].apply(inputParam);
+                case XOR:
+                    return children[0].apply(inputParam) != children[1].apply(inputParam);
+                case NOT:
+                    return !children[0].apply(inputParam);
+                default:
+                    return predicate.apply(inputParam);
+            }
+        }
+
+        private void reset() {
+            invocations.reset();
+            trueCount.reset();
+            falseCount.reset();
+            totalNanos.reset();
+            for (final Node child : children) {
+                child.reset();
+            }
+        }
+
+        public String getLabel() {
+            if (kind != Kind.LEAF) {
+                return kind.name();
+            }
+            final Class<?> type = predicate.getClass();
+            final String text = predicate.toString();
+            if (!text.startsWith(type.getName() + "@")) {
+                return text;
+            }
+            return type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+        }
+
+        public Predicate<?> getPredicate() {
+            return predicate;
+        }
+
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        public long getTrueCount() {
+            return trueCount.sum();
+        }
+
+        public long getFalseCount() {
+            return falseCount.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getSelfNanos() {
+            long self = totalNanos.sum();
+            for (final Node child : children) {
+                self -= child.getTotalNanos();
+            }
+            return Math.max(0, self);
+        }
+
+        public List<? extends NodeProfile> getChildren() {
+            final List<Node> list = new ArrayList<Node>(children.length);
+            Collections.addAll(list, children);
+            return Collections.unmodifiableList(list);
+        }
+    }
+}
@@ -42,7 +42,16 @@ public enum StringPredicates implements Predicate<String>, Serializable {
      */
     BLANK {
         public boolean apply(final String inputParam) {
-            return inputParam == null || inputParam.trim().isEmpty();
+            if (inputParam == null) {
+                return true;
+            }
+            // Same characters as String.trim(), without allocating the trimmed copy.
+            for (int i = 0, length = inputParam.length(); i < length; i++) {
+                if (inputParam.charAt(i) > ' ') {
+                    return false;
+                }
+            }
+            return true;
         }
     },
     /**
@@ -19,7 +19,6 @@ package biz.littlej.jreqs.predicates;
 import biz.littlej.jreqs.Reqs;
 
 import java.io.Serializable;
-import java.util.Arrays;
 
 /**
  * Returns a predicate that evaluates to {@code true} if at exactly one of the specified predicates also does for the same input, like the logical XOR.
@@ -31,16 +30,10 @@ public final class XorPredicate<T> implements Predicate<T>, Serializable {
     private static final long serialVersionUID = 0;
     private final Predicate<T> firstMemberPredicate;
     private final Predicate<T> secondeMemberPredicate;
+    private transient int hash;
 
     public static <T> XorPredicate getInstance(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
-        final int h = Arrays.deepHashCode(new Predicate[]{firstMemberPredicateParam, secondMemberPredicateParam});
-        final XorPredicate<T> p = PredicateCache.getPredicate(h, XorPredicate.class);
-        if (p != null) {
-            return p;
-        }
-        final XorPredicate<T> predicate = new XorPredicate<T>(firstMemberPredicateParam, secondMemberPredicateParam);
-        PredicateCache.registerNewPredicate(h, predicate);
-        return predicate;
+        return PredicateCache.intern(new XorPredicate<T>(firstMemberPredicateParam, secondMemberPredicateParam));
     }
 
     private XorPredicate(final Predicate<T> firstMemberPredicateParam, final Predicate<T> secondMemberPredicateParam) {
@@ -50,7 +43,40 @@ public final class XorPredicate<T> implements Predicate<T>, Serializable {
         secondeMemberPredicate = secondMemberPredicateParam;
     }
 
+    Predicate<T> getFirstMemberPredicate() {
+        return firstMemberPredicate;
+    }
+
+    Predicate<T> getSecondMemberPredicate() {
+        return secondeMemberPredicate;
+    }
+
     public boolean apply(final T inputParam) {
         return firstMemberPredicate.apply(inputParam) != secondeMemberPredicate.apply(inputParam);
     }
+
+    @Override
+    public boolean equals(final Object objectParam) {
+        if (this == objectParam) {
+            return true;
+        }
+        if (!(objectParam instanceof XorPredicate)) {
+            return false;
+        }
+        final XorPredicate<?> other = (XorPredicate<?>) objectParam;
+        return hashCode() == other.hashCode() && firstMemberPredicate.equals(other.firstMemberPredicate)
+                && secondeMemberPredicate.equals(other.secondeMemberPredicate);
+    }
+
+    @Override
+    public int hashCode() {
+        if (hash == 0) {
+            hash = (31 * firstMemberPredicate.hashCode() + secondeMemberPredicate.hashCode()) * 31 + 3;
+        }
+        return hash;
+    }
+
+    private Object readResolve() {
+        return PredicateCache.intern(this);
+    }
 }
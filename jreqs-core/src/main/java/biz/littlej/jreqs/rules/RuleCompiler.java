@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiles rule expressions to predicates built with {@link Predicates} and
+ * {@link biz.littlej.jreqs.predicates.PredicateOperations}, for rules kept in configuration:
+ * <pre>
+ * notNull &amp; !blank &amp; matches('[a-z]+')
+ * </pre>
+ * The grammar, from the lowest precedence to the highest:
+ * <pre>
+ * expression := xor ('|' xor)*
+ * xor        := and ('^' and)*
+ * and        := unary ('&amp;' unary)*
+ * unary      := '!' unary | '(' expression ')' | name | name '(' argument (',' argument)* ')'
+ * argument   := 'string' | "string" | number | expression
+ * </pre>
+ * The names without arguments are {@code true}, {@code false}, {@code null}, {@code notNull}, {@code blank},
+ * {@code empty}, {@code emptyCollection}, {@code positive}, {@code strictlyPositive}, {@code negative},
+ * {@code strictlyNegative}, {@code zero}, {@code isTrue}, {@code isFalse}, {@code past}, {@code future}, {@code url},
+ * {@code uri}, {@code file}, {@code directory}, {@code exists}, {@code readable}, {@code writable},
+ * {@code executable} and {@code hidden}.  The names with arguments are {@code matches('regex')}, which the
+ * whole string must match, as with {@code String.matches}, {@code equalTo(value)}, {@code instanceOf('class name')},
+ * and {@code allElements(expression)}, {@code oneElement(expression)} and {@code noElement(expression)} for iterables.
+ * In strings, only the quote and the backslash are escaped with a backslash.  Numbers with a decimal point are
+ * {@code BigDecimal}s, other numbers {@code Integer}s or {@code Long}s.
+ * <p/>
+ * Expressions are not type-checked: a predicate applied to an input of the wrong type throws a
+ * {@code ClassCastException}.
+ * <p/>
+ * Compiled expressions are cached by source text, so that the rules of a configuration are parsed once even if they
+ * are reloaded often.  The cache is bounded: when it is full, arbitrary expressions are evicted and compiled again
+ * the next time they are needed.  Instances are thread-safe.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class RuleCompiler {
+    /**
+     * The default maximum number of cached expressions.
+     */
+    public static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+    private final ConcurrentMap<String, Predicate<Object>> cache = new ConcurrentHashMap<String, Predicate<Object>>();
+    private final int maxCacheSize;
+
+    /**
+     * Constructor of a compiler that caches at most {@link #DEFAULT_MAX_CACHE_SIZE} expressions.
+     */
+    public RuleCompiler() {
+        this(DEFAULT_MAX_CACHE_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxCacheSizeParam The maximum number of cached expressions.  Must be strictly positive.
+     */
+    public RuleCompiler(final int maxCacheSizeParam) {
+        Reqs.parameterCondition(Predicates.strictlyPositive(), maxCacheSizeParam, "Maximum cache size parameter must be strictly positive.");
+        maxCacheSize = maxCacheSizeParam;
+    }
+
+    /**
+     * Returns the shared compiler.
+     *
+     * @return The compiler.
+     */
+    public static RuleCompiler getInstance() {
+        return SharedInstance.INSTANCE;
+    }
+
+    /**
+     * Compiles the specified expression, or returns the predicate to which it was already compiled.
+     *
+     * @param expressionParam The expression.  Must not be {@code null}.
+     * @return The predicate.
+     * @throws RuleSyntaxException if the expression is malformed.
+     */
+    public Predicate<Object> compile(final String expressionParam) {
+        Reqs.parameterCondition(Predicates.notNull(), expressionParam, "Expression parameter must not be null.");
+        final Predicate<Object> cached = cache.get(expressionParam);
+        if (cached != null) {
+            return cached;
+        }
+        final Predicate<Object> predicate = new RuleParser(expressionParam).parse();
+        if (cache.size() >= maxCacheSize) {
+            evict();
+        }
+        final Predicate<Object> raced = cache.putIfAbsent(expressionParam, predicate);
+        return raced == null ? predicate : raced;
+    }
+
+    /**
+     * Removes arbitrary expressions until the cache holds at most three quarters of its maximum, so that the next
+     * evictions are not triggered by every compilation.
+     */
+    private void evict() {
+        final int target = maxCacheSize - maxCacheSize / 4 - 1;
+        final Iterator<String> expressions = cache.keySet().iterator();
+        while (cache.size() > target && expressions.hasNext()) {
+            expressions.next();
+            expressions.remove();
+        }
+    }
+
+    /**
+     * @return The number of cached expressions.
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Empties the cache.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    /**
+     * Lazily creates the shared compiler.
+     */
+    private static final class SharedInstance {
+        private static final RuleCompiler INSTANCE = new RuleCompiler();
+    }
+}
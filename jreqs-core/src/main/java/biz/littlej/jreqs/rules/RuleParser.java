@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.PredicateOperations;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Recursive descent parser of rule expressions.  See {@link RuleCompiler} for the grammar.  Instances are not
+ * thread-safe: use one per expression.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+@SuppressWarnings({"unchecked", "rawtypes"})
+final class RuleParser {
+    private final String source;
+    private int position;
+
+    RuleParser(final String sourceParam) {
+        source = sourceParam;
+    }
+
+    Predicate<Object> parse() {
+        final Predicate<Object> predicate = or();
+        skipSpaces();
+        if (position < source.length()) {
+            throw error("Unexpected character '" + source.charAt(position) + "'");
+        }
+        return predicate;
+    }
+
+    private Predicate<Object> or() {
+        Predicate<Object> predicate = xor();
+        while (accept('|')) {
+            predicate = PredicateOperations.or(predicate, xor());
+        }
+        return predicate;
+    }
+
+    private Predicate<Object> xor() {
+        Predicate<Object> predicate = and();
+        while (accept('^')) {
+            predicate = PredicateOperations.xor(predicate, and());
+        }
+        return predicate;
+    }
+
+    private Predicate<Object> and() {
+        Predicate<Object> predicate = unary();
+        while (accept('&')) {
+            predicate = PredicateOperations.and(predicate, unary());
+        }
+        return predicate;
+    }
+
+    private Predicate<Object> unary() {
+        if (accept('!')) {
+            return PredicateOperations.not(unary());
+        }
+        if (accept('(')) {
+            final Predicate<Object> predicate = or();
+            expect(')');
+            return predicate;
+        }
+        return call();
+    }
+
+    private Predicate<Object> call() {
+        skipSpaces();
+        final int start = position;
+        final String name = identifier();
+        final List<Object> arguments = new ArrayList<Object>();
+        if (accept('(')) {
+            if (!accept(')')) {
+                do {
+                    arguments.add(argument());
+                } while (accept(','));
+                expect(')');
+            }
+        }
+        return predicate(name, arguments, start);
+    }
+
+    private Object argument() {
+        skipSpaces();
+        if (position < source.length()) {
+            final char c = source.charAt(position);
+            if (c == '\'' || c == '"') {
+                return string(c);
+            }
+            if (c == '-' || Character.isDigit(c)) {
+                return number();
+            }
+        }
+        return or();
+    }
+
+    private Predicate<Object> predicate(final String nameParam, final List<Object> argumentsParam, final int startParam) {
+        final int arity = argumentsParam.size();
+        if (nameParam.equals("matches")) {
+            return (Predicate) fullMatch(stringArgument(nameParam, argumentsParam, startParam), startParam);
+        }
+        if (nameParam.equals("equalTo")) {
+            checkArity(nameParam, arity, 1, startParam);
+            if (argumentsParam.get(0) instanceof Predicate) {
+                throw new RuleSyntaxException(nameParam + " takes a string or a number", source, startParam);
+            }
+            return Predicates.equalTo(argumentsParam.get(0));
+        }
+        if (nameParam.equals("instanceOf")) {
+            return Predicates.instanceOf(type(stringArgument(nameParam, argumentsParam, startParam), startParam));
+        }
+        if (nameParam.equals("allElements") || nameParam.equals("oneElement") || nameParam.equals("noElement")) {
+            checkArity(nameParam, arity, 1, startParam);
+            if (!(argumentsParam.get(0) instanceof Predicate)) {
+                throw new RuleSyntaxException(nameParam + " takes an expression", source, startParam);
+            }
+            final Predicate<?> elements = (Predicate<?>) argumentsParam.get(0);
+            final Predicate iterable = nameParam.equals("allElements") ? Predicates.allIterableElements(elements)
+                    : nameParam.equals("oneElement") ? Predicates.oneIterableElement(elements) : Predicates.noIterableElement(elements);
+            return iterable;
+        }
+        checkArity(nameParam, arity, 0, startParam);
+        final Predicate constant = constant(nameParam);
+        if (constant == null) {
+            throw new RuleSyntaxException("Unknown predicate '" + nameParam + "'", source, startParam);
+        }
+        return constant;
+    }
+
+    private static Predicate<?> constant(final String nameParam) {
+        switch (nameParam) {
+            case "true":
+                return Predicates.alwaysTrue();
+            case "false":
+                return Predicates.alwaysFalse();
+            case "null":
+                return Predicates.isNull();
+            case "notNull":
+                return Predicates.notNull();
+            case "blank":
+                return Predicates.blankString();
+            case "empty":
+                return Predicates.emptyCharSequence();
+            case "emptyCollection":
+                return Predicates.emptyCollection();
+            case "positive":
+                return Predicates.positive();
+            case "strictlyPositive":
+                return Predicates.strictlyPositive();
+            case "negative":
+                return Predicates.negative();
+            case "strictlyNegative":
+                return Predicates.strictlyNegative();
+            case "zero":
+                return Predicates.zero();
+            case "isTrue":
+                return Predicates.isTrue();
+            case "isFalse":
+                return Predicates.isFalse();
+            case "past":
+                return Predicates.past();
+            case "future":
+                return Predicates.future();
+            case "url":
+                return Predicates.isValidUrl();
+            case "uri":
+                return Predicates.isValidUri();
+            case "file":
+                return Predicates.isFile();
+            case "directory":
+                return Predicates.isDirectory();
+            case "exists":
+                return Predicates.existingFile();
+            case "readable":
+                return Predicates.readableFile();
+            case "writable":
+                return Predicates.writeableFile();
+            case "executable":
+                return Predicates.executableFile();
+            case "hidden":
+                return Predicates.hiddenFile();
+            default:
+                return null;
+        }
+    }
+
+    private String stringArgument(final String nameParam, final List<Object> argumentsParam, final int startParam) {
+        checkArity(nameParam, argumentsParam.size(), 1, startParam);
+        if (!(argumentsParam.get(0) instanceof String)) {
+            throw new RuleSyntaxException(nameParam + " takes a string", source, startParam);
+        }
+        return (String) argumentsParam.get(0);
+    }
+
+    private void checkArity(final String nameParam, final int arityParam, final int expectedParam, final int startParam) {
+        if (arityParam != expectedParam) {
+            throw new RuleSyntaxException(nameParam + " takes " + expectedParam + " argument(s), not " + arityParam, source, startParam);
+        }
+    }
+
+    private Class<?> type(final String nameParam, final int startParam) {
+        try {
+            return Class.forName(nameParam, false, RuleParser.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuleSyntaxException("Unknown class '" + nameParam + "'", source, startParam);
+        }
+    }
+
+    /**
+     * Returns a predicate that the whole input must match, as with {@code String.matches}.  The expression is
+     * checked on its own before being anchored, so that a stray parenthesis cannot escape the anchoring group.
+     */
+    private Predicate<CharSequence> fullMatch(final String regexParam, final int startParam) {
+        try {
+            Pattern.compile(regexParam);
+        } catch (PatternSyntaxException e) {
+            throw new RuleSyntaxException("Invalid regular expression '" + regexParam + "'", source, startParam);
+        }
+        return Predicates.containsPattern("\\A(?:" + regexParam + ")\\z");
+    }
+
+    private String identifier() {
+        final int start = position;
+        while (position < source.length() && Character.isJavaIdentifierPart(source.charAt(position))) {
+            position++;
+        }
+        if (start == position || !Character.isJavaIdentifierStart(source.charAt(start))) {
+            throw error(position < source.length() ? "Unexpected character '" + source.charAt(position) + "'" : "Unexpected end");
+        }
+        return source.substring(start, position);
+    }
+
+    private String string(final char quoteParam) {
+        final int start = position;
+        position++;
+        final StringBuilder value = new StringBuilder();
+        while (position < source.length()) {
+            final char c = source.charAt(position++);
+            if (c == quoteParam) {
+                return value.toString();
+            }
+            if (c == '\\' && position < source.length() && (source.charAt(position) == quoteParam || source.charAt(position) == '\\')) {
+                // Only quotes and backslashes are escaped, so that regular expressions can be written as they are.
+                value.append(source.charAt(position++));
+            } else {
+                value.append(c);
+            }
+        }
+        position = start;
+        throw error("Unterminated string");
+    }
+
+    private Object number() {
+        final int start = position;
+        if (source.charAt(position) == '-') {
+            position++;
+        }
+        while (position < source.length() && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+            position++;
+        }
+        final String text = source.substring(start, position);
+        try {
+            if (text.indexOf('.') >= 0) {
+                return new BigDecimal(text);
+            }
+            final long value = Long.parseLong(text);
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+    private boolean accept(final char charParam) {
+        skipSpaces();
+        if (position < source.length() && source.charAt(position) == charParam) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char charParam) {
+        if (!accept(charParam)) {
+            throw error("Expected '" + charParam + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private RuleSyntaxException error(final String messageParam) {
+        return new RuleSyntaxException(messageParam, source, position);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A registry of named rules, loaded from a file and reloaded while other threads keep evaluating them.
+ * <p/>
+ * The rules file has one rule per line, {@code name = expression}, where the expression is compiled by a
+ * {@link RuleCompiler}; blank lines and lines starting with {@code #} are ignored.  A name may be defined only once.
+ * <p/>
+ * The rules are held in an immutable map that is replaced as a whole by {@link #reload()}: readers never lock nor
+ * wait, and always see either all the old rules or all the new ones.  If the new file is invalid, the old rules stay.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class RuleRegistry {
+    private final Path file;
+    private final RuleCompiler compiler;
+    private final Object reloadLock = new Object();
+    private volatile Map<String, Predicate<Object>> rules = Collections.emptyMap();
+    private volatile FileTime loadedModificationTime;
+
+    private RuleRegistry(final Path fileParam, final RuleCompiler compilerParam) {
+        file = fileParam;
+        compiler = compilerParam;
+    }
+
+    /**
+     * Loads the rules of the specified file.
+     *
+     * @param fileParam     The rules file.  Must not be {@code null}.
+     * @param compilerParam The compiler of the expressions.  Must not be {@code null}.
+     * @return The registry.
+     * @throws IOException         if the file can't be read.
+     * @throws RuleSyntaxException if a rule is malformed or defined twice.
+     */
+    public static RuleRegistry load(final Path fileParam, final RuleCompiler compilerParam) throws IOException {
+        Reqs.parameterCondition(Predicates.notNull(), fileParam, "File parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), compilerParam, "Compiler parameter must not be null.");
+        final RuleRegistry registry = new RuleRegistry(fileParam, compilerParam);
+        registry.reload();
+        return registry;
+    }
+
+    /**
+     * Loads the rules of the specified file with the {@link RuleCompiler#getInstance() shared compiler}.
+     *
+     * @param fileParam The rules file.  Must not be {@code null}.
+     * @return The registry.
+     * @throws IOException         if the file can't be read.
+     * @throws RuleSyntaxException if a rule is malformed or defined twice.
+     */
+    public static RuleRegistry load(final Path fileParam) throws IOException {
+        return load(fileParam, RuleCompiler.getInstance());
+    }
+
+    /**
+     * Reads the file again and replaces all the rules at once.  Concurrent reloads are serialized; readers are not
+     * blocked.
+     *
+     * @throws IOException         if the file can't be read.  The current rules are kept.
+     * @throws RuleSyntaxException if a rule is malformed or defined twice.  The current rules are kept.
+     */
+    public void reload() throws IOException {
+        synchronized (reloadLock) {
+            final FileTime modificationTime = Files.getLastModifiedTime(file);
+            final Map<String, Predicate<Object>> loaded = new LinkedHashMap<String, Predicate<Object>>();
+            final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+            try {
+                int lineNumber = 0;
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    lineNumber++;
+                    final String trimmed = line.trim();
+                    if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                        continue;
+                    }
+                    final int equals = trimmed.indexOf('=');
+                    if (equals <= 0) {
+                        throw new RuleSyntaxException("Line " + lineNumber + " must be 'name = expression'", trimmed, 0);
+                    }
+                    final String name = trimmed.substring(0, equals).trim();
+                    final String expression = trimmed.substring(equals + 1).trim();
+                    if (loaded.containsKey(name)) {
+                        throw new RuleSyntaxException("Rule '" + name + "' at line " + lineNumber + " is already defined", trimmed, 0);
+                    }
+                    try {
+                        loaded.put(name, compiler.compile(expression));
+                    } catch (RuleSyntaxException e) {
+                        final RuleSyntaxException located = new RuleSyntaxException("Rule '" + name + "' at line " + lineNumber
+                                + ": " + e.getReason(), expression, e.getPosition());
+                        located.initCause(e);
+                        throw located;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            rules = Collections.unmodifiableMap(loaded);
+            loadedModificationTime = modificationTime;
+        }
+    }
+
+    /**
+     * Reloads the rules if the file was modified since they were last loaded.  Call it periodically to follow the
+     * changes of the file.
+     *
+     * @return {@code true} if the rules were reloaded.
+     * @throws IOException         if the file can't be read.  The current rules are kept.
+     * @throws RuleSyntaxException if a rule is malformed.  The current rules are kept.
+     */
+    public boolean reloadIfModified() throws IOException {
+        if (Files.getLastModifiedTime(file).equals(loadedModificationTime)) {
+            return false;
+        }
+        reload();
+        return true;
+    }
+
+    /**
+     * Returns the rule with the specified name.
+     *
+     * @param nameParam The name of the rule.
+     * @return The rule, or {@code null} if there is none with that name.
+     */
+    public Predicate<Object> get(final String nameParam) {
+        return rules.get(nameParam);
+    }
+
+    /**
+     * Evaluates the rule with the specified name.
+     *
+     * @param nameParam  The name of the rule.
+     * @param inputParam The input of the rule.
+     * @return The value to which the rule evaluates.
+     * @throws IllegalArgumentException if there is no rule with that name.
+     */
+    public boolean apply(final String nameParam, final Object inputParam) {
+        final Predicate<Object> rule = rules.get(nameParam);
+        if (rule == null) {
+            throw new IllegalArgumentException("Unknown rule: " + nameParam);
+        }
+        return rule.apply(inputParam);
+    }
+
+    /**
+     * Returns a consistent snapshot of all the rules, which later reloads do not change.
+     *
+     * @return The rules by name, in file order.
+     */
+    public Map<String, Predicate<Object>> getRules() {
+        return rules;
+    }
+}
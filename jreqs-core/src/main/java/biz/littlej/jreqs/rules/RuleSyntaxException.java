@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+/**
+ * Exception thrown if a rule expression is malformed.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class RuleSyntaxException extends IllegalArgumentException {
+
+    /**
+     * serialVersionUID.
+     */
+    private static final long serialVersionUID = 1L;
+    private final String reason;
+    private final String source;
+    private final int position;
+
+    /**
+     * Constructor.
+     *
+     * @param messageParam  The description of the error.
+     * @param sourceParam   The expression.
+     * @param positionParam The index of the character at which the error was detected.
+     */
+    public RuleSyntaxException(final String messageParam, final String sourceParam, final int positionParam) {
+        super(messageParam + " at position " + positionParam + " of: " + sourceParam);
+        reason = messageParam;
+        source = sourceParam;
+        position = positionParam;
+    }
+
+    /**
+     * @return The description of the error, without its location.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return The malformed expression.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return The index of the character at which the error was detected.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.schema;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A predicate that checks the fields of a bean or of a map, each with its own predicate.  This is a lightweight
+ * alternative to bean validation for hot paths:
+ * <pre>
+ * Schema&lt;User&gt; schema = Schema.forType(User.class)
+ *         .field("name", and(notNull(), not(blankString())))
+ *         .field("age", strictlyPositive())
+ *         .build();
+ * </pre>
+ * The field values are read by accessors resolved once when the schema is built: a getter ({@code getName()},
+ * {@code isName()} or {@code name()}, as for records) is called through a class generated with
+ * {@link LambdaMetafactory}, and a public field through a {@link MethodHandle}.  Map schemas read the value of the key.
+ * An evaluation is then one pass over the fields, without reflection.
+ * <p/>
+ * A field that is missing from a map has the value {@code null}.  Field predicates are applied to {@code null}
+ * values like to any other, so a field that may be {@code null} needs a null-safe predicate.
+ * <p/>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> The type of the validated objects.
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class Schema<T> implements Predicate<T> {
+    private final String[] names;
+    private final Function<Object, Object>[] accessors;
+    private final Predicate<Object>[] predicates;
+
+    @SuppressWarnings("unchecked")
+    private Schema(final List<String> namesParam, final List<Function<Object, Object>> accessorsParam,
+                   final List<Predicate<Object>> predicatesParam) {
+        names = namesParam.toArray(new String[0]);
+        accessors = accessorsParam.toArray(new Function[0]);
+        predicates = predicatesParam.toArray(new Predicate[0]);
+    }
+
+    /**
+     * Returns a builder of a schema for objects of the specified type, whose fields are read by getters or public
+     * fields.
+     *
+     * @param typeParam The type of the validated objects.  Must not be {@code null}.
+     * @param <T>       The type of the validated objects.
+     * @return The builder.
+     */
+    public static <T> Builder<T> forType(final Class<T> typeParam) {
+        Reqs.parameterCondition(Predicates.notNull(), typeParam, "Type parameter must not be null.");
+        return new Builder<T>(typeParam);
+    }
+
+    /**
+     * Returns a builder of a schema for maps, whose fields are the values of the keys.
+     *
+     * @return The builder.
+     */
+    public static Builder<Map<String, ?>> forMap() {
+        return new Builder<Map<String, ?>>(null);
+    }
+
+    /**
+     * Evaluates to {@code true} if all the fields of the input verify their predicates.  Stops at the first field
+     * that does not.
+     *
+     * @param inputParam The validated object.  Must not be {@code null}.
+     * @return {@code true} if the object is valid.
+     */
+    public boolean apply(final T inputParam) {
+        Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input object parameter must not be null.");
+        for (int i = 0; i < names.length; i++) {
+            if (!predicates[i].apply(accessors[i].apply(inputParam))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks all the fields of the input.
+     *
+     * @param inputParam The validated object.  Must not be {@code null}.
+     * @return The names of the fields that do not verify their predicates, in schema order.  It is empty, and not
+     *         allocated, if the object is valid.
+     */
+    public List<String> validate(final T inputParam) {
+        Reqs.parameterCondition(Predicates.notNull(), inputParam, "Input object parameter must not be null.");
+        List<String> failed = Collections.emptyList();
+        for (int i = 0; i < names.length; i++) {
+            if (!predicates[i].apply(accessors[i].apply(inputParam))) {
+                if (failed.isEmpty()) {
+                    failed = new ArrayList<String>();
+                }
+                failed.add(names[i]);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return The names of the fields, in schema order.
+     */
+    public List<String> getFieldNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    Function<Object, Object> getAccessor(final int indexParam) {
+        return accessors[indexParam];
+    }
+
+    /**
+     * Builds a {@link Schema}.  Builders are not thread-safe.
+     *
+     * @param <T> The type of the validated objects.
+     */
+    public static final class Builder<T> {
+        /**
+         * The type of the validated objects, or {@code null} for maps.
+         */
+        private final Class<T> type;
+        private final List<String> names = new ArrayList<String>();
+        private final List<Function<Object, Object>> accessors = new ArrayList<Function<Object, Object>>();
+        private final List<Predicate<Object>> predicates = new ArrayList<Predicate<Object>>();
+
+        private Builder(final Class<T> typeParam) {
+            type = typeParam;
+        }
+
+        /**
+         * Adds a field, read by the getter or the public field with that name, or by the key for map schemas.
+         *
+         * @param nameParam      The name of the field.  Must not be {@code null}.
+         * @param predicateParam The predicate that the value of the field must verify.  Must not be {@code null}.
+         * @return This builder.
+         * @throws IllegalArgumentException if the type has no accessible getter nor public field with that name.
+         */
+        public Builder<T> field(final String nameParam, final Predicate<?> predicateParam) {
+            Reqs.parameterCondition(Predicates.notNull(), nameParam, "Name parameter must not be null.");
+            return add(nameParam, type == null ? new KeyAccessor(nameParam) : Accessors.resolve(type, nameParam), predicateParam);
+        }
+
+        /**
+         * Adds a field read by the specified function, typically a method reference.
+         *
+         * @param nameParam      The name of the field.  Must not be {@code null}.
+         * @param accessorParam  The function that reads the field.  Must not be {@code null}.
+         * @param predicateParam The predicate that the value of the field must verify.  Must not be {@code null}.
+         * @return This builder.
+         */
+        @SuppressWarnings("unchecked")
+        public Builder<T> field(final String nameParam, final Function<? super T, ?> accessorParam, final Predicate<?> predicateParam) {
+            Reqs.parameterCondition(Predicates.notNull(), nameParam, "Name parameter must not be null.");
+            Reqs.parameterCondition(Predicates.notNull(), accessorParam, "Accessor parameter must not be null.");
+            return add(nameParam, (Function<Object, Object>) accessorParam, predicateParam);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Builder<T> add(final String nameParam, final Function<Object, Object> accessorParam, final Predicate<?> predicateParam) {
+            Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+            names.add(nameParam);
+            accessors.add(accessorParam);
+            predicates.add((Predicate<Object>) predicateParam);
+            return this;
+        }
+
+        /**
+         * @return The schema of the fields added so far.
+         */
+        public Schema<T> build() {
+            return new Schema<T>(names, accessors, predicates);
+        }
+    }
+
+    private static final class KeyAccessor implements Function<Object, Object> {
+        private final String key;
+
+        private KeyAccessor(final String keyParam) {
+            key = keyParam;
+        }
+
+        public Object apply(final Object inputParam) {
+            return ((Map<?, ?>) inputParam).get(key);
+        }
+    }
+
+    /**
+     * Resolves the accessors of bean fields.
+     */
+    static final class Accessors {
+        private static final MethodType FUNCTION_FACTORY = MethodType.methodType(Function.class);
+        private static final MethodType FUNCTION_APPLY = MethodType.methodType(Object.class, Object.class);
+
+        static Function<Object, Object> resolve(final Class<?> typeParam, final String nameParam) {
+            final String suffix = nameParam.isEmpty() ? nameParam
+                    : Character.toUpperCase(nameParam.charAt(0)) + nameParam.substring(1);
+            for (final String methodName : new String[]{"get" + suffix, "is" + suffix, nameParam}) {
+                final Method method = getter(typeParam, methodName);
+                if (method != null) {
+                    return generate(method, handle(typeParam, method));
+                }
+            }
+            try {
+                final Field field = typeParam.getField(nameParam);
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return new HandleAccessor(lookup(typeParam).unreflectGetter(field));
+                }
+            } catch (NoSuchFieldException e) {
+                // Reported below.
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Field '" + nameParam + "' of " + typeParam.getName() + " is not accessible.", e);
+            }
+            throw new IllegalArgumentException("No getter nor public field '" + nameParam + "' in " + typeParam.getName() + ".");
+        }
+
+        private static Method getter(final Class<?> typeParam, final String methodNameParam) {
+            try {
+                final Method method = typeParam.getMethod(methodNameParam);
+                if (method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers())
+                        || method.getDeclaringClass() == Object.class) {
+                    return null;
+                }
+                return method;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandles.Lookup lookup(final Class<?> typeParam) throws IllegalAccessException {
+            try {
+                return MethodHandles.privateLookupIn(typeParam, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                // The type is in a module that is not open to this one: public members only.
+                return MethodHandles.publicLookup();
+            }
+        }
+
+        private static MethodHandle handle(final Class<?> typeParam, final Method methodParam) {
+            try {
+                return lookup(typeParam).unreflect(methodParam);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Getter " + methodParam + " is not accessible.", e);
+            }
+        }
+
+        /**
+         * Spins a class implementing {@code Function} that calls the getter directly, so that the JIT compiler can
+         * inline it.  Falls back to the method handle if the getter's class can't be used as lookup class.
+         */
+        @SuppressWarnings("unchecked")
+        private static Function<Object, Object> generate(final Method methodParam, final MethodHandle handleParam) {
+            try {
+                final CallSite site = LambdaMetafactory.metafactory(MethodHandles.privateLookupIn(methodParam.getDeclaringClass(),
+                        MethodHandles.lookup()), "apply", FUNCTION_FACTORY, FUNCTION_APPLY, handleParam, handleParam.type().wrap());
+                return (Function<Object, Object>) site.getTarget().invoke();
+            } catch (Throwable t) {
+                return new HandleAccessor(handleParam);
+            }
+        }
+    }
+
+    static final class HandleAccessor implements Function<Object, Object> {
+        private final MethodHandle handle;
+
+        private HandleAccessor(final MethodHandle handleParam) {
+            handle = handleParam.asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        public Object apply(final Object inputParam) {
+            try {
+                return handle.invokeExact(inputParam);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new UndeclaredThrowableException(t);
+            }
+        }
+    }
+}
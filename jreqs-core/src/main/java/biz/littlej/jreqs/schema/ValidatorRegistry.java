@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.schema;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.PredicateOperations;
+import biz.littlej.jreqs.predicates.Predicates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A registry of the predicates that the instances of types must verify, such as the invariants of domain types.
+ * <p/>
+ * The predicate of a type combines, with AND, the predicates registered for the type and for all its supertypes: the
+ * superclasses from the most general one, each preceded by the interfaces it implements.  It is resolved once per type
+ * and kept in a {@link ClassValue}, so that {@link #forType(Class)} is a constant-time lookup.  The registered
+ * predicates are kept in a {@code ClassValue} too: neither the registrations nor the resolved predicates keep classes,
+ * nor their class loaders, from being collected.
+ * <p/>
+ * Instances are thread-safe.  Registrations are expected to happen at start-up: each one discards the resolved
+ * predicates, which are then resolved again on demand.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class ValidatorRegistry {
+    private final Object lock = new Object();
+    private final ClassValue<Registration> registered = new ClassValue<Registration>() {
+        @Override
+        protected Registration computeValue(final Class<?> typeParam) {
+            return new Registration();
+        }
+    };
+    private volatile ClassValue<Predicate<Object>> resolved = newResolved();
+
+    /**
+     * Registers a predicate that the instances of the specified type, and of its subtypes, must verify.  If a
+     * predicate is already registered for the type, both must be verified.
+     *
+     * @param typeParam      The type.  Must not be {@code null}.
+     * @param predicateParam The predicate.  Must not be {@code null}.
+     * @param <T>            The type.
+     * @return This registry.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ValidatorRegistry register(final Class<T> typeParam, final Predicate<? super T> predicateParam) {
+        Reqs.parameterCondition(Predicates.notNull(), typeParam, "Type parameter must not be null.");
+        Reqs.parameterCondition(Predicates.notNull(), predicateParam, "Predicate parameter must not be null.");
+        synchronized (lock) {
+            final Registration registration = registered.get(typeParam);
+            final Predicate<Object> existing = registration.predicate;
+            final Predicate<Object> predicate = (Predicate<Object>) predicateParam;
+            registration.predicate = existing == null ? predicate : PredicateOperations.and(existing, predicate);
+            resolved = newResolved();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the predicate that the instances of the specified type must verify.
+     *
+     * @param typeParam The type.  Must not be {@code null}.
+     * @return The predicate, which always evaluates to {@code true} if nothing is registered for the type nor its
+     *         supertypes.
+     */
+    public Predicate<Object> forType(final Class<?> typeParam) {
+        Reqs.parameterCondition(Predicates.notNull(), typeParam, "Type parameter must not be null.");
+        return resolved.get(typeParam);
+    }
+
+    /**
+     * Returns the predicate that the specified object must verify, according to its runtime type.
+     *
+     * @param objectParam The object.  Must not be {@code null}.
+     * @return The predicate.
+     */
+    public Predicate<Object> forType(final Object objectParam) {
+        Reqs.parameterCondition(Predicates.notNull(), objectParam, "Object parameter must not be null.");
+        return resolved.get(objectParam.getClass());
+    }
+
+    private ClassValue<Predicate<Object>> newResolved() {
+        return new ClassValue<Predicate<Object>>() {
+            @Override
+            protected Predicate<Object> computeValue(final Class<?> typeParam) {
+                return resolve(typeParam);
+            }
+        };
+    }
+
+    private Predicate<Object> resolve(final Class<?> typeParam) {
+        final List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+        for (Class<?> current = typeParam; current != null; current = current.getSuperclass()) {
+            hierarchy.add(0, current);
+        }
+        final List<Class<?>> visited = new ArrayList<Class<?>>();
+        Predicate<Object> predicate = null;
+        for (final Class<?> type : hierarchy) {
+            predicate = collect(type, visited, predicate);
+        }
+        return predicate == null ? Predicates.alwaysTrue() : predicate;
+    }
+
+    /**
+     * Adds the predicates of the interfaces of the specified type, then the predicate of the type itself.  Each type is
+     * visited once, even if it is reached through several paths.
+     */
+    private Predicate<Object> collect(final Class<?> typeParam, final List<Class<?>> visitedParam,
+                                      final Predicate<Object> predicateParam) {
+        if (visitedParam.contains(typeParam)) {
+            return predicateParam;
+        }
+        visitedParam.add(typeParam);
+        Predicate<Object> predicate = predicateParam;
+        for (final Class<?> implemented : typeParam.getInterfaces()) {
+            predicate = collect(implemented, visitedParam, predicate);
+        }
+        final Predicate<Object> own = registered.get(typeParam).predicate;
+        if (own == null) {
+            return predicate;
+        }
+        return predicate == null ? own : PredicateOperations.and(predicate, own);
+    }
+
+    /**
+     * The predicates registered for one type, combined with AND.  A registration that happens while a type is being
+     * resolved discards the resolution, so reading the predicates one by one is consistent.
+     */
+    private static final class Registration {
+        private volatile Predicate<Object> predicate;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.schema;
+
+import biz.littlej.jreqs.Reqs;
+import biz.littlej.jreqs.predicates.Predicate;
+
+/**
+ * Static access to a shared {@link ValidatorRegistry}, to replace chains of {@code instanceof} tests that choose the
+ * invariants of an object:
+ * <pre>
+ * Validators.register(Order.class, orderInvariants);
+ * ...
+ * Reqs.condition(Validators.forType(order), order, "Order must be consistent.");
+ * </pre>
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class Validators {
+    private static final ValidatorRegistry REGISTRY = new ValidatorRegistry();
+
+    /**
+     * Registers a predicate in the shared registry.
+     *
+     * @param typeParam      The type.  Must not be {@code null}.
+     * @param predicateParam The predicate that the instances of the type must verify.  Must not be {@code null}.
+     * @param <T>            The type.
+     * @see ValidatorRegistry#register(Class, Predicate)
+     */
+    public static <T> void register(final Class<T> typeParam, final Predicate<? super T> predicateParam) {
+        REGISTRY.register(typeParam, predicateParam);
+    }
+
+    /**
+     * Returns the predicate that the specified object must verify, according to its runtime type.
+     *
+     * @param objectParam The object.  Must not be {@code null}.
+     * @return The predicate.
+     * @see ValidatorRegistry#forType(Object)
+     */
+    public static Predicate<Object> forType(final Object objectParam) {
+        return REGISTRY.forType(objectParam);
+    }
+
+    /**
+     * Checks that the specified object verifies the predicate of its type.
+     *
+     * @param objectParam  The object.  Must not be {@code null}.
+     * @param messageParam The explanatory message that will be appended to the exception if the object is invalid.
+     * @throws biz.littlej.jreqs.RequirementException if the object is invalid.
+     */
+    public static void condition(final Object objectParam, final String messageParam) {
+        Reqs.condition(REGISTRY.forType(objectParam), objectParam, messageParam);
+    }
+
+    /**
+     * @return The shared registry.
+     */
+    public static ValidatorRegistry getRegistry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private Validators() {
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.PathAttribute;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.PredicateOperations;
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks how many bytes the predicates and the {@link Reqs} methods allocate per call on the passing path, so that a
+ * change that introduces allocation on a hot path fails the build.  Each entry is warmed up, then measured once with
+ * the allocation counter of the current thread.
+ * <p/>
+ * The build runs this test with escape analysis disabled, so that the measures do not depend on what the JIT compiler
+ * has scalar-replaced so far: a zero budget means that the call allocates nothing by construction.  Most budgets are
+ * zero.  The exceptions allocate by nature: matchers for patterns, parsers for URLs and URIs, the file predicates,
+ * whose I/O goes through the JDK's file system classes, and the fluent parameter checks, which create their checker.
+ * Their budgets leave about twice the measured allocation, to catch a regression without failing on a JDK update.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class AllocationBudgetTest {
+    private static final int WARM_UP_CALLS = 50000;
+    private static final int MEASURED_CALLS = 10000;
+    private static final String MESSAGE = "Allocation budget.";
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static ExecutorService executor;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> failures = new ArrayList<String>();
+
+    @BeforeClass
+    public static void setUpClass() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testObjectPredicates() {
+        final Object object = new Object();
+        budget("isNull", 0, Predicates.isNull(), null);
+        budget("notNull", 0, Predicates.notNull(), object);
+        budget("alwaysTrue", 0, Predicates.alwaysTrue(), object);
+        budget("not(alwaysFalse)", 0, PredicateOperations.not(Predicates.alwaysFalse()), object);
+        budget("equalTo", 0, Predicates.<String>equalTo("value"), "value");
+        budget("instanceOf", 0, Predicates.instanceOf(CharSequence.class), "value");
+        budget("assignableFrom", 0, Predicates.assignableFrom(CharSequence.class), String.class);
+        budget("allInstanceOf", 0, Predicates.allInstanceOf(CharSequence.class), Arrays.asList("a", "b", "c"));
+        budget("isTrue", 0, Predicates.isTrue(), Boolean.TRUE);
+        budget("isFalse", 0, Predicates.isFalse(), Boolean.FALSE);
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testCollectionAndIterablePredicates() {
+        final Collection<String> elements = Arrays.asList("a", "b", "c");
+        final Predicate<String> notBlank = Predicates.notBlankString();
+        budget("notEmptyCollection", 0, Predicates.notEmptyCollection(), elements);
+        budget("emptyCollection", 0, Predicates.emptyCollection(), Collections.emptyList());
+        budget("allIterableElements", 0, Predicates.allIterableElements(notBlank), elements);
+        budget("oneIterableElement", 0, Predicates.oneIterableElement(Predicates.equalTo("b")), elements);
+        budget("noIterableElement", 0, Predicates.noIterableElement(Predicates.equalTo("d")), elements);
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testCharSequencePredicates() {
+        budget("emptyCharSequence", 0, Predicates.emptyCharSequence(), "");
+        budget("notEmptyCharSequence", 0, Predicates.notEmptyCharSequence(), "value");
+        budget("blankString", 0, Predicates.blankString(), "  ");
+        budget("notBlankString", 0, Predicates.notBlankString(), " value ");
+        budget("containsPattern(String)", 256, Predicates.containsPattern("[0-9]+"), "abc123");
+        budget("containsPattern(Pattern)", 256, Predicates.containsPattern(Pattern.compile("[0-9]+")), "abc123");
+        budget("isValidUrl", 1024, Predicates.isValidUrl(), "http://www.littlej.biz/jreqs?page=1");
+        budget("isValidUri", 1024, Predicates.isValidUri(), "http://www.littlej.biz/jreqs?page=1");
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testNumberAndDatePredicates() {
+        final Integer one = Integer.valueOf(1);
+        final Integer minusOne = Integer.valueOf(-1);
+        final Calendar past = Calendar.getInstance();
+        past.add(Calendar.YEAR, -1);
+        final Calendar future = Calendar.getInstance();
+        future.add(Calendar.YEAR, 1);
+        budget("negative", 0, Predicates.negative(), minusOne);
+        budget("strictlyNegative", 0, Predicates.strictlyNegative(), minusOne);
+        budget("positive", 0, Predicates.positive(), one);
+        budget("strictlyPositive", 0, Predicates.strictlyPositive(), one);
+        budget("zero", 0, Predicates.zero(), Integer.valueOf(0));
+        budget("past", 0, Predicates.past(), past);
+        budget("future", 0, Predicates.future(), future);
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testFilePredicates() throws IOException {
+        final File file = folder.newFile("budget.txt");
+        final byte[] content = "jreqs\n".getBytes(StandardCharsets.US_ASCII);
+        Files.write(file.toPath(), content);
+        assertTrue("The test file must be executable.", file.setExecutable(true));
+        final Path path = file.toPath();
+        final CRC32C crc = new CRC32C();
+        crc.update(content);
+        budget("writeableFile", 256, Predicates.writeableFile(), file);
+        budget("readableFile", 256, Predicates.readableFile(), file);
+        budget("executableFile", 256, Predicates.executableFile(), file);
+        budget("not(hiddenFile)", 256, PredicateOperations.not(Predicates.hiddenFile()), file);
+        budget("not(isDirectory)", 256, PredicateOperations.not(Predicates.isDirectory()), file);
+        budget("isFile", 256, Predicates.isFile(), file);
+        budget("existingFile", 256, Predicates.existingFile(), file);
+        budget("pathWithAttributes", 256, Predicates.pathWithAttributes(PathAttribute.REGULAR_FILE, PathAttribute.READABLE), path);
+        budget("fileStartingWith", 1024, Predicates.fileStartingWith("jreqs".getBytes(StandardCharsets.US_ASCII)), path);
+        budget("fileNotLargerThan", 1024, Predicates.fileNotLargerThan(1024), path);
+        budget("fileEndingWithNewline", 1024, Predicates.fileEndingWithNewline(), path);
+        budget("fileWithCrc32c", 1024, Predicates.fileWithCrc32c(crc.getValue()), path);
+        budget("fileWithoutNulBytes", 1024, Predicates.fileWithoutNulBytes(), path);
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testComposites() {
+        final Predicate<String> notNull = Predicates.notNull();
+        final Predicate<String> notBlank = Predicates.notBlankString();
+        final Predicate<String> alwaysFalse = Predicates.alwaysFalse();
+        budget("and", 0, PredicateOperations.and(notNull, notBlank), "value");
+        budget("or", 0, PredicateOperations.or(alwaysFalse, notBlank), "value");
+        budget("xor", 0, PredicateOperations.xor(alwaysFalse, notBlank), "value");
+        budget("not", 0, PredicateOperations.not(alwaysFalse), "value");
+        budget("nand", 0, PredicateOperations.nand(alwaysFalse, notBlank), "value");
+        budget("nor", 0, PredicateOperations.nor(alwaysFalse, alwaysFalse), "value");
+        budget("nested", 0, PredicateOperations.and(PredicateOperations.or(alwaysFalse, notNull),
+                PredicateOperations.not(PredicateOperations.and(alwaysFalse, notBlank))), "value");
+        budget("parallelAnd", 0, PredicateOperations.parallelAnd(executor, Long.MAX_VALUE, notNull, notBlank), "value");
+        budget("parallelOr", 0, PredicateOperations.parallelOr(executor, Long.MAX_VALUE, alwaysFalse, notBlank), "value");
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testReqs() {
+        final Predicate<String> notBlank = Predicates.notBlankString();
+        final Requirement<String> requirement = Requirement.parameter(notBlank, "value");
+        budget("Reqs.parameterCondition", 0, () -> {
+            Reqs.parameterCondition(notBlank, "value", MESSAGE);
+            return true;
+        });
+        budget("Reqs.condition", 0, () -> {
+            Reqs.condition(notBlank, "value", MESSAGE);
+            return true;
+        });
+        budget("Reqs.preCondition", 0, () -> {
+            Reqs.preCondition(notBlank, "value", MESSAGE);
+            return true;
+        });
+        budget("Reqs.postCondition", 0, () -> {
+            Reqs.postCondition(notBlank, "value", MESSAGE);
+            return true;
+        });
+        budget("Reqs.check", 0, () -> Reqs.check(requirement, "value").isPassed());
+        assertWithinBudgets();
+    }
+
+    @Test
+    public void testParameterChecks() {
+        final Predicate<String> notBlankString = Predicates.notBlankString();
+        final Integer count = Integer.valueOf(3);
+        final Pattern login = Pattern.compile("[a-z][a-z0-9]*");
+        budget("Reqs.checkParam(String)", 48, () -> {
+            Reqs.checkParam("jdoe42", "login").notNull().notEmpty().notBlank().minLength(2).maxLength(64)
+                    .satisfies(notBlankString, MESSAGE);
+            return true;
+        });
+        budget("Reqs.checkParam(String).matches", 256, () -> {
+            Reqs.checkParam("jdoe42", "login").notNull().notBlank().maxLength(64).matches(login);
+            return true;
+        });
+        budget("Reqs.checkParam(Object)", 48, () -> {
+            Reqs.checkParam(count, "count").notNull().satisfies(Predicates.strictlyPositive(), MESSAGE);
+            return true;
+        });
+        assertWithinBudgets();
+    }
+
+    private <T> void budget(final String nameParam, final long bytesPerCallParam, final Predicate<? super T> predicateParam,
+                            final T inputParam) {
+        budget(nameParam, bytesPerCallParam, () -> predicateParam.apply(inputParam));
+    }
+
+    /**
+     * Records a failure if the call does not pass, or if it allocates more than the budget.
+     */
+    private void budget(final String nameParam, final long bytesPerCallParam, final BooleanSupplier callParam) {
+        if (!callParam.getAsBoolean()) {
+            failures.add(nameParam + ": the call does not pass.");
+            return;
+        }
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            callParam.getAsBoolean();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            callParam.getAsBoolean();
+        }
+        final long bytesPerCall = (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS;
+        if (bytesPerCall > bytesPerCallParam) {
+            failures.add(nameParam + ": " + bytesPerCall + " bytes per call, budget is " + bytesPerCallParam + ".");
+        }
+    }
+
+    private void assertWithinBudgets() {
+        if (!failures.isEmpty()) {
+            fail("Allocation budgets exceeded: " + failures);
+        }
+    }
+}
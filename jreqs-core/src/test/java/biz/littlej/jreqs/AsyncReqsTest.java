@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.AsyncPredicate;
+import biz.littlej.jreqs.predicates.AsyncPredicates;
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AsyncReqs}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class AsyncReqsTest {
+    private static final AsyncPredicate<Object> ALWAYS_TRUE = AsyncPredicates.fromPredicate(Predicates.alwaysTrue());
+    private static final AsyncPredicate<Object> ALWAYS_FALSE = AsyncPredicates.fromPredicate(Predicates.alwaysFalse());
+
+    private static Throwable failureOf(final CompletableFuture<Void> futureParam) throws Exception {
+        try {
+            futureParam.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        return null;
+    }
+
+    @Test
+    public void testVerifiedConditions() throws Exception {
+        assertNull("Verified condition should complete normally.", failureOf(AsyncReqs.parameterCondition(ALWAYS_TRUE, null, "m")));
+        assertNull("Verified condition should complete normally.", failureOf(AsyncReqs.condition(ALWAYS_TRUE, null, "m")));
+        assertNull("Verified condition should complete normally.", failureOf(AsyncReqs.preCondition(ALWAYS_TRUE, null, "m")));
+        assertNull("Verified condition should complete normally.", failureOf(AsyncReqs.postCondition(ALWAYS_TRUE, null, "m")));
+    }
+
+    @Test
+    public void testExceptionTypes() throws Exception {
+        assertTrue("Parameter condition should fail with IllegalArgumentException.",
+                failureOf(AsyncReqs.parameterCondition(ALWAYS_FALSE, null, "m")) instanceof IllegalArgumentException);
+        assertEquals("Condition should fail with RequirementException.", RequirementException.class,
+                failureOf(AsyncReqs.condition(ALWAYS_FALSE, null, "m")).getClass());
+        assertTrue("Pre-condition should fail with PreConditionException.",
+                failureOf(AsyncReqs.preCondition(ALWAYS_FALSE, null, "m")) instanceof PreConditionException);
+        assertTrue("Post-condition should fail with PostConditionException.",
+                failureOf(AsyncReqs.postCondition(ALWAYS_FALSE, null, "m")) instanceof PostConditionException);
+    }
+
+    @Test
+    public void testFailingPredicateIsWrapped() throws Exception {
+        final AsyncPredicate<Boolean> isTrue = AsyncPredicates.fromPredicate(Predicates.isTrue());
+        final Throwable failure = failureOf(AsyncReqs.preCondition(isTrue, null, "m"));
+        assertTrue("Failing predicate should be wrapped in a PreConditionException.", failure instanceof PreConditionException);
+        assertTrue("Cause should be the predicate failure.", failure.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testFailureIsStructured() throws Exception {
+        final Throwable failure = failureOf(AsyncReqs.condition(ALWAYS_FALSE, "value", "m"));
+        assertEquals("Message should be rendered like the synchronous one.", "Requirement not verified: m", failure.getMessage());
+        assertEquals("Category should be reported.", RequirementCategory.CONDITION,
+                ((RequirementFailure) failure).getCategory());
+    }
+
+    @Test
+    public void testOtherFailuresAreNotWrapped() throws Exception {
+        final AsyncPredicate<Object> failing = new AsyncPredicate<Object>() {
+            public CompletableFuture<Boolean> apply(final Object inputParam) {
+                final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+                result.completeExceptionally(new IllegalStateException("broken"));
+                return result;
+            }
+        };
+        assertEquals("Other failures should be passed through unchanged.", IllegalStateException.class,
+                failureOf(AsyncReqs.condition(failing, null, "m")).getClass());
+    }
+}
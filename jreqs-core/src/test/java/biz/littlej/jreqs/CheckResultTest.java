@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import org.junit.Test;
+
+import static biz.littlej.jreqs.predicates.Predicates.notBlankString;
+import static biz.littlej.jreqs.predicates.Predicates.notNull;
+import static biz.littlej.jreqs.predicates.Predicates.strictlyPositive;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Reqs#check(Requirement, Object)} and {@link CheckResult}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class CheckResultTest {
+    private static final Requirement<String> NAME = Requirement.parameter(notBlankString(), "Name must not be blank.");
+    private static final Requirement<Number> AGE = Requirement.preCondition(strictlyPositive(), "Age must be strictly positive.");
+
+    @Test
+    public void testOutcomesAreShared() {
+        assertSame("Success should be the shared result.", CheckResult.PASSED, Reqs.check(NAME, "Ada"));
+        final CheckResult failed = Reqs.check(NAME, " ");
+        assertFalse("Blank name should fail.", failed.isPassed());
+        assertSame("Failure should name the requirement.", NAME, failed.getRequirement());
+        assertSame("Failures should be the same instance.", failed, Reqs.check(NAME, ""));
+        assertEquals("Error code should be the category one.", "jreqs.parameter", failed.getErrorCode());
+        assertNull("Success should have no category.", CheckResult.PASSED.getCategory());
+    }
+
+    @Test
+    public void testChaining() {
+        assertSame("All checks should pass.", CheckResult.PASSED, Reqs.check(NAME, "Ada").and(AGE, 36));
+        assertSame("Second check should fail.", AGE, Reqs.check(NAME, "Ada").and(AGE, 0).getRequirement());
+        assertSame("First failure should win.", NAME, Reqs.check(NAME, "").and(AGE, 0).getRequirement());
+    }
+
+    @Test
+    public void testOrThrow() {
+        CheckResult.PASSED.orThrow();
+        try {
+            Reqs.check(NAME, "").orThrow("");
+            fail("Failed parameter check should throw.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Message should be the Reqs one.", "Parameter requirement not verified: Name must not be blank.", e.getMessage());
+            assertEquals("Value should be described.", "java.lang.String: ", e.getValueDescription());
+        }
+        try {
+            Reqs.check(AGE, -1).orThrow();
+            fail("Failed pre-condition check should throw.");
+        } catch (PreConditionException e) {
+            assertEquals("Category should be kept.", RequirementCategory.PRE_CONDITION, e.getCategory());
+            assertNull("Unknown value should not be described.", e.getValueDescription());
+        }
+    }
+
+    @Test
+    public void testFailingPredicate() {
+        final Requirement<Object> broken = Requirement.condition(new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                throw new IllegalArgumentException("Broken.");
+            }
+        }, "Broken requirement.");
+        assertSame("Failing predicate should fail the check.", broken, Reqs.check(broken, null).getRequirement());
+        try {
+            Requirement.condition(null, "No predicate.");
+            fail("Null predicate should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        assertSame("Requirement on any object should check strings.", CheckResult.PASSED,
+                Reqs.check(Requirement.condition(notNull(), "Not null."), "x"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullRequirement() {
+        Reqs.check(null, "x");
+    }
+}
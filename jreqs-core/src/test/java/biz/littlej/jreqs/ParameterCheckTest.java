@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ParameterCheck} and {@link StringParameterCheck}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ParameterCheckTest {
+    private static final Pattern LOGIN = Pattern.compile("[a-z][a-z0-9]*");
+
+    @Test
+    public void testPassingChains() {
+        Reqs.checkParam("jdoe42", "login").notNull().notEmpty().notBlank().minLength(2).maxLength(64).matches(LOGIN)
+                .satisfies(Predicates.notBlankString(), "login must not be blank.");
+        Reqs.checkParam(Integer.valueOf(3), "count").notNull().satisfies(Predicates.strictlyPositive(), "count must be strictly positive.");
+    }
+
+    @Test
+    public void testFirstFailureIsThrown() {
+        assertFailure("login must not be blank.", "   ", 64);
+        assertFailure("login must be at most 4 characters long.", "jdoe42", 4);
+        assertFailure("login must match [a-z][a-z0-9]*.", "JDoe", 64);
+        try {
+            Reqs.checkParam("", "login").minLength(1);
+            fail("Too short parameter should fail.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Message should name the parameter and the requirement.",
+                    "Parameter requirement not verified: login must be at least 1 characters long.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNullFailsEveryCheck() {
+        assertFailure("login must not be null.", null, 64);
+        try {
+            Reqs.checkParam((String) null, "login").maxLength(64);
+            fail("Null parameter should fail a length check.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Null parameter should fail as not null.", "Parameter requirement not verified: login must not be null.", e.getMessage());
+            assertSame("Failure should report the not-null predicate.", Predicates.notNull(), e.getPredicate());
+        }
+        try {
+            Reqs.checkParam((Object) null, "order").satisfies(Predicates.alwaysTrue(), "order must be valid.");
+            fail("Null parameter should fail before the predicate is applied.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Null parameter should fail as not null.", "Parameter requirement not verified: order must not be null.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSatisfiesNamesTheParameter() {
+        try {
+            Reqs.checkParam(Integer.valueOf(-1), "count").notNull().satisfies(Predicates.strictlyPositive(), "must be strictly positive.");
+            fail("Negative parameter should fail.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Message should name the parameter.", "Parameter requirement not verified: count: must be strictly positive.", e.getMessage());
+        }
+        try {
+            Reqs.checkParam(" ", "login").notNull().satisfies(Predicates.notBlankString(), "must not be blank.");
+            fail("Blank parameter should fail.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Message should name the parameter.", "Parameter requirement not verified: login: must not be blank.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testPredicateExceptionIsTheCause() {
+        final IllegalArgumentException cause = new IllegalArgumentException("Broken predicate.");
+        try {
+            Reqs.checkParam("value", "name").satisfies(inputParam -> {
+                throw cause;
+            }, "name must be valid.");
+            fail("Predicate exception should fail the check.");
+        } catch (ParameterRequirementException e) {
+            assertSame("Predicate exception should be the cause.", cause, e.getCause());
+            assertEquals("Category should be the parameter category.", RequirementCategory.PARAMETER, e.getCategory());
+        }
+    }
+
+    private static void assertFailure(final String expectedKeyParam, final String valueParam, final int maxLengthParam) {
+        try {
+            Reqs.checkParam(valueParam, "login").notNull().notBlank().maxLength(maxLengthParam).matches(LOGIN);
+            fail("Chain should fail with: " + expectedKeyParam);
+        } catch (ParameterRequirementException e) {
+            assertEquals("Call site key should name the parameter and the first failed requirement.", expectedKeyParam, e.getCallSiteKey());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link RequirementFailure structured failures} thrown by {@link Reqs}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class RequirementFailureTest {
+    /**
+     * Value that counts how many times it is rendered.
+     */
+    private static final class Counted {
+        private int renderings;
+
+        @Override
+        public String toString() {
+            renderings++;
+            return "counted";
+        }
+    }
+
+    @Test
+    public void testStructuredFields() {
+        final Predicate<Object> predicate = Predicates.alwaysFalse();
+        final Counted value = new Counted();
+        try {
+            Reqs.parameterCondition(predicate, value, "Value parameter must be valid.");
+            fail("Parameter condition should throw.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Category should be the parameter one.", RequirementCategory.PARAMETER, e.getCategory());
+            assertEquals("Call site key should be the message.", "Value parameter must be valid.", e.getCallSiteKey());
+            assertSame("Predicate should be kept.", predicate, e.getPredicate());
+            assertEquals("Error code should be the category one.", "jreqs.parameter", e.getErrorCode());
+            assertEquals("Value should not be rendered until needed.", 0, value.renderings);
+            assertEquals("Value description should give its class and text.", Counted.class.getName() + ": counted", e.getValueDescription());
+            e.getValueDescription();
+            assertEquals("Value description should be rendered once.", 1, value.renderings);
+            assertEquals("Message should be rendered.", "Parameter requirement not verified: Value parameter must be valid.", e.getMessage());
+            assertSame("Message should be rendered once.", e.getMessage(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCategories() {
+        final Predicate<Object> no = Predicates.alwaysFalse();
+        try {
+            Reqs.preCondition(no, "x", "Pre.");
+            fail("Pre-condition should throw.");
+        } catch (PreConditionException e) {
+            assertEquals("Pre-condition category expected.", RequirementCategory.PRE_CONDITION, e.getCategory());
+            assertEquals("Pre-condition message expected.", "Pre-condition not verified: Pre.", e.getMessage());
+        }
+        try {
+            Reqs.postCondition(no, "x", "Post.");
+            fail("Post-condition should throw.");
+        } catch (PostConditionException e) {
+            assertEquals("Post-condition code expected.", "jreqs.postcondition", e.getErrorCode());
+        }
+        try {
+            Reqs.condition(no, "x", "Condition.");
+            fail("Condition should throw.");
+        } catch (RequirementException e) {
+            assertEquals("Condition category expected.", RequirementCategory.CONDITION, e.getCategory());
+        }
+        assertEquals("Legacy exceptions should have the category of their class.", RequirementCategory.PRE_CONDITION,
+                new PreConditionException("legacy").getCategory());
+        assertNull("Legacy exceptions should have no call site key.", new RequirementException("legacy").getCallSiteKey());
+    }
+
+    @Test
+    public void testNestedFailuresDoNotConcatenateTheChain() {
+        final Predicate<Integer> deep = new Predicate<Integer>() {
+            public boolean apply(final Integer depthParam) {
+                if (depthParam > 0) {
+                    Reqs.condition(this, depthParam - 1, "Level " + (depthParam - 1) + ".");
+                }
+                return false;
+            }
+        };
+        try {
+            Reqs.parameterCondition(deep, 50, "Top.");
+            fail("Nested conditions should throw.");
+        } catch (ParameterRequirementException e) {
+            assertEquals("Message should only summarize the direct cause.",
+                    "Parameter requirement not verified: Top. - Triggered by: Requirement not verified: Level 49.", e.getMessage());
+            int depth = 0;
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                depth++;
+            }
+            assertEquals("Each level should wrap the previous one once.", 50, depth);
+        }
+    }
+
+    @Test
+    public void testPredicateFailureIsNotWrappedTwice() {
+        final Predicate<Object> failing = new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                throw new IllegalArgumentException("Broken.");
+            }
+        };
+        try {
+            Reqs.condition(failing, null, "Condition.");
+            fail("Failing predicate should throw.");
+        } catch (RequirementException e) {
+            assertEquals("Message should summarize the cause.", "Requirement not verified: Condition. - Triggered by: Broken.", e.getMessage());
+            assertNull("Cause should be the predicate exception.", e.getCause().getCause());
+            assertEquals("Null value description expected.", "null", e.getValueDescription());
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        RequirementException thrown = null;
+        try {
+            Reqs.condition(Predicates.alwaysFalse(), new StringBuilder("value"), "Condition.");
+        } catch (RequirementException e) {
+            thrown = e;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(thrown);
+        out.close();
+        final RequirementException copy = (RequirementException) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals("Message should survive serialization.", thrown.getMessage(), copy.getMessage());
+        assertEquals("Value description should survive serialization.", "java.lang.StringBuilder: value", copy.getValueDescription());
+        assertNull("Predicate should not be serialized.", copy.getPredicate());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AsyncPredicates}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class AsyncPredicatesTest {
+    /**
+     * Blocks until interrupted, then counts down the latch.
+     */
+    private static Predicate<Object> blocking(final CountDownLatch startedParam, final CountDownLatch interruptedParam) {
+        return new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                startedParam.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interruptedParam.countDown();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Waits for the latch before evaluating to the specified value.
+     */
+    private static Predicate<Object> after(final CountDownLatch latchParam, final boolean valueParam) {
+        return new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                try {
+                    latchParam.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return valueParam;
+            }
+        };
+    }
+
+    @Test
+    public void testFromPredicate() throws Exception {
+        assertTrue("AlwaysTrue should evaluate to true.", AsyncPredicates.fromPredicate(Predicates.alwaysTrue()).apply(null).get());
+        assertFalse("AlwaysFalse should evaluate to false.", AsyncPredicates.fromPredicate(Predicates.alwaysFalse()).apply(null).get());
+    }
+
+    @Test
+    public void testAndShortCircuitsAndCancels() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AsyncPredicate<Object> p = AsyncPredicates.and(AsyncPredicates.fromPredicate(blocking(started, interrupted)),
+                AsyncPredicates.fromPredicate(after(started, false)));
+        assertFalse("AND with a false member should evaluate to false.", p.apply(new Object()).get(10, TimeUnit.SECONDS));
+        assertTrue("Pending member should be interrupted.", interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOrShortCircuitsAndCancels() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AsyncPredicate<Object> p = AsyncPredicates.or(AsyncPredicates.fromPredicate(after(started, true)),
+                AsyncPredicates.fromPredicate(blocking(started, interrupted)));
+        assertTrue("OR with a true member should evaluate to true.", p.apply(new Object()).get(10, TimeUnit.SECONDS));
+        assertTrue("Pending member should be interrupted.", interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAndOrWithoutDecisiveMember() throws Exception {
+        final AsyncPredicate<Object> t = AsyncPredicates.fromPredicate(Predicates.alwaysTrue());
+        final AsyncPredicate<Object> f = AsyncPredicates.fromPredicate(Predicates.alwaysFalse());
+        assertTrue("AND of true members should evaluate to true.", AsyncPredicates.and(t, t).apply(null).get());
+        assertFalse("OR of false members should evaluate to false.", AsyncPredicates.or(f, f).apply(null).get());
+        assertTrue("NOT of false should evaluate to true.", AsyncPredicates.not(f).apply(null).get());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final AsyncPredicate<Object> p = AsyncPredicates.withTimeout(AsyncPredicates.fromPredicate(blocking(started, interrupted)),
+                50, TimeUnit.MILLISECONDS);
+        try {
+            p.apply(new Object()).get(10, TimeUnit.SECONDS);
+            fail("Evaluation should time out.");
+        } catch (ExecutionException e) {
+            assertTrue("Cause should be a timeout.", e.getCause() instanceof TimeoutException);
+        }
+        assertTrue("Late evaluation should be interrupted or never started.",
+                started.getCount() == 1 || interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link DirectoryTreeValidator}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class DirectoryTreeValidatorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private ForkJoinPool pool;
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        root = folder.getRoot().toPath();
+        final Path sub = Files.createDirectory(root.resolve("sub"));
+        for (int i = 0; i < 50; i++) {
+            Files.write(sub.resolve("file" + i + ".txt"), new byte[i]);
+        }
+        Files.createFile(sub.resolve(".hidden"));
+        Files.createDirectory(root.resolve(".git"));
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testAllViolationsReported() throws IOException {
+        final Set<Path> violations = Collections.synchronizedSet(new HashSet<Path>());
+        final DirectoryTreeValidator validator = new DirectoryTreeValidator(
+                Predicates.pathWithAttributes(PathAttribute.REGULAR_FILE, PathAttribute.NOT_HIDDEN),
+                Predicates.pathWithAttributes(PathAttribute.NOT_HIDDEN), pool, 3, false);
+        final long count = validator.validate(root, new DirectoryTreeValidator.ViolationListener() {
+            public void violation(final Path pathParam, final Exception causeParam) {
+                violations.add(pathParam);
+            }
+        });
+        assertEquals("There should be 2 violations.", 2, count);
+        assertTrue("Hidden file should be reported.", violations.contains(root.resolve("sub").resolve(".hidden")));
+        assertTrue("Hidden directory should be reported.", violations.contains(root.resolve(".git")));
+    }
+
+    @Test
+    public void testSizeLimit() throws IOException {
+        final DirectoryTreeValidator validator = new DirectoryTreeValidator(
+                PathAttributesPredicate.getInstance(Collections.<PathAttribute>emptySet(),
+                        Collections.<PosixFilePermission>emptySet(), 39),
+                Predicates.<Path>alwaysTrue(), pool, 8, false);
+        final long count = validator.validate(root, new DirectoryTreeValidator.ViolationListener() {
+            public void violation(final Path pathParam, final Exception causeParam) {
+            }
+        });
+        assertEquals("Files of 40 to 49 bytes should be reported.", 10, count);
+    }
+
+    @Test
+    public void testStopOnFirstViolation() throws IOException {
+        final DirectoryTreeValidator validator = new DirectoryTreeValidator(Predicates.<Path>alwaysFalse(),
+                Predicates.<Path>alwaysTrue(), pool, 4, true);
+        final long count = validator.validate(root, new DirectoryTreeValidator.ViolationListener() {
+            public void violation(final Path pathParam, final Exception causeParam) {
+            }
+        });
+        assertEquals("Only the first violation should be reported.", 1, count);
+    }
+
+    @Test
+    public void testInterruptedWalkIsIncomplete() throws IOException {
+        final DirectoryTreeValidator validator = new DirectoryTreeValidator(Predicates.<Path>alwaysFalse(),
+                Predicates.<Path>alwaysTrue(), pool, 1, false);
+        Thread.currentThread().interrupt();
+        try {
+            validator.validate(root, new DirectoryTreeValidator.ViolationListener() {
+                public void violation(final Path pathParam, final Exception causeParam) {
+                }
+            });
+            fail("An interrupted walk should not return a partial count.");
+        } catch (InterruptedIOException e) {
+            assertTrue("The interrupt status should be kept.", Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
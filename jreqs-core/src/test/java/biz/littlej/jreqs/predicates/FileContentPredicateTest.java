@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link FileContentPredicate}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class FileContentPredicateTest {
+    private static final byte[] PNG_MAGIC = new byte[]{(byte) 0x89, 'P', 'N', 'G'};
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(final String nameParam, final byte[] contentParam) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(nameParam), contentParam);
+    }
+
+    private static long crc32c(final byte[] contentParam) {
+        final CRC32C crc = new CRC32C();
+        crc.update(contentParam, 0, contentParam.length);
+        return crc.getValue();
+    }
+
+    @Test
+    public void testMagicAndTrailingNewline() throws IOException {
+        final byte[] content = new byte[]{(byte) 0x89, 'P', 'N', 'G', 'x', '\n'};
+        final Path file = write("image.png", content);
+        assertTrue("Matching magic bytes should evaluate to true.", Predicates.fileStartingWith(PNG_MAGIC).apply(file));
+        assertFalse("Other magic bytes should evaluate to false.", Predicates.fileStartingWith(new byte[]{'G', 'I', 'F'}).apply(file));
+        assertTrue("Trailing newline should evaluate to true.", Predicates.fileEndingWithNewline().apply(file));
+        assertFalse("Empty file should evaluate to false.", Predicates.fileEndingWithNewline().apply(write("empty", new byte[0])));
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        final Path file = write("ten", new byte[10]);
+        assertTrue("File within the limit should evaluate to true.", Predicates.fileNotLargerThan(10).apply(file));
+        assertFalse("File over the limit should evaluate to false.", Predicates.fileNotLargerThan(9).apply(file));
+    }
+
+    @Test
+    public void testNulBytes() throws IOException {
+        final byte[] text = "no nul bytes in here, only text\n".getBytes(StandardCharsets.US_ASCII);
+        assertTrue("Text should evaluate to true.", Predicates.fileWithoutNulBytes().apply(write("text", text)));
+        for (int i = 0; i < text.length; i++) {
+            final byte[] withNul = text.clone();
+            withNul[i] = 0;
+            assertFalse("NUL byte at " + i + " should evaluate to false.", Predicates.fileWithoutNulBytes().apply(write("nul" + i, withNul)));
+        }
+    }
+
+    @Test
+    public void testCrc32cOnBufferedAndMappedFiles() throws IOException {
+        final byte[] small = "some content\n".getBytes(StandardCharsets.US_ASCII);
+        assertTrue("Matching checksum should evaluate to true.", Predicates.fileWithCrc32c(crc32c(small)).apply(write("small", small)));
+        assertFalse("Other checksum should evaluate to false.", Predicates.fileWithCrc32c(crc32c(small) ^ 1).apply(write("small2", small)));
+        final byte[] large = new byte[(int) FileContentPredicate.MAPPING_THRESHOLD * 3 + 7];
+        Arrays.fill(large, (byte) 'a');
+        final Path file = write("large", large);
+        assertTrue("Matching checksum of a mapped file should evaluate to true.", Predicates.fileWithCrc32c(crc32c(large)).apply(file));
+    }
+
+    @Test
+    public void testCombinedChecksInOnePass() throws IOException {
+        final byte[] content = new byte[200000];
+        Arrays.fill(content, (byte) 'z');
+        System.arraycopy(PNG_MAGIC, 0, content, 0, PNG_MAGIC.length);
+        content[content.length - 1] = '\n';
+        final Path file = write("combined", content);
+        final FileContentPredicate all = FileContentPredicate.startingWith(PNG_MAGIC)
+                .and(FileContentPredicate.notLargerThan(content.length))
+                .and(FileContentPredicate.endingWithNewline())
+                .and(FileContentPredicate.withCrc32c(crc32c(content)))
+                .and(FileContentPredicate.withoutNulBytes());
+        assertTrue("File verifying all checks should evaluate to true.", all.apply(file));
+        assertFalse("Tighter size limit should evaluate to false.", all.and(FileContentPredicate.notLargerThan(100)).apply(file));
+        assertFalse("Conflicting magic bytes should evaluate to false.", all.and(FileContentPredicate.startingWith(new byte[]{1})).apply(file));
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertFalse("Missing file should evaluate to false.", Predicates.fileWithoutNulBytes().apply(folder.getRoot().toPath().resolve("missing")));
+    }
+
+    @Test
+    public void testBuffersAreReturnedToThePool() throws IOException {
+        final Path file = write("pooled", "pooled content\n".getBytes(StandardCharsets.US_ASCII));
+        FileContentPredicate.BUFFERS.clear();
+        assertTrue("File without NUL bytes should evaluate to true.", Predicates.fileWithoutNulBytes().apply(file));
+        assertEquals("The buffer should be returned to the pool.", 1, FileContentPredicate.BUFFERS.size());
+        assertTrue("File without NUL bytes should evaluate to true.", Predicates.fileWithoutNulBytes().apply(file));
+        assertTrue("Trailing newline should evaluate to true.", Predicates.fileEndingWithNewline().apply(file));
+        assertEquals("The pooled buffer should be reused.", 1, FileContentPredicate.BUFFERS.size());
+    }
+}
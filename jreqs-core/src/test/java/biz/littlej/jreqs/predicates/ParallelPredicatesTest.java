@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ParallelAndPredicate} and {@link ParallelOrPredicate}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ParallelPredicatesTest {
+    private static final long THRESHOLD = 1000000L;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * An expensive predicate that blocks until interrupted.
+     */
+    private static Predicate<Object> blocking(final CountDownLatch startedParam, final CountDownLatch interruptedParam) {
+        return PredicateCosts.withEstimatedCost(new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                startedParam.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interruptedParam.countDown();
+                }
+                return true;
+            }
+        }, THRESHOLD);
+    }
+
+    /**
+     * An expensive predicate that waits for the latch before evaluating to the specified value.
+     */
+    private static Predicate<Object> after(final CountDownLatch latchParam, final boolean valueParam) {
+        return PredicateCosts.withEstimatedCost(new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                try {
+                    latchParam.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return valueParam;
+            }
+        }, THRESHOLD);
+    }
+
+    private static Predicate<Object> expensive(final boolean valueParam) {
+        return PredicateCosts.withEstimatedCost(Predicates.equalTo(valueParam ? "yes" : "no"), THRESHOLD);
+    }
+
+    @Test(timeout = 10000)
+    public void testAndReturnsOnFirstFalseAndCancels() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Predicate<Object> p = PredicateOperations.parallelAnd(executor, THRESHOLD, blocking(started, interrupted), after(started, false));
+        assertFalse("AND with a false member should evaluate to false.", p.apply("yes"));
+        assertTrue("Running member should be interrupted.", interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testOrReturnsOnFirstTrueAndCancels() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Predicate<Object> p = PredicateOperations.parallelOr(executor, THRESHOLD, blocking(started, interrupted), after(started, true));
+        assertTrue("OR with a true member should evaluate to true.", p.apply("yes"));
+        assertTrue("Running member should be interrupted.", interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testReturnsBeforeBlockingLastMember() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Predicate<Object> p = PredicateOperations.parallelAnd(executor, THRESHOLD, expensive(false), blocking(started, interrupted));
+        final long begin = System.nanoTime();
+        assertFalse("AND with a false member should evaluate to false.", p.apply("yes"));
+        assertTrue("A decisive first member should not wait for the blocking last member.",
+                System.nanoTime() - begin < TimeUnit.SECONDS.toNanos(5));
+        if (started.await(1, TimeUnit.SECONDS)) {
+            assertTrue("Blocking member should be interrupted.", interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testWithoutDecisiveMember() {
+        assertTrue("AND of true members should evaluate to true.",
+                PredicateOperations.parallelAnd(executor, THRESHOLD, expensive(true), expensive(true), Predicates.alwaysTrue()).apply("yes"));
+        assertFalse("OR of false members should evaluate to false.",
+                PredicateOperations.parallelOr(executor, THRESHOLD, expensive(false), expensive(false), Predicates.alwaysFalse()).apply("yes"));
+    }
+
+    @Test
+    public void testCheapMembersStayOnCallingThread() {
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final Predicate<Object> recording = new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                thread.set(Thread.currentThread());
+                return true;
+            }
+        };
+        assertTrue("AND of true members should evaluate to true.",
+                PredicateOperations.parallelAnd(executor, THRESHOLD, recording, expensive(true), expensive(true)).apply("yes"));
+        assertSame("Cheap member should be evaluated on the calling thread.", Thread.currentThread(), thread.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMemberFailurePropagates() {
+        final Predicate<Boolean> failing = PredicateCosts.withEstimatedCost(Predicates.isTrue(), THRESHOLD);
+        PredicateOperations.parallelAnd(executor, THRESHOLD, failing, failing).apply(null);
+    }
+
+    @Test
+    public void testCostEstimates() {
+        assertEquals("File predicates should be estimated as I/O.", PredicateCosts.IO_COST_NANOS, PredicateCosts.estimateNanos(Predicates.existingFile()));
+        assertEquals("Unknown predicates should get the default estimate.", PredicateCosts.DEFAULT_COST_NANOS, PredicateCosts.estimateNanos(Predicates.alwaysTrue()));
+        assertEquals("Composites should sum their members.", PredicateCosts.IO_COST_NANOS + PredicateCosts.DEFAULT_COST_NANOS,
+                PredicateCosts.estimateNanos(PredicateOperations.and(Predicates.<File>alwaysTrue(), Predicates.existingFile())));
+    }
+}
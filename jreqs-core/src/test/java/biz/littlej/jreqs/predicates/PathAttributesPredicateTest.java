@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PathAttributesPredicate} and {@link FileAttributesCache}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class PathAttributesPredicateTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadableRegularNotHiddenFile() throws IOException {
+        final Path file = folder.newFile("visible.txt").toPath();
+        final Predicate<Path> p = Predicates.pathWithAttributes(PathAttribute.EXISTS, PathAttribute.REGULAR_FILE,
+                PathAttribute.READABLE, PathAttribute.NOT_HIDDEN);
+        assertTrue("Readable visible regular file should evaluate to true.", p.apply(file));
+        assertFalse("Directory should evaluate to false.", p.apply(folder.getRoot().toPath()));
+        assertFalse("Missing file should evaluate to false.", p.apply(file.resolveSibling("missing.txt")));
+    }
+
+    @Test
+    public void testHiddenFile() throws IOException {
+        final Path file = folder.newFile(".hidden").toPath();
+        assertFalse("Hidden file should evaluate to false.",
+                Predicates.pathWithAttributes(PathAttribute.NOT_HIDDEN).apply(file));
+        assertTrue("Hidden file should evaluate to true.",
+                Predicates.pathWithAttributes(PathAttribute.HIDDEN).apply(file));
+    }
+
+    @Test
+    public void testMaxSizeAndPermissions() throws IOException {
+        final Path file = folder.newFile("data.bin").toPath();
+        Files.write(file, new byte[16]);
+        final Predicate<Path> small = PathAttributesPredicate.getInstance(Arrays.asList(PathAttribute.REGULAR_FILE),
+                EnumSet.of(PosixFilePermission.OWNER_READ), 15);
+        final Predicate<Path> large = PathAttributesPredicate.getInstance(Arrays.asList(PathAttribute.REGULAR_FILE),
+                EnumSet.of(PosixFilePermission.OWNER_READ), 16);
+        assertFalse("File larger than the limit should evaluate to false.", small.apply(file));
+        assertTrue("File within the limit should evaluate to true.", large.apply(file));
+    }
+
+    @Test
+    public void testSameInstanceForSameChecks() {
+        assertSame("Same checks should share one instance.",
+                PathAttributesPredicate.getInstance(PathAttribute.EXISTS, PathAttribute.DIRECTORY),
+                PathAttributesPredicate.getInstance(PathAttribute.DIRECTORY, PathAttribute.EXISTS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHiddenAndNotHidden() {
+        PathAttributesPredicate.getInstance(PathAttribute.HIDDEN, PathAttribute.NOT_HIDDEN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullInput() {
+        Predicates.pathWithAttributes(PathAttribute.EXISTS).apply(null);
+    }
+
+    @Test
+    public void testCacheServesStaleAttributesUntilInvalidated() throws IOException {
+        final Path file = folder.newFile("cached.txt").toPath();
+        final FileAttributesCache cache = new FileAttributesCache(1, TimeUnit.HOURS);
+        try {
+            final Predicate<Path> p = PathAttributesPredicate.getInstance(PathAttribute.EXISTS).withCache(cache);
+            assertTrue("Existing file should evaluate to true.", p.apply(file));
+            Files.delete(file);
+            assertTrue("Cached attributes should still be used.", p.apply(file));
+            cache.invalidate(file);
+            assertFalse("Deleted file should evaluate to false after invalidation.", p.apply(file));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testCacheInvalidatedByWatchedDirectory() throws IOException, InterruptedException {
+        final Path file = folder.newFile("watched.txt").toPath();
+        final FileAttributesCache cache = new FileAttributesCache(1, TimeUnit.HOURS);
+        try {
+            cache.watch(folder.getRoot().toPath());
+            final Predicate<Path> p = PathAttributesPredicate.getInstance(PathAttribute.EXISTS).withCache(cache);
+            assertTrue("Existing file should evaluate to true.", p.apply(file));
+            Files.delete(file);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (p.apply(file) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertFalse("Deleted file should evaluate to false once the watch service reported it.", p.apply(file));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() throws IOException {
+        final FileAttributesCache cache = new FileAttributesCache(1, TimeUnit.HOURS, 4);
+        try {
+            final Predicate<Path> p = PathAttributesPredicate.getInstance(PathAttribute.EXISTS).withCache(cache);
+            for (int i = 0; i < 20; i++) {
+                assertTrue("Existing file should evaluate to true.", p.apply(folder.newFile("bounded" + i + ".txt").toPath()));
+                assertTrue("The cache must not hold more paths than its maximum.", cache.size() <= 4);
+            }
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void testExpiredEntriesArePurged() throws IOException, InterruptedException {
+        final FileAttributesCache cache = new FileAttributesCache(1, TimeUnit.MILLISECONDS, 4);
+        try {
+            final Predicate<Path> p = PathAttributesPredicate.getInstance(PathAttribute.EXISTS).withCache(cache);
+            for (int i = 0; i < 4; i++) {
+                p.apply(folder.newFile("expired" + i + ".txt").toPath());
+            }
+            Thread.sleep(5);
+            p.apply(folder.newFile("fresh.txt").toPath());
+            assertEquals("Expired entries should be purged when the cache is full.", 1, cache.size());
+        } finally {
+            cache.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static biz.littlej.jreqs.predicates.PredicateOperations.or;
+import static biz.littlej.jreqs.predicates.PredicateOperations.xor;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PredicateCodec}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class PredicateCodecTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, Predicate<?>> rules() {
+        final Map<String, Predicate<?>> rules = new LinkedHashMap<String, Predicate<?>>();
+        final Predicate<Object> notNull = Predicates.notNull();
+        rules.put("name", and((Predicate) notNull, and((Predicate) Predicates.notBlankString(), Predicates.containsPattern(Pattern.compile("^[a-z]+$", Pattern.CASE_INSENSITIVE)))));
+        rules.put("age", or((Predicate) Predicates.strictlyPositive(), Predicates.equalTo(new BigDecimal("-1.5"))));
+        rules.put("flag", xor((Predicate) Predicates.isTrue(), Predicates.equalTo(Boolean.FALSE)));
+        rules.put("unit", Predicates.equalTo(TimeUnit.SECONDS));
+        rules.put("type", and(Predicates.instanceOf(CharSequence.class), (Predicate) Predicates.equalTo('x')));
+        rules.put("types", Predicates.allInstanceOf(Number.class));
+        rules.put("class", Predicates.assignableFrom(int.class));
+        rules.put("list", Predicates.allIterableElements(not(Predicates.equalTo(42L))));
+        rules.put("url", Predicates.isValidUrl());
+        rules.put("path", PathAttributesPredicate.getInstance(Arrays.asList(PathAttribute.EXISTS, PathAttribute.READABLE),
+                EnumSet.of(PosixFilePermission.OWNER_READ), 1024));
+        rules.put("content", FileContentPredicate.startingWith(new byte[]{1, 2}).and(FileContentPredicate.withCrc32c(7)));
+        rules.put("shared", notNull);
+        return rules;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void assertSameResults(final Map<String, Predicate<?>> expectedParam, final Map<String, Predicate<?>> actualParam) {
+        assertEquals("Rule names should be kept in order.", expectedParam.keySet().toString(), actualParam.keySet().toString());
+        final Object[] inputs = {"abc", "ABC", "ab1", " ", "", 5, -1, new BigDecimal("-1.5"), true, false, TimeUnit.SECONDS,
+                'x', Arrays.asList(1, 2), Arrays.asList(42L), Collections.emptyList(), int.class, Integer.class};
+        for (final String name : expectedParam.keySet()) {
+            if (name.equals("path") || name.equals("content")) {
+                continue;
+            }
+            for (final Object input : inputs) {
+                assertEquals("Rule " + name + " should evaluate the same on " + input, evaluate(expectedParam.get(name), input),
+                        evaluate(actualParam.get(name), input));
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static String evaluate(final Predicate predicateParam, final Object inputParam) {
+        try {
+            return String.valueOf(predicateParam.apply(inputParam));
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final Map<String, Predicate<?>> rules = rules();
+        final byte[] bytes = PredicateCodec.encode(rules);
+        assertEquals("Magic bytes expected.", "JRQS", new String(bytes, 0, 4, "US-ASCII"));
+        final Map<String, Predicate<?>> decoded = PredicateCodec.decode(ByteBuffer.wrap(bytes), getClass().getClassLoader());
+        assertSameResults(rules, decoded);
+        assertSame("Enum predicates should decode to themselves.", Predicates.isValidUrl(), decoded.get("url"));
+        assertSame("Cached predicates should be reused.", Predicates.allInstanceOf(Number.class), decoded.get("types"));
+        assertEquals("Re-encoding should give the same bytes.", Arrays.toString(bytes), Arrays.toString(PredicateCodec.encode(decoded)));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        final Map<String, Predicate<?>> rules = new LinkedHashMap<String, Predicate<?>>();
+        for (int i = 0; i < 2000; i++) {
+            rules.put("rule" + i, and(Predicates.notNull(), Predicates.equalTo("value" + (i % 100))));
+        }
+        final Path file = folder.getRoot().toPath().resolve("rules.jrqs");
+        PredicateCodec.write(rules, file);
+        final Map<String, Predicate<?>> read = PredicateCodec.read(file);
+        assertEquals("All rules should be read.", 2000, read.size());
+        assertSameResults(rules, read);
+        final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(serialized);
+        out.writeObject(new LinkedHashMap<String, Predicate<?>>(rules));
+        out.close();
+        assertTrue("Encoded rules should be smaller than serialized ones: " + file.toFile().length() + " vs " + serialized.size(),
+                file.toFile().length() < serialized.size());
+    }
+
+    @Test
+    public void testInvalidInput() throws IOException {
+        try {
+            PredicateCodec.encode(Collections.singletonMap("custom", new Predicate<Object>() {
+                public boolean apply(final Object inputParam) {
+                    return true;
+                }
+            }));
+            fail("User-defined predicate should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        final byte[] bytes = PredicateCodec.encode(rules());
+        final byte[] newer = bytes.clone();
+        newer[4] = (byte) (PredicateCodec.MAJOR_VERSION + 1);
+        final byte[][] invalid = {"NOPE".getBytes("US-ASCII"), newer, Arrays.copyOf(bytes, bytes.length / 2)};
+        for (final byte[] data : invalid) {
+            try {
+                PredicateCodec.decode(ByteBuffer.wrap(data), getClass().getClassLoader());
+                fail("Invalid rule set should be rejected.");
+            } catch (StreamCorruptedException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptedLengths() throws IOException {
+        final byte[][] invalid = {
+                {'J', 'R', 'Q', 'S', PredicateCodec.MAJOR_VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0},
+                {'J', 'R', 'Q', 'S', PredicateCodec.MAJOR_VERSION, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07},
+                {'J', 'R', 'Q', 'S', PredicateCodec.MAJOR_VERSION, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}};
+        for (final byte[] data : invalid) {
+            try {
+                PredicateCodec.decode(ByteBuffer.wrap(data), getClass().getClassLoader());
+                fail("Rule set with a length larger than its input should be rejected.");
+            } catch (StreamCorruptedException e) {
+                assertTrue("Message should report the invalid length: " + e.getMessage(), e.getMessage().startsWith("Invalid length"));
+            }
+        }
+        final Path file = folder.getRoot().toPath().resolve("corrupted.jrqs");
+        Files.write(file, invalid[0]);
+        try {
+            PredicateCodec.read(file);
+            fail("Corrupted rule set file should be rejected.");
+        } catch (StreamCorruptedException e) {
+            // Expected.
+        }
+    }
+}
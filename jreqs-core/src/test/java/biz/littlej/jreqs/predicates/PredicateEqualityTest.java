@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static biz.littlej.jreqs.predicates.PredicateOperations.or;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the structural equality of the built-in predicates and their interning by {@link PredicateCache}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class PredicateEqualityTest {
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testIdenticalTreesShareOneInstance() {
+        final Predicate<Object> first = and(Predicates.notNull(), or(not((Predicate) Predicates.containsPattern("a+")), Predicates.equalTo("b")));
+        final Predicate<Object> second = and(Predicates.notNull(), or(not((Predicate) Predicates.containsPattern("a+")), Predicates.equalTo("b")));
+        assertSame("Identical trees should be the same instance.", first, second);
+        assertSame("Negations of the same predicate should be the same instance.", Predicates.notNull(), Predicates.notNull());
+        assertSame("Patterns with the same expression should be the same instance.",
+                Predicates.containsPattern(Pattern.compile("x")), Predicates.containsPattern("x"));
+        assertNotSame("Patterns with other flags should differ.",
+                Predicates.containsPattern(Pattern.compile("x", Pattern.CASE_INSENSITIVE)), Predicates.containsPattern("x"));
+        assertEquals("Iterable predicates should compare their members.",
+                new IterableElementsPredicate(Predicates.notNull(), IterableElementsPredicate.Matching.ALL),
+                new IterableElementsPredicate(Predicates.notNull(), IterableElementsPredicate.Matching.ALL));
+        assertEquals("File content predicates should compare their checks.",
+                FileContentPredicate.startingWith(new byte[]{1, 2}), FileContentPredicate.startingWith(new byte[]{1, 2}));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testHashCollisionsDoNotShareInstances() {
+        assertEquals("Test strings should collide.", "Aa".hashCode(), "BB".hashCode());
+        assertEquals("Member arrays should collide.", Arrays.deepHashCode(new Object[]{Predicates.isNull(), Predicates.equalTo("Aa")}),
+                Arrays.deepHashCode(new Object[]{Predicates.isNull(), Predicates.equalTo("BB")}));
+        final Predicate<Object> aa = or(Predicates.isNull(), Predicates.equalTo("Aa"));
+        final Predicate<Object> bb = or(Predicates.isNull(), Predicates.equalTo("BB"));
+        assertNotSame("Colliding trees should differ.", aa, bb);
+        assertTrue("First tree should accept its value.", aa.apply("Aa"));
+        assertTrue("Second tree should accept its value.", bb.apply("BB"));
+        assertFalse("Second tree should reject the value of the first.", bb.apply("Aa"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeserializedTreesAreInterned() throws IOException, ClassNotFoundException {
+        final Predicate<Object> tree = and(Predicates.notNull(), Predicates.equalTo(42));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(tree);
+        out.close();
+        final Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertSame("Deserialized tree should be the interned instance.", tree, read);
+    }
+
+    @Test
+    public void testConcurrentInterningGivesOneInstance() throws InterruptedException {
+        final int threads = 8;
+        final Object[] canonical = new Object[threads];
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            workers[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    canonical[index] = and(Predicates.notNull(), Predicates.equalTo("concurrent"));
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        for (int i = 1; i < threads; i++) {
+            assertSame("Equal trees built concurrently should be the same instance.", canonical[0], canonical[i]);
+        }
+    }
+
+    @Test
+    public void testCollectedPredicatesAreReplaced() throws InterruptedException {
+        final WeakReference<Predicate<Object>> first = new WeakReference<Predicate<Object>>(Predicates.equalTo("collected"));
+        for (int i = 0; i < 100 && first.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("The cache should not keep interned predicates reachable.", first.get());
+        final Predicate<Object> second = Predicates.equalTo("collected");
+        assertSame("An equal predicate should be interned again.", second, Predicates.equalTo("collected"));
+    }
+}
@@ -40,4 +40,16 @@ public class PredicateOperationsTest {
            // assertFalse("Operation AND predicate must always evaluate to false when applied on null.", p.apply(null));
         }
     }
+
+    @Test
+    public void testXor() {
+        final Predicate<Object> t = Predicates.alwaysTrue();
+        final Predicate<Object> f = Predicates.alwaysFalse();
+        final Object o = new Object();
+        assertFalse("XOR of false and false must evaluate to false.", PredicateOperations.xor(f, f).apply(o));
+        assertTrue("XOR of false and true must evaluate to true.", PredicateOperations.xor(f, t).apply(o));
+        assertTrue("XOR of true and false must evaluate to true.", PredicateOperations.xor(t, f).apply(o));
+        assertFalse("XOR of true and true must evaluate to false.", PredicateOperations.xor(t, t).apply(o));
+        assertTrue("XOR must build an XorPredicate.", PredicateOperations.xor(t, f) instanceof XorPredicate);
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import biz.littlej.jreqs.predicates.PredicateOptimizer.Optimization;
+import biz.littlej.jreqs.predicates.PredicateOptimizer.Rewrite;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static biz.littlej.jreqs.predicates.PredicateOperations.or;
+import static biz.littlej.jreqs.predicates.PredicateOperations.xor;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PredicateOptimizer}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class PredicateOptimizerTest {
+    private static final Predicate<Object> A = Predicates.equalTo(1);
+    private static final Predicate<Object> B = Predicates.equalTo(2);
+    private static final Predicate<Object> C = Predicates.equalTo(3);
+
+    private static void assertOptimized(final String messageParam, final Predicate<Object> expectedParam,
+                                        final Predicate<Object> predicateParam, final Rewrite rewriteParam) {
+        final Optimization<Object> optimization = PredicateOptimizer.optimizeWithReport(predicateParam);
+        assertSame(messageParam, expectedParam, optimization.getPredicate());
+        assertTrue(messageParam + " should count " + rewriteParam + ": " + optimization, optimization.getRewriteCount(rewriteParam) > 0);
+    }
+
+    @Test
+    public void testRewrites() {
+        assertOptimized("Constant folding.", A, and(Predicates.alwaysTrue(), A), Rewrite.CONSTANT_FOLDING);
+        assertOptimized("Constant folding.", Predicates.alwaysFalse(), and(A, Predicates.alwaysFalse()), Rewrite.CONSTANT_FOLDING);
+        assertOptimized("Constant folding.", not(A), xor(A, Predicates.alwaysTrue()), Rewrite.CONSTANT_FOLDING);
+        assertOptimized("Double negation.", A, not(not(A)), Rewrite.DOUBLE_NEGATION);
+        assertOptimized("Duplicate elimination.", A, or(A, A), Rewrite.DUPLICATE_ELIMINATION);
+        assertOptimized("Duplicate elimination.", Predicates.alwaysFalse(), xor(B, B), Rewrite.DUPLICATE_ELIMINATION);
+        assertOptimized("Absorption.", A, and(A, or(A, B)), Rewrite.ABSORPTION);
+        assertOptimized("Absorption.", A, or(A, and(B, A)), Rewrite.ABSORPTION);
+        assertOptimized("De Morgan.", not(or(A, B)), and(not(A), not(B)), Rewrite.DE_MORGAN);
+        assertOptimized("Flattening.", and(and(A, B), C), and(and(A, B), and(A, C)), Rewrite.FLATTENING);
+        assertSame("Simplest tree should be kept.", and(A, or(B, C)), PredicateOptimizer.optimize(and(A, or(B, C))));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testMembersKeepTheirOrder() {
+        final Predicate<Object> guarded = and(Predicates.notNull(), and(not((Predicate) Predicates.blankString()), Predicates.notNull()));
+        assertSame("Guard should stay first.", not(or(Predicates.isNull(), (Predicate) Predicates.blankString())),
+                PredicateOptimizer.optimize(guarded));
+        assertFalse("Null should still be rejected by the guard.", PredicateOptimizer.optimize(guarded).apply(null));
+        assertSame("Absorbed member before its absorber should be kept.", and(or(A, B), A), PredicateOptimizer.optimize(and(or(A, B), A)));
+    }
+
+    @Test
+    public void testSameValues() {
+        final List<Predicate<Object>> trees = Arrays.asList(
+                and(or(A, not(not(B))), and(Predicates.alwaysTrue(), or(A, not(not(B))))),
+                or(and(not(A), not(B)), xor(C, not(C))),
+                xor(not(A), not(or(B, and(B, C)))),
+                not(and(not(A), or(not(B), not(C)))),
+                or(or(A, and(A, B)), or(Predicates.alwaysFalse(), and(not(C), not(A)))));
+        for (final Predicate<Object> tree : trees) {
+            final Optimization<Object> optimization = PredicateOptimizer.optimizeWithReport(tree);
+            assertTrue("Nodes should be removed: " + optimization, optimization.getNodeCount() < optimization.getOriginalNodeCount());
+            assertTrue("Estimated cost should not grow: " + optimization, optimization.getCostNanos() <= optimization.getOriginalCostNanos());
+            for (int input = 0; input < 5; input++) {
+                assertEquals("Value on " + input + ": " + optimization, tree.apply(input), optimization.getPredicate().apply(input));
+            }
+        }
+    }
+}
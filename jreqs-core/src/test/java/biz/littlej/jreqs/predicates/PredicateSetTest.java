@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static biz.littlej.jreqs.predicates.PredicateOperations.or;
+import static biz.littlej.jreqs.predicates.PredicateOperations.xor;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PredicateSet}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class PredicateSetTest {
+    private static final class CountingPredicate implements Predicate<Object> {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Predicate<Object> predicate;
+
+        private CountingPredicate(final Predicate<Object> predicateParam) {
+            predicate = predicateParam;
+        }
+
+        public boolean apply(final Object inputParam) {
+            calls.incrementAndGet();
+            return predicate.apply(inputParam);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, Predicate<Object>> rules(final Predicate<Object> sharedParam) {
+        final Map<String, Predicate<Object>> rules = new LinkedHashMap<String, Predicate<Object>>();
+        rules.put("name", and(Predicates.notNull(), not(sharedParam)));
+        rules.put("short", and(Predicates.notNull(), and(not(sharedParam), (Predicate) Predicates.containsPattern("^.{0,3}$"))));
+        rules.put("either", or(not(sharedParam), Predicates.isNull()));
+        rules.put("exclusive", xor(Predicates.notNull(), (Predicate) Predicates.containsPattern("x")));
+        return rules;
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testSharedNodesEvaluatedOnce() {
+        final CountingPredicate blank = new CountingPredicate((Predicate) Predicates.blankString());
+        final PredicateSet<Object> set = PredicateSet.of(rules(blank));
+        // isNull, notNull, blank, not(blank), name, pattern, and, short, either, pattern x, exclusive.
+        assertEquals("Equal sub-trees should be merged.", 11, set.getNodeCount());
+        final PredicateSet.Evaluation<Object> evaluation = set.newEvaluation();
+        assertFalse("Long name should not verify all rules.", evaluation.evaluate("abcd"));
+        assertEquals("Shared leaf should be evaluated once per input.", 1, blank.calls.get());
+        assertTrue("Name rule should be verified.", evaluation.isVerified(0));
+        assertFalse("Short rule should not be verified.", evaluation.isVerified(1));
+        assertTrue("Short name should verify all rules.", evaluation.evaluate("abc"));
+        assertEquals("Shared leaf should be evaluated once per input.", 2, blank.calls.get());
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testSameResultsAsRules() {
+        final Map<String, Predicate<Object>> rules = rules((Predicate) Predicates.blankString());
+        final PredicateSet<Object> set = PredicateSet.of(rules);
+        final PredicateSet.Evaluation<Object> evaluation = set.newEvaluation();
+        for (final String input : Arrays.asList("", " ", "x", "ab", "abcx", "abcdef")) {
+            evaluation.evaluate(input);
+            int index = 0;
+            for (final Map.Entry<String, Predicate<Object>> rule : rules.entrySet()) {
+                assertEquals("Rule " + rule.getKey() + " on '" + input + "'.", rule.getValue().apply(input), evaluation.isVerified(index));
+                assertEquals("Rule names should keep map order.", rule.getKey(), set.getRuleName(index));
+                index++;
+            }
+        }
+        assertEquals("Failed rules of a long input.", Arrays.asList("short", "exclusive"), evaluation.getFailedRules("abcx"));
+        assertEquals("Failed rules of a valid input.", Collections.emptyList(), evaluation.getFailedRules("ab"));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testShortCircuitPreserved() {
+        final Map<String, Predicate<Object>> rules = new LinkedHashMap<String, Predicate<Object>>();
+        rules.put("pattern", and(Predicates.notNull(), (Predicate) Predicates.containsPattern("a")));
+        rules.put("null", Predicates.isNull());
+        final PredicateSet<Object> set = PredicateSet.of(rules);
+        assertEquals("Null should only fail the pattern rule.", Collections.singletonList("pattern"), set.newEvaluation().getFailedRules(null));
+    }
+}
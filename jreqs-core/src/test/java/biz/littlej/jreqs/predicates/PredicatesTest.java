@@ -207,6 +207,23 @@ public class PredicatesTest {
         }
     }
 
+    @Test
+    public void testAllInstanceOfArrays() {
+        final AllInstanceOfPredicate comparables = (AllInstanceOfPredicate) Predicates.allInstanceOf(Comparable.class);
+        assertTrue("String array should evaluate to true.", comparables.applyToArray(new String[]{"a", "b"}));
+        assertFalse("String array with null should evaluate to false.", comparables.applyToArray(new String[]{"a", null}));
+        assertTrue("Object array of comparables should evaluate to true.", comparables.applyToArray(new Object[]{"a", 1}));
+        assertFalse("Object array with another element should evaluate to false.", comparables.applyToArray(new Object[]{"a", new Object()}));
+        final AllInstanceOfPredicate numbers = (AllInstanceOfPredicate) Predicates.allInstanceOf(Number.class);
+        assertFalse("Non-empty array of unrelated final type should evaluate to false.", numbers.applyToArray(new String[]{"1"}));
+        assertTrue("Empty array of unrelated final type should evaluate to true.", numbers.applyToArray(new String[0]));
+        assertFalse("Array of unrelated class should evaluate to false.", numbers.applyToArray(new Date[]{new Date()}));
+        final AllInstanceOfPredicate stringArrays = (AllInstanceOfPredicate) Predicates.allInstanceOf(String[].class);
+        assertTrue("Array of string arrays typed as Object[][] should evaluate to true.",
+                stringArrays.applyToArray(new Object[][]{new String[]{"x"}}));
+        assertFalse("Array of object arrays should evaluate to false.", stringArrays.applyToArray(new Object[][]{new Object[0]}));
+    }
+
     @Test
     public void testBlankString() {
         {
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static biz.littlej.jreqs.predicates.PredicateOperations.or;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ProfilingPredicate}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ProfilingPredicateTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Predicate<Object> tree() {
+        final Predicate<Object> notNull = Predicates.notNull();
+        final Predicate<Object> string = Predicates.instanceOf(String.class);
+        final Predicate<Object> integer = Predicates.instanceOf(Integer.class);
+        return and(notNull, or(string, not(integer)));
+    }
+
+    @Test
+    public void testCountsPerNode() {
+        final Predicate<Object> tree = tree();
+        final ProfilingPredicate<Object> profiling = ProfilingPredicate.getInstance(tree);
+        final Object[] inputs = {"a", "b", 1, 2L, null};
+        for (final Object input : inputs) {
+            assertEquals("Profiling should not change the result for " + input, tree.apply(input), profiling.apply(input));
+        }
+        final ProfilingPredicate.NodeProfile root = profiling.getProfile();
+        assertEquals("Root should be the AND.", "AND", root.getLabel());
+        assertEquals("Root should be evaluated once per input.", 5, root.getInvocations());
+        assertEquals("Strings and longs should pass.", 3, root.getTrueCount());
+        assertEquals("Integer and null should fail.", 2, root.getFalseCount());
+        final List<? extends ProfilingPredicate.NodeProfile> members = root.getChildren();
+        assertEquals("Not null should reject the null input.", 1, members.get(0).getFalseCount());
+        final ProfilingPredicate.NodeProfile or = members.get(1);
+        assertEquals("Short-circuit should skip the OR for null.", 4, or.getInvocations());
+        final ProfilingPredicate.NodeProfile not = or.getChildren().get(1);
+        assertEquals("NOT should only see non strings.", "NOT", not.getLabel());
+        assertEquals("NOT should be evaluated for 1 and 2L.", 2, not.getInvocations());
+        assertTrue("Total time should include the members.", root.getTotalNanos() >= root.getSelfNanos());
+        profiling.reset();
+        assertEquals("Reset should clear the counters.", 0, not.getInvocations());
+    }
+
+    @Test
+    public void testExplainAndExport() throws IOException {
+        final ProfilingPredicate<Object> profiling = ProfilingPredicate.getInstance(tree());
+        profiling.apply("a");
+        final String[] lines = profiling.explain().split("\n");
+        assertEquals("One line per node expected, not null being a negation.", 7, lines.length);
+        assertTrue("Root line should give the counts: " + lines[0], lines[0].startsWith("AND  calls=1 true=1 false=0 total="));
+        assertTrue("Members should be indented: " + lines[1], lines[1].startsWith("  NOT  calls=1 true=1"));
+        assertTrue("Members should be indented: " + lines[3], lines[3].startsWith("  OR  calls=1 true=1"));
+        assertTrue("Skipped member should have no calls: " + lines[5], lines[5].startsWith("    NOT  calls=0"));
+        final Path file = folder.getRoot().toPath().resolve("profile.csv");
+        profiling.export(file);
+        final List<String> rows = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("Header and one row per node expected.", 8, rows.size());
+        assertEquals("Header expected.", "id,parent,depth,label,calls,true,false,totalNanos,selfNanos", rows.get(0));
+        assertTrue("Root row expected: " + rows.get(1), rows.get(1).startsWith("0,-1,0,AND,1,1,0,"));
+        assertTrue("Leaf of the NOT expected: " + rows.get(7), rows.get(7).startsWith("6,5,3,"));
+    }
+
+    @Test
+    public void testExceptionsAreCounted() {
+        final ProfilingPredicate<Object> profiling = ProfilingPredicate.getInstance(new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                throw new IllegalStateException("Broken.");
+            }
+
+            @Override
+            public String toString() {
+                return "broken";
+            }
+        });
+        try {
+            profiling.apply(null);
+            fail("Exception should propagate.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertEquals("Failed evaluation should be counted.", 1, profiling.getProfile().getInvocations());
+        assertEquals("Failed evaluation should be neither true nor false.", 0, profiling.getProfile().getFalseCount());
+        assertEquals("Overridden toString should be the label.", "broken", profiling.getProfile().getLabel());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.predicates;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compares the ways of checking that all elements are instances of an interface, on elements of classes with deep
+ * hierarchies: {@link AllInstanceOfPredicate#apply(Iterable)}, which calls {@code Class.isInstance} per element,
+ * the same loop with the verdicts memoized per element class in a {@code ClassValue}, and
+ * {@link AllInstanceOfPredicate#applyToArray(Object[])}.  Run it from the test class path:
+ * <pre>
+ * java -cp target/classes:target/test-classes biz.littlej.jreqs.predicates.TypeCheckBenchmark
+ * </pre>
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public final class TypeCheckBenchmark {
+    private static final int CALLS = 200000;
+    private static final int ROUNDS = 5;
+    private static final int ELEMENTS = 100;
+
+    private interface Deep {
+    }
+
+    private static class Level1 implements Deep {
+    }
+
+    private static class Level2 extends Level1 implements Runnable {
+        public void run() {
+        }
+    }
+
+    private static class Level3 extends Level2 implements Cloneable {
+    }
+
+    private static class Level4 extends Level3 implements Comparable<Level4> {
+        public int compareTo(final Level4 otherParam) {
+            return 0;
+        }
+    }
+
+    private static class Level5 extends Level4 implements RandomAccess {
+    }
+
+    /**
+     * Memoizes the verdict of each element class in a {@code ClassValue}.
+     */
+    private static final class MemoizedAllInstanceOf implements Predicate<Iterable<?>> {
+        private final ClassValue<Boolean> verdicts;
+
+        private MemoizedAllInstanceOf(final Class<?> classParam) {
+            verdicts = new ClassValue<Boolean>() {
+                @Override
+                protected Boolean computeValue(final Class<?> typeParam) {
+                    return classParam.isAssignableFrom(typeParam);
+                }
+            };
+        }
+
+        public boolean apply(final Iterable<?> inputParam) {
+            for (final Object current : inputParam) {
+                if (current == null || !verdicts.get(current.getClass())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static void main(final String[] argumentsParam) {
+        final Level1[] array = new Level1[ELEMENTS];
+        for (int i = 0; i < ELEMENTS; i++) {
+            array[i] = i % 5 == 0 ? new Level1() : i % 5 == 1 ? new Level2() : i % 5 == 2 ? new Level3() : i % 5 == 3 ? new Level4() : new Level5();
+        }
+        final List<Level1> list = Arrays.asList(array);
+        final AllInstanceOfPredicate predicate = (AllInstanceOfPredicate) Predicates.allInstanceOf(Deep.class);
+        final MemoizedAllInstanceOf memoized = new MemoizedAllInstanceOf(Deep.class);
+        for (int round = 0; round < ROUNDS; round++) {
+            int count = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                count += predicate.apply(list) ? 1 : 0;
+            }
+            final long perElement = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                count += memoized.apply(list) ? 1 : 0;
+            }
+            final long perElementMemoized = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                count += predicate.applyToArray(array) ? 1 : 0;
+            }
+            final long fromComponentType = System.nanoTime() - start;
+            System.out.println("Round " + round + ", " + ELEMENTS + " elements: isInstance " + perElement / CALLS
+                    + " ns, ClassValue " + perElementMemoized / CALLS + " ns, component type " + fromComponentType / CALLS
+                    + " ns (" + count + ")");
+        }
+    }
+
+    /**
+     * Private constructor on final class so that the class can't be instantiated nor extended.
+     */
+    private TypeCheckBenchmark() {
+    }
+}
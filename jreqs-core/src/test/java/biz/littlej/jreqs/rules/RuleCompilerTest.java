@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RuleCompiler}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class RuleCompilerTest {
+    @Test
+    public void testOperatorsAndPrecedence() {
+        final RuleCompiler compiler = new RuleCompiler();
+        final Predicate<Object> name = compiler.compile("notNull & !blank & matches('[a-z]+')");
+        assertTrue("Lower-case word should evaluate to true.", name.apply("abc"));
+        assertFalse("Null should evaluate to false.", name.apply(null));
+        assertFalse("Blank string should evaluate to false.", name.apply("  "));
+        assertFalse("Upper-case word should evaluate to false.", name.apply("Abc"));
+        assertFalse("Partly matching word should evaluate to false.", name.apply("abc1"));
+        assertTrue("Alternatives should all be anchored.", compiler.compile("matches('a|bc')").apply("bc"));
+        assertFalse("Alternatives should all be anchored.", compiler.compile("matches('a|bc')").apply("abc"));
+        final Predicate<Object> precedence = compiler.compile("true | false & false");
+        assertTrue("AND should bind tighter than OR.", precedence.apply(null));
+        assertFalse("Parentheses should override precedence.", compiler.compile("(true | false) & false").apply(null));
+        assertFalse("XOR of equal values should evaluate to false.", compiler.compile("true ^ true").apply(null));
+        assertTrue("XOR of different values should evaluate to true.", compiler.compile("true ^ false").apply(null));
+    }
+
+    @Test
+    public void testFunctions() {
+        final RuleCompiler compiler = new RuleCompiler();
+        assertTrue("Equal string should evaluate to true.", compiler.compile("equalTo(\"it's\")").apply("it's"));
+        assertTrue("Equal integer should evaluate to true.", compiler.compile("equalTo(42)").apply(42));
+        assertTrue("Instance of the class should evaluate to true.", compiler.compile("instanceOf('java.lang.CharSequence')").apply("x"));
+        assertFalse("Instance of another class should evaluate to false.", compiler.compile("instanceOf('java.lang.Number')").apply("x"));
+        final Predicate<Object> allPositive = compiler.compile("allElements(notNull & strictlyPositive)");
+        assertTrue("Positive elements should evaluate to true.", allPositive.apply(Arrays.asList(1, 2, 3)));
+        assertFalse("Zero element should evaluate to false.", allPositive.apply(Arrays.asList(1, 0)));
+        assertTrue("Empty collection should evaluate to true.", compiler.compile("emptyCollection").apply(Collections.emptyList()));
+    }
+
+    @Test
+    public void testCache() {
+        final RuleCompiler compiler = new RuleCompiler();
+        final Predicate<Object> first = compiler.compile("notNull & !empty");
+        assertSame("The same expression should be compiled once.", first, compiler.compile("notNull & !empty"));
+        assertEquals("Cache should hold one expression.", 1, compiler.getCacheSize());
+        try {
+            compiler.compile("notNull &");
+            fail("Malformed expression should be rejected.");
+        } catch (RuleSyntaxException e) {
+            assertEquals("Malformed expressions should not be cached.", 1, compiler.getCacheSize());
+        }
+        compiler.clearCache();
+        assertEquals("Cleared cache should be empty.", 0, compiler.getCacheSize());
+        assertSame("Compiling again should give the interned predicate.", first, compiler.compile("notNull & !empty"));
+    }
+
+    @Test
+    public void testBoundedCache() {
+        final RuleCompiler compiler = new RuleCompiler(8);
+        for (int i = 0; i < 100; i++) {
+            assertTrue("Equal value should evaluate to true.", compiler.compile("equalTo(" + i + ")").apply(i));
+            assertTrue("Cache should not hold more expressions than its maximum.", compiler.getCacheSize() <= 8);
+        }
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        final RuleCompiler compiler = new RuleCompiler();
+        assertPosition(compiler, "notNull & unknown", 10);
+        assertPosition(compiler, "(notNull", 8);
+        assertPosition(compiler, "matches('unterminated", 8);
+        assertPosition(compiler, "matches('a)|(b')", 0);
+        assertPosition(compiler, "notNull notNull", 8);
+    }
+
+    private static void assertPosition(final RuleCompiler compilerParam, final String expressionParam, final int positionParam) {
+        try {
+            compilerParam.compile(expressionParam);
+            fail("Malformed expression should be rejected: " + expressionParam);
+        } catch (RuleSyntaxException e) {
+            assertEquals("Error position of: " + expressionParam, positionParam, e.getPosition());
+            assertEquals("Source should be the expression.", expressionParam, e.getSource());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.rules;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RuleRegistry}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class RuleRegistryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(final Path fileParam, final String contentParam, final long modifiedParam) throws IOException {
+        Files.write(fileParam, contentParam.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(fileParam, FileTime.fromMillis(modifiedParam));
+        return fileParam;
+    }
+
+    @Test
+    public void testLoadAndReload() throws IOException {
+        final Path file = write(folder.getRoot().toPath().resolve("rules"),
+                "# user rules\n\nname = notNull & !blank\nage = positive\n", 1000L);
+        final RuleRegistry registry = RuleRegistry.load(file, new RuleCompiler());
+        assertEquals("Two rules should be loaded.", 2, registry.getRules().size());
+        assertTrue("Valid name should evaluate to true.", registry.apply("name", "joe"));
+        assertFalse("Blank name should evaluate to false.", registry.apply("name", " "));
+        assertNull("Unknown rule should be null.", registry.get("email"));
+        assertFalse("Unmodified file should not be reloaded.", registry.reloadIfModified());
+        write(file, "name = matches('^[A-Z]')\n", 2000L);
+        assertTrue("Modified file should be reloaded.", registry.reloadIfModified());
+        assertFalse("Reloaded rule should be used.", registry.apply("name", "joe"));
+        assertNull("Removed rule should be gone.", registry.get("age"));
+    }
+
+    @Test
+    public void testInvalidReloadKeepsRules() throws IOException {
+        final Path file = write(folder.getRoot().toPath().resolve("rules"), "name = notNull\n", 1000L);
+        final RuleRegistry registry = RuleRegistry.load(file, new RuleCompiler());
+        final Map<String, Predicate<Object>> before = registry.getRules();
+        write(file, "name = notNull\nage = positive &\n", 2000L);
+        try {
+            registry.reload();
+            fail("Malformed rule should be rejected.");
+        } catch (RuleSyntaxException e) {
+            assertTrue("Message should locate the rule: " + e.getMessage(), e.getMessage().startsWith("Rule 'age' at line 2:"));
+        }
+        assertSame("Rules should be kept.", before, registry.getRules());
+        try {
+            registry.apply("age", 1);
+            fail("Unknown rule should be rejected.");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testDuplicateNames() throws IOException {
+        final Path file = write(folder.getRoot().toPath().resolve("rules"), "name = notNull\nage = positive\nname = blank\n", 1000L);
+        try {
+            RuleRegistry.load(file, new RuleCompiler());
+            fail("Rule defined twice should be rejected.");
+        } catch (RuleSyntaxException e) {
+            assertTrue("Message should locate the duplicate: " + e.getMessage(), e.getMessage().startsWith("Rule 'name' at line 3 is already defined"));
+        }
+    }
+
+    @Test
+    public void testReadersDuringReloads() throws Exception {
+        final Path file = write(folder.getRoot().toPath().resolve("rules"), "a = true\nb = true\n", 1000L);
+        final RuleRegistry registry = RuleRegistry.load(file, new RuleCompiler());
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final Thread reader = new Thread(new Runnable() {
+            public void run() {
+                while (running.get()) {
+                    final Map<String, Predicate<Object>> rules = registry.getRules();
+                    if (rules.get("a").apply(null) != rules.get("b").apply(null)) {
+                        failure.set("Readers should never see rules of two different loads.");
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 200; i++) {
+            final String value = i % 2 == 0 ? "false" : "true";
+            write(file, "a = " + value + "\nb = " + value + "\n", 2000L + i);
+            registry.reload();
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get(), failure.get());
+    }
+}
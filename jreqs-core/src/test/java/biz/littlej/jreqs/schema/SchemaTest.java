@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.schema;
+
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static biz.littlej.jreqs.predicates.PredicateOperations.and;
+import static biz.littlej.jreqs.predicates.PredicateOperations.not;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link Schema}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class SchemaTest {
+    public static class User {
+        public String email;
+        private final String name;
+        private final int age;
+        private final boolean active;
+
+        public User(final String nameParam, final int ageParam, final boolean activeParam, final String emailParam) {
+            name = nameParam;
+            age = ageParam;
+            active = activeParam;
+            email = emailParam;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public String nickname() {
+            return name == null ? null : name.toLowerCase();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Predicate<Object> NAME = and(Predicates.notNull(), not((Predicate) Predicates.blankString()));
+
+    @Test
+    public void testBeanSchema() {
+        final Schema<User> schema = Schema.forType(User.class)
+                .field("name", NAME)
+                .field("age", Predicates.strictlyPositive())
+                .field("active", Predicates.isTrue())
+                .field("nickname", Predicates.notNull())
+                .field("email", Predicates.containsPattern("@"))
+                .build();
+        assertEquals("Field names should keep their order.", Arrays.asList("name", "age", "active", "nickname", "email"), schema.getFieldNames());
+        assertTrue("Valid user should evaluate to true.", schema.apply(new User("Joe", 42, true, "joe@example.org")));
+        assertEquals("Valid user should have no failed field.", Collections.emptyList(), schema.validate(new User("Joe", 42, true, "joe@example.org")));
+        assertFalse("Invalid user should evaluate to false.", schema.apply(new User("Joe", 0, true, "joe@example.org")));
+        assertEquals("All failed fields should be reported.", Arrays.asList("name", "age", "active"),
+                schema.validate(new User(" ", -1, false, "joe@example.org")));
+        for (int i = 0; i < 4; i++) {
+            assertFalse("Getters should be called through generated classes.", schema.getAccessor(i) instanceof Schema.HandleAccessor);
+        }
+        assertTrue("Public fields should be read through a method handle.", schema.getAccessor(4) instanceof Schema.HandleAccessor);
+    }
+
+    @Test
+    public void testMapSchema() {
+        final Schema<Map<String, ?>> schema = Schema.forMap()
+                .field("name", NAME)
+                .field("age", Predicates.notNull())
+                .build();
+        final Map<String, Object> payload = new HashMap<String, Object>();
+        payload.put("name", "Joe");
+        payload.put("age", 42);
+        assertTrue("Valid payload should evaluate to true.", schema.apply(payload));
+        payload.remove("age");
+        assertEquals("Missing key should be null.", Collections.singletonList("age"), schema.validate(payload));
+    }
+
+    @Test
+    public void testExplicitAccessorAndUnknownField() {
+        final Schema<User> schema = Schema.forType(User.class)
+                .field("initial", (User user) -> user.getName().charAt(0), Predicates.equalTo('J'))
+                .build();
+        assertTrue("Explicit accessor should be used.", schema.apply(new User("Joe", 1, true, null)));
+        try {
+            Schema.forType(User.class).field("password", Predicates.notNull());
+            fail("Unknown field should be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertTrue("Message should name the field: " + e.getMessage(), e.getMessage().contains("password"));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.schema;
+
+import biz.littlej.jreqs.RequirementException;
+import biz.littlej.jreqs.predicates.Predicate;
+import biz.littlej.jreqs.predicates.Predicates;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ValidatorRegistry} and {@link Validators}.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ValidatorRegistryTest {
+    private interface Named {
+    }
+
+    private static class Entity {
+    }
+
+    private static class Customer extends Entity implements Named {
+    }
+
+    private static class VipCustomer extends Customer {
+    }
+
+    private static Predicate<Object> recording(final List<String> callsParam, final String nameParam, final boolean valueParam) {
+        return new Predicate<Object>() {
+            public boolean apply(final Object inputParam) {
+                callsParam.add(nameParam);
+                return valueParam;
+            }
+        };
+    }
+
+    @Test
+    public void testHierarchyResolution() {
+        final List<String> calls = new ArrayList<String>();
+        final ValidatorRegistry registry = new ValidatorRegistry()
+                .register(Customer.class, recording(calls, "customer", true))
+                .register(Named.class, recording(calls, "named", true))
+                .register(Entity.class, recording(calls, "entity", true));
+        assertTrue("Valid customer should evaluate to true.", registry.forType(new VipCustomer()).apply(new VipCustomer()));
+        assertEquals("Supertypes should be checked from the most general.", Arrays.asList("entity", "named", "customer"), calls);
+        assertSame("Resolved predicate should be cached.", registry.forType(VipCustomer.class), registry.forType(new VipCustomer()));
+        assertSame("Unregistered type should always be valid.", Predicates.alwaysTrue(), registry.forType("text"));
+    }
+
+    @Test
+    public void testRegistrationInvalidatesResolvedPredicates() {
+        final List<String> calls = new ArrayList<String>();
+        final ValidatorRegistry registry = new ValidatorRegistry().register(Entity.class, recording(calls, "entity", true));
+        assertTrue("Customer should be valid.", registry.forType(new Customer()).apply(new Customer()));
+        registry.register(Named.class, recording(calls, "named", false));
+        assertFalse("Later registration should apply to resolved types.", registry.forType(new Customer()).apply(new Customer()));
+        assertTrue("Unrelated type should not be affected.", registry.forType(new Entity()).apply(new Entity()));
+    }
+
+    @Test
+    public void testValidators() {
+        final Customer customer = new Customer();
+        Validators.register(Customer.class, Predicates.alwaysFalse());
+        try {
+            Validators.condition(customer, "Customer must be valid.");
+            fail("Invalid customer should be rejected.");
+        } catch (RequirementException e) {
+            assertTrue("Message should be kept: " + e.getMessage(), e.getMessage().contains("Customer must be valid."));
+        }
+        Validators.condition(new Entity(), "Entity must be valid.");
+        assertSame("Shared registry should be used.", Validators.getRegistry().forType(customer), Validators.forType(customer));
+    }
+
+    @Test
+    public void testRegisteredClassLoaderCanBeCollected() throws Exception {
+        final ValidatorRegistry registry = new ValidatorRegistry();
+        final WeakReference<ClassLoader> loader = registerIsolatedClass(registry);
+        for (int i = 0; i < 100 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("The registry should not keep the class loader of a registered class reachable.", loader.get());
+        assertTrue("The registry should still be usable.", registry.forType(new Entity()).apply(new Entity()));
+    }
+
+    /**
+     * Loads {@link Entity} again with a class loader of its own, registers a predicate for that copy and resolves it.
+     */
+    private static WeakReference<ClassLoader> registerIsolatedClass(final ValidatorRegistry registryParam) throws Exception {
+        final String name = Entity.class.getName();
+        final InputStream in = Entity.class.getResourceAsStream("/" + name.replace('.', '/') + ".class");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        final ClassLoader loader = new ClassLoader(ValidatorRegistryTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(final String nameParam, final boolean resolveParam) throws ClassNotFoundException {
+                if (!nameParam.equals(name)) {
+                    return super.loadClass(nameParam, resolveParam);
+                }
+                final byte[] content = bytes.toByteArray();
+                return defineClass(nameParam, content, 0, content.length);
+            }
+        };
+        final Class<?> isolated = loader.loadClass(name);
+        assertNotSame("The class should be loaded again.", Entity.class, isolated);
+        registryParam.register(isolated, Predicates.notNull());
+        assertNotNull("The predicate of the class should be resolved.", registryParam.forType(isolated));
+        return new WeakReference<ClassLoader>(loader);
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates guard code for the {@link Requires} and {@link Ensures} contracts of the compiled classes.
+ * <p/>
+ * Annotation processors can't change method bodies, so for each class {@code Foo} with contracts, a package-private
+ * {@code FooContracts} class is generated, whose static guards are called explicitly:
+ * <pre>
+ * public void rename(&#64;Requires("notBlankString") final String nameParam) {
+ *     FooContracts.requireRename(nameParam);
+ *     ...
+ * }
+ * </pre>
+ * The built-in conditions whose logic is known are inlined as plain expressions on the parameter, without predicate
+ * objects nor reflection; a condition on a primitive that always holds, such as {@code notNull}, is eliminated.  The
+ * inlined expressions are a fast path: when one does not hold, the guard calls the {@code Reqs} method with the
+ * predicate, which throws the usual exception with the usual message.  The other conditions always go through the
+ * {@code Reqs} method.
+ * <p/>
+ * Each check is reported as a compiler note stating whether it was inlined, eliminated or falls back to the runtime
+ * {@code Reqs} call, and all checks are listed in the {@value #REPORT} resource of the class output.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+@SupportedAnnotationTypes({"biz.littlej.jreqs.processor.Requires", "biz.littlej.jreqs.processor.Ensures"})
+public final class ContractProcessor extends AbstractProcessor {
+    /**
+     * The path of the report resource, relative to the class output.
+     */
+    public static final String REPORT = "META-INF/jreqs/contracts.txt";
+    private static final String PREDICATES = "biz.littlej.jreqs.predicates.Predicates";
+    private static final String REQS = "biz.littlej.jreqs.Reqs";
+    private static final Set<String> NUMBER_CHECKS = new HashSet<String>(Arrays.asList("positive", "strictlyPositive", "negative", "strictlyNegative", "zero"));
+    private static final Set<String> BOXED_NUMBERS = new HashSet<String>(Arrays.asList(
+            "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double"));
+    private final List<String> report = new ArrayList<String>();
+    private int inlinedCount;
+    private int eliminatedCount;
+    private int runtimeCount;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotationsParam, final RoundEnvironment roundEnvParam) {
+        if (roundEnvParam.processingOver()) {
+            writeReport();
+            return false;
+        }
+        final Map<TypeElement, Set<ExecutableElement>> contracts = new LinkedHashMap<TypeElement, Set<ExecutableElement>>();
+        for (final Element element : roundEnvParam.getElementsAnnotatedWith(Requires.class)) {
+            addContract(contracts, (ExecutableElement) element.getEnclosingElement());
+        }
+        for (final Element element : roundEnvParam.getElementsAnnotatedWith(Ensures.class)) {
+            addContract(contracts, (ExecutableElement) element);
+        }
+        for (final Map.Entry<TypeElement, Set<ExecutableElement>> entry : contracts.entrySet()) {
+            generate(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private static void addContract(final Map<TypeElement, Set<ExecutableElement>> contractsParam, final ExecutableElement methodParam) {
+        final TypeElement type = (TypeElement) methodParam.getEnclosingElement();
+        Set<ExecutableElement> methods = contractsParam.get(type);
+        if (methods == null) {
+            methods = new LinkedHashSet<ExecutableElement>();
+            contractsParam.put(type, methods);
+        }
+        methods.add(methodParam);
+    }
+
+    private void generate(final TypeElement typeParam, final Set<ExecutableElement> methodsParam) {
+        final String packageName = processingEnv.getElementUtils().getPackageOf(typeParam).getQualifiedName().toString();
+        final String className = contractsClassName(typeParam);
+        final StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n * Contract guards of {@link ").append(typeParam.getQualifiedName()).append("}.\n */\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(ContractProcessor.class.getName()).append("\")\n");
+        out.append("final class ").append(className).append(" {\n");
+        final Set<String> signatures = new HashSet<String>();
+        for (final ExecutableElement method : methodsParam) {
+            if (!generateRequires(out, typeParam, method, signatures) || !generateEnsures(out, typeParam, method, signatures)) {
+                return;
+            }
+        }
+        out.append("    private ").append(className).append("() {\n    }\n}\n");
+        final String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try {
+            final Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, typeParam).openWriter();
+            try {
+                writer.write(out.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "jreqs: can't write " + qualifiedName + ": " + e.getMessage(), typeParam);
+        }
+    }
+
+    private boolean generateRequires(final StringBuilder outParam, final TypeElement typeParam,
+                                     final ExecutableElement methodParam, final Set<String> signaturesParam) {
+        final StringBuilder body = new StringBuilder();
+        final StringBuilder parameters = new StringBuilder();
+        final StringBuilder signature = new StringBuilder();
+        for (final VariableElement parameter : methodParam.getParameters()) {
+            final String type = erasure(parameter.asType());
+            parameters.append(parameters.length() == 0 ? "" : ", ").append("final ").append(type).append(' ').append(parameter.getSimpleName());
+            signature.append(type).append(';');
+            final Requires requires = parameter.getAnnotation(Requires.class);
+            if (requires != null) {
+                final String defaultMessage = parameter.getSimpleName() + " of " + typeParam.getSimpleName() + "." + methodName(methodParam) + " must verify ";
+                if (!generateChecks(body, parameter, parameter.asType(), parameter.getSimpleName().toString(),
+                        requires.value(), requires.message(), defaultMessage, "parameterCondition")) {
+                    return false;
+                }
+            }
+        }
+        if (body.length() == 0) {
+            return true;
+        }
+        final String name = guardName("require", methodParam, signature.toString(), signaturesParam);
+        outParam.append("    static void ").append(name).append('(').append(parameters).append(") {\n").append(body).append("    }\n\n");
+        return true;
+    }
+
+    private boolean generateEnsures(final StringBuilder outParam, final TypeElement typeParam,
+                                    final ExecutableElement methodParam, final Set<String> signaturesParam) {
+        final Ensures ensures = methodParam.getAnnotation(Ensures.class);
+        if (ensures == null) {
+            return true;
+        }
+        final TypeMirror resultType = methodParam.getReturnType();
+        if (resultType.getKind() == TypeKind.VOID) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "jreqs: @Ensures requires a method with a result.", methodParam);
+            return false;
+        }
+        final StringBuilder body = new StringBuilder();
+        final String defaultMessage = "Result of " + typeParam.getSimpleName() + "." + methodName(methodParam) + " must verify ";
+        if (!generateChecks(body, methodParam, resultType, "result", ensures.value(), ensures.message(), defaultMessage, "postCondition")) {
+            return false;
+        }
+        final String type = erasure(resultType);
+        final String name = guardName("ensure", methodParam, type + ';', signaturesParam);
+        outParam.append("    static void ").append(name).append("(final ").append(type).append(" result) {\n").append(body).append("    }\n\n");
+        return true;
+    }
+
+    private boolean generateChecks(final StringBuilder bodyParam, final Element elementParam, final TypeMirror typeParam,
+                                   final String variableParam, final String[] checksParam, final String messageParam,
+                                   final String defaultMessageParam, final String reqsMethodParam) {
+        for (final String check : checksParam) {
+            if (!isPredicateFactory(check)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "jreqs: " + check + " is not a no-argument factory method of " + PREDICATES + ".", elementParam);
+                return false;
+            }
+            final String message = messageParam.isEmpty() ? defaultMessageParam + check + "." : messageParam;
+            final String call = REQS + "." + reqsMethodParam + "(" + PREDICATES + "." + check + "(), " + variableParam + ", " + literal(message) + ");\n";
+            final String condition = inline(check, typeParam, variableParam);
+            final String outcome;
+            if (condition == null) {
+                bodyParam.append("        // ").append(check).append(": runtime\n        ").append(call);
+                runtimeCount++;
+                outcome = "runtime";
+            } else if (condition.isEmpty()) {
+                bodyParam.append("        // ").append(check).append(": eliminated, always verified\n");
+                eliminatedCount++;
+                outcome = "eliminated";
+            } else {
+                bodyParam.append("        // ").append(check).append(": inlined\n        if (!(").append(condition).append(")) {\n            ").append(call).append("        }\n");
+                inlinedCount++;
+                outcome = "inlined";
+            }
+            final String location = elementParam instanceof VariableElement
+                    ? location((ExecutableElement) elementParam.getEnclosingElement()) + " " + elementParam.getSimpleName()
+                    : location((ExecutableElement) elementParam) + " result";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "jreqs: " + check + " " + outcome, elementParam);
+            report.add(location + " " + check + " " + outcome);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the Java expression that is equivalent to the specified check on a variable of the specified type,
+     * an empty string if the check always holds, or {@code null} if the check can't be inlined.
+     */
+    private String inline(final String checkParam, final TypeMirror typeParam, final String variableParam) {
+        final boolean primitive = typeParam.getKind().isPrimitive();
+        final String type = erasure(typeParam);
+        if (checkParam.equals("alwaysTrue")) {
+            return "";
+        }
+        if (checkParam.equals("notNull")) {
+            return primitive ? "" : variableParam + " != null";
+        }
+        if (checkParam.equals("isNull")) {
+            return primitive ? null : variableParam + " == null";
+        }
+        if (checkParam.equals("blankString") && type.equals("java.lang.String")) {
+            return variableParam + " == null || " + variableParam + ".trim().isEmpty()";
+        }
+        if (checkParam.equals("notBlankString") && type.equals("java.lang.String")) {
+            return variableParam + " != null && !" + variableParam + ".trim().isEmpty()";
+        }
+        if ((checkParam.equals("emptyCharSequence") || checkParam.equals("notEmptyCharSequence")) && isSubtype(typeParam, "java.lang.CharSequence")) {
+            return variableParam + " != null && " + variableParam + ".length() " + (checkParam.startsWith("empty") ? "==" : "!=") + " 0";
+        }
+        if ((checkParam.equals("emptyCollection") || checkParam.equals("notEmptyCollection")) && isSubtype(typeParam, "java.util.Collection")) {
+            return variableParam + " != null && " + (checkParam.startsWith("empty") ? "" : "!") + variableParam + ".isEmpty()";
+        }
+        if ((checkParam.equals("isTrue") || checkParam.equals("isFalse")) && (typeParam.getKind() == TypeKind.BOOLEAN || type.equals("java.lang.Boolean"))) {
+            final String value = (checkParam.equals("isTrue") ? "" : "!") + variableParam;
+            return primitive ? value : variableParam + " != null && " + value;
+        }
+        if (NUMBER_CHECKS.contains(checkParam)) {
+            // Like NumberPredicates, which compares the double value of numbers other than BigDecimal and BigInteger.
+            if (primitive && typeParam.getKind() != TypeKind.BOOLEAN && typeParam.getKind() != TypeKind.CHAR) {
+                return "0 " + comparison(checkParam) + " (double) " + variableParam;
+            }
+            if (BOXED_NUMBERS.contains(type)) {
+                return variableParam + " != null && 0 " + comparison(checkParam) + " " + variableParam + ".doubleValue()";
+            }
+        }
+        return null;
+    }
+
+    private static String location(final ExecutableElement methodParam) {
+        return ((TypeElement) methodParam.getEnclosingElement()).getQualifiedName() + "#" + methodParam;
+    }
+
+    private static String comparison(final String checkParam) {
+        if (checkParam.equals("positive")) {
+            return "<=";
+        }
+        if (checkParam.equals("strictlyPositive")) {
+            return "<";
+        }
+        if (checkParam.equals("negative")) {
+            return ">=";
+        }
+        if (checkParam.equals("strictlyNegative")) {
+            return ">";
+        }
+        return "==";
+    }
+
+    private boolean isPredicateFactory(final String nameParam) {
+        final TypeElement predicates = processingEnv.getElementUtils().getTypeElement(PREDICATES);
+        if (predicates == null) {
+            return false;
+        }
+        for (final ExecutableElement method : ElementFilter.methodsIn(predicates.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(nameParam) && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC) && method.getModifiers().contains(Modifier.STATIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isSubtype(final TypeMirror typeParam, final String supertypeParam) {
+        final TypeElement supertype = processingEnv.getElementUtils().getTypeElement(supertypeParam);
+        return !typeParam.getKind().isPrimitive() && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(typeParam), processingEnv.getTypeUtils().erasure(supertype.asType()));
+    }
+
+    private String erasure(final TypeMirror typeParam) {
+        return processingEnv.getTypeUtils().erasure(typeParam).toString();
+    }
+
+    private static String methodName(final ExecutableElement methodParam) {
+        return methodParam.getKind() == ElementKind.CONSTRUCTOR ? "<init>" : methodParam.getSimpleName().toString();
+    }
+
+    /**
+     * Returns the name of a guard, which is suffixed if another guard of the class has the same name and parameter
+     * types, as happens for the result guards of overloaded methods.
+     */
+    private static String guardName(final String prefixParam, final ExecutableElement methodParam, final String signatureParam,
+                                    final Set<String> signaturesParam) {
+        final String simpleName = methodParam.getKind() == ElementKind.CONSTRUCTOR ? "Constructor" : methodParam.getSimpleName().toString();
+        final String baseName = prefixParam + Character.toUpperCase(simpleName.charAt(0)) + simpleName.substring(1);
+        String name = baseName;
+        for (int i = 2; !signaturesParam.add(name + '(' + signatureParam); i++) {
+            name = baseName + i;
+        }
+        return name;
+    }
+
+    private static String contractsClassName(final TypeElement typeParam) {
+        final StringBuilder name = new StringBuilder(typeParam.getSimpleName());
+        for (Element enclosing = typeParam.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.append("Contracts").toString();
+    }
+
+    private static String literal(final String valueParam) {
+        final StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < valueParam.length(); i++) {
+            final char c = valueParam.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void writeReport() {
+        if (report.isEmpty()) {
+            return;
+        }
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "jreqs: " + inlinedCount + " checks inlined, "
+                + eliminatedCount + " eliminated, " + runtimeCount + " falling back to Reqs.");
+        try {
+            final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", REPORT);
+            final Writer writer = file.openWriter();
+            try {
+                writer.write("# inlined: " + inlinedCount + ", eliminated: " + eliminatedCount + ", runtime: " + runtimeCount + "\n");
+                for (final String line : report) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "jreqs: can't write " + REPORT + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the conditions that the result of a method must verify, as names of no-argument factory methods of
+ * {@code biz.littlej.jreqs.predicates.Predicates}, for example {@code @Ensures("positive")}.
+ * <p/>
+ * The {@link ContractProcessor} generates an {@code ensure<Method>} guard taking the result, which throws a
+ * {@code PostConditionException} like {@code Reqs.postCondition} if a condition is not verified.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Ensures {
+    /**
+     * @return The names of the {@code Predicates} factory methods, checked in order.
+     */
+    String[] value();
+
+    /**
+     * @return The explanatory message of the exception.  If empty, a message naming the method and the condition is
+     *         generated.
+     */
+    String message() default "";
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the conditions that a method or constructor parameter must verify, as names of no-argument factory
+ * methods of {@code biz.littlej.jreqs.predicates.Predicates}, for example {@code @Requires({"notNull", "notBlankString"})}.
+ * <p/>
+ * The {@link ContractProcessor} generates a {@code require<Method>} guard with the same parameters as the annotated
+ * method, which throws an {@code IllegalArgumentException} like {@code Reqs.parameterCondition} if a
+ * condition is not verified.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+public @interface Requires {
+    /**
+     * @return The names of the {@code Predicates} factory methods, checked in order.
+     */
+    String[] value();
+
+    /**
+     * @return The explanatory message of the exception.  If empty, a message naming the parameter and the condition
+     *         is generated.
+     */
+    String message() default "";
+}
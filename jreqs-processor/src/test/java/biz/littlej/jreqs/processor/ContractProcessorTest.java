@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2012 Yannick LOTH, LittleJ [www.littlej.biz]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package biz.littlej.jreqs.processor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ContractProcessor}, which compile sample classes with the processor.
+ *
+ * @author Yannick LOTH
+ * @since 0.1.3
+ */
+public class ContractProcessorTest {
+    private static final String ACCOUNT = "package sample;\n"
+            + "import biz.littlej.jreqs.processor.Ensures;\n"
+            + "import biz.littlej.jreqs.processor.Requires;\n"
+            + "public class Account {\n"
+            + "    private int balance;\n"
+            + "    public Account(@Requires(\"notBlankString\") final String nameParam) {\n"
+            + "        AccountContracts.requireConstructor(nameParam);\n"
+            + "    }\n"
+            + "    public void deposit(@Requires({\"strictlyPositive\", \"notNull\"}) final int amountParam,\n"
+            + "                        @Requires(value = \"isValidUrl\", message = \"Source must be a URL.\") final String sourceParam) {\n"
+            + "        AccountContracts.requireDeposit(amountParam, sourceParam);\n"
+            + "        balance += amountParam;\n"
+            + "    }\n"
+            + "    public void withdraw(final int amountParam) {\n"
+            + "        balance -= amountParam;\n"
+            + "    }\n"
+            + "    @Ensures(\"positive\")\n"
+            + "    public int getBalance() {\n"
+            + "        AccountContracts.ensureGetBalance(balance);\n"
+            + "        return balance;\n"
+            + "    }\n"
+            + "}\n";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DiagnosticCollector<JavaFileObject> compile(final String sourceParam, final File outputParam) throws IOException {
+        final File source = new File(folder.newFolder(), "Account.java");
+        Files.write(source.toPath(), sourceParam.getBytes(StandardCharsets.UTF_8));
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try {
+            compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-d", outputParam.getPath(), "-s", outputParam.getPath(),
+                            "-classpath", System.getProperty("java.class.path"),
+                            "-processor", ContractProcessor.class.getName()),
+                    null, fileManager.getJavaFileObjects(source)).call();
+        } finally {
+            fileManager.close();
+        }
+        return diagnostics;
+    }
+
+    private static String messages(final DiagnosticCollector<JavaFileObject> diagnosticsParam) {
+        final StringBuilder messages = new StringBuilder();
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnosticsParam.getDiagnostics()) {
+            messages.append(diagnostic.getKind()).append(": ").append(diagnostic.getMessage(null)).append('\n');
+        }
+        return messages.toString();
+    }
+
+    private static Throwable invoke(final Method methodParam, final Object targetParam, final Object... argumentsParam) throws Exception {
+        try {
+            methodParam.invoke(targetParam, argumentsParam);
+            return null;
+        } catch (InvocationTargetException e) {
+            return e.getCause();
+        }
+    }
+
+    @Test
+    public void shouldGenerateAndReportGuards() throws Exception {
+        final File output = folder.newFolder();
+        final String messages = messages(compile(ACCOUNT, output));
+        assertFalse("Compilation should succeed: " + messages, messages.contains("ERROR"));
+        assertTrue("Inlined check should be reported: " + messages, messages.contains("jreqs: notBlankString inlined"));
+        assertTrue("Eliminated check should be reported: " + messages, messages.contains("jreqs: notNull eliminated"));
+        assertTrue("Runtime check should be reported: " + messages, messages.contains("jreqs: isValidUrl runtime"));
+        assertTrue("Summary should be reported: " + messages, messages.contains("jreqs: 3 checks inlined, 1 eliminated, 1 falling back to Reqs."));
+        final String generated = new String(Files.readAllBytes(new File(output, "sample/AccountContracts.java").toPath()), StandardCharsets.UTF_8);
+        assertTrue("Number check should be inlined: " + generated, generated.contains("if (!(0 < (double) amountParam))"));
+        final String report = new String(Files.readAllBytes(new File(output, ContractProcessor.REPORT).toPath()), StandardCharsets.UTF_8);
+        assertTrue("Report should list the result check: " + report, report.contains("sample.Account#getBalance() result positive inlined"));
+
+        final URLClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()}, getClass().getClassLoader());
+        try {
+            final Class<?> account = loader.loadClass("sample.Account");
+            try {
+                account.getConstructor(String.class).newInstance(" ");
+                fail("Blank name should be rejected.");
+            } catch (InvocationTargetException e) {
+                assertTrue("Exception should be an IllegalArgumentException.", e.getCause() instanceof IllegalArgumentException);
+                assertTrue("Message should be the Reqs one.", e.getCause().getMessage().startsWith(
+                        "Parameter requirement not verified: nameParam of Account.<init> must verify notBlankString."));
+            }
+            final Object instance = account.getConstructor(String.class).newInstance("savings");
+            final Method deposit = account.getMethod("deposit", int.class, String.class);
+            assertNull("Valid deposit should be accepted.", invoke(deposit, instance, 5, "http://example.com"));
+            assertTrue("Zero amount should be rejected.", invoke(deposit, instance, 0, "http://example.com") instanceof IllegalArgumentException);
+            assertTrue("Custom message should be used.", invoke(deposit, instance, 5, "not a url").getMessage()
+                    .startsWith("Parameter requirement not verified: Source must be a URL."));
+            assertNull("Positive balance should be accepted.", invoke(account.getMethod("getBalance"), instance));
+            invoke(account.getMethod("withdraw", int.class), instance, 10);
+            assertEquals("Negative balance should be rejected.", "biz.littlej.jreqs.PostConditionException",
+                    invoke(account.getMethod("getBalance"), instance).getClass().getName());
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void shouldRejectUnknownPredicates() throws IOException {
+        final String messages = messages(compile(ACCOUNT.replace("notBlankString", "noSuchPredicate"), folder.newFolder()));
+        assertTrue("Unknown predicate should be an error: " + messages,
+                messages.contains("ERROR: jreqs: noSuchPredicate is not a no-argument factory method of biz.littlej.jreqs.predicates.Predicates."));
+    }
+}